@@ -17,9 +17,19 @@
 
 package com.io7m.ophis.api;
 
+import com.io7m.ophis.api.commands.OAbortMultipartUploadType;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadType;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadType;
+import com.io7m.ophis.api.commands.ODeleteObjectType;
+import com.io7m.ophis.api.commands.ODeleteObjectsType;
+import com.io7m.ophis.api.commands.OGetObjectType;
+import com.io7m.ophis.api.commands.OHeadObjectType;
 import com.io7m.ophis.api.commands.OListBucketsType;
 import com.io7m.ophis.api.commands.OListObjectsType;
 import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.api.commands.OUploadPartType;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The type of S3 commands supported by the client.
@@ -28,9 +38,18 @@ import com.io7m.ophis.api.commands.OPutObjectType;
  * @param <R> The type of returned values
  */
 
-public sealed interface OClientCommandType<P, R> permits OListBucketsType,
+public sealed interface OClientCommandType<P, R> permits
+  OAbortMultipartUploadType,
+  OCompleteMultipartUploadType,
+  OCreateMultipartUploadType,
+  ODeleteObjectType,
+  ODeleteObjectsType,
+  OGetObjectType,
+  OHeadObjectType,
+  OListBucketsType,
   OListObjectsType,
-  OPutObjectType
+  OPutObjectType,
+  OUploadPartType
 {
   /**
    * Execute the command.
@@ -42,4 +61,14 @@ public sealed interface OClientCommandType<P, R> permits OListBucketsType,
 
   R execute()
     throws OException;
+
+  /**
+   * Execute the command asynchronously. The calling thread is not blocked
+   * while the request is in flight. If the command fails, the returned
+   * future is completed exceptionally with an {@link OException}.
+   *
+   * @return The future results
+   */
+
+  CompletableFuture<R> executeAsync();
 }
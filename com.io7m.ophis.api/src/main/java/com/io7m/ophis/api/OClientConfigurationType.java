@@ -18,12 +18,15 @@
 package com.io7m.ophis.api;
 
 import com.io7m.immutables.styles.ImmutablesStyleType;
+import com.io7m.ophis.api.metrics.OMetricsListenerType;
 import org.immutables.value.Value;
 
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.function.Supplier;
 
 /**
@@ -71,6 +74,29 @@ public interface OClientConfigurationType
 
   OClientCredentialsType credentials();
 
+  /**
+   * @return The policy for signing the payloads of uploads
+   */
+
+  @Value.Default
+  default OClientPayloadSigning payloadSigning()
+  {
+    return OClientPayloadSigning.SIGNED;
+  }
+
+  /**
+   * @return The kind of threads on which the default HTTP client runs its
+   *         tasks; this is ignored if an HTTP client provider is specified
+   *
+   * @see #httpClientProvider()
+   */
+
+  @Value.Default
+  default OClientThreadKind httpClientThreads()
+  {
+    return OClientThreadKind.PLATFORM;
+  }
+
   /**
    * @return An HTTP client provider
    */
@@ -78,6 +104,164 @@ public interface OClientConfigurationType
   @Value.Default
   default Supplier<HttpClient> httpClientProvider()
   {
-    return HttpClient::newHttpClient;
+    final var threads = this.httpClientThreads();
+    return () -> OClientHTTPClients.create(threads);
+  }
+
+  /**
+   * <p>The number of HTTP clients across which requests are spread.</p>
+   * <p>Each HTTP client has a single selector thread that performs all of
+   * its network I/O, and that thread limits the rate at which a single
+   * client can complete requests. Using several clients allows the I/O to
+   * be spread over several threads, at the cost of each client keeping its
+   * own pool of connections. The HTTP client provider is called once for
+   * each client, and must therefore return a new client each time.</p>
+   *
+   * @return The number of HTTP clients
+   *
+   * @see #httpClientLaneSelection()
+   */
+
+  @Value.Default
+  default int httpClientLanes()
+  {
+    return 1;
+  }
+
+  /**
+   * @return The method by which each request is assigned to an HTTP client
+   *
+   * @see #httpClientLanes()
+   */
+
+  @Value.Default
+  default OClientLaneSelection httpClientLaneSelection()
+  {
+    return OClientLaneSelection.ROUND_ROBIN;
+  }
+
+  /**
+   * <p>The number of threads used to process the responses of asynchronous
+   * requests, including parsing response bodies.</p>
+   * <p>If no number is specified, each response is processed on a new
+   * virtual thread. Otherwise, responses are processed on a fixed pool of
+   * platform threads of the given size; this bounds the amount of CPU time
+   * spent parsing responses, and allows per-thread parsing and signing
+   * state to be reused between responses.</p>
+   *
+   * @return The number of response threads
+   */
+
+  OptionalInt responseThreads();
+
+  /**
+   * <p>The HTTP protocol version used for requests.</p>
+   * <p>With {@link HttpClient.Version#HTTP_2}, the protocol is negotiated
+   * using ALPN for {@code https} endpoints, and many concurrent requests can
+   * then share a single connection. For {@code http} endpoints, the JDK HTTP
+   * client attempts an upgrade to cleartext HTTP/2 ({@code h2c}) with an
+   * {@code Upgrade} header, and falls back to HTTP/1.1 if the server
+   * declines. The JDK HTTP client has no support for "prior knowledge"
+   * cleartext HTTP/2 connections.</p>
+   *
+   * @return The HTTP protocol version
+   */
+
+  @Value.Default
+  default HttpClient.Version httpVersion()
+  {
+    return HttpClient.Version.HTTP_1_1;
+  }
+
+  /**
+   * @return The size in octets of the ranges fetched by parallel downloads
+   */
+
+  @Value.Default
+  default long downloadPartSize()
+  {
+    return 16L * 1024L * 1024L;
+  }
+
+  /**
+   * @return The maximum number of ranges fetched at once by parallel downloads
+   */
+
+  @Value.Default
+  default int downloadConcurrency()
+  {
+    return 4;
+  }
+
+  /**
+   * @return The policy that determines when failed requests are retried
+   */
+
+  @Value.Default
+  default OClientRetryPolicy retryPolicy()
+  {
+    return OClientRetryPolicy.builder().build();
+  }
+
+  /**
+   * @return The policy for adaptively limiting the rate of requests, if
+   *         requests should be limited
+   */
+
+  Optional<OClientRateLimitPolicy> rateLimit();
+
+  /**
+   * @return The policy for hedging requests, if requests should be hedged
+   */
+
+  Optional<OClientHedgingPolicy> hedging();
+
+  /**
+   * @return The listeners that receive metrics for each request
+   */
+
+  List<OMetricsListenerType> metricsListeners();
+
+  /**
+   * @return The policy for caching object metadata, if metadata should be
+   *         cached
+   */
+
+  Optional<OClientMetadataCachePolicy> metadataCache();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.downloadPartSize() < 1L) {
+      throw new IllegalArgumentException(
+        "Download part size %d must be positive"
+          .formatted(Long.valueOf(this.downloadPartSize()))
+      );
+    }
+    if (this.downloadConcurrency() < 1) {
+      throw new IllegalArgumentException(
+        "Download concurrency %d must be positive"
+          .formatted(Integer.valueOf(this.downloadConcurrency()))
+      );
+    }
+
+    if (this.httpClientLanes() < 1) {
+      throw new IllegalArgumentException(
+        "HTTP client lanes %d must be positive"
+          .formatted(Integer.valueOf(this.httpClientLanes()))
+      );
+    }
+
+    final var threads = this.responseThreads();
+    if (threads.isPresent() && threads.getAsInt() < 1) {
+      throw new IllegalArgumentException(
+        "Response threads %d must be positive"
+          .formatted(Integer.valueOf(threads.getAsInt()))
+      );
+    }
   }
 }
@@ -36,4 +36,39 @@ public interface OClientFactoryType
   OClientType createClient(
     OClientConfiguration configuration)
     throws OException;
+
+  /**
+   * Create a new transport that can be shared between clients. The HTTP
+   * client provider, HTTP client threads, and response threads of the given
+   * configuration are used to create the transport.
+   *
+   * @param configuration The configuration
+   *
+   * @return A new transport
+   *
+   * @throws OException On errors
+   */
+
+  OClientTransportType createTransport(
+    OClientConfiguration configuration)
+    throws OException;
+
+  /**
+   * Create a new client using the given configuration and shared transport.
+   * The HTTP client provider, HTTP client threads, and response threads of
+   * the given configuration are ignored in favour of the transport. Closing
+   * the client does not close the transport.
+   *
+   * @param configuration The configuration
+   * @param transport     The shared transport
+   *
+   * @return A new client
+   *
+   * @throws OException On errors
+   */
+
+  OClientType createClient(
+    OClientConfiguration configuration,
+    OClientTransportType transport)
+    throws OException;
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Functions to create the default HTTP clients.
+ */
+
+final class OClientHTTPClients
+{
+  private static final ThreadFactory VIRTUAL_THREADS =
+    Thread.ofVirtual()
+      .name("com.io7m.ophis.http-", 0L)
+      .factory();
+
+  private OClientHTTPClients()
+  {
+
+  }
+
+  /**
+   * Create an HTTP client that runs its tasks on the given kind of threads.
+   *
+   * @param threads The kind of threads
+   *
+   * @return A new HTTP client
+   */
+
+  static HttpClient create(
+    final OClientThreadKind threads)
+  {
+    return switch (threads) {
+      case PLATFORM -> HttpClient.newHttpClient();
+      case VIRTUAL -> {
+        yield HttpClient.newBuilder()
+          .executor(task -> VIRTUAL_THREADS.newThread(task).start())
+          .build();
+      }
+    };
+  }
+}
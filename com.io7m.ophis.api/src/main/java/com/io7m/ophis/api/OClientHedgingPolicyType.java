@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * <p>A policy for hedging requests.</p>
+ * <p>If the response to a hedged request has not started to arrive after a
+ * delay, an identical request is sent, and whichever response arrives first
+ * is used; the other request is cancelled. The delay is the given percentile
+ * of the recent response times of the same kind of command, and so roughly
+ * {@code (100 - percentile)} percent of requests are hedged. Only commands
+ * that have no side effects until their response is consumed are hedged:
+ * listing commands, and fetching objects into streams.</p>
+ *
+ * @see "https://research.google/pubs/the-tail-at-scale/"
+ */
+
+@Value.Immutable
+@ImmutablesStyleType
+public interface OClientHedgingPolicyType
+{
+  /**
+   * @return The percentile of response times after which a request is hedged
+   */
+
+  @Value.Default
+  default double percentile()
+  {
+    return 95.0;
+  }
+
+  /**
+   * @return The delay used until enough response times have been recorded
+   */
+
+  @Value.Default
+  default Duration initialDelay()
+  {
+    return Duration.ofMillis(100L);
+  }
+
+  /**
+   * @return The minimum delay before a request is hedged
+   */
+
+  @Value.Default
+  default Duration minimumDelay()
+  {
+    return Duration.ofMillis(5L);
+  }
+
+  /**
+   * @return The maximum delay before a request is hedged
+   */
+
+  @Value.Default
+  default Duration maximumDelay()
+  {
+    return Duration.ofSeconds(2L);
+  }
+
+  /**
+   * @return The number of recent response times recorded for each kind of
+   *         command
+   */
+
+  @Value.Default
+  default int sampleWindow()
+  {
+    return 1000;
+  }
+
+  /**
+   * @return The number of response times that must be recorded before the
+   *         percentile is used instead of the initial delay
+   */
+
+  @Value.Default
+  default int minimumSamples()
+  {
+    return 50;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var percentile = this.percentile();
+    if (!(percentile > 0.0 && percentile < 100.0)) {
+      throw new IllegalArgumentException(
+        "Percentile %s must be in the range (0, 100)"
+          .formatted(Double.valueOf(percentile))
+      );
+    }
+
+    if (this.minimumDelay().isNegative()
+        || this.maximumDelay().compareTo(this.minimumDelay()) < 0) {
+      throw new IllegalArgumentException(
+        "Delays must satisfy 0 <= minimum %s <= maximum %s"
+          .formatted(this.minimumDelay(), this.maximumDelay())
+      );
+    }
+
+    if (this.initialDelay().isNegative()) {
+      throw new IllegalArgumentException(
+        "Initial delay %s must be non-negative"
+          .formatted(this.initialDelay())
+      );
+    }
+
+    if (this.sampleWindow() < 1
+        || this.minimumSamples() < 1
+        || this.minimumSamples() > this.sampleWindow()) {
+      throw new IllegalArgumentException(
+        "Samples must satisfy 1 <= minimum %d <= window %d"
+          .formatted(
+            Integer.valueOf(this.minimumSamples()),
+            Integer.valueOf(this.sampleWindow()))
+      );
+    }
+  }
+}
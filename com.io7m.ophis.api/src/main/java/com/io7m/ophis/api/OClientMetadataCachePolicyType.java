@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+
+/**
+ * <p>A policy for caching the responses to HeadObject commands.</p>
+ * <p>A cached response is returned without contacting the server until it
+ * is older than the time-to-live. After that, the next HeadObject command
+ * sends a request conditional on the cached entity tag, and the server
+ * answers with an empty {@code 304} response if the object has not changed.
+ * Writes and deletions made through the same client invalidate the
+ * corresponding entries immediately; changes made by other clients are
+ * only observed once entries expire.</p>
+ */
+
+@Value.Immutable
+@ImmutablesStyleType
+public interface OClientMetadataCachePolicyType
+{
+  /**
+   * @return The maximum number of cached responses; the least recently used
+   *         responses are discarded first
+   */
+
+  @Value.Default
+  default int maximumEntries()
+  {
+    return 10000;
+  }
+
+  /**
+   * @return The time for which a cached response is used without being
+   *         revalidated
+   */
+
+  @Value.Default
+  default Duration timeToLive()
+  {
+    return Duration.ofSeconds(30L);
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.maximumEntries() < 1) {
+      throw new IllegalArgumentException(
+        "Maximum entries %d must be positive"
+          .formatted(Integer.valueOf(this.maximumEntries()))
+      );
+    }
+
+    final var ttl = this.timeToLive();
+    if (ttl.isNegative() || ttl.isZero()) {
+      throw new IllegalArgumentException(
+        "Time to live %s must be positive".formatted(ttl)
+      );
+    }
+  }
+}
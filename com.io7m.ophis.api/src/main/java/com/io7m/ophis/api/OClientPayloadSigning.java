@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+/**
+ * <p>The policy for signing the payloads of requests that upload data.</p>
+ * <p>A signed payload requires a SHA-256 hash of the data: either a hash
+ * calculated before the request is sent (for data that has been hashed
+ * up front), or a hash of each chunk calculated as the data is sent (for
+ * data that has not). An unsigned payload requires neither, and the
+ * integrity of the data is instead protected by the transport and by any
+ * checksum that accompanies the data.</p>
+ */
+
+public enum OClientPayloadSigning
+{
+  /**
+   * Payloads are always signed.
+   */
+
+  SIGNED,
+
+  /**
+   * Payloads of requests made to {@code https} endpoints are not signed.
+   * The exception is data that has already been hashed and is uploaded
+   * without a checksum, for which signing the existing hash costs nothing.
+   * Payloads of requests made to any other endpoints are signed.
+   */
+
+  UNSIGNED_OVER_TLS
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.Set;
+
+/**
+ * <p>A policy for an adaptive limit on the rate at which a client sends
+ * requests.</p>
+ * <p>Requests are limited separately for each bucket, and optionally for each
+ * key prefix within a bucket. Each limit starts at the initial rate. When the
+ * server responds with a throttling error, the rate is multiplied by the
+ * rate decrease factor. While requests succeed, the rate increases by
+ * roughly {@link #rateIncrease()} requests per second, every second
+ * (additive increase, multiplicative decrease). Requests sent before the
+ * most recent decrease do not cause further decreases, so a burst of
+ * throttling errors for requests that were already in flight reduces the
+ * rate only once.</p>
+ */
+
+@Value.Immutable
+@ImmutablesStyleType
+public interface OClientRateLimitPolicyType
+{
+  /**
+   * @return The initial rate in requests per second
+   */
+
+  @Value.Default
+  default double initialRate()
+  {
+    return 500.0;
+  }
+
+  /**
+   * @return The minimum rate in requests per second
+   */
+
+  @Value.Default
+  default double minimumRate()
+  {
+    return 1.0;
+  }
+
+  /**
+   * @return The maximum rate in requests per second
+   */
+
+  @Value.Default
+  default double maximumRate()
+  {
+    return 10000.0;
+  }
+
+  /**
+   * @return The increase in the rate, in requests per second, for each
+   *         second in which requests succeed at the current rate
+   */
+
+  @Value.Default
+  default double rateIncrease()
+  {
+    return 50.0;
+  }
+
+  /**
+   * @return The factor by which the rate is multiplied when the server
+   *         throttles a request
+   */
+
+  @Value.Default
+  default double rateDecrease()
+  {
+    return 0.5;
+  }
+
+  /**
+   * The number of leading segments of object keys that are included in the
+   * prefix that selects a limit. With a value of {@code 0}, each bucket has a
+   * single limit. With a value of {@code 1}, the objects {@code a/b/c} and
+   * {@code a/d} share a limit, but {@code e/f} has its own limit. The final
+   * segment of a key, the object name, is never part of the prefix.
+   *
+   * @return The number of key segments included in the prefix
+   */
+
+  @Value.Default
+  default int prefixSegments()
+  {
+    return 0;
+  }
+
+  /**
+   * @return The error codes that indicate that a request was throttled
+   */
+
+  @Value.Default
+  default Set<String> throttlingErrorCodes()
+  {
+    return Set.of(
+      "BandwidthLimitExceeded",
+      "RequestLimitExceeded",
+      "RequestThrottled",
+      "SlowDown",
+      "Throttling",
+      "ThrottlingException",
+      "TooManyRequestsException"
+    );
+  }
+
+  /**
+   * @return The HTTP status codes that indicate that a request was throttled
+   */
+
+  @Value.Default
+  default Set<Integer> throttlingStatusCodes()
+  {
+    return Set.of(
+      Integer.valueOf(429),
+      Integer.valueOf(503)
+    );
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var minimum = this.minimumRate();
+    final var maximum = this.maximumRate();
+    final var initial = this.initialRate();
+
+    if (!(minimum > 0.0 && minimum <= initial && initial <= maximum)) {
+      throw new IllegalArgumentException(
+        "Rates must satisfy 0 < minimum %s <= initial %s <= maximum %s"
+          .formatted(
+            Double.valueOf(minimum),
+            Double.valueOf(initial),
+            Double.valueOf(maximum))
+      );
+    }
+
+    if (!(this.rateIncrease() >= 0.0)) {
+      throw new IllegalArgumentException(
+        "Rate increase %s must be non-negative"
+          .formatted(Double.valueOf(this.rateIncrease()))
+      );
+    }
+
+    final var decrease = this.rateDecrease();
+    if (!(decrease > 0.0 && decrease < 1.0)) {
+      throw new IllegalArgumentException(
+        "Rate decrease %s must be in the range (0, 1)"
+          .formatted(Double.valueOf(decrease))
+      );
+    }
+
+    if (this.prefixSegments() < 0) {
+      throw new IllegalArgumentException(
+        "Prefix segments %d must be non-negative"
+          .formatted(Integer.valueOf(this.prefixSegments()))
+      );
+    }
+  }
+}
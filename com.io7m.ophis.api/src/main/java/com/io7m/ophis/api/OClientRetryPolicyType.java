@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * <p>A policy that determines when failed requests are retried.</p>
+ * <p>A request is retried if the connection to the server could not be
+ * established, if the exchange failed with an I/O error or a timeout, or if
+ * the server responded with one of the retryable error codes or HTTP status
+ * codes. Requests that might have changed the state of the server are only
+ * retried for commands that are idempotent, or if the server responded with
+ * a throttling status (429 or 503) that indicates that the request was
+ * refused.</p>
+ * <p>The delay before each retry is chosen uniformly at random between zero
+ * and an exponentially increasing upper bound ("full jitter").</p>
+ * <p>Each client has a retry budget: a bucket of tokens from which each
+ * retry takes {@link #budgetRetryCost()} tokens (or
+ * {@link #budgetTimeoutCost()} tokens, if the request timed out). Requests
+ * that succeed return tokens to the bucket. When the bucket is empty,
+ * requests are no longer retried, and so retries cannot multiply the load on
+ * a server that is already overloaded.</p>
+ *
+ * @see "https://docs.aws.amazon.com/sdkref/latest/guide/feature-retry-behavior.html"
+ */
+
+@Value.Immutable
+@ImmutablesStyleType
+public interface OClientRetryPolicyType
+{
+  /**
+   * The maximum number of attempts made for each request, including the
+   * first. A value of {@code 1} disables retries.
+   *
+   * @return The maximum number of attempts
+   */
+
+  @Value.Default
+  default int maximumAttempts()
+  {
+    return 3;
+  }
+
+  /**
+   * @return The upper bound of the delay before the first retry; the bound
+   *         doubles with each subsequent retry
+   */
+
+  @Value.Default
+  default Duration baseDelay()
+  {
+    return Duration.ofMillis(100L);
+  }
+
+  /**
+   * @return The maximum delay before any retry
+   */
+
+  @Value.Default
+  default Duration maximumDelay()
+  {
+    return Duration.ofSeconds(20L);
+  }
+
+  /**
+   * @return The number of tokens in a full retry budget
+   */
+
+  @Value.Default
+  default int budgetCapacity()
+  {
+    return 500;
+  }
+
+  /**
+   * @return The number of tokens taken from the retry budget by a retry
+   */
+
+  @Value.Default
+  default int budgetRetryCost()
+  {
+    return 5;
+  }
+
+  /**
+   * @return The number of tokens taken from the retry budget by a retry of a
+   *         request that timed out
+   */
+
+  @Value.Default
+  default int budgetTimeoutCost()
+  {
+    return 10;
+  }
+
+  /**
+   * @return The error codes that indicate a transient failure
+   */
+
+  @Value.Default
+  default Set<String> retryableErrorCodes()
+  {
+    return Set.of(
+      "BandwidthLimitExceeded",
+      "InternalError",
+      "RequestLimitExceeded",
+      "RequestThrottled",
+      "RequestTimeout",
+      "ServiceUnavailable",
+      "SlowDown",
+      "Throttling",
+      "ThrottlingException",
+      "TooManyRequestsException"
+    );
+  }
+
+  /**
+   * @return The HTTP status codes that indicate a transient failure
+   */
+
+  @Value.Default
+  default Set<Integer> retryableStatusCodes()
+  {
+    return Set.of(
+      Integer.valueOf(429),
+      Integer.valueOf(500),
+      Integer.valueOf(502),
+      Integer.valueOf(503),
+      Integer.valueOf(504)
+    );
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.maximumAttempts() < 1) {
+      throw new IllegalArgumentException(
+        "Maximum attempts %d must be positive"
+          .formatted(Integer.valueOf(this.maximumAttempts()))
+      );
+    }
+
+    if (this.baseDelay().isNegative()) {
+      throw new IllegalArgumentException(
+        "Base delay %s must be non-negative".formatted(this.baseDelay())
+      );
+    }
+
+    if (this.maximumDelay().compareTo(this.baseDelay()) < 0) {
+      throw new IllegalArgumentException(
+        "Maximum delay %s must be at least the base delay %s"
+          .formatted(this.maximumDelay(), this.baseDelay())
+      );
+    }
+
+    if (this.budgetCapacity() < 0
+        || this.budgetRetryCost() < 0
+        || this.budgetTimeoutCost() < 0) {
+      throw new IllegalArgumentException(
+        "Retry budget capacity %d and costs %d/%d must be non-negative"
+          .formatted(
+            Integer.valueOf(this.budgetCapacity()),
+            Integer.valueOf(this.budgetRetryCost()),
+            Integer.valueOf(this.budgetTimeoutCost())
+          )
+      );
+    }
+  }
+}
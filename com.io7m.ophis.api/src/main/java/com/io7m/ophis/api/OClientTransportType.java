@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+/**
+ * <p>A transport that can be shared between clients.</p>
+ * <p>A transport holds the HTTP client, and therefore the connection pool,
+ * along with the threads used to process responses. Clients created with a
+ * shared transport do not close the transport when they are closed; the
+ * transport must be closed separately once all of its clients are closed.</p>
+ *
+ * @see OClientFactoryType#createTransport(OClientConfiguration)
+ * @see OClientFactoryType#createClient(OClientConfiguration, OClientTransportType)
+ */
+
+public interface OClientTransportType
+  extends AutoCloseable
+{
+  @Override
+  void close()
+    throws OException;
+}
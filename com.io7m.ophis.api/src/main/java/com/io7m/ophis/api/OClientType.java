@@ -17,6 +17,8 @@
 
 package com.io7m.ophis.api;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The type of clients.
  */
@@ -73,6 +75,32 @@ public interface OClientType
     return this.commandFor(command, parameters).execute();
   }
 
+  /**
+   * Retrieve and asynchronously execute a new command. If the command
+   * cannot be retrieved, or fails, the returned future is completed
+   * exceptionally with an {@link OException}.
+   *
+   * @param command    The command class
+   * @param parameters The parameters
+   * @param <P>        The type of parameters
+   * @param <R>        The type of returned values
+   * @param <C>        The type of commands
+   *
+   * @return The future result of the command
+   */
+
+  default <P, R, C extends OClientCommandType<P, R>> CompletableFuture<R>
+  executeAsync(
+    final Class<C> command,
+    final P parameters)
+  {
+    try {
+      return this.commandFor(command, parameters).executeAsync();
+    } catch (final OException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
   @Override
   void close()
     throws OException;
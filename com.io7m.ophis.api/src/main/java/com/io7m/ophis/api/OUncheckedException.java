@@ -0,0 +1,52 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api;
+
+import java.util.Objects;
+
+/**
+ * An unchecked exception that wraps an {@link OException}. This is used
+ * where an exception must be raised through an interface that does not
+ * permit checked exceptions, such as {@link java.util.Iterator} or
+ * {@link java.util.stream.Stream}.
+ */
+
+public final class OUncheckedException
+  extends RuntimeException
+{
+  /**
+   * Construct an exception.
+   *
+   * @param cause The cause
+   */
+
+  public OUncheckedException(
+    final OException cause)
+  {
+    super(
+      Objects.requireNonNull(cause, "cause").getMessage(),
+      cause
+    );
+  }
+
+  @Override
+  public OException getCause()
+  {
+    return (OException) super.getCause();
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+/**
+ * A range of octets within an object.
+ *
+ * @param offset The offset of the first octet
+ * @param length The number of octets
+ */
+
+public record OByteRange(
+  long offset,
+  long length)
+{
+  /**
+   * A range of octets within an object.
+   *
+   * @param offset The offset of the first octet
+   * @param length The number of octets
+   */
+
+  public OByteRange
+  {
+    if (offset < 0L) {
+      throw new IllegalArgumentException(
+        "Offset %d must be non-negative".formatted(Long.valueOf(offset))
+      );
+    }
+    if (length < 1L) {
+      throw new IllegalArgumentException(
+        "Length %d must be positive".formatted(Long.valueOf(length))
+      );
+    }
+  }
+
+  /**
+   * @return The offset of the last octet in the range
+   */
+
+  public long last()
+  {
+    return Math.addExact(this.offset, this.length - 1L);
+  }
+}
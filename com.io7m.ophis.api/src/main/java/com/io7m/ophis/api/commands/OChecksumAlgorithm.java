@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import java.util.Locale;
+
+/**
+ * <p>The checksum algorithms that can be used to protect object data.</p>
+ * <p>Checksums are cheap to calculate compared to the cryptographic digests
+ * used when signing payloads, and {@code CRC32C} in particular is
+ * typically calculated using dedicated CPU instructions.</p>
+ */
+
+public enum OChecksumAlgorithm
+{
+  /**
+   * The CRC-32 algorithm (as used by ZIP and PNG).
+   */
+
+  CRC32(4),
+
+  /**
+   * The CRC-32C (Castagnoli) algorithm.
+   */
+
+  CRC32C(4),
+
+  /**
+   * The CRC-64/NVME algorithm.
+   */
+
+  CRC64NVME(8);
+
+  private final int size;
+  private final String headerName;
+
+  OChecksumAlgorithm(
+    final int inSize)
+  {
+    this.size = inSize;
+    this.headerName =
+      "x-amz-checksum-" + this.name().toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @return The size of checksum values in octets
+   */
+
+  public int size()
+  {
+    return this.size;
+  }
+
+  /**
+   * @return The name of the header that carries checksum values (such as
+   *         {@code x-amz-checksum-crc32c})
+   */
+
+  public String headerName()
+  {
+    return this.headerName;
+  }
+}
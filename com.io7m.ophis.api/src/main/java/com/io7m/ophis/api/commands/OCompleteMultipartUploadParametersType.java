@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * The parameters for the CompleteMultipartUpload command.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OCompleteMultipartUploadParametersType
+{
+  /**
+   * @return The bucket name
+   */
+
+  String bucketName();
+
+  /**
+   * @return The object key
+   */
+
+  String key();
+
+  /**
+   * @return The ID of the multipart upload
+   */
+
+  String uploadId();
+
+  /**
+   * @return The uploaded parts, in ascending order of part number
+   */
+
+  List<OCompletedPart> parts();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var parts = this.parts();
+    if (parts.isEmpty()) {
+      throw new IllegalArgumentException("At least one part is required.");
+    }
+
+    for (int index = 1; index < parts.size(); ++index) {
+      final var previous = parts.get(index - 1);
+      final var current = parts.get(index);
+      if (current.partNumber() <= previous.partNumber()) {
+        throw new IllegalArgumentException(
+          "Part numbers must be in strictly ascending order (%d follows %d)"
+            .formatted(
+              Integer.valueOf(current.partNumber()),
+              Integer.valueOf(previous.partNumber())
+            )
+        );
+      }
+    }
+  }
+}
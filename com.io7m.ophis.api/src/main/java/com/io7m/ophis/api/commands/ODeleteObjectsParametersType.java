@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * The parameters for the DeleteObjects command.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface ODeleteObjectsParametersType
+{
+  /**
+   * The largest number of keys that may be deleted in a single request.
+   */
+
+  int MAXIMUM_KEYS = 1000;
+
+  /**
+   * @return The bucket name
+   */
+
+  String bucketName();
+
+  /**
+   * @return The keys of the objects to delete
+   */
+
+  List<String> keys();
+
+  /**
+   * In quiet mode, the server only reports the keys that could not be
+   * deleted, and so the response does not list the deleted keys.
+   *
+   * @return {@code true} if the request should use quiet mode
+   */
+
+  @Value.Default
+  default boolean quiet()
+  {
+    return true;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var count = this.keys().size();
+    if (count < 1 || count > MAXIMUM_KEYS) {
+      throw new IllegalArgumentException(
+        "Key count %d must be in the range [1, %d]"
+          .formatted(Integer.valueOf(count), Integer.valueOf(MAXIMUM_KEYS))
+      );
+    }
+  }
+}
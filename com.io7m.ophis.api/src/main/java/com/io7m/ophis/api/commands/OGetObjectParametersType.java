@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.Optional;
+
+/**
+ * The parameters for the GetObject command.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OGetObjectParametersType
+{
+  /**
+   * @return The bucket name
+   */
+
+  String bucketName();
+
+  /**
+   * @return The object key
+   */
+
+  String key();
+
+  /**
+   * @return The range of the object to fetch, or the whole object if empty
+   */
+
+  Optional<OByteRange> range();
+
+  /**
+   * @return An entity tag that the object must match for the request to
+   *         succeed
+   */
+
+  Optional<String> ifMatch();
+
+  /**
+   * @return The sink that will receive the object data
+   */
+
+  OGetObjectSinkType sink();
+
+  /**
+   * @return {@code true} if the server should be asked for the checksum
+   *         stored with the object, and the object data should be checked
+   *         against it as it is received. Checksums are only checked when
+   *         the entire object is fetched, and only if the server has a
+   *         checksum of the entire object; checksums of multipart objects
+   *         are composed of the checksums of the parts and cannot be
+   *         checked.
+   */
+
+  @Value.Default
+  default boolean checksumValidation()
+  {
+    return false;
+  }
+}
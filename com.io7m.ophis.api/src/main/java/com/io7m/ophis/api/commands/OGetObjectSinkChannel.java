@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * A sink that writes object data to a caller-supplied channel. The buffers
+ * received from the server are passed to the channel as they arrive, and so
+ * the channel may also be used to observe the data as a sequence of
+ * {@link java.nio.ByteBuffer} values. The channel is not closed.
+ *
+ * @param channel The output channel
+ */
+
+public record OGetObjectSinkChannel(
+  WritableByteChannel channel)
+  implements OGetObjectSinkType
+{
+  /**
+   * A sink that writes object data to a caller-supplied channel.
+   *
+   * @param channel The output channel
+   */
+
+  public OGetObjectSinkChannel
+  {
+    Objects.requireNonNull(channel, "channel");
+  }
+}
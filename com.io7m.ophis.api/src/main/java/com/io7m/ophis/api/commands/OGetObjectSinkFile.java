@@ -0,0 +1,45 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A sink that writes object data to a file. The file is created if it does
+ * not exist, and is truncated if it does. The file is not touched if the
+ * server responds with an error.
+ *
+ * @param file The output file
+ */
+
+public record OGetObjectSinkFile(
+  Path file)
+  implements OGetObjectSinkType
+{
+  /**
+   * A sink that writes object data to a file.
+   *
+   * @param file The output file
+   */
+
+  public OGetObjectSinkFile
+  {
+    Objects.requireNonNull(file, "file");
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The response to the HeadObject command.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OHeadObjectResponseType
+{
+  /**
+   * @return The size of the object in octets
+   */
+
+  long size();
+
+  /**
+   * @return The entity tag of the object
+   */
+
+  String eTag();
+
+  /**
+   * @return The time the object was last modified, if the server provided it
+   */
+
+  Optional<OffsetDateTime> lastModified();
+
+  /**
+   * @return The content type of the object
+   */
+
+  @Value.Default
+  default String contentType()
+  {
+    return "application/octet-stream";
+  }
+
+  /**
+   * @return The user metadata of the object, taken from the
+   *         {@code x-amz-meta-*} headers, with the prefix removed and the
+   *         names in lowercase
+   */
+
+  Map<String, String> metadata();
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.size() < 0L) {
+      throw new IllegalArgumentException(
+        "Size %d must be non-negative"
+          .formatted(Long.valueOf(this.size()))
+      );
+    }
+  }
+}
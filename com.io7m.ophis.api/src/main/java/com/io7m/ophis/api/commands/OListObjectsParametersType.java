@@ -23,47 +23,107 @@ import org.immutables.value.Value;
 import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
+/**
+ * The parameters for a ListObjectsV2 request.
+ */
+
 @ImmutablesStyleType
 @Value.Immutable
 public interface OListObjectsParametersType
 {
+  /**
+   * @return The bucket name
+   */
+
   String bucketName();
 
+  /**
+   * @return The token returned as the next continuation token of a
+   * previous, truncated, response
+   */
+
   Optional<String> continuationToken();
 
+  /**
+   * The delimiter used to group keys into common prefixes. If the delimiter
+   * is empty, no grouping takes place and every key under the prefix is
+   * listed.
+   *
+   * @return The delimiter
+   */
+
   @Value.Default
   default String delimiter()
   {
-    return "/";
+    return "";
   }
 
+  /**
+   * The encoding used for keys in the response. If the encoding is
+   * {@code url}, the server URL-encodes the keys, prefixes, and delimiters
+   * that it returns. Any other value causes keys to be returned unencoded.
+   *
+   * @return The encoding
+   */
+
   @Value.Default
   default String encoding()
   {
     return StandardCharsets.UTF_8.name();
   }
 
+  /**
+   * @return {@code true} if the owner of each object should be returned
+   */
+
   @Value.Default
   default boolean fetchOwner()
   {
     return false;
   }
 
+  /**
+   * @return The maximum number of keys returned in a single response
+   */
+
   @Value.Default
   default int maximumKeys()
   {
     return 1000;
   }
 
+  /**
+   * @return The prefix that returned keys must have
+   */
+
   @Value.Default
   default String prefix()
   {
     return "";
   }
 
+  /**
+   * @return The key after which listing begins
+   */
+
   @Value.Default
   default String startAfter()
   {
     return "";
   }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.maximumKeys() < 1 || this.maximumKeys() > 1000) {
+      throw new IllegalArgumentException(
+        "Maximum keys %d must be in the range [1, 1000]"
+          .formatted(Integer.valueOf(this.maximumKeys()))
+      );
+    }
+  }
 }
@@ -35,6 +35,15 @@ public interface OListObjectsResponseType
 
   List<OObjectContents> contents();
 
+  /**
+   * The prefixes that group keys containing the requested delimiter. This
+   * is always empty if no delimiter was requested.
+   *
+   * @return The common prefixes
+   */
+
+  List<String> commonPrefixes();
+
   String name();
 
   String prefix();
@@ -42,7 +51,7 @@ public interface OListObjectsResponseType
   @Value.Default
   default String delimiter()
   {
-    return "/";
+    return "";
   }
 
   @Value.Default
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.commands;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream that yields at most a given number of bytes from an underlying
+ * stream.
+ */
+
+final class OObjectDataRangeStream extends FilterInputStream
+{
+  private long remaining;
+
+  OObjectDataRangeStream(
+    final InputStream inStream,
+    final long inSize)
+  {
+    super(inStream);
+    this.remaining = inSize;
+  }
+
+  @Override
+  public int read()
+    throws IOException
+  {
+    if (this.remaining <= 0L) {
+      return -1;
+    }
+
+    final var r = super.read();
+    if (r >= 0) {
+      --this.remaining;
+    }
+    return r;
+  }
+
+  @Override
+  public int read(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    if (this.remaining <= 0L) {
+      return -1;
+    }
+
+    final var limit =
+      (int) Math.min(length, this.remaining);
+    final var r =
+      super.read(buffer, offset, limit);
+
+    if (r > 0) {
+      this.remaining -= r;
+    }
+    return r;
+  }
+
+  @Override
+  public long skip(
+    final long count)
+    throws IOException
+  {
+    final var r = super.skip(Math.min(count, this.remaining));
+    this.remaining -= r;
+    return r;
+  }
+
+  @Override
+  public int available()
+    throws IOException
+  {
+    return (int) Math.min(super.available(), this.remaining);
+  }
+
+  @Override
+  public boolean markSupported()
+  {
+    return false;
+  }
+}
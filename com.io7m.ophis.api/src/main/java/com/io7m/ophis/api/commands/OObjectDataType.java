@@ -21,25 +21,63 @@ import com.io7m.immutables.styles.ImmutablesStyleType;
 import org.immutables.value.Value;
 
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Base64;
+import java.util.Optional;
 import java.util.function.Supplier;
 
+/**
+ * Object data to be uploaded.
+ */
+
 @Value.Immutable
 @ImmutablesStyleType
 public interface OObjectDataType
 {
+  /**
+   * @return A supplier of streams that each read the data from the start
+   */
+
   Supplier<InputStream> stream();
 
+  /**
+   * @return The size of the data in octets
+   */
+
   long size();
 
-  String sha256();
+  /**
+   * The hex-formatted SHA-256 hash of the data. If no hash is present, the
+   * data is uploaded with a streaming signature in which each chunk of the
+   * data is hashed and signed as it is sent, and so the data is read only
+   * once.
+   *
+   * @return The SHA-256 hash of the data, if the data has been hashed
+   */
+
+  Optional<String> sha256();
+
+  /**
+   * @return The base64-encoded MD5 hash of the data, if the data has been
+   * hashed
+   */
+
+  Optional<String> md5();
+
+  /**
+   * The file that backs this data, if any. If a file is present, the
+   * contents are sent directly from the file rather than from the
+   * {@link #stream()}.
+   *
+   * @return The file containing the data
+   */
 
-  String md5();
+  Optional<Path> file();
 
   @Value.Check
   default void checkPreconditions()
   {
-    OHex.check(this.sha256());
-    Base64.getDecoder().decode(this.md5());
+    this.sha256().ifPresent(OHex::check);
+    this.md5().ifPresent(Base64.getDecoder()::decode);
   }
 }
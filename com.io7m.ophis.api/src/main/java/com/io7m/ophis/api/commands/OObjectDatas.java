@@ -22,10 +22,14 @@ import com.io7m.jmulticlose.core.CloseableCollectionType;
 import com.io7m.ophis.api.OException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -34,6 +38,11 @@ import java.util.HexFormat;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Functions to construct object data.
+ */
 
 public final class OObjectDatas
 {
@@ -42,6 +51,16 @@ public final class OObjectDatas
 
   }
 
+  /**
+   * Create object data from the given file.
+   *
+   * @param file The file
+   *
+   * @return The object data
+   *
+   * @throws OException On errors
+   */
+
   public static OObjectData ofFile(
     final Path file)
     throws OException
@@ -53,9 +72,215 @@ public final class OObjectDatas
       Map.entry("Hash Algorithm", "SHA-256")
     );
 
+    final Supplier<InputStream> stream = () -> {
+      try {
+        return Files.newInputStream(file);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+
+    try {
+      return hashed(stream, Files.size(file), attributes)
+        .setFile(file)
+        .build();
+    } catch (final IOException e) {
+      throw new OException(
+        e,
+        "error-io",
+        attributes,
+        Optional.empty()
+      );
+    }
+  }
+
+  /**
+   * Create object data from the given file without hashing the file. The
+   * data is uploaded with a streaming signature, and so the file is read
+   * exactly once during an upload, rather than once to hash it and then
+   * again to send it.
+   *
+   * @param file The file
+   *
+   * @return The object data
+   *
+   * @throws OException On errors
+   *
+   * @see OObjectDataType#sha256()
+   */
+
+  public static OObjectData ofFileStreaming(
+    final Path file)
+    throws OException
+  {
+    Objects.requireNonNull(file, "file");
+
+    final Supplier<InputStream> stream = () -> {
+      try {
+        return Files.newInputStream(file);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+
+    try {
+      return OObjectData.builder()
+        .setStream(stream)
+        .setSize(Files.size(file))
+        .setFile(file)
+        .build();
+    } catch (final IOException e) {
+      throw new OException(
+        e,
+        "error-io",
+        Map.ofEntries(
+          Map.entry("File", file.toAbsolutePath().toString())
+        ),
+        Optional.empty()
+      );
+    }
+  }
+
+  /**
+   * Create object data from the given stream without hashing the stream.
+   * The data is uploaded with a streaming signature, and so each stream is
+   * read exactly once during an upload. The size of the data must be known
+   * in advance; data of an unknown size must be divided into parts of a
+   * known size and uploaded with a multipart upload.
+   *
+   * @param stream A supplier of streams that each read the data from the
+   *               start
+   * @param size   The size of the data
+   *
+   * @return The object data
+   *
+   * @see OObjectDataType#sha256()
+   */
+
+  public static OObjectData ofStream(
+    final Supplier<InputStream> stream,
+    final long size)
+  {
+    Objects.requireNonNull(stream, "stream");
+
+    if (size < 0L) {
+      throw new IllegalArgumentException(
+        "Size %d must be non-negative".formatted(Long.valueOf(size))
+      );
+    }
+
+    return OObjectData.builder()
+      .setStream(stream)
+      .setSize(size)
+      .build();
+  }
+
+  /**
+   * Create object data from a range of the given object data. This is
+   * typically used to divide large objects into parts for multipart uploads.
+   * If the given data is backed by a file, the range is read directly from
+   * the file. Otherwise, the range is read by skipping over the preceding
+   * bytes of the data's stream, and so dividing stream-backed data into many
+   * ranges reads the start of the stream many times. The range is hashed if,
+   * and only if, the given data was hashed.
+   *
+   * @param data   The object data
+   * @param offset The offset of the start of the range
+   * @param size   The size of the range
+   *
+   * @return The object data
+   *
+   * @throws OException On errors
+   */
+
+  public static OObjectData ofRange(
+    final OObjectData data,
+    final long offset,
+    final long size)
+    throws OException
+  {
+    Objects.requireNonNull(data, "data");
+
+    if (offset < 0L || size < 0L || offset + size > data.size()) {
+      throw new IllegalArgumentException(
+        "Range [%d, %d) must be within the data size %d"
+          .formatted(
+            Long.valueOf(offset),
+            Long.valueOf(offset + size),
+            Long.valueOf(data.size())
+          )
+      );
+    }
+
+    final var attributes = Map.ofEntries(
+      Map.entry("Offset", Long.toUnsignedString(offset)),
+      Map.entry("Size", Long.toUnsignedString(size)),
+      Map.entry("Hash Algorithm", "SHA-256")
+    );
+
+    final var fileOpt = data.file();
+    final Supplier<InputStream> stream;
+    if (fileOpt.isPresent()) {
+      final var file = fileOpt.get();
+      stream = () -> openFileRange(file, offset, size);
+    } else {
+      stream = () -> openStreamRange(data.stream(), offset, size);
+    }
+
+    if (data.sha256().isEmpty()) {
+      return OObjectData.builder()
+        .setStream(stream)
+        .setSize(size)
+        .build();
+    }
+
+    return hashed(stream, size, attributes)
+      .build();
+  }
+
+  private static InputStream openFileRange(
+    final Path file,
+    final long offset,
+    final long size)
+  {
+    try {
+      final var channel =
+        FileChannel.open(file, StandardOpenOption.READ);
+      channel.position(offset);
+      return new OObjectDataRangeStream(Channels.newInputStream(channel), size);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static InputStream openStreamRange(
+    final Supplier<InputStream> stream,
+    final long offset,
+    final long size)
+  {
+    final var baseStream = stream.get();
+    try {
+      baseStream.skipNBytes(offset);
+      return new OObjectDataRangeStream(baseStream, size);
+    } catch (final IOException e) {
+      try {
+        baseStream.close();
+      } catch (final IOException ex) {
+        e.addSuppressed(ex);
+      }
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static OObjectData.Builder hashed(
+    final Supplier<InputStream> stream,
+    final long size,
+    final Map<String, String> attributes)
+    throws OException
+  {
     try (final var resources = openCollection()) {
       final var baseStream =
-        resources.add(Files.newInputStream(file));
+        resources.add(stream.get());
       final var sha256 =
         MessageDigest.getInstance("SHA-256");
       final var sha256Stream =
@@ -74,15 +299,8 @@ public final class OObjectDatas
       return OObjectData.builder()
         .setMd5(Base64.getEncoder().encodeToString(md5.digest()))
         .setSha256(hexFormat.formatHex(sha256.digest()))
-        .setSize(Files.size(file))
-        .setStream(() -> {
-          try {
-            return Files.newInputStream(file);
-          } catch (final IOException e) {
-            return null;
-          }
-        })
-        .build();
+        .setSize(size)
+        .setStream(stream);
     } catch (final IOException | NoSuchAlgorithmException e) {
       throw new OException(
         e,
@@ -90,6 +308,13 @@ public final class OObjectDatas
         attributes,
         Optional.empty()
       );
+    } catch (final UncheckedIOException e) {
+      throw new OException(
+        e.getCause(),
+        "error-io",
+        attributes,
+        Optional.empty()
+      );
     }
   }
 
@@ -40,4 +40,14 @@ public interface OPutObjectParametersType
   }
 
   OObjectData data();
+
+  /**
+   * @return The checksum algorithm used to protect the object data. If an
+   *         algorithm is specified, the data is always sent with streaming
+   *         chunk signatures and the checksum is calculated as the data is
+   *         sent, and delivered to the server in a signed trailer. The
+   *         server stores the checksum with the object.
+   */
+
+  Optional<OChecksumAlgorithm> checksumAlgorithm();
 }
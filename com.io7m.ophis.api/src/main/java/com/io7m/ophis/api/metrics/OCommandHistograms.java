@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The histograms and counters for a single kind of command.
+ *
+ * @see OMetricsHistograms
+ */
+
+public final class OCommandHistograms
+{
+  private final OLatencyHistogram signing;
+  private final OLatencyHistogram timeToFirstByte;
+  private final OLatencyHistogram transfer;
+  private final OLatencyHistogram parsing;
+  private final OLatencyHistogram total;
+  private final LongAdder errors;
+  private final LongAdder bytesSent;
+  private final LongAdder bytesReceived;
+
+  OCommandHistograms()
+  {
+    this.signing = new OLatencyHistogram();
+    this.timeToFirstByte = new OLatencyHistogram();
+    this.transfer = new OLatencyHistogram();
+    this.parsing = new OLatencyHistogram();
+    this.total = new OLatencyHistogram();
+    this.errors = new LongAdder();
+    this.bytesSent = new LongAdder();
+    this.bytesReceived = new LongAdder();
+  }
+
+  void record(
+    final ORequestMetrics metrics)
+  {
+    this.signing.record(metrics.signing());
+    this.timeToFirstByte.record(metrics.timeToFirstByte());
+    this.transfer.record(metrics.transfer());
+    this.parsing.record(metrics.parsing());
+    this.total.record(metrics.total());
+    this.bytesSent.add(metrics.bytesSent());
+    this.bytesReceived.add(metrics.bytesReceived());
+    if (metrics.errorCode().isPresent()) {
+      this.errors.increment();
+    }
+  }
+
+  /**
+   * @return The time spent preparing and signing requests
+   */
+
+  public OLatencyHistogram signing()
+  {
+    return this.signing;
+  }
+
+  /**
+   * @return The time until response headers arrived
+   */
+
+  public OLatencyHistogram timeToFirstByte()
+  {
+    return this.timeToFirstByte;
+  }
+
+  /**
+   * @return The time spent receiving response bodies
+   */
+
+  public OLatencyHistogram transfer()
+  {
+    return this.transfer;
+  }
+
+  /**
+   * @return The time spent handling complete responses
+   */
+
+  public OLatencyHistogram parsing()
+  {
+    return this.parsing;
+  }
+
+  /**
+   * @return The total time spent on requests
+   */
+
+  public OLatencyHistogram total()
+  {
+    return this.total;
+  }
+
+  /**
+   * @return The number of requests that failed
+   */
+
+  public long errors()
+  {
+    return this.errors.sum();
+  }
+
+  /**
+   * @return The total size of request bodies
+   */
+
+  public long bytesSent()
+  {
+    return this.bytesSent.sum();
+  }
+
+  /**
+   * @return The total size of response bodies
+   */
+
+  public long bytesReceived()
+  {
+    return this.bytesReceived.sum();
+  }
+}
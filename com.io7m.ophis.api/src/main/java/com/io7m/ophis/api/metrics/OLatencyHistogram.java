@@ -0,0 +1,192 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>A lock-free histogram of durations.</p>
+ * <p>Values are counted in log-linear buckets: each power of two is divided
+ * into 16 equal buckets, and so any value reported by the histogram is
+ * within 6.25% of the values that were recorded. Values are recorded in
+ * nanoseconds. Recording a value never blocks and never allocates, and so
+ * histograms can be updated from any number of threads at once.</p>
+ */
+
+public final class OLatencyHistogram
+{
+  private static final int SUB_BITS = 4;
+  private static final int SUB_COUNT = 1 << SUB_BITS;
+  private static final int BUCKETS =
+    SUB_COUNT + ((63 - SUB_BITS) * SUB_COUNT);
+
+  private final AtomicLongArray counts;
+  private final LongAdder count;
+  private final LongAdder sum;
+  private final AtomicLong maximum;
+
+  /**
+   * Create an empty histogram.
+   */
+
+  public OLatencyHistogram()
+  {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new LongAdder();
+    this.sum = new LongAdder();
+    this.maximum = new AtomicLong(0L);
+  }
+
+  static int bucketOf(
+    final long value)
+  {
+    if (value < SUB_COUNT) {
+      return (int) Math.max(0L, value);
+    }
+
+    final var band = 63 - Long.numberOfLeadingZeros(value);
+    final var shift = band - SUB_BITS;
+    final var sub = (int) (value >>> shift) & (SUB_COUNT - 1);
+    return SUB_COUNT + (shift * SUB_COUNT) + sub;
+  }
+
+  static long highestValueOf(
+    final int bucket)
+  {
+    if (bucket < SUB_COUNT) {
+      return bucket;
+    }
+
+    final var shift = (bucket - SUB_COUNT) / SUB_COUNT;
+    final var sub = (bucket - SUB_COUNT) % SUB_COUNT;
+    final var lowest = (long) (SUB_COUNT + sub) << shift;
+    return lowest + ((1L << shift) - 1L);
+  }
+
+  /**
+   * Record a duration.
+   *
+   * @param duration The duration
+   */
+
+  public void record(
+    final Duration duration)
+  {
+    this.recordNanos(duration.toNanos());
+  }
+
+  /**
+   * Record a duration in nanoseconds. Negative durations are recorded as
+   * zero.
+   *
+   * @param nanos The duration
+   */
+
+  public void recordNanos(
+    final long nanos)
+  {
+    final var value = Math.max(0L, nanos);
+    this.counts.incrementAndGet(bucketOf(value));
+    this.count.increment();
+    this.sum.add(value);
+    this.maximum.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * @return The number of recorded durations
+   */
+
+  public long count()
+  {
+    return this.count.sum();
+  }
+
+  /**
+   * @return The largest recorded duration
+   */
+
+  public Duration maximum()
+  {
+    return Duration.ofNanos(this.maximum.get());
+  }
+
+  /**
+   * @return The mean of the recorded durations
+   */
+
+  public Duration mean()
+  {
+    final var n = this.count.sum();
+    if (n == 0L) {
+      return Duration.ZERO;
+    }
+    return Duration.ofNanos(this.sum.sum() / n);
+  }
+
+  /**
+   * Determine the duration at the given percentile. The result is the
+   * largest value that falls into the same bucket as the recorded duration
+   * at the given percentile, and is never more than the maximum recorded
+   * duration.
+   *
+   * @param percentile The percentile in the range {@code [0, 100]}
+   *
+   * @return The duration at the percentile
+   */
+
+  public Duration percentile(
+    final double percentile)
+  {
+    if (!(percentile >= 0.0 && percentile <= 100.0)) {
+      throw new IllegalArgumentException(
+        "Percentile %s must be in the range [0, 100]"
+          .formatted(Double.valueOf(percentile))
+      );
+    }
+
+    /*
+     * The counts are read without any kind of snapshot, and so the result
+     * is approximate if values are recorded concurrently.
+     */
+
+    var total = 0L;
+    for (int index = 0; index < BUCKETS; ++index) {
+      total += this.counts.get(index);
+    }
+    if (total == 0L) {
+      return Duration.ZERO;
+    }
+
+    final var rank =
+      Math.max(1L, (long) Math.ceil((percentile / 100.0) * total));
+
+    var seen = 0L;
+    for (int index = 0; index < BUCKETS; ++index) {
+      seen += this.counts.get(index);
+      if (seen >= rank) {
+        return Duration.ofNanos(
+          Math.min(highestValueOf(index), this.maximum.get())
+        );
+      }
+    }
+    return this.maximum();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.metrics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A metrics listener that maintains latency histograms for each kind of
+ * command.
+ */
+
+public final class OMetricsHistograms implements OMetricsListenerType
+{
+  private final ConcurrentHashMap<Class<?>, OCommandHistograms> commands;
+
+  /**
+   * A metrics listener that maintains latency histograms for each kind of
+   * command.
+   */
+
+  public OMetricsHistograms()
+  {
+    this.commands = new ConcurrentHashMap<>();
+  }
+
+  @Override
+  public void onRequest(
+    final ORequestMetrics metrics)
+  {
+    this.commands.computeIfAbsent(
+      metrics.command(),
+      c -> new OCommandHistograms()
+    ).record(metrics);
+  }
+
+  /**
+   * @param command The command interface, such as {@code OListObjectsType}
+   *
+   * @return The histograms for the given kind of command, if any requests
+   *         have been recorded
+   */
+
+  public Optional<OCommandHistograms> histogramsFor(
+    final Class<?> command)
+  {
+    return Optional.ofNullable(this.commands.get(command));
+  }
+
+  /**
+   * @return The histograms for each kind of command
+   */
+
+  public Map<Class<?>, OCommandHistograms> histograms()
+  {
+    return Map.copyOf(this.commands);
+  }
+}
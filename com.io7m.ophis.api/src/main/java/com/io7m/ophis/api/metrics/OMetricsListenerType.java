@@ -0,0 +1,37 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.metrics;
+
+/**
+ * <p>A listener that receives metrics for each request made by a client.</p>
+ * <p>Listeners are called on the threads that execute requests, once for
+ * each HTTP request (and so once for each attempt of a request that is
+ * retried). Listeners must be thread-safe, and must return quickly;
+ * exceptions raised by listeners are ignored.</p>
+ */
+
+public interface OMetricsListenerType
+{
+  /**
+   * A request completed, successfully or otherwise.
+   *
+   * @param metrics The metrics for the request
+   */
+
+  void onRequest(ORequestMetrics metrics);
+}
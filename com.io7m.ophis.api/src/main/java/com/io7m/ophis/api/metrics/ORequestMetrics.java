@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.metrics;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * <p>The metrics for a single HTTP request.</p>
+ * <p>The phases of a request are measured as follows:</p>
+ * <ul>
+ *   <li>{@code signing}: The time spent preparing and signing the request.
+ *   A request is signed once, and so this is zero for retries.</li>
+ *   <li>{@code timeToFirstByte}: The time from sending the request to
+ *   receiving the headers of the response.</li>
+ *   <li>{@code transfer}: The time from receiving the headers of the
+ *   response to receiving the end of the response body. For responses that
+ *   are parsed or consumed as they arrive, this includes the time spent
+ *   parsing or consuming them.</li>
+ *   <li>{@code parsing}: The time spent handling the response after the end
+ *   of the response body had been received.</li>
+ * </ul>
+ *
+ * @param command         The command interface, such as
+ *                        {@code OListObjectsType}
+ * @param bucket          The bucket, if the command has one
+ * @param attempt         The attempt number, starting at 1
+ * @param statusCode      The HTTP status code, or 0 if no response arrived
+ * @param errorCode       The error code, if the request failed
+ * @param bytesSent       The size of the request body as sent
+ * @param bytesReceived   The size of the response body received
+ * @param signing         The time spent preparing and signing the request
+ * @param timeToFirstByte The time until the response headers arrived
+ * @param transfer        The time spent receiving the response body
+ * @param parsing         The time spent handling the complete response
+ */
+
+public record ORequestMetrics(
+  Class<?> command,
+  Optional<String> bucket,
+  int attempt,
+  int statusCode,
+  Optional<String> errorCode,
+  long bytesSent,
+  long bytesReceived,
+  Duration signing,
+  Duration timeToFirstByte,
+  Duration transfer,
+  Duration parsing)
+{
+  /**
+   * The metrics for a single HTTP request.
+   *
+   * @param command         The command interface, such as
+   *                        {@code OListObjectsType}
+   * @param bucket          The bucket, if the command has one
+   * @param attempt         The attempt number, starting at 1
+   * @param statusCode      The HTTP status code, or 0 if no response arrived
+   * @param errorCode       The error code, if the request failed
+   * @param bytesSent       The size of the request body as sent
+   * @param bytesReceived   The size of the response body received
+   * @param signing         The time spent preparing and signing the request
+   * @param timeToFirstByte The time until the response headers arrived
+   * @param transfer        The time spent receiving the response body
+   * @param parsing         The time spent handling the complete response
+   */
+
+  public ORequestMetrics
+  {
+    Objects.requireNonNull(command, "command");
+    Objects.requireNonNull(bucket, "bucket");
+    Objects.requireNonNull(errorCode, "errorCode");
+    Objects.requireNonNull(signing, "signing");
+    Objects.requireNonNull(timeToFirstByte, "timeToFirstByte");
+    Objects.requireNonNull(transfer, "transfer");
+    Objects.requireNonNull(parsing, "parsing");
+  }
+
+  /**
+   * @return The total time spent on the request
+   */
+
+  public Duration total()
+  {
+    return this.signing
+      .plus(this.timeToFirstByte)
+      .plus(this.transfer)
+      .plus(this.parsing);
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import com.io7m.ophis.api.commands.ODeleteObjectsParameters;
+import org.immutables.value.Value;
+
+/**
+ * The parameters for a bulk delete.
+ *
+ * @see ODeletions#deleteAll(com.io7m.ophis.api.OClientType, OBulkDeleteParameters, java.util.Iterator)
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OBulkDeleteParametersType
+{
+  /**
+   * @return The bucket name
+   */
+
+  String bucketName();
+
+  /**
+   * @return The maximum number of keys deleted in a single request
+   */
+
+  @Value.Default
+  default int batchSize()
+  {
+    return ODeleteObjectsParameters.MAXIMUM_KEYS;
+  }
+
+  /**
+   * @return The maximum number of requests that will be in flight at once
+   */
+
+  @Value.Default
+  default int concurrency()
+  {
+    return 4;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var batchSize = this.batchSize();
+    if (batchSize < 1 || batchSize > ODeleteObjectsParameters.MAXIMUM_KEYS) {
+      throw new IllegalArgumentException(
+        "Batch size %d must be in the range [1, %d]"
+          .formatted(
+            Integer.valueOf(batchSize),
+            Integer.valueOf(ODeleteObjectsParameters.MAXIMUM_KEYS)
+          )
+      );
+    }
+
+    final var concurrency = this.concurrency();
+    if (concurrency < 1) {
+      throw new IllegalArgumentException(
+        "Concurrency %d must be at least 1"
+          .formatted(Integer.valueOf(concurrency))
+      );
+    }
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.ODeleteObjectsError;
+import com.io7m.ophis.api.commands.ODeleteObjectsParameters;
+import com.io7m.ophis.api.commands.ODeleteObjectsType;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Functions to delete large numbers of objects.
+ */
+
+public final class ODeletions
+{
+  private ODeletions()
+  {
+
+  }
+
+  /**
+   * Delete the objects with the given keys. The keys are read from the
+   * iterator and packed into batches of
+   * {@link OBulkDeleteParameters#batchSize()} keys, and each batch is
+   * deleted with a single DeleteObjects request. At most
+   * {@link OBulkDeleteParameters#concurrency()} requests are in flight at
+   * any given time, and keys are not read from the iterator any faster than
+   * they can be deleted, so the iterator may produce arbitrarily many keys.
+   *
+   * <p>Objects that the server refuses to delete are reported in the
+   * result, and do not cause the operation to fail. If a request fails
+   * outright, or a batch cannot be sent at all (for example, because the
+   * iterator produced a {@code null} key), no further keys are read, the
+   * requests in flight are allowed to finish, and the failure is
+   * raised.</p>
+   *
+   * @param client     The client
+   * @param parameters The parameters
+   * @param keys       The keys of the objects to delete
+   *
+   * @return The result of deleting the objects
+   *
+   * @throws OException On errors
+   */
+
+  public static OBulkDeleteResult deleteAll(
+    final OClientType client,
+    final OBulkDeleteParameters parameters,
+    final Iterator<String> keys)
+    throws OException
+  {
+    Objects.requireNonNull(client, "client");
+    Objects.requireNonNull(parameters, "parameters");
+    Objects.requireNonNull(keys, "keys");
+
+    final var deleted = new AtomicLong(0L);
+    final var errors = new ConcurrentLinkedQueue<ODeleteObjectsError>();
+    final var failure = new AtomicReference<OException>();
+    final var permits = new Semaphore(parameters.concurrency());
+
+    final var threads =
+      Thread.ofVirtual()
+        .name("com.io7m.ophis.delete-", 0L)
+        .factory();
+
+    try (var executor = Executors.newThreadPerTaskExecutor(threads)) {
+      while (keys.hasNext() && failure.get() == null) {
+        final var batch = nextBatch(keys, parameters.batchSize());
+
+        try {
+          permits.acquire();
+        } catch (final InterruptedException e) {
+          executor.shutdownNow();
+          Thread.currentThread().interrupt();
+          throw new OException(
+            e,
+            "error-interruption",
+            attributes(parameters),
+            Optional.empty()
+          );
+        }
+
+        executor.execute(() -> {
+          try {
+            final var response =
+              client.execute(
+                ODeleteObjectsType.class,
+                ODeleteObjectsParameters.builder()
+                  .setBucketName(parameters.bucketName())
+                  .setKeys(batch)
+                  .setQuiet(true)
+                  .build()
+              );
+            errors.addAll(response.errors());
+            deleted.addAndGet(batch.size() - response.errors().size());
+          } catch (final OException e) {
+            failed(failure, e);
+          } catch (final RuntimeException e) {
+            failed(failure, new OException(
+              e,
+              "error-delete-objects",
+              attributes(parameters),
+              Optional.empty()
+            ));
+          } finally {
+            permits.release();
+          }
+        });
+      }
+    }
+
+    final var error = failure.get();
+    if (error != null) {
+      throw error;
+    }
+    return new OBulkDeleteResult(deleted.get(), new ArrayList<>(errors));
+  }
+
+  private static void failed(
+    final AtomicReference<OException> failure,
+    final OException e)
+  {
+    if (!failure.compareAndSet(null, e)) {
+      failure.get().addSuppressed(e);
+    }
+  }
+
+  private static List<String> nextBatch(
+    final Iterator<String> keys,
+    final int batchSize)
+  {
+    final var batch = new ArrayList<String>(batchSize);
+    while (keys.hasNext() && batch.size() < batchSize) {
+      batch.add(keys.next());
+    }
+    return batch;
+  }
+
+  private static Map<String, String> attributes(
+    final OBulkDeleteParameters parameters)
+  {
+    return Map.of("Bucket", parameters.bucketName());
+  }
+}
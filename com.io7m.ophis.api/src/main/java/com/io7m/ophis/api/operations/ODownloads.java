@@ -0,0 +1,270 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OByteRange;
+import com.io7m.ophis.api.commands.OGetObjectParameters;
+import com.io7m.ophis.api.commands.OGetObjectResponse;
+import com.io7m.ophis.api.commands.OGetObjectSinkChannel;
+import com.io7m.ophis.api.commands.OGetObjectType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Functions to download large objects as a set of ranges fetched in
+ * parallel.
+ */
+
+public final class ODownloads
+{
+  private ODownloads()
+  {
+
+  }
+
+  /**
+   * Download an object to a file. The first range of the object is fetched
+   * in order to discover the size of the object, the file is then extended
+   * to that size, and the remaining ranges are fetched concurrently and
+   * written directly into their positions in the file. Every range after the
+   * first is fetched on the condition that the object still has the entity
+   * tag returned for the first range, so a download of an object that is
+   * replaced midway fails rather than producing a mixture of two objects.
+   * The contents of the file are unspecified if the download fails.
+   *
+   * @param client     The client
+   * @param parameters The download parameters
+   *
+   * @return A description of the object as a whole
+   *
+   * @throws OException On errors
+   */
+
+  public static OGetObjectResponse download(
+    final OClientType client,
+    final ODownloadParameters parameters)
+    throws OException
+  {
+    Objects.requireNonNull(client, "client");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var file = parameters.file();
+    try (var channel =
+           FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      return downloadInto(client, parameters, channel);
+    } catch (final IOException e) {
+      throw new OException(
+        e,
+        "error-io",
+        Map.ofEntries(
+          Map.entry("Bucket", parameters.bucketName()),
+          Map.entry("Key", parameters.key()),
+          Map.entry("File", file.toAbsolutePath().toString())
+        ),
+        Optional.empty()
+      );
+    }
+  }
+
+  private static OGetObjectResponse downloadInto(
+    final OClientType client,
+    final ODownloadParameters parameters,
+    final FileChannel channel)
+    throws OException, IOException
+  {
+    final var partSize =
+      client.configuration().downloadPartSize();
+
+    final OGetObjectResponse first;
+    try {
+      first = fetchRange(
+        client,
+        parameters,
+        channel,
+        Optional.of(new OByteRange(0L, partSize)),
+        Optional.empty()
+      );
+    } catch (final OException e) {
+
+      /*
+       * S3 rejects any range request for an empty object, and so the
+       * object is fetched again as a whole.
+       */
+
+      if (Objects.equals(e.errorCode(), "InvalidRange")) {
+        return fetchRange(
+          client,
+          parameters,
+          channel,
+          Optional.empty(),
+          Optional.empty()
+        );
+      }
+      throw e;
+    }
+
+    final var size = first.objectSize();
+    if (size > first.contentLength()) {
+      channel.write(ByteBuffer.allocate(1), size - 1L);
+      fetchRemaining(client, parameters, channel, first, size);
+    }
+
+    return OGetObjectResponse.builder()
+      .from(first)
+      .setContentLength(size)
+      .build();
+  }
+
+  private static void fetchRemaining(
+    final OClientType client,
+    final ODownloadParameters parameters,
+    final FileChannel channel,
+    final OGetObjectResponse first,
+    final long size)
+    throws OException
+  {
+    final var configuration =
+      client.configuration();
+    final var partSize =
+      configuration.downloadPartSize();
+
+    final var threads =
+      Thread.ofVirtual()
+        .name("com.io7m.ophis.download-", 0L)
+        .factory();
+
+    try (var executor =
+           Executors.newFixedThreadPool(
+             configuration.downloadConcurrency(),
+             threads)) {
+      final var futures = new ArrayList<Future<OGetObjectResponse>>();
+
+      for (long offset = first.contentLength();
+           offset < size;
+           offset += partSize) {
+        final var range =
+          new OByteRange(offset, Math.min(partSize, size - offset));
+        futures.add(executor.submit(() -> {
+          return fetchRange(
+            client,
+            parameters,
+            channel,
+            Optional.of(range),
+            first.eTag()
+          );
+        }));
+      }
+
+      try {
+        for (final var future : futures) {
+          future.get();
+        }
+      } catch (final ExecutionException e) {
+        executor.shutdownNow();
+        throw switch (e.getCause()) {
+          case final OException ex -> ex;
+          default -> new OException(
+            e.getCause(),
+            "error-download-range",
+            Map.ofEntries(
+              Map.entry("Bucket", parameters.bucketName()),
+              Map.entry("Key", parameters.key())
+            ),
+            Optional.empty()
+          );
+        };
+      } catch (final InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+        throw new OException(
+          e,
+          "error-interruption",
+          Map.ofEntries(
+            Map.entry("Bucket", parameters.bucketName()),
+            Map.entry("Key", parameters.key())
+          ),
+          Optional.empty()
+        );
+      }
+    }
+  }
+
+  private static OGetObjectResponse fetchRange(
+    final OClientType client,
+    final ODownloadParameters parameters,
+    final FileChannel channel,
+    final Optional<OByteRange> range,
+    final Optional<String> eTag)
+    throws OException
+  {
+    final var offset =
+      range.map(OByteRange::offset).orElse(Long.valueOf(0L)).longValue();
+
+    try (var region = new OFileRegionChannel(channel, offset)) {
+      final var response =
+        client.execute(
+          OGetObjectType.class,
+          OGetObjectParameters.builder()
+            .setBucketName(parameters.bucketName())
+            .setKey(parameters.key())
+            .setRange(range)
+            .setIfMatch(eTag)
+            .setSink(new OGetObjectSinkChannel(region))
+            .build()
+        );
+
+      if (range.isPresent()) {
+        final var expected = range.get().length();
+        final var received = response.contentLength();
+        final var written = region.position() - offset;
+        final var truncated =
+          received != expected && offset + received != response.objectSize();
+        if (truncated || written != received) {
+          throw new OException(
+            "The server returned a range of an unexpected size.",
+            "error-range-size",
+            Map.ofEntries(
+              Map.entry("Bucket", parameters.bucketName()),
+              Map.entry("Key", parameters.key()),
+              Map.entry("Offset", Long.toUnsignedString(offset)),
+              Map.entry("Expected", Long.toUnsignedString(expected)),
+              Map.entry("Received", Long.toUnsignedString(received)),
+              Map.entry("Written", Long.toUnsignedString(written))
+            )
+          );
+        }
+      }
+      return response;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * A channel that writes to a region of a shared file channel using
+ * positional writes, starting at a fixed offset. Any number of region
+ * channels may write to the same file channel concurrently. Closing a region
+ * channel does not close the underlying file channel.
+ */
+
+final class OFileRegionChannel
+  implements WritableByteChannel
+{
+  private final FileChannel channel;
+  private long position;
+  private boolean closed;
+
+  OFileRegionChannel(
+    final FileChannel inChannel,
+    final long inOffset)
+  {
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.position =
+      inOffset;
+  }
+
+  @Override
+  public int write(
+    final ByteBuffer source)
+    throws IOException
+  {
+    final var written =
+      this.channel.write(source, this.position);
+    this.position += written;
+    return written;
+  }
+
+  /**
+   * @return The position at which the next write will occur
+   */
+
+  long position()
+  {
+    return this.position;
+  }
+
+  @Override
+  public boolean isOpen()
+  {
+    return !this.closed && this.channel.isOpen();
+  }
+
+  @Override
+  public void close()
+  {
+    this.closed = true;
+  }
+}
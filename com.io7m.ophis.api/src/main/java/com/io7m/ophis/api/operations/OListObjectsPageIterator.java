@@ -0,0 +1,144 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.OUncheckedException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsResponse;
+import com.io7m.ophis.api.commands.OListObjectsType;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * An iterator over pages of objects that requests each page as soon as the
+ * previous page has arrived.
+ */
+
+final class OListObjectsPageIterator
+  implements Iterator<OListObjectsResponse>, AutoCloseable
+{
+  private final OClientType client;
+  private final OListObjectsParameters parameters;
+  private CompletableFuture<OListObjectsResponse> pending;
+  private boolean started;
+
+  OListObjectsPageIterator(
+    final OClientType inClient,
+    final OListObjectsParameters inParameters)
+  {
+    this.client = inClient;
+    this.parameters = inParameters;
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    if (!this.started) {
+      this.started = true;
+      this.pending = this.fetch(this.parameters.continuationToken());
+    }
+    return this.pending != null;
+  }
+
+  @Override
+  public OListObjectsResponse next()
+  {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final var page = this.await(this.pending);
+    this.pending = null;
+
+    if (page.isTruncated()) {
+      final var token = page.nextContinuationToken();
+      if (token.isPresent()) {
+        this.pending = this.fetch(token);
+      }
+    }
+    return page;
+  }
+
+  private CompletableFuture<OListObjectsResponse> fetch(
+    final Optional<String> token)
+  {
+    return this.client.executeAsync(
+      OListObjectsType.class,
+      OListObjectsParameters.builder()
+        .from(this.parameters)
+        .setContinuationToken(token)
+        .build()
+    );
+  }
+
+  private OListObjectsResponse await(
+    final CompletableFuture<OListObjectsResponse> future)
+  {
+    try {
+      return future.get();
+    } catch (final ExecutionException e) {
+      throw switch (e.getCause()) {
+        case final OException ex -> new OUncheckedException(ex);
+        default -> new OUncheckedException(
+          new OException(
+            e.getCause(),
+            "error-list-objects",
+            this.attributes(),
+            Optional.empty()
+          )
+        );
+      };
+    } catch (final InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new OUncheckedException(
+        new OException(
+          e,
+          "error-interruption",
+          this.attributes(),
+          Optional.empty()
+        )
+      );
+    }
+  }
+
+  private Map<String, String> attributes()
+  {
+    return Map.ofEntries(
+      Map.entry("Bucket", this.parameters.bucketName()),
+      Map.entry("Prefix", this.parameters.prefix())
+    );
+  }
+
+  @Override
+  public void close()
+  {
+    final var future = this.pending;
+    if (future != null) {
+      future.cancel(true);
+      this.pending = null;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsResponse;
+import com.io7m.ophis.api.commands.OObjectContents;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Functions to list the entire contents of a bucket, or of a prefix within
+ * a bucket, across as many ListObjects requests as are necessary.
+ */
+
+public final class OListings
+{
+  private OListings()
+  {
+
+  }
+
+  /**
+   * Lazily list pages of objects. No request is made until the first page
+   * is requested from the returned stream. Each time a truncated page is
+   * returned, the request for the page that follows it is started in the
+   * background, and so the next page is usually available by the time
+   * the caller has finished processing the current one. At most one request
+   * is in flight at any given time. Closing the stream cancels any
+   * outstanding request.
+   *
+   * <p>Errors are raised from the stream as
+   * {@link com.io7m.ophis.api.OUncheckedException} instances that wrap the
+   * original exceptions.</p>
+   *
+   * @param client     The client
+   * @param parameters The parameters for the first page
+   *
+   * @return A stream of pages
+   */
+
+  public static Stream<OListObjectsResponse> pages(
+    final OClientType client,
+    final OListObjectsParameters parameters)
+  {
+    Objects.requireNonNull(client, "client");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var iterator =
+      new OListObjectsPageIterator(client, parameters);
+    final var spliterator =
+      Spliterators.spliteratorUnknownSize(
+        iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE
+      );
+
+    return StreamSupport.stream(spliterator, false)
+      .onClose(iterator::close);
+  }
+
+  /**
+   * Lazily list objects. This is equivalent to flattening the pages returned
+   * by {@link #pages(OClientType, OListObjectsParameters)}, and has the
+   * same prefetching and error behaviour.
+   *
+   * @param client     The client
+   * @param parameters The parameters for the first page
+   *
+   * @return A stream of objects
+   *
+   * @see #pages(OClientType, OListObjectsParameters)
+   */
+
+  public static Stream<OObjectContents> objects(
+    final OClientType client,
+    final OListObjectsParameters parameters)
+  {
+    return pages(client, parameters)
+      .flatMap(page -> page.contents().stream());
+  }
+
+  /**
+   * Lazily list objects in parallel. The keyspace is divided into shards as
+   * described by {@link OParallelListingParameters}, and up to
+   * {@link OParallelListingParameters#concurrency()} shards are listed at
+   * once. Objects are returned in key order within each shard, but the
+   * shards are interleaved in no particular order. Pages are buffered in a
+   * bounded queue, and so the listing proceeds no faster than the caller
+   * consumes it.
+   *
+   * <p>The returned stream must be closed in order to stop any shards
+   * that are still being listed. Errors are raised from the stream as
+   * {@link com.io7m.ophis.api.OUncheckedException} instances that wrap the
+   * original exceptions.</p>
+   *
+   * @param client     The client
+   * @param parameters The listing parameters
+   *
+   * @return A stream of objects
+   */
+
+  public static Stream<OObjectContents> objectsParallel(
+    final OClientType client,
+    final OParallelListingParameters parameters)
+  {
+    Objects.requireNonNull(client, "client");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var listing =
+      new OParallelListing(client, parameters);
+    final var spliterator =
+      Spliterators.spliteratorUnknownSize(
+        listing,
+        Spliterator.NONNULL | Spliterator.IMMUTABLE
+      );
+
+    return StreamSupport.stream(spliterator, false)
+      .onClose(listing::close)
+      .flatMap(List::stream);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.api.commands.OObjectDatas;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A source of part data for a multipart upload. Parts of file-backed data
+ * are read directly from the file by the thread that uploads each part.
+ * Parts of stream-backed data are read in order from a single stream that
+ * is opened once, and each part is held in memory until it is uploaded.
+ * Part data is never hashed, and is therefore uploaded with a streaming
+ * signature.
+ */
+
+final class OMultipartPartSource
+  implements AutoCloseable
+{
+  /**
+   * The largest part that can be held in memory.
+   */
+
+  static final long MAXIMUM_BUFFERED_PART_SIZE =
+    Integer.MAX_VALUE - 8;
+
+  private static final int READ_SIZE = 65536;
+
+  private final OObjectData data;
+  private final Map<String, String> attributes;
+  private final InputStream stream;
+  private long position;
+
+  private OMultipartPartSource(
+    final OObjectData inData,
+    final Map<String, String> inAttributes,
+    final InputStream inStream)
+  {
+    this.data =
+      Objects.requireNonNull(inData, "data");
+    this.attributes =
+      Objects.requireNonNull(inAttributes, "attributes");
+    this.stream =
+      inStream;
+  }
+
+  /**
+   * Open a source of parts for the given data.
+   *
+   * @param data       The object data
+   * @param attributes The error attributes
+   *
+   * @return A source of parts
+   *
+   * @throws OException On errors
+   */
+
+  static OMultipartPartSource open(
+    final OObjectData data,
+    final Map<String, String> attributes)
+    throws OException
+  {
+    final var fileOpt = data.file();
+    if (fileOpt.isPresent()) {
+      final var unhashed =
+        OObjectData.builder()
+          .setStream(data.stream())
+          .setSize(data.size())
+          .setFile(fileOpt.get())
+          .build();
+      return new OMultipartPartSource(unhashed, attributes, null);
+    }
+
+    try {
+      return new OMultipartPartSource(data, attributes, data.stream().get());
+    } catch (final UncheckedIOException e) {
+      throw new OException(
+        e.getCause(),
+        "error-io",
+        attributes,
+        Optional.empty()
+      );
+    }
+  }
+
+  /**
+   * Obtain the data for the part at the given range. Parts of stream-backed
+   * data must be requested in order.
+   *
+   * @param offset The offset of the part
+   * @param size   The size of the part
+   *
+   * @return The part data
+   *
+   * @throws OException On errors
+   */
+
+  OObjectData part(
+    final long offset,
+    final long size)
+    throws OException
+  {
+    if (this.stream == null) {
+      return OObjectDatas.ofRange(this.data, offset, size);
+    }
+
+    if (offset != this.position) {
+      throw new IllegalStateException(
+        "Part offset %d does not match the stream position %d"
+          .formatted(Long.valueOf(offset), Long.valueOf(this.position))
+      );
+    }
+
+    try {
+      final var buffer = new byte[Math.toIntExact(size)];
+      var filled = 0;
+      while (filled < buffer.length) {
+        final var count =
+          this.stream.read(
+            buffer,
+            filled,
+            Math.min(buffer.length - filled, READ_SIZE)
+          );
+        if (count == -1) {
+          throw new OException(
+            "The object data stream ended before the expected size.",
+            "error-io",
+            this.errorAttributes(offset, size)
+          );
+        }
+        filled += count;
+      }
+      this.position += size;
+      return OObjectDatas.ofStream(
+        () -> new ByteArrayInputStream(buffer),
+        size
+      );
+    } catch (final IOException e) {
+      throw new OException(
+        e,
+        "error-io",
+        this.errorAttributes(offset, size),
+        Optional.empty()
+      );
+    }
+  }
+
+  private Map<String, String> errorAttributes(
+    final long offset,
+    final long size)
+  {
+    final var map = new HashMap<>(this.attributes);
+    map.put("Offset", Long.toUnsignedString(offset));
+    map.put("Size", Long.toUnsignedString(size));
+    return Map.copyOf(map);
+  }
+
+  @Override
+  public void close()
+    throws OException
+  {
+    if (this.stream == null) {
+      return;
+    }
+
+    try {
+      this.stream.close();
+    } catch (final IOException e) {
+      throw new OException(
+        e,
+        "error-io",
+        this.attributes,
+        Optional.empty()
+      );
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import com.io7m.ophis.api.commands.OObjectData;
+import org.immutables.value.Value;
+
+import java.time.OffsetDateTime;
+import java.util.Optional;
+
+/**
+ * The parameters for a parallel multipart upload.
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OMultipartUploadParametersType
+{
+  /**
+   * The smallest part size permitted by S3 for any part other than the last.
+   */
+
+  long MINIMUM_PART_SIZE = 5L * 1024L * 1024L;
+
+  /**
+   * The largest part size permitted by S3.
+   */
+
+  long MAXIMUM_PART_SIZE = 5L * 1024L * 1024L * 1024L;
+
+  /**
+   * @return The bucket name
+   */
+
+  String bucketName();
+
+  /**
+   * @return The object key
+   */
+
+  String key();
+
+  /**
+   * @return The time at which the object can no longer be cached
+   */
+
+  Optional<OffsetDateTime> expires();
+
+  /**
+   * @return The content type of the object
+   */
+
+  @Value.Default
+  default String contentType()
+  {
+    return "application/octet-stream";
+  }
+
+  /**
+   * @return The object data
+   */
+
+  OObjectData data();
+
+  /**
+   * @return The size of each part (the last part may be smaller)
+   */
+
+  @Value.Default
+  default long partSize()
+  {
+    return 16L * 1024L * 1024L;
+  }
+
+  /**
+   * @return The maximum number of parts that will be uploaded at once
+   */
+
+  @Value.Default
+  default int concurrency()
+  {
+    return 4;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    final var size = this.partSize();
+    if (size < MINIMUM_PART_SIZE || size > MAXIMUM_PART_SIZE) {
+      throw new IllegalArgumentException(
+        "Part size %d must be in the range [%d, %d]"
+          .formatted(
+            Long.valueOf(size),
+            Long.valueOf(MINIMUM_PART_SIZE),
+            Long.valueOf(MAXIMUM_PART_SIZE)
+          )
+      );
+    }
+
+    final var concurrency = this.concurrency();
+    if (concurrency < 1) {
+      throw new IllegalArgumentException(
+        "Concurrency %d must be at least 1"
+          .formatted(Integer.valueOf(concurrency))
+      );
+    }
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OAbortMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OAbortMultipartUploadType;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadResponse;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadType;
+import com.io7m.ophis.api.commands.OCompletedPart;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadType;
+import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.api.commands.OUploadPartParameters;
+import com.io7m.ophis.api.commands.OUploadPartType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+
+/**
+ * Functions to upload large objects as a set of parts uploaded in parallel.
+ */
+
+public final class OMultipartUploads
+{
+  /**
+   * The maximum number of parts permitted in a single upload.
+   */
+
+  private static final int MAXIMUM_PARTS = 10000;
+
+  private OMultipartUploads()
+  {
+
+  }
+
+  /**
+   * Upload an object using a multipart upload. The object data is divided
+   * into parts of {@link OMultipartUploadParameters#partSize()} bytes, and
+   * at most {@link OMultipartUploadParameters#concurrency()} parts are
+   * uploaded at any given time. If any part fails to upload, the remaining
+   * parts are cancelled and the multipart upload is aborted.
+   *
+   * If the data is backed by a file, each part is read directly from its
+   * range of the file. Otherwise, the data's stream is opened exactly once
+   * and read sequentially, and each part is held in memory until it has been
+   * uploaded; the part size must therefore be small enough to fit in an
+   * array. Parts are not hashed, and are uploaded with a streaming
+   * signature.
+   *
+   * @param client     The client
+   * @param parameters The upload parameters
+   *
+   * @return The result of completing the upload
+   *
+   * @throws OException On errors
+   */
+
+  public static OCompleteMultipartUploadResponse upload(
+    final OClientType client,
+    final OMultipartUploadParameters parameters)
+    throws OException
+  {
+    Objects.requireNonNull(client, "client");
+    Objects.requireNonNull(parameters, "parameters");
+
+    final var partCount =
+      partCount(parameters);
+
+    final var created =
+      client.execute(
+        OCreateMultipartUploadType.class,
+        OCreateMultipartUploadParameters.builder()
+          .setBucketName(parameters.bucketName())
+          .setKey(parameters.key())
+          .setContentType(parameters.contentType())
+          .setExpires(parameters.expires())
+          .build()
+      );
+
+    final var uploadId = created.uploadId();
+    try {
+      final var parts =
+        uploadParts(client, parameters, uploadId, partCount);
+
+      return client.execute(
+        OCompleteMultipartUploadType.class,
+        OCompleteMultipartUploadParameters.builder()
+          .setBucketName(parameters.bucketName())
+          .setKey(parameters.key())
+          .setUploadId(uploadId)
+          .setParts(parts)
+          .build()
+      );
+    } catch (final OException | RuntimeException e) {
+      abort(client, parameters, uploadId, e);
+      throw e;
+    }
+  }
+
+  private static int partCount(
+    final OMultipartUploadParameters parameters)
+    throws OException
+  {
+    final var size =
+      parameters.data().size();
+    final var partSize =
+      parameters.partSize();
+    final var count =
+      Math.max(1L, (size + partSize - 1L) / partSize);
+
+    if (parameters.data().file().isEmpty()
+        && partSize > OMultipartPartSource.MAXIMUM_BUFFERED_PART_SIZE) {
+      throw new OException(
+        "The part size is too large to upload parts of non-file data.",
+        "error-part-size",
+        Map.ofEntries(
+          Map.entry("Part Size", Long.toUnsignedString(partSize)),
+          Map.entry(
+            "Maximum Part Size",
+            Long.toUnsignedString(
+              OMultipartPartSource.MAXIMUM_BUFFERED_PART_SIZE)
+          )
+        )
+      );
+    }
+
+    if (count > MAXIMUM_PARTS) {
+      throw new OException(
+        "The object would require too many parts at the given part size.",
+        "error-too-many-parts",
+        Map.ofEntries(
+          Map.entry("Size", Long.toUnsignedString(size)),
+          Map.entry("Part Size", Long.toUnsignedString(partSize)),
+          Map.entry("Parts", Long.toUnsignedString(count)),
+          Map.entry("Maximum Parts", Integer.toUnsignedString(MAXIMUM_PARTS))
+        )
+      );
+    }
+    return (int) count;
+  }
+
+  private static List<OCompletedPart> uploadParts(
+    final OClientType client,
+    final OMultipartUploadParameters parameters,
+    final String uploadId,
+    final int partCount)
+    throws OException
+  {
+    final var threads =
+      Thread.ofVirtual()
+        .name("com.io7m.ophis.upload-", 0L)
+        .factory();
+    final var concurrency =
+      parameters.concurrency();
+    final var attributes =
+      Map.of("Upload ID", uploadId);
+
+    try (var executor =
+           Executors.newFixedThreadPool(concurrency, threads);
+         var source =
+           OMultipartPartSource.open(parameters.data(), attributes)) {
+      final var completion =
+        new ExecutorCompletionService<OCompletedPart>(executor);
+      final var parts =
+        new ArrayList<OCompletedPart>(partCount);
+
+      /*
+       * At most "concurrency" parts are in flight at any given time, and
+       * parts are collected in the order in which they complete. The first
+       * part to fail therefore stops the upload immediately, and no more
+       * than "concurrency" parts of stream-backed data are held in memory.
+       */
+
+      try {
+        for (int index = 0; index < partCount; ++index) {
+          if (index >= concurrency) {
+            parts.add(completion.take().get());
+          }
+
+          final var partNumber = index + 1;
+          final var offset = (long) index * parameters.partSize();
+          final var partData =
+            source.part(offset, partSize(parameters, offset));
+
+          completion.submit(() -> {
+            return uploadPart(
+              client,
+              parameters,
+              uploadId,
+              partNumber,
+              partData
+            );
+          });
+        }
+
+        while (parts.size() < partCount) {
+          parts.add(completion.take().get());
+        }
+      } catch (final OException e) {
+        executor.shutdownNow();
+        throw e;
+      } catch (final ExecutionException e) {
+        executor.shutdownNow();
+        throw switch (e.getCause()) {
+          case final OException ex -> ex;
+          default -> new OException(
+            e.getCause(),
+            "error-upload-part",
+            attributes,
+            Optional.empty()
+          );
+        };
+      } catch (final InterruptedException e) {
+        executor.shutdownNow();
+        Thread.currentThread().interrupt();
+        throw new OException(
+          e,
+          "error-interruption",
+          attributes,
+          Optional.empty()
+        );
+      }
+
+      parts.sort(Comparator.comparingInt(OCompletedPart::partNumber));
+      return parts;
+    }
+  }
+
+  private static long partSize(
+    final OMultipartUploadParameters parameters,
+    final long offset)
+  {
+    return Math.min(parameters.partSize(), parameters.data().size() - offset);
+  }
+
+  private static OCompletedPart uploadPart(
+    final OClientType client,
+    final OMultipartUploadParameters parameters,
+    final String uploadId,
+    final int partNumber,
+    final OObjectData partData)
+    throws OException
+  {
+    final var response =
+      client.execute(
+        OUploadPartType.class,
+        OUploadPartParameters.builder()
+          .setBucketName(parameters.bucketName())
+          .setKey(parameters.key())
+          .setUploadId(uploadId)
+          .setPartNumber(partNumber)
+          .setData(partData)
+          .build()
+      );
+
+    return new OCompletedPart(partNumber, response.eTag());
+  }
+
+  private static void abort(
+    final OClientType client,
+    final OMultipartUploadParameters parameters,
+    final String uploadId,
+    final Exception cause)
+  {
+    try {
+      client.execute(
+        OAbortMultipartUploadType.class,
+        OAbortMultipartUploadParameters.builder()
+          .setBucketName(parameters.bucketName())
+          .setKey(parameters.key())
+          .setUploadId(uploadId)
+          .build()
+      );
+    } catch (final OException e) {
+      cause.addSuppressed(e);
+    }
+  }
+}
@@ -0,0 +1,346 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.OUncheckedException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OObjectContents;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A listing that lists shards of the keyspace concurrently, and merges the
+ * pages of each shard into a single sequence of pages.
+ */
+
+final class OParallelListing
+  implements Iterator<List<OObjectContents>>, AutoCloseable
+{
+  private final OClientType client;
+  private final OParallelListingParameters parameters;
+  private final BlockingQueue<ItemType> queue;
+  private final AtomicInteger outstanding;
+  private final ExecutorService executor;
+  private volatile boolean closed;
+  private boolean started;
+  private boolean finished;
+  private List<OObjectContents> current;
+
+  OParallelListing(
+    final OClientType inClient,
+    final OParallelListingParameters inParameters)
+  {
+    this.client = inClient;
+    this.parameters = inParameters;
+    this.queue = new ArrayBlockingQueue<>(inParameters.concurrency() * 2);
+    this.outstanding = new AtomicInteger(0);
+
+    final var threads =
+      Thread.ofVirtual()
+        .name("com.io7m.ophis.list-", 0L)
+        .factory();
+
+    this.executor =
+      Executors.newFixedThreadPool(inParameters.concurrency(), threads);
+  }
+
+  private sealed interface ItemType
+  {
+
+  }
+
+  private record Page(
+    List<OObjectContents> contents)
+    implements ItemType
+  {
+
+  }
+
+  private record Failed(
+    OException error)
+    implements ItemType
+  {
+
+  }
+
+  private record Finished()
+    implements ItemType
+  {
+
+  }
+
+  private interface TaskType
+  {
+    void run()
+      throws OException, InterruptedException;
+  }
+
+  /**
+   * Compare keys in the order used by S3, which is the order of the UTF-8
+   * encodings of the keys. This is equivalent to ordering by code point.
+   */
+
+  private static int compareKeys(
+    final String x,
+    final String y)
+  {
+    var ix = 0;
+    var iy = 0;
+    while (ix < x.length() && iy < y.length()) {
+      final var cx = x.codePointAt(ix);
+      final var cy = y.codePointAt(iy);
+      if (cx != cy) {
+        return Integer.compare(cx, cy);
+      }
+      ix += Character.charCount(cx);
+      iy += Character.charCount(cy);
+    }
+    return Integer.compare(x.length() - ix, y.length() - iy);
+  }
+
+  @Override
+  public boolean hasNext()
+  {
+    if (!this.started) {
+      this.started = true;
+      this.start();
+    }
+
+    if (this.current == null && !this.finished) {
+      final ItemType item;
+      try {
+        item = this.queue.take();
+      } catch (final InterruptedException e) {
+        this.close();
+        Thread.currentThread().interrupt();
+        throw new OUncheckedException(
+          new OException(
+            e,
+            "error-interruption",
+            this.attributes(),
+            Optional.empty()
+          )
+        );
+      }
+
+      switch (item) {
+        case final Page page -> {
+          this.current = page.contents();
+        }
+        case final Failed failed -> {
+          this.close();
+          throw new OUncheckedException(failed.error());
+        }
+        case final Finished ignored -> {
+          this.close();
+        }
+      }
+    }
+    return this.current != null;
+  }
+
+  @Override
+  public List<OObjectContents> next()
+  {
+    if (!this.hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    final var page = this.current;
+    this.current = null;
+    return page;
+  }
+
+  private void start()
+  {
+    final var boundaries =
+      new ArrayList<>(this.parameters.boundaries());
+
+    if (boundaries.isEmpty()) {
+      this.submit(this::discover);
+      return;
+    }
+
+    boundaries.sort(OParallelListing::compareKeys);
+
+    final var count = boundaries.size();
+    for (int index = 0; index <= count; ++index) {
+      final Optional<String> after =
+        index == 0 ? Optional.empty() : Optional.of(boundaries.get(index - 1));
+      final Optional<String> until =
+        index == count ? Optional.empty() : Optional.of(boundaries.get(index));
+      this.submit(() -> this.listRange(after, until));
+    }
+  }
+
+  private void submit(
+    final TaskType task)
+  {
+    this.outstanding.incrementAndGet();
+    this.executor.execute(() -> {
+      try {
+        task.run();
+      } catch (final OException e) {
+        this.put(new Failed(e));
+      } catch (final OUncheckedException e) {
+        this.put(new Failed(e.getCause()));
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        if (this.outstanding.decrementAndGet() == 0) {
+          this.put(new Finished());
+        }
+      }
+    });
+  }
+
+  private void put(
+    final ItemType item)
+  {
+    try {
+      if (!this.closed) {
+        this.queue.put(item);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void emit(
+    final List<OObjectContents> contents)
+    throws InterruptedException
+  {
+    if (!contents.isEmpty() && !this.closed) {
+      this.queue.put(new Page(contents));
+    }
+  }
+
+  private OListObjectsParameters.Builder listParameters()
+  {
+    return OListObjectsParameters.builder()
+      .setBucketName(this.parameters.bucketName())
+      .setPrefix(this.parameters.prefix())
+      .setMaximumKeys(this.parameters.maximumKeys());
+  }
+
+  /**
+   * List the prefix with the delimiter. The objects directly under the
+   * prefix are emitted as they are, and each common prefix is listed as a
+   * separate shard.
+   */
+
+  private void discover()
+    throws InterruptedException
+  {
+    final var listParameters =
+      this.listParameters()
+        .setDelimiter(this.parameters.delimiter())
+        .build();
+
+    try (var pages = OListings.pages(this.client, listParameters)) {
+      final var iterator = pages.iterator();
+      while (iterator.hasNext() && !this.closed) {
+        final var page = iterator.next();
+        this.emit(page.contents());
+        for (final var prefix : page.commonPrefixes()) {
+          this.submit(() -> this.listPrefix(prefix));
+        }
+      }
+    }
+  }
+
+  private void listPrefix(
+    final String prefix)
+    throws InterruptedException
+  {
+    final var listParameters =
+      this.listParameters()
+        .setPrefix(prefix)
+        .build();
+
+    try (var pages = OListings.pages(this.client, listParameters)) {
+      final var iterator = pages.iterator();
+      while (iterator.hasNext() && !this.closed) {
+        this.emit(iterator.next().contents());
+      }
+    }
+  }
+
+  private void listRange(
+    final Optional<String> after,
+    final Optional<String> until)
+    throws InterruptedException
+  {
+    final var listParameters =
+      this.listParameters()
+        .setStartAfter(after.orElse(""))
+        .build();
+
+    try (var pages = OListings.pages(this.client, listParameters)) {
+      final var iterator = pages.iterator();
+      while (iterator.hasNext() && !this.closed) {
+        final var contents = iterator.next().contents();
+        if (until.isEmpty()) {
+          this.emit(contents);
+          continue;
+        }
+
+        final var limit = until.get();
+        final var inRange =
+          contents.stream()
+            .filter(c -> compareKeys(c.key().orElse(""), limit) <= 0)
+            .toList();
+
+        this.emit(inRange);
+        if (inRange.size() < contents.size()) {
+          return;
+        }
+      }
+    }
+  }
+
+  private Map<String, String> attributes()
+  {
+    return Map.ofEntries(
+      Map.entry("Bucket", this.parameters.bucketName()),
+      Map.entry("Prefix", this.parameters.prefix())
+    );
+  }
+
+  @Override
+  public void close()
+  {
+    this.closed = true;
+    this.finished = true;
+    this.current = null;
+    this.queue.clear();
+    this.executor.shutdownNow();
+  }
+}
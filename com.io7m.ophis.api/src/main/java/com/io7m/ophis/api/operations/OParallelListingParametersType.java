@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.api.operations;
+
+import com.io7m.immutables.styles.ImmutablesStyleType;
+import org.immutables.value.Value;
+
+import java.util.List;
+
+/**
+ * The parameters for a parallel listing. The keyspace under the prefix is
+ * divided into shards that are listed at the same time. If any boundaries
+ * are given, the shards are the ranges of keys between consecutive
+ * boundaries. Otherwise, the shards are the common prefixes discovered by
+ * listing the prefix with the delimiter.
+ *
+ * @see OListings#objectsParallel(com.io7m.ophis.api.OClientType, OParallelListingParameters)
+ */
+
+@ImmutablesStyleType
+@Value.Immutable
+public interface OParallelListingParametersType
+{
+  /**
+   * @return The bucket name
+   */
+
+  String bucketName();
+
+  /**
+   * @return The prefix that returned keys must have
+   */
+
+  @Value.Default
+  default String prefix()
+  {
+    return "";
+  }
+
+  /**
+   * @return The delimiter used to discover shards when no boundaries are
+   * given
+   */
+
+  @Value.Default
+  default String delimiter()
+  {
+    return "/";
+  }
+
+  /**
+   * The boundaries between shards. A shard is listed starting after each
+   * boundary, and so a list of {@code n} boundaries produces {@code n + 1}
+   * shards. The boundaries are sorted before use.
+   *
+   * @return The boundaries between shards
+   */
+
+  List<String> boundaries();
+
+  /**
+   * @return The maximum number of keys returned in a single response
+   */
+
+  @Value.Default
+  default int maximumKeys()
+  {
+    return 1000;
+  }
+
+  /**
+   * @return The maximum number of shards that will be listed at once
+   */
+
+  @Value.Default
+  default int concurrency()
+  {
+    return 4;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    if (this.maximumKeys() < 1 || this.maximumKeys() > 1000) {
+      throw new IllegalArgumentException(
+        "Maximum keys %d must be in the range [1, 1000]"
+          .formatted(Integer.valueOf(this.maximumKeys()))
+      );
+    }
+
+    final var concurrency = this.concurrency();
+    if (concurrency < 1) {
+      throw new IllegalArgumentException(
+        "Concurrency %d must be at least 1"
+          .formatted(Integer.valueOf(concurrency))
+      );
+    }
+
+    if (this.boundaries().isEmpty() && this.delimiter().isEmpty()) {
+      throw new IllegalArgumentException(
+        "A delimiter is required if no boundaries are given"
+      );
+    }
+  }
+}
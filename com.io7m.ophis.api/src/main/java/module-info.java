@@ -31,4 +31,6 @@ module com.io7m.ophis.api
 
   exports com.io7m.ophis.api;
   exports com.io7m.ophis.api.commands;
+  exports com.io7m.ophis.api.metrics;
+  exports com.io7m.ophis.api.operations;
 }
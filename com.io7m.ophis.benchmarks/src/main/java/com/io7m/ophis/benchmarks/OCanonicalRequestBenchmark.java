@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.benchmarks;
+
+import com.io7m.ophis.vanilla.internal.OCanonicalRequest;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the construction and hashing of canonical requests. The
+ * request resembles one produced by a PutObject command.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OCanonicalRequestBenchmark
+{
+  private OCanonicalRequest request;
+
+  /**
+   * Benchmarks for the construction and hashing of canonical requests.
+   */
+
+  public OCanonicalRequestBenchmark()
+  {
+
+  }
+
+  /**
+   * Create the request.
+   */
+
+  @Setup
+  public void setup()
+  {
+    this.request =
+      OCanonicalRequest.builder()
+        .setMethod("PUT")
+        .setResource(OResourceRelative.parse("photos/2024/08/example file.jpg"))
+        .addQueryParameter("uploadId", "VXBsb2FkIElEIGZvciA2aWWpbmcncyBteS1tb3ZpZS5tMnRzIHVwbG9hZA")
+        .addQueryParameter("partNumber", "3")
+        .setHeader("Content-Length", "5242880")
+        .setHeader("Content-Type", "image/jpeg")
+        .setHeader("Host", "example-bucket-0.s3.eu-west-1.amazonaws.com")
+        .setHeader("x-amz-date", "20240818T091847Z")
+        .setHeader("x-amz-checksum-sha256", "sseoHECn0oxBtLOPVRCQ3fqK+DMCCmwlvwMCLVrzcCY=")
+        .setHashedPayload("b22b009134622b6508d756f1062455d71a7026594eacb0badf81f4f677929ebe")
+        .build();
+  }
+
+  /**
+   * @return The canonical request text
+   */
+
+  @Benchmark
+  public String canonicalText()
+  {
+    return this.request.toString();
+  }
+
+  /**
+   * @return The canonical request hash
+   */
+
+  @Benchmark
+  public String canonicalHash()
+  {
+    return this.request.hash();
+  }
+}
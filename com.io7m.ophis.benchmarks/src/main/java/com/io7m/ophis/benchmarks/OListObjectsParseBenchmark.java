@@ -0,0 +1,146 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.benchmarks;
+
+import com.io7m.blackthorne.core.BTException;
+import com.io7m.blackthorne.core.BTPreserveLexical;
+import com.io7m.blackthorne.core.Blackthorne;
+import com.io7m.jxe.core.JXEHardenedSAXParsers;
+import com.io7m.jxe.core.JXEXInclude;
+import com.io7m.ophis.api.commands.OListObjectsResponse;
+import com.io7m.ophis.vanilla.internal.xml.OXListObjects;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Benchmarks for parsing ListBucketResult documents. The parser is
+ * configured in the same way as it is for real responses.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OListObjectsParseBenchmark
+{
+  private static final URI SOURCE =
+    URI.create("urn:benchmark");
+
+  /**
+   * The number of Contents entries in the document.
+   */
+
+  @Param({"1", "100", "1000"})
+  public int entries;
+
+  private JXEHardenedSAXParsers parsers;
+  private byte[] document;
+
+  /**
+   * Benchmarks for parsing ListBucketResult documents.
+   */
+
+  public OListObjectsParseBenchmark()
+  {
+
+  }
+
+  /**
+   * Generate the document.
+   */
+
+  @Setup
+  public void setup()
+  {
+    this.parsers = new JXEHardenedSAXParsers();
+    this.document = generate(this.entries).getBytes(UTF_8);
+  }
+
+  private static String generate(
+    final int count)
+  {
+    final var text = new StringBuilder(256 + (count * 320));
+    text.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+    text.append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">\n");
+    text.append("  <Name>example-bucket-0</Name>\n");
+    text.append("  <Prefix></Prefix>\n");
+    text.append("  <KeyCount>").append(count).append("</KeyCount>\n");
+    text.append("  <MaxKeys>1000</MaxKeys>\n");
+    text.append("  <IsTruncated>false</IsTruncated>\n");
+
+    for (int index = 0; index < count; ++index) {
+      text.append("  <Contents>\n");
+      text.append("    <Key>data/2024/08/object-")
+        .append(index)
+        .append(".bin</Key>\n");
+      text.append("    <LastModified>2024-08-18T09:18:47.000Z</LastModified>\n");
+      text.append("    <ETag>&quot;")
+        .append("%032x".formatted(Integer.valueOf(index)))
+        .append("&quot;</ETag>\n");
+      text.append("    <Size>").append(1024L * index).append("</Size>\n");
+      text.append("    <StorageClass>STANDARD</StorageClass>\n");
+      text.append("  </Contents>\n");
+    }
+
+    text.append("</ListBucketResult>\n");
+    return text.toString();
+  }
+
+  /**
+   * @return The parsed response
+   *
+   * @throws BTException On errors
+   */
+
+  @Benchmark
+  public OListObjectsResponse parse()
+    throws BTException
+  {
+    return Blackthorne.parse(
+      SOURCE,
+      new ByteArrayInputStream(this.document),
+      BTPreserveLexical.PRESERVE_LEXICAL_INFORMATION,
+      () -> {
+        return this.parsers.createXMLReaderNonValidating(
+          Optional.empty(),
+          JXEXInclude.XINCLUDE_DISABLED
+        );
+      },
+      Map.of(OXListObjects.elementName(), OXListObjects::new)
+    );
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.benchmarks;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.vanilla.internal.OSigningKeyV4HMACSHA256;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for signing and signing key derivation. The values are taken
+ * from the "get-vanilla" example in the AWS Signature Version 4 test suite.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OSigningBenchmark
+{
+  private static final OClientAccessKeys CREDENTIALS =
+    new OClientAccessKeys(
+      "AKIDEXAMPLE",
+      "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY"
+    );
+
+  private static final OffsetDateTime DATE =
+    OffsetDateTime.of(2015, 8, 30, 12, 36, 0, 0, ZoneOffset.UTC);
+
+  private static final String STRING_TO_SIGN =
+    String.join(
+      "\n",
+      "AWS4-HMAC-SHA256",
+      "20150830T123600Z",
+      "20150830/us-east-1/service/aws4_request",
+      "bb579772317eb040ac9ed261061d46c1f17a8133879d6129b6e1c25292927e63"
+    );
+
+  private OSigningKeyV4HMACSHA256 key;
+
+  /**
+   * Benchmarks for signing and signing key derivation.
+   */
+
+  public OSigningBenchmark()
+  {
+
+  }
+
+  /**
+   * Derive the signing key.
+   *
+   * @throws OException On errors
+   */
+
+  @Setup
+  public void setup()
+    throws OException
+  {
+    this.key =
+      OSigningKeyV4HMACSHA256.create(CREDENTIALS, DATE, "us-east-1", "service");
+  }
+
+  /**
+   * @return The signature of a string-to-sign
+   *
+   * @throws OException On errors
+   */
+
+  @Benchmark
+  public String sign()
+    throws OException
+  {
+    return this.key.sign(STRING_TO_SIGN);
+  }
+
+  /**
+   * Sign a string-to-sign on a new virtual thread, as requests are signed
+   * when they are sent from virtual threads that each run a single task.
+   *
+   * @return The signature of a string-to-sign
+   *
+   * @throws Exception On errors
+   */
+
+  @Benchmark
+  public String signOnNewVirtualThread()
+    throws Exception
+  {
+    final var result = new String[1];
+    final var thread = Thread.ofVirtual().start(() -> {
+      try {
+        result[0] = this.key.sign(STRING_TO_SIGN);
+      } catch (final OException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    thread.join();
+    return result[0];
+  }
+
+  /**
+   * @return A freshly derived signing key
+   *
+   * @throws OException On errors
+   */
+
+  @Benchmark
+  public OSigningKeyV4HMACSHA256 deriveKey()
+    throws OException
+  {
+    return OSigningKeyV4HMACSHA256.create(
+      CREDENTIALS,
+      DATE,
+      "us-east-1",
+      "service"
+    );
+  }
+}
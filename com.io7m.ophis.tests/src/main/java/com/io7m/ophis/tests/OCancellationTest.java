@@ -0,0 +1,323 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientRetryPolicy;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.operations.OListings;
+import com.io7m.ophis.vanilla.OClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cancelling an asynchronous command cancels the request in flight, and
+ * stops any further attempts. The server is a minimal HTTP/1.1 server that
+ * never answers requests for the bucket {@code stalled}, and instead waits
+ * for the client to abandon the connection. It answers the first request
+ * for the bucket {@code pages} with a truncated page and stalls the rest,
+ * and it answers every request for the bucket {@code slow} with a
+ * retryable error.
+ */
+
+public final class OCancellationTest
+{
+  private static final String PAGE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>pages</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>true</IsTruncated>
+      <NextContinuationToken>next</NextContinuationToken>
+    </ListBucketResult>
+    """;
+
+  private static final String SLOW_DOWN = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <Error>
+      <Code>SlowDown</Code>
+      <Message>Please reduce your request rate.</Message>
+      <Resource>/slow</Resource>
+      <RequestId>0</RequestId>
+    </Error>
+    """;
+
+  private ServerSocket server;
+  private Thread serverThread;
+  private List<String> requests;
+  private CountDownLatch abandoned;
+
+  private static String readLine(
+    final InputStream input)
+    throws IOException
+  {
+    final var line = new ByteArrayOutputStream();
+    while (true) {
+      final var c = input.read();
+      if (c == -1) {
+        return null;
+      }
+      if (c == '\n') {
+        return line.toString(US_ASCII).strip();
+      }
+      line.write(c);
+    }
+  }
+
+  private static void respond(
+    final OutputStream output,
+    final String status,
+    final String body)
+    throws IOException
+  {
+    final var bytes = body.getBytes(UTF_8);
+    final var head = new StringBuilder();
+    head.append("HTTP/1.1 %s\r\n".formatted(status));
+    head.append("Content-Type: application/xml\r\n");
+    head.append("Content-Length: %d\r\n".formatted(bytes.length));
+    head.append("\r\n");
+    output.write(head.toString().getBytes(US_ASCII));
+    output.write(bytes);
+    output.flush();
+  }
+
+  private void serve(
+    final Socket socket)
+  {
+    try (socket) {
+      final var input = socket.getInputStream();
+      final var output = socket.getOutputStream();
+
+      while (true) {
+        final var requestLine = readLine(input);
+        if (requestLine == null || requestLine.isEmpty()) {
+          return;
+        }
+        while (true) {
+          final var header = readLine(input);
+          if (header == null || header.isEmpty()) {
+            break;
+          }
+        }
+        this.requests.add(requestLine);
+
+        if (requestLine.contains("/slow")) {
+          respond(output, "503 Service Unavailable", SLOW_DOWN);
+        } else if (requestLine.contains("/pages")
+                   && !requestLine.contains("continuation-token")) {
+          respond(output, "200 OK", PAGE);
+        } else {
+          this.stall(socket);
+          return;
+        }
+      }
+    } catch (final IOException e) {
+      // The client went away.
+    }
+  }
+
+  /**
+   * Wait for the client to abandon the connection. The connection is
+   * dropped after a while regardless, so that a client that never abandons
+   * its request fails the test rather than waiting forever.
+   */
+
+  private void stall(
+    final Socket socket)
+  {
+    try {
+      socket.setSoTimeout(20_000);
+      final var input = socket.getInputStream();
+      while (input.read() != -1) {
+        // Nothing more is expected from the client.
+      }
+    } catch (final SocketTimeoutException e) {
+      return;
+    } catch (final IOException e) {
+      // The client reset the connection.
+    }
+    this.abandoned.countDown();
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.requests = new CopyOnWriteArrayList<>();
+    this.abandoned = new CountDownLatch(1);
+    this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    this.serverThread = Thread.ofVirtual().start(() -> {
+      while (!this.server.isClosed()) {
+        try {
+          final var socket = this.server.accept();
+          Thread.ofVirtual().start(() -> this.serve(socket));
+        } catch (final IOException e) {
+          return;
+        }
+      }
+    });
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.server.close();
+    this.serverThread.join();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getLocalPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setRetryPolicy(
+          OClientRetryPolicy.builder()
+            .setMaximumAttempts(100)
+            .setBaseDelay(Duration.ofMillis(50L))
+            .setMaximumDelay(Duration.ofMillis(100L))
+            .build())
+        .build()
+    );
+  }
+
+  private static OListObjectsParameters list(
+    final String bucket)
+  {
+    return OListObjectsParameters.builder()
+      .setBucketName(bucket)
+      .build();
+  }
+
+  private void awaitRequests(
+    final int count)
+    throws InterruptedException
+  {
+    final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10L);
+    while (this.requests.size() < count) {
+      assertTrue(System.nanoTime() - deadline < 0L, "Requests must arrive");
+      Thread.sleep(10L);
+    }
+  }
+
+  /**
+   * Cancelling a command cancels the request in flight.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCancelInFlight()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      final var future =
+        client.executeAsync(OListObjectsType.class, list("stalled"));
+
+      this.awaitRequests(1);
+      future.cancel(true);
+      assertTrue(
+        this.abandoned.await(10L, TimeUnit.SECONDS),
+        "The request must be abandoned"
+      );
+    }
+    assertEquals(1, this.requests.size());
+  }
+
+  /**
+   * Cancelling a command stops it from being retried.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCancelRetries()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      final var future =
+        client.executeAsync(OListObjectsType.class, list("slow"));
+
+      this.awaitRequests(1);
+      future.cancel(true);
+
+      /*
+       * Retries are at most 100ms apart, so a command that kept retrying
+       * would send many more requests in this time.
+       */
+
+      Thread.sleep(3000L);
+    }
+    assertEquals(1, this.requests.size());
+  }
+
+  /**
+   * Closing a stream of pages cancels the request for the next page.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testClosePages()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      try (var pages = OListings.pages(client, list("pages"))) {
+        pages.iterator().next();
+        this.awaitRequests(2);
+      }
+      assertTrue(
+        this.abandoned.await(10L, TimeUnit.SECONDS),
+        "The request for the next page must be abandoned"
+      );
+    }
+    assertEquals(2, this.requests.size());
+  }
+}
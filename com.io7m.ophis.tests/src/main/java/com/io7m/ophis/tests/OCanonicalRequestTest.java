@@ -17,12 +17,16 @@
 
 package com.io7m.ophis.tests;
 
+import com.io7m.ophis.api.OClientAccessKeys;
 import com.io7m.ophis.vanilla.internal.OCanonicalRequest;
 import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import com.io7m.ophis.vanilla.internal.OSigningKeyV4HMACSHA256;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
 
@@ -82,4 +86,102 @@ public final class OCanonicalRequestTest
     assertEquals(List.of(), request.queryParameters());
     assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", request.hashedPayload());
   }
+
+  /**
+   * The canonical request and signature match the "get-vanilla" example
+   * from the AWS Signature Version 4 test suite.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRequestAWSGetVanilla()
+    throws Exception
+  {
+    final var request =
+      OCanonicalRequest.builder()
+        .setHeader("x-amz-date", "20150830T123600Z")
+        .setHeader("Host", "example.amazonaws.com")
+        .build();
+
+    dumpRequest(request);
+
+    assertEquals(
+      String.join(
+        "\n",
+        "GET",
+        "/",
+        "",
+        "host:example.amazonaws.com",
+        "x-amz-date:20150830T123600Z",
+        "",
+        "host;x-amz-date",
+        "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855"
+      ),
+      request.toString()
+    );
+    assertEquals("host;x-amz-date", request.signedHeaders());
+
+    final var hash = request.hash();
+    assertEquals(
+      "bb579772317eb040ac9ed261061d46c1f17a8133879d6129b6e1c25292927e63",
+      hash
+    );
+
+    final var key =
+      OSigningKeyV4HMACSHA256.create(
+        new OClientAccessKeys(
+          "AKIDEXAMPLE",
+          "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY"
+        ),
+        OffsetDateTime.of(2015, 8, 30, 12, 36, 0, 0, ZoneOffset.UTC),
+        "us-east-1",
+        "service"
+      );
+
+    final var stringToSign =
+      String.join(
+        "\n",
+        "AWS4-HMAC-SHA256",
+        "20150830T123600Z",
+        "20150830/us-east-1/service/aws4_request",
+        hash
+      );
+
+    assertEquals(
+      "5fa00fa31553b73ebf1942676e86291e8372ff2a2260956d9b8aae1d763fbf31",
+      key.sign(stringToSign)
+    );
+
+    /*
+     * Signing again on the same thread reuses the MAC, and must produce the
+     * same result.
+     */
+
+    assertEquals(
+      "5fa00fa31553b73ebf1942676e86291e8372ff2a2260956d9b8aae1d763fbf31",
+      key.sign(stringToSign)
+    );
+    assertEquals(hash, request.hash());
+  }
+
+  /**
+   * Query parameters are sorted and encoded.
+   */
+
+  @Test
+  public void testRequestQuerySorted()
+  {
+    final var request =
+      OCanonicalRequest.builder()
+        .setResource(OResourceRelative.parse("a b/c"))
+        .addQueryParameter("prefix", "x/y z")
+        .addQueryParameter("list-type", "2")
+        .build();
+
+    assertEquals(
+      "GET\n/a%20b/c\nlist-type=2&prefix=x%2Fy%20z\n\n\n" + request.hashedPayload(),
+      request.toString()
+    );
+  }
 }
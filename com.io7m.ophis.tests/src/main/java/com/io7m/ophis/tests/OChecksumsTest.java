@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.commands.OChecksum;
+import com.io7m.ophis.api.commands.OChecksumAlgorithm;
+import com.io7m.ophis.vanilla.internal.OCRC64NVME;
+import com.io7m.ophis.vanilla.internal.OChecksums;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpHeaders;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class OChecksumsTest
+{
+  private static final byte[] CHECK =
+    "123456789".getBytes(US_ASCII);
+
+  private static String checksumOf(
+    final OChecksumAlgorithm algorithm,
+    final byte[] data)
+  {
+    final var checksum = OChecksums.create(algorithm);
+    checksum.update(data, 0, data.length);
+    return OChecksums.encode(algorithm, checksum);
+  }
+
+  /**
+   * The checksums of the standard check input match the published check
+   * values.
+   */
+
+  @Test
+  public void testCheckValues()
+  {
+    final var crc64 = new OCRC64NVME();
+    crc64.update(CHECK, 0, CHECK.length);
+    assertEquals(0xae8b14860a799888L, crc64.getValue());
+
+    /*
+     * CRC32: 0xcbf43926, CRC32C: 0xe3069283.
+     */
+
+    assertEquals("y/Q5Jg==", checksumOf(OChecksumAlgorithm.CRC32, CHECK));
+    assertEquals("4waSgw==", checksumOf(OChecksumAlgorithm.CRC32C, CHECK));
+    assertEquals(
+      "rosUhgp5mIg=",
+      checksumOf(OChecksumAlgorithm.CRC64NVME, CHECK)
+    );
+  }
+
+  /**
+   * Updating CRC64NVME with arbitrary slices of data produces the same value
+   * as updating it one octet at a time.
+   */
+
+  @Test
+  public void testCRC64Slices()
+  {
+    final var random = new Random(0x5eedL);
+    final var data = new byte[4099];
+    random.nextBytes(data);
+
+    final var single = new OCRC64NVME();
+    for (final var b : data) {
+      single.update(b);
+    }
+
+    for (int index = 0; index < 100; ++index) {
+      final var sliced = new OCRC64NVME();
+      var position = 0;
+      while (position < data.length) {
+        final var length =
+          Math.min(data.length - position, random.nextInt(40));
+        sliced.update(data, position, length);
+        position += length;
+      }
+      assertEquals(single.getValue(), sliced.getValue());
+    }
+
+    single.reset();
+    assertEquals(0L, single.getValue());
+  }
+
+  /**
+   * Encoded lengths match the lengths of encoded values.
+   */
+
+  @Test
+  public void testEncodedLengths()
+  {
+    for (final var algorithm : OChecksumAlgorithm.values()) {
+      assertEquals(
+        OChecksums.encodedLength(algorithm),
+        checksumOf(algorithm, CHECK).length()
+      );
+    }
+  }
+
+  /**
+   * Checksums of entire objects are found in headers, and composite
+   * checksums are ignored.
+   */
+
+  @Test
+  public void testFromHeaders()
+  {
+    assertEquals(
+      Optional.of(new OChecksum(OChecksumAlgorithm.CRC32C, "4waSgw==")),
+      OChecksums.fromHeaders(headers(Map.of(
+        "x-amz-checksum-crc32c", List.of("4waSgw==")
+      )))
+    );
+    assertEquals(
+      Optional.empty(),
+      OChecksums.fromHeaders(headers(Map.of(
+        "x-amz-checksum-crc32c", List.of("4waSgw==-3")
+      )))
+    );
+    assertEquals(
+      Optional.empty(),
+      OChecksums.fromHeaders(headers(Map.of(
+        "x-amz-checksum-crc32c", List.of("4waSgw=="),
+        "x-amz-checksum-type", List.of("COMPOSITE")
+      )))
+    );
+    assertEquals(
+      Optional.empty(),
+      OChecksums.fromHeaders(headers(Map.of()))
+    );
+  }
+
+  private static HttpHeaders headers(
+    final Map<String, List<String>> values)
+  {
+    return HttpHeaders.of(values, (name, value) -> true);
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ervilla.test_extension.ErvillaConfiguration;
+import com.io7m.ervilla.test_extension.ErvillaExtension;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectResponse;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.zelador.test_extension.ZeladorExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("integration")
+@Tag("client")
+@ExtendWith({ErvillaExtension.class, ZeladorExtension.class})
+@ErvillaConfiguration(projectName = "com.io7m.ophis", disabledIfUnsupported = true)
+public final class OClientAsyncTest
+  extends OClientContract
+{
+  /**
+   * Many commands can be in flight at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutMany()
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(
+        this.directory().resolve("small.bin"),
+        1000L
+      );
+
+    try (final var client = this.client()) {
+      final var futures =
+        new ArrayList<CompletableFuture<OPutObjectResponse>>();
+
+      for (int index = 0; index < 100; ++index) {
+        futures.add(
+          client.executeAsync(
+            OPutObjectType.class,
+            OPutObjectParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey("object-%d.bin".formatted(Integer.valueOf(index)))
+              .setData(OObjectDatas.ofFile(file))
+              .build()
+          )
+        );
+      }
+
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .get();
+
+      final var result =
+        client.executeAsync(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .build()
+        ).get();
+
+      assertEquals(100, result.contents().size());
+    }
+  }
+
+  /**
+   * Many commands can be in flight at once over HTTP/2, whether or not the
+   * server agrees to upgrade the connection.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutManyHTTP2()
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(
+        this.directory().resolve("small.bin"),
+        1000L
+      );
+
+    final var configuration =
+      OClientConfiguration.builder()
+        .from(this.configuration())
+        .setHttpVersion(HttpClient.Version.HTTP_2)
+        .build();
+
+    try (final var client = this.client(configuration)) {
+      final var futures =
+        new ArrayList<CompletableFuture<OPutObjectResponse>>();
+
+      for (int index = 0; index < 100; ++index) {
+        futures.add(
+          client.executeAsync(
+            OPutObjectType.class,
+            OPutObjectParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey("object-%d.bin".formatted(Integer.valueOf(index)))
+              .setData(OObjectDatas.ofFile(file))
+              .build()
+          )
+        );
+      }
+
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .get();
+
+      final var result =
+        client.executeAsync(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .build()
+        ).get();
+
+      assertEquals(100, result.contents().size());
+    }
+  }
+
+  /**
+   * Failures are delivered as exceptions in the returned future.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFailure()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var future =
+        client.executeAsync(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("nonexistent")
+            .build()
+        );
+
+      final var ex =
+        assertThrows(ExecutionException.class, future::get);
+      final var cause =
+        assertInstanceOf(OException.class, ex.getCause());
+
+      assertEquals("NoSuchBucket", cause.errorCode());
+    }
+  }
+}
@@ -89,16 +89,31 @@ public abstract class OClientContract
     return MINIO;
   }
 
+  protected final Path directory()
+  {
+    return DIRECTORY;
+  }
+
+  protected final OClientConfiguration configuration()
+  {
+    return OClientConfiguration.builder()
+      .setHttpClientProvider(HttpClient::newHttpClient)
+      .setEndpoint(URI.create("http://localhost:" + MINIO.port()))
+      .setCredentials(CREDENTIALS_GOOD)
+      .build();
+  }
+
   protected final OClientType client()
     throws OException
   {
-    return CLIENTS.createClient(
-      OClientConfiguration.builder()
-        .setHttpClientProvider(HttpClient::newHttpClient)
-        .setEndpoint(URI.create("http://localhost:" + MINIO.port()))
-        .setCredentials(CREDENTIALS_GOOD)
-        .build()
-    );
+    return this.client(this.configuration());
+  }
+
+  protected final OClientType client(
+    final OClientConfiguration configuration)
+    throws OException
+  {
+    return CLIENTS.createClient(configuration);
   }
 
   @BeforeEach
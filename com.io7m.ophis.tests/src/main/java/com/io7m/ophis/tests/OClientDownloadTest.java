@@ -0,0 +1,165 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ervilla.test_extension.ErvillaConfiguration;
+import com.io7m.ervilla.test_extension.ErvillaExtension;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.api.operations.ODownloadParameters;
+import com.io7m.ophis.api.operations.ODownloads;
+import com.io7m.zelador.test_extension.ZeladorExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("integration")
+@Tag("client")
+@ExtendWith({ErvillaExtension.class, ZeladorExtension.class})
+@ErvillaConfiguration(projectName = "com.io7m.ophis", disabledIfUnsupported = true)
+public final class OClientDownloadTest
+  extends OClientContract
+{
+  private OClientType clientWithSmallRanges()
+    throws Exception
+  {
+    return this.client(
+      OClientConfiguration.builder()
+        .from(this.configuration())
+        .setDownloadPartSize(1024L * 1024L + 17L)
+        .setDownloadConcurrency(3)
+        .build()
+    );
+  }
+
+  private Path put(
+    final OClientType client,
+    final String name,
+    final long size)
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(this.directory().resolve(name), size);
+
+    client.execute(
+      OPutObjectType.class,
+      OPutObjectParameters.builder()
+        .setBucketName("example-bucket-0")
+        .setKey(name)
+        .setData(OObjectDatas.ofFile(file))
+        .build()
+    );
+    return file;
+  }
+
+  /**
+   * A large object is downloaded in parallel ranges.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDownloadLarge()
+    throws Exception
+  {
+    try (final var client = this.clientWithSmallRanges()) {
+      final var size = 20L * 1024L * 1024L + 3L;
+      final var file = this.put(client, "large.bin", size);
+      final var output = this.directory().resolve("output.bin");
+
+      final var result =
+        ODownloads.download(
+          client,
+          ODownloadParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("large.bin")
+            .setFile(output)
+            .build()
+        );
+
+      assertEquals(size, result.contentLength());
+      assertEquals(size, result.objectSize());
+      assertEquals(-1L, Files.mismatch(file, output));
+    }
+  }
+
+  /**
+   * An object smaller than a single range is downloaded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDownloadSmall()
+    throws Exception
+  {
+    try (final var client = this.clientWithSmallRanges()) {
+      final var file = this.put(client, "small.bin", 100L);
+      final var output = this.directory().resolve("output.bin");
+
+      ODownloads.download(
+        client,
+        ODownloadParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey("small.bin")
+          .setFile(output)
+          .build()
+      );
+
+      assertEquals(-1L, Files.mismatch(file, output));
+    }
+  }
+
+  /**
+   * An empty object is downloaded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDownloadEmpty()
+    throws Exception
+  {
+    try (final var client = this.clientWithSmallRanges()) {
+      this.put(client, "empty.bin", 0L);
+      final var output = this.directory().resolve("output.bin");
+      Files.writeString(output, "Existing content.");
+
+      final var result =
+        ODownloads.download(
+          client,
+          ODownloadParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("empty.bin")
+            .setFile(output)
+            .build()
+        );
+
+      assertEquals(0L, result.objectSize());
+      assertEquals(0L, Files.size(output));
+    }
+  }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientThreadKind;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The threads used by clients can be configured. The server is a local
+ * HTTP/1.1 server that does not check signatures.
+ */
+
+public final class OClientExecutorsTest
+{
+  private static final int REQUESTS = 1000;
+
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private HttpServer server;
+
+  private static void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var bytes = LIST_RESPONSE.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.createContext("/", OClientExecutorsTest::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+  }
+
+  private OClientConfiguration.Builder configuration()
+  {
+    return OClientConfiguration.builder()
+      .setEndpoint(URI.create(
+        "http://127.0.0.1:" + this.server.getAddress().getPort()))
+      .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+      .setCredentials(new OClientAccessKeys("access", "secret"));
+  }
+
+  /**
+   * The default HTTP client can run its tasks on virtual threads.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHTTPClientVirtualThreads()
+    throws Exception
+  {
+    try (var client = new OClients().createClient(
+      this.configuration()
+        .setHttpClientThreads(OClientThreadKind.VIRTUAL)
+        .build())) {
+
+      final var executor =
+        ((OClient) client).httpClient()
+          .executor()
+          .orElseThrow();
+
+      final var virtual = new CompletableFuture<Boolean>();
+      executor.execute(() -> {
+        virtual.complete(Boolean.valueOf(Thread.currentThread().isVirtual()));
+      });
+      assertTrue(virtual.get().booleanValue());
+
+      final var result =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("bucket")
+            .build()
+        );
+      assertEquals(0, result.contents().size());
+    }
+  }
+
+  /**
+   * Responses are processed on a bounded number of platform threads if
+   * requested.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testResponseThreadsBounded()
+    throws Exception
+  {
+    final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    try (OClientType client = new OClients().createClient(
+      this.configuration()
+        .setHttpClientThreads(OClientThreadKind.VIRTUAL)
+        .setResponseThreads(2)
+        .build())) {
+
+      final var futures = new ArrayList<CompletableFuture<?>>(REQUESTS);
+      for (int index = 0; index < REQUESTS; ++index) {
+        futures.add(
+          client.executeAsync(
+            OListObjectsType.class,
+            OListObjectsParameters.builder()
+              .setBucketName("bucket")
+              .build()
+          ).whenComplete((r, e) -> {
+            final var thread = Thread.currentThread();
+            if (thread.getName().startsWith("com.io7m.ophis.response-")) {
+              assertFalse(thread.isVirtual());
+              threads.add(thread.getName());
+            }
+          })
+        );
+      }
+
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .get();
+    }
+
+    assertFalse(threads.isEmpty());
+    assertTrue(
+      threads.size() <= 2,
+      "At most 2 response threads must be used (used %s)".formatted(threads)
+    );
+  }
+
+  /**
+   * The number of response threads must be positive.
+   */
+
+  @Test
+  public void testResponseThreadsInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      this.configuration()
+        .setResponseThreads(0)
+        .build();
+    });
+  }
+}
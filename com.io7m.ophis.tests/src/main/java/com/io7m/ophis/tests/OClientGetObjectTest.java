@@ -0,0 +1,329 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ervilla.test_extension.ErvillaConfiguration;
+import com.io7m.ervilla.test_extension.ErvillaExtension;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OByteRange;
+import com.io7m.ophis.api.commands.OChecksum;
+import com.io7m.ophis.api.commands.OChecksumAlgorithm;
+import com.io7m.ophis.api.commands.OGetObjectParameters;
+import com.io7m.ophis.api.commands.OGetObjectSinkChannel;
+import com.io7m.ophis.api.commands.OGetObjectSinkFile;
+import com.io7m.ophis.api.commands.OGetObjectSinkStream;
+import com.io7m.ophis.api.commands.OGetObjectType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.vanilla.internal.OChecksums;
+import com.io7m.zelador.test_extension.ZeladorExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("integration")
+@Tag("client")
+@ExtendWith({ErvillaExtension.class, ZeladorExtension.class})
+@ErvillaConfiguration(projectName = "com.io7m.ophis", disabledIfUnsupported = true)
+public final class OClientGetObjectTest
+  extends OClientContract
+{
+  private static final long LARGE_SIZE =
+    64L * 1024L * 1024L;
+
+  private Path putLarge(
+    final OClientType client)
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(
+        this.directory().resolve("large.bin"),
+        LARGE_SIZE
+      );
+
+    client.execute(
+      OPutObjectType.class,
+      OPutObjectParameters.builder()
+        .setBucketName("example-bucket-0")
+        .setKey("large.bin")
+        .setData(OObjectDatas.ofFile(file))
+        .build()
+    );
+    return file;
+  }
+
+  /**
+   * A large object can be downloaded directly to a file.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetToFile()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var file = this.putLarge(client);
+      final var output = this.directory().resolve("output.bin");
+
+      final var result =
+        client.execute(
+          OGetObjectType.class,
+          OGetObjectParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("large.bin")
+            .setSink(new OGetObjectSinkFile(output))
+            .build()
+        );
+
+      assertEquals(LARGE_SIZE, result.contentLength());
+      assertTrue(result.eTag().isPresent());
+      assertEquals(-1L, Files.mismatch(file, output));
+    }
+  }
+
+  /**
+   * A large object can be downloaded to a channel.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetToChannel()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var file = this.putLarge(client);
+      final var output = this.directory().resolve("output.bin");
+
+      try (final var channel = FileChannel.open(output, CREATE, WRITE)) {
+        final var result =
+          client.execute(
+            OGetObjectType.class,
+            OGetObjectParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey("large.bin")
+              .setSink(new OGetObjectSinkChannel(channel))
+              .build()
+          );
+
+        assertEquals(LARGE_SIZE, result.contentLength());
+      }
+      assertEquals(-1L, Files.mismatch(file, output));
+    }
+  }
+
+  /**
+   * A large object can be read as a stream.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetToStream()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var file = this.putLarge(client);
+      final var output = this.directory().resolve("output.bin");
+
+      try (final var stream = Files.newOutputStream(output)) {
+        client.execute(
+          OGetObjectType.class,
+          OGetObjectParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("large.bin")
+            .setSink(new OGetObjectSinkStream(input -> input.transferTo(stream)))
+            .build()
+        );
+      }
+      assertEquals(-1L, Files.mismatch(file, output));
+    }
+  }
+
+  /**
+   * A range of an object can be fetched.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetRange()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var file = this.putLarge(client);
+      final var output = new ByteArrayOutputStream();
+
+      final var result =
+        client.execute(
+          OGetObjectType.class,
+          OGetObjectParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("large.bin")
+            .setRange(new OByteRange(1000L, 100L))
+            .setSink(new OGetObjectSinkStream(input -> input.transferTo(output)))
+            .build()
+        );
+
+      assertEquals(100L, result.contentLength());
+      assertEquals(LARGE_SIZE, result.objectSize());
+
+      try (final var channel = FileChannel.open(file)) {
+        final var expected = ByteBuffer.allocate(100);
+        channel.read(expected, 1000L);
+        assertArrayEquals(expected.array(), output.toByteArray());
+      }
+    }
+  }
+
+  /**
+   * Fetching an object with a mismatched entity tag fails.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetIfMatchFails()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      this.putLarge(client);
+
+      final var ex =
+        assertThrows(OException.class, () -> {
+          client.execute(
+            OGetObjectType.class,
+            OGetObjectParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey("large.bin")
+              .setIfMatch("\"00000000000000000000000000000000\"")
+              .setSink(new OGetObjectSinkStream(input -> { }))
+              .build()
+          );
+        });
+
+      assertEquals("PreconditionFailed", ex.errorCode());
+    }
+  }
+
+  /**
+   * Fetching a nonexistent object fails without touching the output file.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetNonexistent()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var output = this.directory().resolve("output.bin");
+
+      final var ex =
+        assertThrows(OException.class, () -> {
+          client.execute(
+            OGetObjectType.class,
+            OGetObjectParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey("nonexistent.bin")
+              .setSink(new OGetObjectSinkFile(output))
+              .build()
+          );
+        });
+
+      assertEquals("NoSuchKey", ex.errorCode());
+      assertFalse(Files.exists(output));
+    }
+  }
+
+  /**
+   * Objects uploaded with trailing checksums can be downloaded and checked
+   * against those checksums.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testGetChecksums()
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(
+        this.directory().resolve("checksummed.bin"),
+        (3L * 1024L * 1024L) + 17L
+      );
+    final var data =
+      Files.readAllBytes(file);
+
+    try (final var client = this.client()) {
+      for (final var algorithm : OChecksumAlgorithm.values()) {
+        final var key = "checksummed-" + algorithm.name();
+        final var output = this.directory().resolve(key);
+
+        client.execute(
+          OPutObjectType.class,
+          OPutObjectParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey(key)
+            .setData(OObjectDatas.ofFile(file))
+            .setChecksumAlgorithm(algorithm)
+            .build()
+        );
+
+        final var result =
+          client.execute(
+            OGetObjectType.class,
+            OGetObjectParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey(key)
+              .setSink(new OGetObjectSinkFile(output))
+              .setChecksumValidation(true)
+              .build()
+          );
+
+        final var checksum = OChecksums.create(algorithm);
+        checksum.update(data, 0, data.length);
+
+        assertEquals(
+          Optional.of(
+            new OChecksum(algorithm, OChecksums.encode(algorithm, checksum))),
+          result.checksum()
+        );
+        assertEquals(-1L, Files.mismatch(file, output));
+      }
+    }
+  }
+}
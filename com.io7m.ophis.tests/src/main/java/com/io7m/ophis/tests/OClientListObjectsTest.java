@@ -19,19 +19,30 @@ package com.io7m.ophis.tests;
 
 import com.io7m.ervilla.test_extension.ErvillaConfiguration;
 import com.io7m.ervilla.test_extension.ErvillaExtension;
+import com.io7m.ophis.api.OClientType;
 import com.io7m.ophis.api.OException;
 import com.io7m.ophis.api.commands.OListBucketsType;
 import com.io7m.ophis.api.commands.OListObjectsParameters;
 import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectContents;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.api.operations.OListings;
+import com.io7m.ophis.api.operations.OParallelListingParameters;
 import com.io7m.zelador.test_extension.ZeladorExtension;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Tag("integration")
 @Tag("client")
@@ -81,4 +92,251 @@ public final class OClientListObjectsTest
       assertEquals("Access Denied.", ex.message());
     }
   }
+
+  /**
+   * The prefix and maximum keys are respected, and truncated listings can
+   * be continued.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPrefixContinuation()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var keys = this.createObjects(client);
+
+      final var first =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setPrefix("a/")
+            .setMaximumKeys(10)
+            .build()
+        );
+
+      assertTrue(first.isTruncated());
+      assertEquals(10, first.contents().size());
+      assertEquals(keys.subList(0, 10), keysOf(first.contents()));
+
+      final var second =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setPrefix("a/")
+            .setMaximumKeys(10)
+            .setContinuationToken(first.nextContinuationToken())
+            .build()
+        );
+
+      assertEquals(keys.subList(10, 20), keysOf(second.contents()));
+    }
+  }
+
+  /**
+   * The paginator lists every object under a prefix.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPaginator()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var keys = this.createObjects(client);
+
+      final List<String> received;
+      try (var stream =
+             OListings.objects(
+               client,
+               OListObjectsParameters.builder()
+                 .setBucketName("example-bucket-0")
+                 .setPrefix("a/")
+                 .setMaximumKeys(7)
+                 .build())) {
+        received = keysOf(stream.toList());
+      }
+
+      assertEquals(keys, received);
+    }
+  }
+
+  /**
+   * The paginator returns every page of a listing.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPaginatorPages()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      this.createObjects(client);
+
+      try (var stream =
+             OListings.pages(
+               client,
+               OListObjectsParameters.builder()
+                 .setBucketName("example-bucket-0")
+                 .setMaximumKeys(10)
+                 .build())) {
+        final var pages = stream.toList();
+        assertEquals(4, pages.size());
+        assertTrue(pages.get(0).isTruncated());
+        assertFalse(pages.get(3).isTruncated());
+        assertEquals(6, pages.get(3).contents().size());
+      }
+    }
+  }
+
+  /**
+   * Keys are grouped into common prefixes by the delimiter.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCommonPrefixes()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      this.createObjects(client);
+
+      final var result =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setDelimiter("/")
+            .build()
+        );
+
+      assertEquals(List.of(), result.contents());
+      assertEquals(List.of("a/", "b/"), result.commonPrefixes());
+    }
+  }
+
+  /**
+   * A parallel listing over discovered prefixes lists every key once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testParallelDiscovered()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      this.createObjects(client);
+
+      final var expected = this.listSerially(client);
+      final List<String> received;
+      try (var stream =
+             OListings.objectsParallel(
+               client,
+               OParallelListingParameters.builder()
+                 .setBucketName("example-bucket-0")
+                 .setMaximumKeys(4)
+                 .setConcurrency(2)
+                 .build())) {
+        received = keysOf(stream.toList());
+      }
+
+      assertEquals(36, received.size());
+      assertEquals(expected, received.stream().sorted().toList());
+    }
+  }
+
+  /**
+   * A parallel listing over explicit boundaries lists every key once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testParallelBoundaries()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      this.createObjects(client);
+
+      final var expected = this.listSerially(client);
+      final List<String> received;
+      try (var stream =
+             OListings.objectsParallel(
+               client,
+               OParallelListingParameters.builder()
+                 .setBucketName("example-bucket-0")
+                 .addBoundaries("b/04.txt")
+                 .addBoundaries("a/10.txt")
+                 .addBoundaries("a/with space+plus.txt")
+                 .setMaximumKeys(4)
+                 .build())) {
+        received = keysOf(stream.toList());
+      }
+
+      assertEquals(36, received.size());
+      assertEquals(expected, received.stream().sorted().toList());
+    }
+  }
+
+  private List<String> listSerially(
+    final OClientType client)
+  {
+    try (var stream =
+           OListings.objects(
+             client,
+             OListObjectsParameters.builder()
+               .setBucketName("example-bucket-0")
+               .build())) {
+      return keysOf(stream.toList());
+    }
+  }
+
+  private static List<String> keysOf(
+    final List<OObjectContents> contents)
+  {
+    return contents.stream()
+      .map(c -> c.key().orElseThrow())
+      .toList();
+  }
+
+  private List<String> createObjects(
+    final OClientType client)
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(
+        this.directory().resolve("list.bin"),
+        16L
+      );
+
+    final var keys = new ArrayList<String>();
+    for (int index = 0; index < 25; ++index) {
+      keys.add("a/%02d.txt".formatted(Integer.valueOf(index)));
+    }
+    keys.add("a/with space+plus.txt");
+
+    final var all = new ArrayList<>(keys);
+    for (int index = 0; index < 10; ++index) {
+      all.add("b/%02d.txt".formatted(Integer.valueOf(index)));
+    }
+
+    for (final var key : all) {
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey(key)
+          .setData(OObjectDatas.ofFile(file))
+          .build()
+      );
+    }
+    return List.copyOf(keys);
+  }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ervilla.test_extension.ErvillaConfiguration;
+import com.io7m.ervilla.test_extension.ErvillaExtension;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OAbortMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OAbortMultipartUploadType;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadType;
+import com.io7m.ophis.api.commands.OCompletedPart;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadType;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.operations.OMultipartUploadParameters;
+import com.io7m.ophis.api.operations.OMultipartUploads;
+import com.io7m.zelador.test_extension.ZeladorExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@Tag("integration")
+@Tag("client")
+@ExtendWith({ErvillaExtension.class, ZeladorExtension.class})
+@ErvillaConfiguration(projectName = "com.io7m.ophis", disabledIfUnsupported = true)
+public final class OClientMultipartUploadTest
+  extends OClientContract
+{
+  private static final long SIZE =
+    (23L * 1024L * 1024L) + 17L;
+
+  /**
+   * A large file can be uploaded in parallel parts.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUploadParallel()
+    throws Exception
+  {
+    final var file =
+      OClientPutObjectTest.createFile(
+        this.directory().resolve("multipart.bin"),
+        SIZE
+      );
+
+    try (final var client = this.client()) {
+      final var result =
+        OMultipartUploads.upload(
+          client,
+          OMultipartUploadParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("multipart.bin")
+            .setData(OObjectDatas.ofFile(file))
+            .setPartSize(OMultipartUploadParameters.MINIMUM_PART_SIZE)
+            .setConcurrency(3)
+            .build()
+        );
+
+      assertEquals("multipart.bin", result.key());
+
+      final var listing =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .build()
+        );
+
+      assertEquals(1, listing.contents().size());
+      assertEquals(SIZE, listing.contents().get(0).size());
+    }
+  }
+
+  /**
+   * Aborted uploads cannot be completed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testAbort()
+    throws Exception
+  {
+    try (final var client = this.client()) {
+      final var created =
+        client.execute(
+          OCreateMultipartUploadType.class,
+          OCreateMultipartUploadParameters.builder()
+            .setBucketName("example-bucket-0")
+            .setKey("aborted.bin")
+            .build()
+        );
+
+      client.execute(
+        OAbortMultipartUploadType.class,
+        OAbortMultipartUploadParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey("aborted.bin")
+          .setUploadId(created.uploadId())
+          .build()
+      );
+
+      final var ex =
+        assertThrows(OException.class, () -> {
+          client.execute(
+            OCompleteMultipartUploadType.class,
+            OCompleteMultipartUploadParameters.builder()
+              .setBucketName("example-bucket-0")
+              .setKey("aborted.bin")
+              .setUploadId(created.uploadId())
+              .setParts(List.of(new OCompletedPart(1, "\"x\"")))
+              .build()
+          );
+        });
+      assertEquals("NoSuchUpload", ex.errorCode());
+    }
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ervilla.test_extension.ErvillaConfiguration;
+import com.io7m.ervilla.test_extension.ErvillaExtension;
+import com.io7m.ophis.api.commands.OGetObjectParameters;
+import com.io7m.ophis.api.commands.OGetObjectSinkFile;
+import com.io7m.ophis.api.commands.OGetObjectType;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.zelador.test_extension.ZeladorExtension;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("integration")
+@Tag("client")
+@ExtendWith({ErvillaExtension.class, ZeladorExtension.class})
+@ErvillaConfiguration(projectName = "com.io7m.ophis", disabledIfUnsupported = true)
+public final class OClientPutObjectTest
+  extends OClientContract
+{
+  private static final long LARGE_SIZE =
+    64L * 1024L * 1024L;
+
+  static Path createFile(
+    final Path file,
+    final long size)
+    throws IOException
+  {
+    try (final var channel =
+           FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      final var buffer = ByteBuffer.allocate(65536);
+      long written = 0L;
+      while (written < size) {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+          buffer.put((byte) (written + buffer.position()));
+        }
+        buffer.flip();
+        buffer.limit((int) Math.min(buffer.limit(), size - written));
+        written += channel.write(buffer);
+      }
+    }
+    return file;
+  }
+
+  /**
+   * A large file-backed object can be uploaded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutLargeFile()
+    throws Exception
+  {
+    final var file =
+      createFile(this.directory().resolve("large.bin"), LARGE_SIZE);
+
+    try (final var client = this.client()) {
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey("large.bin")
+          .setData(OObjectDatas.ofFile(file))
+          .build()
+      );
+
+      final var result =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .build()
+        );
+
+      assertEquals(1, result.contents().size());
+      assertEquals(LARGE_SIZE, result.contents().get(0).size());
+    }
+  }
+
+  /**
+   * A large object that is only available as a stream can be uploaded.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutLargeStream()
+    throws Exception
+  {
+    final var file =
+      createFile(this.directory().resolve("large-stream.bin"), LARGE_SIZE);
+
+    final var data =
+      OObjectData.builder()
+        .from(OObjectDatas.ofFile(file))
+        .setFile(Optional.empty())
+        .build();
+
+    try (final var client = this.client()) {
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey("large-stream.bin")
+          .setData(data)
+          .build()
+      );
+
+      final var result =
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("example-bucket-0")
+            .build()
+        );
+
+      assertEquals(1, result.contents().size());
+      assertEquals(LARGE_SIZE, result.contents().get(0).size());
+    }
+  }
+
+  /**
+   * Unhashed data can be uploaded with a streaming signature, and the
+   * uploaded object has the original contents.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutStreaming()
+    throws Exception
+  {
+    final var file =
+      createFile(this.directory().resolve("streaming.bin"), LARGE_SIZE + 17L);
+    final var output =
+      this.directory().resolve("streaming.out");
+
+    try (final var client = this.client()) {
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey("streaming.bin")
+          .setData(OObjectDatas.ofFileStreaming(file))
+          .build()
+      );
+
+      client.execute(
+        OGetObjectType.class,
+        OGetObjectParameters.builder()
+          .setBucketName("example-bucket-0")
+          .setKey("streaming.bin")
+          .setSink(new OGetObjectSinkFile(output))
+          .build()
+      );
+
+      assertEquals(-1L, Files.mismatch(file, output));
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Connections are returned to the pool of the HTTP client after each
+ * command, regardless of whether the command consumes the response body.
+ * The server is a local HTTP/1.1 server that does not check signatures, and
+ * that records the client address of each request; each distinct address
+ * is a distinct connection.
+ */
+
+public final class OConnectionReuseTest
+{
+  private static final int PUTS = 2000;
+  private static final int REQUESTS = 500;
+
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private static final String ERROR_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <Error>
+      <Code>AccessDenied</Code>
+      <Message>Access Denied</Message>
+      <Resource>/bucket/denied</Resource>
+      <RequestId>0</RequestId>
+    </Error>
+    """;
+
+  private HttpServer server;
+  private Set<InetSocketAddress> connections;
+  private OClientType client;
+  private Path file;
+
+  private static void respond(
+    final HttpExchange exchange,
+    final int status,
+    final String text)
+    throws IOException
+  {
+    final var bytes = text.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("ETag", "\"abc\"");
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    this.connections.add(exchange.getRemoteAddress());
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var path = exchange.getRequestURI().getPath();
+    if (path.endsWith("/denied")) {
+      respond(exchange, 403, ERROR_RESPONSE);
+      return;
+    }
+
+    switch (exchange.getRequestMethod()) {
+      case "PUT" -> {
+        /*
+         * A body that the client has no use for, but must still consume.
+         */
+        respond(exchange, 200, " ".repeat(512));
+      }
+      default -> {
+        respond(exchange, 200, LIST_RESPONSE);
+      }
+    }
+  }
+
+  /**
+   * The server writes response headers and bodies separately; without
+   * TCP_NODELAY, every exchange stalls on delayed acknowledgements.
+   */
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    this.connections = ConcurrentHashMap.newKeySet();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+
+    this.file = directory.resolve("data.bin");
+    Files.write(this.file, new byte[100]);
+
+    this.client =
+      new OClients().createClient(
+        OClientConfiguration.builder()
+          .setEndpoint(URI.create(
+            "http://127.0.0.1:" + this.server.getAddress().getPort()))
+          .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+          .setCredentials(new OClientAccessKeys("access", "secret"))
+          .build()
+      );
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.client.close();
+    this.server.stop(0);
+  }
+
+  private void checkConnections(
+    final int requests)
+  {
+    final var count = this.connections.size();
+    assertTrue(
+      count <= 4,
+      "%d requests must use at most 4 connections (used %d)"
+        .formatted(Integer.valueOf(requests), Integer.valueOf(count))
+    );
+  }
+
+  /**
+   * Thousands of puts reuse a handful of connections.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutReusesConnections()
+    throws Exception
+  {
+    for (int index = 0; index < PUTS; ++index) {
+      this.client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("bucket")
+          .setKey("object-%d".formatted(Integer.valueOf(index)))
+          .setData(OObjectDatas.ofFile(this.file))
+          .build()
+      );
+    }
+    this.checkConnections(PUTS);
+  }
+
+  /**
+   * Parsed responses reuse connections.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testListReusesConnections()
+    throws Exception
+  {
+    for (int index = 0; index < REQUESTS; ++index) {
+      final var result =
+        this.client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("bucket")
+            .build()
+        );
+      assertEquals(0, result.contents().size());
+    }
+    this.checkConnections(REQUESTS);
+  }
+
+  /**
+   * Error responses reuse connections.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testErrorsReuseConnections()
+    throws Exception
+  {
+    for (int index = 0; index < REQUESTS; ++index) {
+      final var ex =
+        assertThrows(OException.class, () -> {
+          this.client.execute(
+            OPutObjectType.class,
+            OPutObjectParameters.builder()
+              .setBucketName("bucket")
+              .setKey("denied")
+              .setData(OObjectDatas.ofFile(this.file))
+              .build()
+          );
+        });
+      assertEquals("AccessDenied", ex.errorCode());
+    }
+    this.checkConnections(REQUESTS);
+  }
+}
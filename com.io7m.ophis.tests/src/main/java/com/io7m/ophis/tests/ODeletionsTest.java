@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.ODeleteObjectParameters;
+import com.io7m.ophis.api.commands.ODeleteObjectType;
+import com.io7m.ophis.api.commands.ODeleteObjectsError;
+import com.io7m.ophis.api.commands.ODeleteObjectsParameters;
+import com.io7m.ophis.api.commands.ODeleteObjectsType;
+import com.io7m.ophis.api.operations.OBulkDeleteParameters;
+import com.io7m.ophis.api.operations.ODeletions;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Objects can be deleted individually and in bulk. The server is a local
+ * HTTP/1.1 server that does not check signatures, that refuses to delete
+ * keys beginning with "locked", and that fails multi-object deletes that
+ * include keys beginning with "broken".
+ */
+
+public final class ODeletionsTest
+{
+  private static final Pattern KEY =
+    Pattern.compile("<Key>([^<]*)</Key>");
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private List<String> requests;
+  private List<String> deletedKeys;
+  private AtomicInteger inFlight;
+  private AtomicInteger maximumInFlight;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    final byte[] body;
+    try (var input = exchange.getRequestBody()) {
+      body = input.readAllBytes();
+    }
+
+    final var method = exchange.getRequestMethod();
+    final var uri = exchange.getRequestURI();
+    this.requests.add(method + " " + uri);
+
+    if ("DELETE".equals(method)) {
+      exchange.sendResponseHeaders(204, -1L);
+      exchange.close();
+      return;
+    }
+
+    /*
+     * The request stops counting as in flight before the response is
+     * sent, because the client may send its next request as soon as the
+     * response arrives.
+     */
+
+    final var now = this.inFlight.incrementAndGet();
+    this.maximumInFlight.accumulateAndGet(now, Math::max);
+    try {
+      Thread.sleep(20L);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.inFlight.decrementAndGet();
+    }
+    this.handleDeleteObjects(exchange, body);
+  }
+
+  private void handleDeleteObjects(
+    final HttpExchange exchange,
+    final byte[] body)
+    throws IOException
+  {
+    final String expected;
+    try {
+      expected = Base64.getEncoder()
+        .encodeToString(MessageDigest.getInstance("MD5").digest(body));
+    } catch (final Exception e) {
+      throw new IOException(e);
+    }
+
+    final var md5 = exchange.getRequestHeaders().getFirst("Content-MD5");
+    final var keys = new ArrayList<String>();
+    final var matcher = KEY.matcher(new String(body, UTF_8));
+    while (matcher.find()) {
+      keys.add(matcher.group(1));
+    }
+
+    final var quiet =
+      new String(body, UTF_8).contains("<Quiet>true</Quiet>");
+
+    final var text = new StringBuilder();
+    final int status;
+    if (!expected.equals(md5)) {
+      status = 400;
+      text.append("<Error><Code>InvalidDigest</Code><Message/></Error>");
+    } else if (keys.stream().anyMatch(k -> k.startsWith("broken"))) {
+      status = 500;
+      text.append("<Error><Code>InternalError</Code><Message/></Error>");
+    } else {
+      status = 200;
+      text.append(
+        "<DeleteResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+      for (final var key : keys) {
+        if (key.startsWith("locked")) {
+          text.append("<Error><Key>")
+            .append(key)
+            .append("</Key><Code>AccessDenied</Code>")
+            .append("<Message>Access Denied</Message></Error>");
+        } else {
+          this.deletedKeys.add(key);
+          if (!quiet) {
+            text.append("<Deleted><Key>")
+              .append(key)
+              .append("</Key></Deleted>");
+          }
+        }
+      }
+      text.append("</DeleteResult>");
+    }
+
+    final var bytes = text.toString().getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.requests = new CopyOnWriteArrayList<>();
+    this.deletedKeys = new CopyOnWriteArrayList<>();
+    this.inFlight = new AtomicInteger(0);
+    this.maximumInFlight = new AtomicInteger(0);
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .build()
+    );
+  }
+
+  /**
+   * A single object can be deleted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeleteObject()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      client.execute(
+        ODeleteObjectType.class,
+        ODeleteObjectParameters.builder()
+          .setBucketName("bucket")
+          .setKey("a/b")
+          .build()
+      );
+    }
+    assertEquals(List.of("DELETE /bucket/a/b"), this.requests);
+  }
+
+  /**
+   * Multiple objects can be deleted in one request, and objects that could
+   * not be deleted are reported.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeleteObjects()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      final var response =
+        client.execute(
+          ODeleteObjectsType.class,
+          ODeleteObjectsParameters.builder()
+            .setBucketName("bucket")
+            .addKeys("a", "locked-b", "c & d")
+            .setQuiet(false)
+            .build()
+        );
+
+      assertEquals(List.of("a", "c & d"), response.deleted());
+      assertEquals(
+        List.of(new ODeleteObjectsError(
+          "locked-b", "AccessDenied", "Access Denied")),
+        response.errors()
+      );
+    }
+    assertEquals(List.of("POST /bucket?delete="), this.requests);
+  }
+
+  /**
+   * Keys are deleted in concurrent batches.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeleteAll()
+    throws Exception
+  {
+    final var keys =
+      IntStream.range(0, 2500)
+        .mapToObj(i -> i % 500 == 0 ? "locked-%d".formatted(i) : "k%d".formatted(i))
+        .iterator();
+
+    final var result =
+      ODeletions.deleteAll(
+        this.client(),
+        OBulkDeleteParameters.builder()
+          .setBucketName("bucket")
+          .setBatchSize(200)
+          .setConcurrency(3)
+          .build(),
+        keys
+      );
+
+    assertEquals(2495L, result.deleted());
+    assertEquals(5, result.errors().size());
+    assertEquals(2495, this.deletedKeys.size());
+    assertEquals(13, this.requests.size());
+    assertTrue(this.maximumInFlight.get() <= 3);
+  }
+
+  /**
+   * A failed request stops the bulk delete.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeleteAllFails()
+    throws Exception
+  {
+    final var keys =
+      IntStream.range(0, 10000)
+        .mapToObj(i -> i == 150 ? "broken" : "k%d".formatted(i))
+        .iterator();
+
+    try (var client = this.client()) {
+      final var ex =
+        assertThrows(OException.class, () -> {
+          ODeletions.deleteAll(
+            client,
+            OBulkDeleteParameters.builder()
+              .setBucketName("bucket")
+              .setBatchSize(100)
+              .setConcurrency(2)
+              .build(),
+            keys
+          );
+        });
+      assertEquals("InternalError", ex.errorCode());
+    }
+    assertTrue(this.deletedKeys.size() < 9000);
+  }
+
+  /**
+   * A batch that cannot even be sent stops the bulk delete, rather than
+   * being lost.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDeleteAllNullKey()
+    throws Exception
+  {
+    final var keys =
+      IntStream.range(0, 1000)
+        .mapToObj(i -> i == 250 ? null : "k%d".formatted(i))
+        .iterator();
+
+    try (var client = this.client()) {
+      final var ex =
+        assertThrows(OException.class, () -> {
+          ODeletions.deleteAll(
+            client,
+            OBulkDeleteParameters.builder()
+              .setBucketName("bucket")
+              .setBatchSize(100)
+              .setConcurrency(2)
+              .build(),
+            keys
+          );
+        });
+      assertEquals("error-delete-objects", ex.errorCode());
+    }
+    assertTrue(this.deletedKeys.size() < 1000);
+  }
+
+  /**
+   * Invalid parameters are rejected.
+   */
+
+  @Test
+  public void testInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      ODeleteObjectsParameters.builder()
+        .setBucketName("bucket")
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      ODeleteObjectsParameters.builder()
+        .setBucketName("bucket")
+        .addAllKeys(IntStream.range(0, 1001).mapToObj(Integer::toString).toList())
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OBulkDeleteParameters.builder()
+        .setBucketName("bucket")
+        .setBatchSize(1001)
+        .build();
+    });
+  }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OUploadPartParameters;
+import com.io7m.ophis.api.commands.OUploadPartType;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Commands produce JFR events. The server is a local HTTP/1.1 server that
+ * does not check signatures.
+ */
+
+public final class OFlightRecorderTest
+{
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private static final List<String> EVENTS =
+    List.of(
+      "com.io7m.ophis.Signing",
+      "com.io7m.ophis.Exchange",
+      "com.io7m.ophis.Parsing",
+      "com.io7m.ophis.UploadPart"
+    );
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+
+  private static void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var bytes = LIST_RESPONSE.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.getResponseHeaders().add("ETag", "\"abc\"");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", OFlightRecorderTest::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .build()
+    );
+  }
+
+  private static List<RecordedEvent> eventsNamed(
+    final List<RecordedEvent> events,
+    final String name)
+  {
+    return events.stream()
+      .filter(e -> e.getEventType().getName().equals(name))
+      .toList();
+  }
+
+  /**
+   * Signing, exchange, parsing, and part events are recorded.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testEvents(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("ophis.jfr");
+
+    try (var recording = new Recording()) {
+      for (final var name : EVENTS) {
+        recording.enable(name).withThreshold(Duration.ZERO);
+      }
+      recording.start();
+
+      try (var client = this.client()) {
+        client.execute(
+          OListObjectsType.class,
+          OListObjectsParameters.builder()
+            .setBucketName("bucket")
+            .build()
+        );
+        client.executeAsync(
+          OUploadPartType.class,
+          OUploadPartParameters.builder()
+            .setBucketName("bucket")
+            .setKey("a/b")
+            .setUploadId("upload-0")
+            .setPartNumber(3)
+            .setData(OObjectDatas.ofStream(
+              () -> new ByteArrayInputStream(new byte[100]), 100L))
+            .build()
+        ).get(5L, TimeUnit.SECONDS);
+      }
+
+      recording.stop();
+      recording.dump(file);
+    }
+
+    final var events = RecordingFile.readAllEvents(file);
+
+    final var signing =
+      eventsNamed(events, "com.io7m.ophis.Signing");
+    assertEquals(2, signing.size());
+    assertEquals("OListObjectsType", signing.get(0).getString("command"));
+    assertEquals("bucket", signing.get(0).getString("bucket"));
+    assertEquals("GET", signing.get(0).getString("method"));
+    assertEquals("a/b", signing.get(1).getString("key"));
+    assertEquals("PUT", signing.get(1).getString("method"));
+
+    final var exchanges =
+      eventsNamed(events, "com.io7m.ophis.Exchange");
+    assertEquals(2, exchanges.size());
+    for (final var exchange : exchanges) {
+      assertEquals(200, exchange.getInt("status"));
+      assertEquals(1, exchange.getInt("attempt"));
+      assertEquals(
+        LIST_RESPONSE.getBytes(UTF_8).length,
+        exchange.getLong("bytesReceived")
+      );
+    }
+
+    final var parsing =
+      eventsNamed(events, "com.io7m.ophis.Parsing");
+    assertEquals(2, parsing.size());
+
+    final var parts =
+      eventsNamed(events, "com.io7m.ophis.UploadPart");
+    assertEquals(1, parts.size());
+    final var part = parts.get(0);
+    assertEquals("bucket", part.getString("bucket"));
+    assertEquals("a/b", part.getString("key"));
+    assertEquals("upload-0", part.getString("uploadId"));
+    assertEquals(3, part.getInt("partNumber"));
+    assertEquals(200, part.getInt("status"));
+    assertEquals(100L, part.getLong("bytesSent"));
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A stream of generated bytes that refuses to be read in a way that would
+ * hold the whole stream in memory: it fails if it is asked for all of its
+ * bytes at once, or for more than a small buffer's worth in a single read.
+ */
+
+final class OGeneratedStream extends InputStream
+{
+  /**
+   * The largest number of bytes that may be requested by a single read.
+   */
+
+  static final int MAXIMUM_READ = 1024 * 1024;
+
+  private final long size;
+  private long position;
+
+  OGeneratedStream(
+    final long inSize)
+  {
+    this.size = inSize;
+  }
+
+  /**
+   * @param position The position of a byte
+   *
+   * @return The byte at the given position
+   */
+
+  static byte byteAt(
+    final long position)
+  {
+    return (byte) (position % 251L);
+  }
+
+  @Override
+  public int read()
+  {
+    if (this.position == this.size) {
+      return -1;
+    }
+    final var value = byteAt(this.position) & 0xff;
+    this.position = this.position + 1L;
+    return value;
+  }
+
+  @Override
+  public int read(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    if (length > MAXIMUM_READ) {
+      throw new IOException(
+        "Read of %d bytes exceeds the limit of %d bytes"
+          .formatted(Integer.valueOf(length), Integer.valueOf(MAXIMUM_READ))
+      );
+    }
+    if (this.position == this.size) {
+      return -1;
+    }
+
+    final var count =
+      (int) Math.min(length, this.size - this.position);
+    for (int index = 0; index < count; ++index) {
+      buffer[offset + index] = byteAt(this.position + index);
+    }
+    this.position = this.position + count;
+    return count;
+  }
+
+  @Override
+  public byte[] readAllBytes()
+    throws IOException
+  {
+    throw new IOException("The stream must not be read all at once.");
+  }
+
+  @Override
+  public byte[] readNBytes(
+    final int length)
+    throws IOException
+  {
+    throw new IOException("The stream must not be read all at once.");
+  }
+}
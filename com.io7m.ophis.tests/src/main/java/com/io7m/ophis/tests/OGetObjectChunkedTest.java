@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OByteRange;
+import com.io7m.ophis.api.commands.OGetObjectParameters;
+import com.io7m.ophis.api.commands.OGetObjectSinkChannel;
+import com.io7m.ophis.api.commands.OGetObjectSinkFile;
+import com.io7m.ophis.api.commands.OGetObjectSinkStream;
+import com.io7m.ophis.api.commands.OGetObjectSinkType;
+import com.io7m.ophis.api.commands.OGetObjectType;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Objects can be fetched from servers that do not declare the length of
+ * response bodies. The server is a local HTTP/1.1 server that does not
+ * check signatures, and that sends every body with a chunked transfer
+ * encoding.
+ */
+
+public final class OGetObjectChunkedTest
+{
+  private static final int SIZE = 100_000;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private byte[] data;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    var first = 0;
+    var last = SIZE - 1;
+    final var range = exchange.getRequestHeaders().getFirst("Range");
+    if (range != null) {
+      final var bounds = range.substring("bytes=".length()).split("-");
+      first = Integer.parseInt(bounds[0]);
+      last = Math.min(Integer.parseInt(bounds[1]), SIZE - 1);
+      exchange.getResponseHeaders()
+        .add("Content-Range", "bytes %d-%d/%d".formatted(first, last, SIZE));
+    }
+
+    exchange.getResponseHeaders().add("ETag", "\"abc\"");
+    exchange.sendResponseHeaders(range == null ? 200 : 206, 0L);
+    try (var output = exchange.getResponseBody()) {
+      output.write(this.data, first, last - first + 1);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.data = new byte[SIZE];
+    for (int index = 0; index < SIZE; ++index) {
+      this.data[index] = (byte) (index % 251);
+    }
+
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .build()
+    );
+  }
+
+  private OGetObjectParameters get(
+    final OGetObjectSinkType sink,
+    final Optional<OByteRange> range)
+  {
+    return OGetObjectParameters.builder()
+      .setBucketName("bucket")
+      .setKey("object.bin")
+      .setSink(sink)
+      .setRange(range)
+      .build();
+  }
+
+  /**
+   * An object can be fetched into a file.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFile(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("object.bin");
+
+    try (var client = this.client()) {
+      final var response =
+        client.execute(
+          OGetObjectType.class,
+          this.get(new OGetObjectSinkFile(file), Optional.empty())
+        );
+
+      assertEquals(SIZE, response.contentLength());
+      assertEquals(SIZE, response.objectSize());
+    }
+    assertArrayEquals(this.data, Files.readAllBytes(file));
+  }
+
+  /**
+   * An object can be fetched into a stream receiver.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testStream()
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+
+    try (var client = this.client()) {
+      final var response =
+        client.execute(
+          OGetObjectType.class,
+          this.get(
+            new OGetObjectSinkStream(input -> input.transferTo(output)),
+            Optional.empty()
+          )
+        );
+
+      assertEquals(SIZE, response.contentLength());
+      assertEquals(SIZE, response.objectSize());
+    }
+    assertArrayEquals(this.data, output.toByteArray());
+  }
+
+  /**
+   * A range of an object can be fetched into a channel, and the size of the
+   * object is taken from the {@code Content-Range} header.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannelRange()
+    throws Exception
+  {
+    final var output = new ByteArrayOutputStream();
+
+    try (var client = this.client()) {
+      final var response =
+        client.execute(
+          OGetObjectType.class,
+          this.get(
+            new OGetObjectSinkChannel(Channels.newChannel(output)),
+            Optional.of(new OByteRange(1000L, 5000L))
+          )
+        );
+
+      assertEquals(5000L, response.contentLength());
+      assertEquals(SIZE, response.objectSize());
+    }
+    assertArrayEquals(
+      Arrays.copyOfRange(this.data, 1000, 6000),
+      output.toByteArray()
+    );
+  }
+}
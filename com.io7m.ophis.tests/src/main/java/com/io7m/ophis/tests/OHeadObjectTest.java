@@ -0,0 +1,392 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientMetadataCachePolicy;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.ODeleteObjectParameters;
+import com.io7m.ophis.api.commands.ODeleteObjectType;
+import com.io7m.ophis.api.commands.OHeadObjectParameters;
+import com.io7m.ophis.api.commands.OHeadObjectResponse;
+import com.io7m.ophis.api.commands.OHeadObjectType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Object metadata can be fetched, and optionally cached. The server is a
+ * local HTTP/1.1 server that does not check signatures, that changes the
+ * entity tag of an object each time it is written, and that honours
+ * {@code If-None-Match}.
+ */
+
+public final class OHeadObjectTest
+{
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private List<String> requests;
+  private ConcurrentHashMap<String, Integer> versions;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var method = exchange.getRequestMethod();
+    final var path = exchange.getRequestURI().getPath();
+    final var condition =
+      exchange.getRequestHeaders().getFirst("If-None-Match");
+
+    this.requests.add(
+      condition == null
+        ? method + " " + path
+        : method + " " + path + " " + condition
+    );
+
+    switch (method) {
+      case "PUT" -> {
+        this.versions.merge(path, Integer.valueOf(1), Integer::sum);
+        exchange.getResponseHeaders().add("ETag", this.eTagOf(path));
+        exchange.sendResponseHeaders(200, -1L);
+      }
+      case "DELETE" -> {
+        this.versions.remove(path);
+        exchange.sendResponseHeaders(204, -1L);
+      }
+      default -> {
+        this.handleHead(exchange, path, condition);
+      }
+    }
+    exchange.close();
+  }
+
+  private void handleHead(
+    final HttpExchange exchange,
+    final String path,
+    final String condition)
+    throws IOException
+  {
+    if (!this.versions.containsKey(path)) {
+      exchange.sendResponseHeaders(404, -1L);
+      return;
+    }
+
+    final var eTag = this.eTagOf(path);
+    final var headers = exchange.getResponseHeaders();
+    headers.add("ETag", eTag);
+    if (eTag.equals(condition)) {
+      exchange.sendResponseHeaders(304, -1L);
+      return;
+    }
+
+    headers.add("Content-Length", "1234");
+    headers.add("Content-Type", "text/plain");
+    headers.add("Last-Modified", "Tue, 15 Nov 1994 08:12:31 GMT");
+    headers.add("x-amz-meta-Colour", "blue");
+    headers.add("x-amz-meta-shape", "round");
+    exchange.sendResponseHeaders(200, -1L);
+  }
+
+  private String eTagOf(
+    final String path)
+  {
+    return "\"v%d\"".formatted(this.versions.get(path));
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.requests = new CopyOnWriteArrayList<>();
+    this.versions = new ConcurrentHashMap<>();
+    this.versions.put("/bucket/a", Integer.valueOf(1));
+    this.versions.put("/bucket/b", Integer.valueOf(1));
+    this.versions.put("/bucket/c", Integer.valueOf(1));
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client(
+    final Optional<OClientMetadataCachePolicy> cache)
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setMetadataCache(cache)
+        .build()
+    );
+  }
+
+  private static OClientMetadataCachePolicy cache(
+    final int maximumEntries,
+    final Duration timeToLive)
+  {
+    return OClientMetadataCachePolicy.builder()
+      .setMaximumEntries(maximumEntries)
+      .setTimeToLive(timeToLive)
+      .build();
+  }
+
+  private static OHeadObjectResponse head(
+    final OClientType client,
+    final String key)
+    throws OException
+  {
+    return client.execute(
+      OHeadObjectType.class,
+      OHeadObjectParameters.builder()
+        .setBucketName("bucket")
+        .setKey(key)
+        .build()
+    );
+  }
+
+  /**
+   * The metadata of an object is returned.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHead()
+    throws Exception
+  {
+    try (var client = this.client(Optional.empty())) {
+      final var r = head(client, "a");
+      assertEquals(1234L, r.size());
+      assertEquals("\"v1\"", r.eTag());
+      assertEquals("text/plain", r.contentType());
+      assertEquals(
+        Optional.of(
+          OffsetDateTime.of(1994, 11, 15, 8, 12, 31, 0, ZoneOffset.UTC)),
+        r.lastModified()
+      );
+      assertEquals(Map.of("colour", "blue", "shape", "round"), r.metadata());
+
+      head(client, "a");
+    }
+    assertEquals(List.of("HEAD /bucket/a", "HEAD /bucket/a"), this.requests);
+  }
+
+  /**
+   * Missing objects are reported with the usual error code, even though
+   * the response has no body.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHeadMissing()
+    throws Exception
+  {
+    try (var client = this.client(Optional.empty())) {
+      final var ex =
+        assertThrows(OException.class, () -> head(client, "missing"));
+      assertEquals("NoSuchKey", ex.errorCode());
+    }
+  }
+
+  /**
+   * Fresh cached metadata is returned without a request, for both
+   * synchronous and asynchronous commands.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCacheHit()
+    throws Exception
+  {
+    try (var client =
+           this.client(Optional.of(cache(100, Duration.ofMinutes(1L))))) {
+      final var r0 = head(client, "a");
+      final var r1 = head(client, "a");
+      final var r2 =
+        client.executeAsync(
+          OHeadObjectType.class,
+          OHeadObjectParameters.builder()
+            .setBucketName("bucket")
+            .setKey("a")
+            .build()
+        ).get();
+
+      assertEquals(r0, r1);
+      assertEquals(r0, r2);
+    }
+    assertEquals(List.of("HEAD /bucket/a"), this.requests);
+  }
+
+  /**
+   * Expired cached metadata is revalidated with a conditional request.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCacheRevalidate()
+    throws Exception
+  {
+    try (var client =
+           this.client(Optional.of(cache(100, Duration.ofMillis(1L))))) {
+      final var r0 = head(client, "a");
+      Thread.sleep(10L);
+      final var r1 = head(client, "a");
+      assertEquals(r0, r1);
+    }
+    assertEquals(
+      List.of("HEAD /bucket/a", "HEAD /bucket/a \"v1\""),
+      this.requests
+    );
+  }
+
+  /**
+   * Writes and deletions through the same client invalidate cached
+   * metadata.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCacheInvalidatedByWrites()
+    throws Exception
+  {
+    try (var client =
+           this.client(Optional.of(cache(100, Duration.ofMinutes(1L))))) {
+      final var r0 = head(client, "a");
+
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("bucket")
+          .setKey("a")
+          .setData(OObjectDatas.ofStream(
+            () -> new ByteArrayInputStream(new byte[4]), 4L))
+          .build()
+      );
+
+      final var r1 = head(client, "a");
+      assertNotEquals(r0.eTag(), r1.eTag());
+      assertEquals("\"v2\"", r1.eTag());
+
+      client.execute(
+        ODeleteObjectType.class,
+        ODeleteObjectParameters.builder()
+          .setBucketName("bucket")
+          .setKey("a")
+          .build()
+      );
+
+      final var ex =
+        assertThrows(OException.class, () -> head(client, "a"));
+      assertEquals("NoSuchKey", ex.errorCode());
+    }
+    assertEquals(
+      List.of(
+        "HEAD /bucket/a",
+        "PUT /bucket/a",
+        "HEAD /bucket/a",
+        "DELETE /bucket/a",
+        "HEAD /bucket/a"
+      ),
+      this.requests
+    );
+  }
+
+  /**
+   * The least recently used metadata is discarded when the cache is full.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCacheBounded()
+    throws Exception
+  {
+    try (var client =
+           this.client(Optional.of(cache(2, Duration.ofMinutes(1L))))) {
+      head(client, "a");
+      head(client, "b");
+      head(client, "a");
+      head(client, "c");
+      head(client, "a");
+      head(client, "b");
+    }
+    assertEquals(
+      List.of(
+        "HEAD /bucket/a",
+        "HEAD /bucket/b",
+        "HEAD /bucket/c",
+        "HEAD /bucket/b"
+      ),
+      this.requests
+    );
+  }
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientHedgingPolicy;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OHedging;
+import com.io7m.ophis.vanilla.internal.commands.OCmdListObjects;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Slow requests are hedged. The server is a local HTTP/1.1 server that does
+ * not check signatures, and that stalls the first request it receives until
+ * the end of each test. Requests for the bucket {@code steady} are never
+ * stalled, and are instead answered after a latency drawn from a
+ * uniform distribution.
+ */
+
+public final class OHedgingTest
+{
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private AtomicInteger requests;
+  private CountDownLatch stalled;
+  private AtomicInteger steadyRequests;
+  private Random latencies;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    if (this.requests.incrementAndGet() == 1) {
+      try {
+        this.stalled.await(10L, TimeUnit.SECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    respond(exchange);
+  }
+
+  private void handleSteady(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    this.steadyRequests.incrementAndGet();
+    try {
+      Thread.sleep(10L + (10L * this.latencies.nextInt(10)));
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    respond(exchange);
+  }
+
+  private static void respond(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    final var bytes = LIST_RESPONSE.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.getResponseHeaders().add("ETag", "\"abc\"");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.requests = new AtomicInteger(0);
+    this.stalled = new CountDownLatch(1);
+    this.steadyRequests = new AtomicInteger(0);
+    this.latencies = new Random(0x5eedL);
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.createContext("/steady", this::handleSteady);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.stalled.countDown();
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setHedging(OClientHedgingPolicy.builder()
+                      .setInitialDelay(Duration.ofMillis(50L))
+                      .build())
+        .build()
+    );
+  }
+
+  private static OListObjectsParameters listParameters()
+  {
+    return OListObjectsParameters.builder()
+      .setBucketName("bucket")
+      .build();
+  }
+
+  /**
+   * A stalled request is hedged, and the hedge's response is used.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHedged()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      final var time = System.nanoTime();
+      client.execute(OListObjectsType.class, listParameters());
+      assertTrue(
+        Duration.ofNanos(System.nanoTime() - time).toSeconds() < 5L,
+        "The hedged request must not wait for the stalled request"
+      );
+    }
+    assertEquals(2, this.requests.get());
+  }
+
+  /**
+   * A stalled asynchronous request is hedged.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHedgedAsync()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      client.executeAsync(OListObjectsType.class, listParameters())
+        .get(5L, TimeUnit.SECONDS);
+    }
+    assertEquals(2, this.requests.get());
+  }
+
+  /**
+   * Commands with side effects are never hedged.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNotHedgeable()
+    throws Exception
+  {
+    try (var client = this.client()) {
+      final var future =
+        client.executeAsync(
+          OPutObjectType.class,
+          OPutObjectParameters.builder()
+            .setBucketName("bucket")
+            .setKey("key")
+            .setData(OObjectDatas.ofStream(
+              InputStream::nullInputStream, 0L))
+            .build()
+        );
+
+      Thread.sleep(500L);
+      assertEquals(1, this.requests.get());
+      this.stalled.countDown();
+      future.get(5L, TimeUnit.SECONDS);
+    }
+    assertEquals(1, this.requests.get());
+  }
+
+  /**
+   * The hedging delay is a percentile of recent response times.
+   */
+
+  @Test
+  public void testDelays()
+  {
+    final var hedging =
+      new OHedging(Optional.of(
+        OClientHedgingPolicy.builder()
+          .setPercentile(95.0)
+          .setSampleWindow(100)
+          .setMinimumSamples(10)
+          .setInitialDelay(Duration.ofMillis(7L))
+          .setMaximumDelay(Duration.ofMillis(90L))
+          .build()
+      ));
+
+    assertEquals(Duration.ofMillis(7L), hedging.delayFor(String.class));
+
+    for (int index = 1; index <= 100; ++index) {
+      hedging.record(
+        String.class,
+        Duration.ofMillis(index).toNanos() / 2L
+      );
+    }
+    assertEquals(
+      Duration.ofMillis(95L).dividedBy(2L),
+      hedging.delayFor(String.class)
+    );
+
+    for (int index = 1; index <= 100; ++index) {
+      hedging.record(String.class, Duration.ofMillis(index).toNanos());
+    }
+    assertEquals(Duration.ofMillis(90L), hedging.delayFor(String.class));
+    assertEquals(Duration.ofMillis(7L), hedging.delayFor(Integer.class));
+  }
+
+  /**
+   * The hedging delay stays stable when response times are drawn from a
+   * steady distribution. Requests that lose to their hedges are still
+   * sampled; if they were not, the slow half of the distribution would
+   * vanish from the samples, and the delay would fall to the minimum.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDelayStable()
+    throws Exception
+  {
+    final var requestCount = 100;
+
+    try (var client = new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setHedging(OClientHedgingPolicy.builder()
+                      .setPercentile(50.0)
+                      .setSampleWindow(40)
+                      .setMinimumSamples(10)
+                      .setInitialDelay(Duration.ofMillis(50L))
+                      .setMinimumDelay(Duration.ofMillis(1L))
+                      .setMaximumDelay(Duration.ofSeconds(1L))
+                      .build())
+        .build())) {
+
+      final var parameters =
+        OListObjectsParameters.builder()
+          .setBucketName("steady")
+          .build();
+
+      final var hedging = ((OClient) client).hedging();
+      for (int index = 0; index < requestCount; ++index) {
+        client.execute(OListObjectsType.class, parameters);
+      }
+
+      /*
+       * The median of the distribution is 50-60ms. Connection setup and
+       * scheduling only ever add to the measured times.
+       */
+
+      final var delay = hedging.delayFor(OCmdListObjects.class);
+      assertTrue(
+        delay.compareTo(Duration.ofMillis(45L)) >= 0,
+        "Delay %s must not drift downwards".formatted(delay)
+      );
+      assertTrue(
+        delay.compareTo(Duration.ofMillis(200L)) <= 0,
+        "Delay %s must not drift upwards".formatted(delay)
+      );
+      assertTrue(
+        this.steadyRequests.get() < requestCount * 17 / 10,
+        "Only the slow requests must be hedged (%d requests sent)"
+          .formatted(Integer.valueOf(this.steadyRequests.get()))
+      );
+    }
+  }
+
+  /**
+   * Invalid policies are rejected.
+   */
+
+  @Test
+  public void testPolicyInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      OClientHedgingPolicy.builder()
+        .setPercentile(100.0)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OClientHedgingPolicy.builder()
+        .setMinimumSamples(2000)
+        .build();
+    });
+  }
+}
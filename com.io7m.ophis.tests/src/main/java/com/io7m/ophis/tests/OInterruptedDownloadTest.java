@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OGetObjectParameters;
+import com.io7m.ophis.api.commands.OGetObjectSinkChannel;
+import com.io7m.ophis.api.commands.OGetObjectType;
+import com.io7m.ophis.api.operations.ODownloadParameters;
+import com.io7m.ophis.api.operations.ODownloads;
+import com.io7m.ophis.vanilla.OClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A download whose connection is dropped partway through a response body
+ * fails, and is not retried; a retry would deliver the start of the body
+ * to the sink a second time. The server is a minimal HTTP/1.1 server that
+ * drops the connection halfway through the body of the range beginning at
+ * a chosen offset.
+ */
+
+public final class OInterruptedDownloadTest
+{
+  private static final int SIZE = 4000;
+  private static final int PART = 1000;
+
+  private static final Pattern RANGE =
+    Pattern.compile("bytes=([0-9]+)-([0-9]+)");
+
+  private ServerSocket server;
+  private Thread serverThread;
+  private byte[] data;
+  private volatile long failingOffset;
+  private List<String> requests;
+
+  private static String readLine(
+    final InputStream input)
+    throws IOException
+  {
+    final var line = new ByteArrayOutputStream();
+    while (true) {
+      final var c = input.read();
+      if (c == -1) {
+        return null;
+      }
+      if (c == '\n') {
+        return line.toString(US_ASCII).strip();
+      }
+      line.write(c);
+    }
+  }
+
+  private void serve(
+    final Socket socket)
+  {
+    try (socket) {
+      final var input = socket.getInputStream();
+      final var output = socket.getOutputStream();
+
+      while (true) {
+        final var requestLine = readLine(input);
+        if (requestLine == null || requestLine.isEmpty()) {
+          return;
+        }
+
+        var range = "";
+        while (true) {
+          final var header = readLine(input);
+          if (header == null || header.isEmpty()) {
+            break;
+          }
+          final var lower = header.toLowerCase(Locale.ROOT);
+          if (lower.startsWith("range:")) {
+            range = header.substring(6).strip();
+          }
+        }
+
+        long first = 0L;
+        long last = SIZE - 1L;
+        final var matcher = RANGE.matcher(range);
+        if (matcher.matches()) {
+          first = Long.parseLong(matcher.group(1));
+          last = Math.min(Long.parseLong(matcher.group(2)), SIZE - 1L);
+        }
+        this.requests.add(first + "-" + last);
+
+        final var length = (int) (last - first + 1L);
+        final var head = new StringBuilder();
+        if (matcher.matches()) {
+          head.append("HTTP/1.1 206 Partial Content\r\n");
+          head.append("Content-Range: bytes %d-%d/%d\r\n"
+                        .formatted(first, last, SIZE));
+        } else {
+          head.append("HTTP/1.1 200 OK\r\n");
+        }
+        head.append("Content-Length: %d\r\n".formatted(length));
+        head.append("ETag: \"e\"\r\n");
+        head.append("\r\n");
+        output.write(head.toString().getBytes(US_ASCII));
+
+        if (first == this.failingOffset) {
+          output.write(this.data, (int) first, length / 2);
+          output.flush();
+          socket.setSoLinger(true, 0);
+          return;
+        }
+
+        output.write(this.data, (int) first, length);
+        output.flush();
+      }
+    } catch (final IOException e) {
+      // The client went away.
+    }
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.data = new byte[SIZE];
+    for (int index = 0; index < SIZE; ++index) {
+      this.data[index] = (byte) (index * 31 + 7);
+    }
+
+    this.requests = new CopyOnWriteArrayList<>();
+    this.failingOffset = -1L;
+    this.server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    this.serverThread = Thread.ofVirtual().start(() -> {
+      while (!this.server.isClosed()) {
+        try {
+          final var socket = this.server.accept();
+          Thread.ofVirtual().start(() -> this.serve(socket));
+        } catch (final IOException e) {
+          return;
+        }
+      }
+    });
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.server.close();
+    this.serverThread.join();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getLocalPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setDownloadPartSize(PART)
+        .setDownloadConcurrency(1)
+        .build()
+    );
+  }
+
+  /**
+   * A ranged download whose connection is dropped fails, and the range is
+   * not fetched again into the same region of the file.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDownloadInterrupted(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    this.failingOffset = 2000L;
+    final var file = directory.resolve("output.bin");
+
+    try (var client = this.client()) {
+      assertThrows(OException.class, () -> {
+        ODownloads.download(
+          client,
+          ODownloadParameters.builder()
+            .setBucketName("bucket")
+            .setKey("key")
+            .setFile(file)
+            .build()
+        );
+      });
+    }
+
+    assertEquals(1, Collections.frequency(this.requests, "2000-2999"));
+
+    final var received = Files.readAllBytes(file);
+    assertEquals(SIZE, received.length);
+    assertArrayEquals(
+      Arrays.copyOfRange(this.data, 0, 2000),
+      Arrays.copyOfRange(received, 0, 2000)
+    );
+
+    /*
+     * The second half of the failed range must not have been written; a
+     * retry would have written the start of the range there.
+     */
+
+    assertArrayEquals(
+      new byte[500],
+      Arrays.copyOfRange(received, 2500, 3000)
+    );
+  }
+
+  /**
+   * An object fetched into a channel whose connection is dropped fails, and
+   * the channel receives no more than the bytes that arrived, once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testChannelInterrupted()
+    throws Exception
+  {
+    this.failingOffset = 0L;
+    final var output = new ByteArrayOutputStream();
+
+    try (var client = this.client()) {
+      final var ex = assertThrows(OException.class, () -> {
+        client.execute(
+          OGetObjectType.class,
+          OGetObjectParameters.builder()
+            .setBucketName("bucket")
+            .setKey("key")
+            .setSink(new OGetObjectSinkChannel(Channels.newChannel(output)))
+            .build()
+        );
+      });
+      assertEquals("error-io", ex.errorCode());
+    }
+
+    assertEquals(List.of("0-3999"), this.requests);
+
+    final var received = output.toByteArray();
+    assertTrue(received.length <= SIZE / 2);
+    assertArrayEquals(
+      Arrays.copyOfRange(this.data, 0, received.length),
+      received
+    );
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientMetadataCachePolicy;
+import com.io7m.ophis.api.commands.OHeadObjectResponse;
+import com.io7m.ophis.vanilla.internal.OMetadataCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The metadata cache never stores the response to a request that was sent
+ * before the object was last invalidated.
+ */
+
+public final class OMetadataCacheTest
+{
+  private long time;
+
+  private OMetadataCache cache(
+    final int maximumEntries)
+  {
+    return new OMetadataCache(
+      Optional.of(
+        OClientMetadataCachePolicy.builder()
+          .setMaximumEntries(maximumEntries)
+          .setTimeToLive(Duration.ofNanos(100L))
+          .build()
+      ),
+      () -> this.time
+    );
+  }
+
+  private static OHeadObjectResponse response(
+    final String eTag)
+  {
+    return OHeadObjectResponse.builder()
+      .setSize(1L)
+      .setETag(eTag)
+      .build();
+  }
+
+  private static String eTagOf(
+    final OMetadataCache cache,
+    final String key)
+  {
+    return cache.get("bucket", key)
+      .map(lookup -> lookup.response().eTag())
+      .orElse("");
+  }
+
+  /**
+   * Responses are fresh until their time-to-live has passed.
+   */
+
+  @Test
+  public void testFreshness()
+  {
+    final var cache = this.cache(10);
+    this.time = 10L;
+    cache.put("bucket", "a", response("v1"), 5L);
+
+    this.time = 109L;
+    assertTrue(cache.get("bucket", "a").orElseThrow().fresh());
+    this.time = 110L;
+    assertFalse(cache.get("bucket", "a").orElseThrow().fresh());
+  }
+
+  /**
+   * A request sent before a write, that completes after a later request
+   * has stored the metadata from after the write, does not overwrite that
+   * metadata.
+   */
+
+  @Test
+  public void testStaleAfterNewer()
+  {
+    final var cache = this.cache(10);
+
+    final var sentA = 10L;
+    this.time = 20L;
+    cache.invalidate("bucket", "a");
+
+    final var sentB = 30L;
+    this.time = 40L;
+    cache.put("bucket", "a", response("new"), sentB);
+    assertEquals("new", eTagOf(cache, "a"));
+
+    this.time = 50L;
+    cache.put("bucket", "a", response("old"), sentA);
+    assertEquals("new", eTagOf(cache, "a"));
+
+    this.time = 60L;
+    cache.put("bucket", "a", response("newer"), 55L);
+    assertEquals("newer", eTagOf(cache, "a"));
+  }
+
+  /**
+   * A request sent before a write does not store its metadata after the
+   * marker left by the write has been evicted.
+   */
+
+  @Test
+  public void testStaleAfterEviction()
+  {
+    final var cache = this.cache(2);
+
+    final var sentA = 10L;
+    this.time = 20L;
+    cache.invalidate("bucket", "a");
+
+    this.time = 30L;
+    cache.put("bucket", "b", response("b"), 25L);
+    cache.put("bucket", "c", response("c"), 25L);
+    assertEquals(2, cache.size());
+
+    this.time = 40L;
+    cache.put("bucket", "a", response("old"), sentA);
+    assertEquals("", eTagOf(cache, "a"));
+
+    cache.put("bucket", "a", response("new"), 35L);
+    assertEquals("new", eTagOf(cache, "a"));
+  }
+}
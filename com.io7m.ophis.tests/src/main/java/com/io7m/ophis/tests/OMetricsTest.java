@@ -0,0 +1,352 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.api.metrics.OLatencyHistogram;
+import com.io7m.ophis.api.metrics.OMetricsHistograms;
+import com.io7m.ophis.api.metrics.OMetricsListenerType;
+import com.io7m.ophis.api.metrics.ORequestMetrics;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OAWSChunkedStream;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Request metrics are delivered to listeners. The server is a local
+ * HTTP/1.1 server that does not check signatures, and that rejects requests
+ * for the bucket "missing".
+ */
+
+public final class OMetricsTest
+{
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private static final String ERROR_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <Error>
+      <Code>NoSuchBucket</Code>
+      <Message>The specified bucket does not exist.</Message>
+    </Error>
+    """;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private List<ORequestMetrics> events;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var path = exchange.getRequestURI().getPath();
+    final int status;
+    final byte[] bytes;
+    if (path.startsWith("/missing")) {
+      status = 404;
+      bytes = ERROR_RESPONSE.getBytes(UTF_8);
+    } else {
+      status = 200;
+      bytes = LIST_RESPONSE.getBytes(UTF_8);
+    }
+
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.getResponseHeaders().add("ETag", "\"abc\"");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.events = new CopyOnWriteArrayList<>();
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client(
+    final OMetricsListenerType... listeners)
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .addMetricsListeners(listeners)
+        .build()
+    );
+  }
+
+  private static OListObjectsParameters listParameters(
+    final String bucket)
+  {
+    return OListObjectsParameters.builder()
+      .setBucketName(bucket)
+      .build();
+  }
+
+  /**
+   * Each request produces exactly one event.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testListObjects()
+    throws Exception
+  {
+    try (var client = this.client(this.events::add)) {
+      client.execute(OListObjectsType.class, listParameters("bucket"));
+      client.executeAsync(OListObjectsType.class, listParameters("bucket"))
+        .get(5L, TimeUnit.SECONDS);
+    }
+
+    assertEquals(2, this.events.size());
+    for (final var event : this.events) {
+      assertEquals(OListObjectsType.class, event.command());
+      assertEquals(Optional.of("bucket"), event.bucket());
+      assertEquals(1, event.attempt());
+      assertEquals(200, event.statusCode());
+      assertEquals(Optional.empty(), event.errorCode());
+      assertEquals(0L, event.bytesSent());
+      assertEquals(
+        LIST_RESPONSE.getBytes(UTF_8).length,
+        event.bytesReceived()
+      );
+      assertTrue(event.signing().compareTo(Duration.ZERO) > 0);
+      assertTrue(event.timeToFirstByte().compareTo(Duration.ZERO) > 0);
+      assertTrue(event.total().compareTo(event.timeToFirstByte()) >= 0);
+    }
+  }
+
+  /**
+   * The size of request bodies is reported as sent, including any
+   * {@code aws-chunked} encoding.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutObject()
+    throws Exception
+  {
+    try (var client = this.client(this.events::add)) {
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("bucket")
+          .setKey("key")
+          .setData(OObjectDatas.ofStream(
+            () -> new ByteArrayInputStream(new byte[100]), 100L))
+          .build()
+      );
+    }
+
+    assertEquals(1, this.events.size());
+    final var event = this.events.get(0);
+    assertEquals(OPutObjectType.class, event.command());
+    assertEquals(200, event.statusCode());
+    assertEquals(OAWSChunkedStream.encodedLength(100L), event.bytesSent());
+  }
+
+  /**
+   * Error responses are reported with their error codes.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testError()
+    throws Exception
+  {
+    try (var client = this.client(this.events::add)) {
+      final var ex =
+        assertThrows(OException.class, () -> {
+          client.execute(OListObjectsType.class, listParameters("missing"));
+        });
+      assertEquals("NoSuchBucket", ex.errorCode());
+    }
+
+    assertEquals(1, this.events.size());
+    final var event = this.events.get(0);
+    assertEquals(404, event.statusCode());
+    assertEquals(Optional.of("NoSuchBucket"), event.errorCode());
+    assertEquals(
+      ERROR_RESPONSE.getBytes(UTF_8).length,
+      event.bytesReceived()
+    );
+  }
+
+  /**
+   * The built-in listener maintains histograms for each kind of command,
+   * and a failing listener does not cause requests to fail.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHistograms()
+    throws Exception
+  {
+    final var histograms = new OMetricsHistograms();
+    final OMetricsListenerType broken = metrics -> {
+      throw new IllegalStateException();
+    };
+
+    try (var client = this.client(broken, histograms)) {
+      for (int index = 0; index < 10; ++index) {
+        client.execute(OListObjectsType.class, listParameters("bucket"));
+      }
+      assertThrows(OException.class, () -> {
+        client.execute(OListObjectsType.class, listParameters("missing"));
+      });
+    }
+
+    final var list =
+      histograms.histogramsFor(OListObjectsType.class)
+        .orElseThrow();
+
+    assertEquals(11L, list.total().count());
+    assertEquals(11L, list.timeToFirstByte().count());
+    assertEquals(1L, list.errors());
+    assertEquals(0L, list.bytesSent());
+    assertEquals(
+      10L * LIST_RESPONSE.getBytes(UTF_8).length
+      + ERROR_RESPONSE.getBytes(UTF_8).length,
+      list.bytesReceived()
+    );
+    assertEquals(
+      Optional.empty(),
+      histograms.histogramsFor(OPutObjectType.class)
+    );
+  }
+
+  /**
+   * Percentiles are accurate to within the precision of the histogram.
+   */
+
+  @Test
+  public void testHistogramPercentiles()
+  {
+    final var histogram = new OLatencyHistogram();
+    for (int index = 1; index <= 10000; ++index) {
+      histogram.record(Duration.ofMillis(index));
+    }
+
+    assertEquals(10000L, histogram.count());
+    assertEquals(Duration.ofMillis(10000L), histogram.maximum());
+    assertEquals(5000L, histogram.mean().toMillis());
+
+    for (final var percentile : new double[]{50.0, 90.0, 99.0, 99.9}) {
+      final var expected = percentile * 100.0;
+      final var actual = (double) histogram.percentile(percentile).toMillis();
+      assertTrue(
+        Math.abs(actual - expected) <= expected * 0.0625,
+        "Percentile %s: %s".formatted(percentile, actual)
+      );
+    }
+  }
+
+  /**
+   * Histograms may be updated concurrently.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testHistogramConcurrent()
+    throws Exception
+  {
+    final var histogram = new OLatencyHistogram();
+    try (var executor = Executors.newFixedThreadPool(8)) {
+      for (int thread = 0; thread < 8; ++thread) {
+        executor.execute(() -> {
+          for (int index = 1; index <= 10000; ++index) {
+            histogram.recordNanos(index);
+          }
+        });
+      }
+    }
+
+    assertEquals(80000L, histogram.count());
+    assertEquals(Duration.ofNanos(10000L), histogram.maximum());
+  }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.operations.OMultipartUploadParameters;
+import com.io7m.ophis.api.operations.OMultipartUploads;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Multipart uploads divide data into parts without rereading it. The server
+ * is a local HTTP/1.1 server that does not check signatures, that records
+ * the decoded contents of each part, that refuses to accept the part
+ * numbered {@link #failingPart}, and that stalls on the part numbered
+ * {@link #stalledPart}.
+ */
+
+public final class OMultipartUploadsTest
+{
+  private static final long PART_SIZE =
+    OMultipartUploadParameters.MINIMUM_PART_SIZE;
+
+  private static final Pattern PART_NUMBER =
+    Pattern.compile("partNumber=([0-9]+)");
+
+  private static final String INITIATE_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <InitiateMultipartUploadResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Bucket>bucket</Bucket>
+      <Key>key</Key>
+      <UploadId>upload</UploadId>
+    </InitiateMultipartUploadResult>
+    """;
+
+  private static final String COMPLETE_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <CompleteMultipartUploadResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Bucket>bucket</Bucket>
+      <Key>key</Key>
+      <ETag>"complete"</ETag>
+    </CompleteMultipartUploadResult>
+    """;
+
+  private static final String ERROR_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <Error>
+      <Code>AccessDenied</Code>
+      <Message>Access Denied</Message>
+      <Resource>/bucket/key</Resource>
+      <RequestId>0</RequestId>
+    </Error>
+    """;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private List<String> requests;
+  private Map<Integer, byte[]> parts;
+  private Map<Integer, String> partHashes;
+  private volatile String completeBody;
+  private volatile int failingPart;
+  private volatile int stalledPart;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    final byte[] body;
+    try (var input = exchange.getRequestBody()) {
+      body = input.readAllBytes();
+    }
+
+    final var method = exchange.getRequestMethod();
+    final var query =
+      Objects.requireNonNullElse(exchange.getRequestURI().getRawQuery(), "");
+    this.requests.add(method + " " + exchange.getRequestURI());
+
+    switch (method) {
+      case "PUT" -> this.handlePart(exchange, query, body);
+      case "DELETE" -> {
+        exchange.sendResponseHeaders(204, -1L);
+        exchange.close();
+      }
+      default -> {
+        if (query.startsWith("uploads")) {
+          send(exchange, 200, INITIATE_RESPONSE);
+        } else {
+          this.completeBody = new String(body, UTF_8);
+          send(exchange, 200, COMPLETE_RESPONSE);
+        }
+      }
+    }
+  }
+
+  private void handlePart(
+    final HttpExchange exchange,
+    final String query,
+    final byte[] body)
+    throws IOException
+  {
+    final var matcher = PART_NUMBER.matcher(query);
+    assertTrue(matcher.find());
+    final var partNumber = Integer.parseInt(matcher.group(1));
+
+    final var headers = exchange.getRequestHeaders();
+    this.partHashes.put(
+      Integer.valueOf(partNumber),
+      headers.getFirst("x-amz-content-sha256")
+    );
+
+    if (headers.getFirst("x-amz-decoded-content-length") != null) {
+      this.parts.put(Integer.valueOf(partNumber), decodeChunked(body));
+    } else {
+      this.parts.put(Integer.valueOf(partNumber), body);
+    }
+
+    if (partNumber == this.stalledPart) {
+      try {
+        Thread.sleep(20_000L);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.close();
+      return;
+    }
+
+    if (partNumber == this.failingPart) {
+      send(exchange, 403, ERROR_RESPONSE);
+      return;
+    }
+
+    exchange.getResponseHeaders().add("ETag", "\"p%d\"".formatted(partNumber));
+    exchange.sendResponseHeaders(200, -1L);
+    exchange.close();
+  }
+
+  private static void send(
+    final HttpExchange exchange,
+    final int status,
+    final String text)
+    throws IOException
+  {
+    final var bytes = text.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  private static byte[] decodeChunked(
+    final byte[] body)
+  {
+    final var output = new ByteArrayOutputStream();
+    var position = 0;
+    while (true) {
+      var end = position;
+      while (body[end] != '\r') {
+        end = end + 1;
+      }
+      final var header = new String(body, position, end - position, US_ASCII);
+      final var size = Integer.parseInt(header.split(";")[0], 16);
+      if (size == 0) {
+        return output.toByteArray();
+      }
+      output.write(body, end + 2, size);
+      position = end + 2 + size + 2;
+    }
+  }
+
+  private static Supplier<InputStream> counting(
+    final byte[] data,
+    final AtomicInteger opened,
+    final AtomicLong read)
+  {
+    return () -> {
+      opened.incrementAndGet();
+      return new ByteArrayInputStream(data) {
+        @Override
+        public synchronized int read(
+          final byte[] buffer,
+          final int offset,
+          final int length)
+        {
+          final var count = super.read(buffer, offset, length);
+          if (count > 0) {
+            read.addAndGet(count);
+          }
+          return count;
+        }
+      };
+    };
+  }
+
+  private static byte[] createData(
+    final int size)
+  {
+    final var data = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      data[index] = OGeneratedStream.byteAt(index);
+    }
+    return data;
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.requests = new CopyOnWriteArrayList<>();
+    this.parts = new ConcurrentHashMap<>();
+    this.partHashes = new ConcurrentHashMap<>();
+    this.completeBody = null;
+    this.failingPart = -1;
+    this.stalledPart = -1;
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .build()
+    );
+  }
+
+  private void upload(
+    final OObjectData data)
+    throws OException
+  {
+    try (var client = this.client()) {
+      OMultipartUploads.upload(
+        client,
+        OMultipartUploadParameters.builder()
+          .setBucketName("bucket")
+          .setKey("key")
+          .setData(data)
+          .setPartSize(PART_SIZE)
+          .setConcurrency(2)
+          .build()
+      );
+    }
+  }
+
+  private void checkParts(
+    final byte[] data)
+  {
+    final var output = new ByteArrayOutputStream();
+    for (int index = 1; index <= this.parts.size(); ++index) {
+      output.writeBytes(this.parts.get(Integer.valueOf(index)));
+    }
+    assertArrayEquals(data, output.toByteArray());
+
+    for (final var hash : this.partHashes.values()) {
+      assertTrue(
+        hash.startsWith("STREAMING-") || hash.startsWith("UNSIGNED-"),
+        "Parts must not be hashed, but were sent with " + hash
+      );
+    }
+  }
+
+  /**
+   * Stream-backed data is opened once and read exactly once, and the parts
+   * are completed in order.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testStream()
+    throws Exception
+  {
+    final var data = createData((int) (4L * PART_SIZE + 17L));
+    final var opened = new AtomicInteger(0);
+    final var read = new AtomicLong(0L);
+
+    this.upload(OObjectDatas.ofStream(counting(data, opened, read), data.length));
+
+    assertEquals(1, opened.get());
+    assertEquals(data.length, read.get());
+    assertEquals(5, this.parts.size());
+    this.checkParts(data);
+
+    final var completed = this.completeBody;
+    assertNotNull(completed);
+    var previous = -1;
+    for (int part = 1; part <= 5; ++part) {
+      final var index = completed.indexOf(
+        "<PartNumber>%d</PartNumber>".formatted(part));
+      assertTrue(index > previous, "Part %d must be in order".formatted(part));
+      previous = index;
+    }
+  }
+
+  /**
+   * Parts of hashed file-backed data are read directly from the file and are
+   * not hashed again.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFile(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var data = createData((int) (2L * PART_SIZE + 17L));
+    final var file = directory.resolve("data.bin");
+    Files.write(file, data);
+
+    this.upload(OObjectDatas.ofFile(file));
+
+    assertEquals(3, this.parts.size());
+    this.checkParts(data);
+  }
+
+  /**
+   * The first part to fail stops the upload, even if earlier parts are
+   * still in flight, and the upload is aborted.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testFirstFailureStops()
+    throws Exception
+  {
+    this.stalledPart = 1;
+    this.failingPart = 2;
+
+    final var data = createData((int) (6L * PART_SIZE));
+    final var opened = new AtomicInteger(0);
+    final var read = new AtomicLong(0L);
+
+    final var start = Instant.now();
+    final var ex = assertThrows(OException.class, () -> {
+      this.upload(
+        OObjectDatas.ofStream(counting(data, opened, read), data.length));
+    });
+    final var elapsed = Duration.between(start, Instant.now());
+
+    assertEquals("AccessDenied", ex.errorCode());
+    assertTrue(
+      elapsed.compareTo(Duration.ofSeconds(10L)) < 0,
+      "The upload must fail before the stalled part completes (%s)"
+        .formatted(elapsed)
+    );
+    assertTrue(this.requests.contains("DELETE /bucket/key?uploadId=upload"));
+    assertFalse(this.parts.containsKey(Integer.valueOf(6)));
+    assertEquals(null, this.completeBody);
+  }
+
+  /**
+   * An unchecked exception raised while uploading aborts the upload.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testUncheckedFailureAborts()
+    throws Exception
+  {
+    final Supplier<InputStream> broken = () -> {
+      throw new IllegalStateException("Broken");
+    };
+
+    assertThrows(IllegalStateException.class, () -> {
+      this.upload(OObjectDatas.ofStream(broken, 2L * PART_SIZE));
+    });
+
+    assertEquals(
+      List.of(
+        "POST /bucket/key?uploads=",
+        "DELETE /bucket/key?uploadId=upload"
+      ),
+      this.requests
+    );
+  }
+}
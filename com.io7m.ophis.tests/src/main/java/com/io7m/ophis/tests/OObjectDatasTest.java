@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public final class OObjectDatasTest
+{
+  private static byte[] createData()
+  {
+    final var data = new byte[100_000];
+    for (int index = 0; index < data.length; ++index) {
+      data[index] = (byte) (index * 31);
+    }
+    return data;
+  }
+
+  private static void checkRange(
+    final byte[] bytes,
+    final OObjectData data,
+    final int offset,
+    final int size)
+    throws Exception
+  {
+    final var range =
+      OObjectDatas.ofRange(data, offset, size);
+    final var expected =
+      Arrays.copyOfRange(bytes, offset, offset + size);
+
+    assertEquals(size, range.size());
+    assertEquals(Optional.empty(), range.file());
+    assertEquals(
+      Optional.of(HexFormat.of().formatHex(
+        MessageDigest.getInstance("SHA-256").digest(expected))),
+      range.sha256()
+    );
+    assertEquals(
+      Optional.of(Base64.getEncoder().encodeToString(
+        MessageDigest.getInstance("MD5").digest(expected))),
+      range.md5()
+    );
+
+    try (final var stream = range.stream().get()) {
+      assertArrayEquals(expected, stream.readAllBytes());
+    }
+  }
+
+  /**
+   * Ranges of file-backed data are hashed and read correctly.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRangeFile(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bytes = createData();
+    final var file = directory.resolve("data.bin");
+    Files.write(file, bytes);
+
+    final var data = OObjectDatas.ofFile(file);
+    checkRange(bytes, data, 0, 0);
+    checkRange(bytes, data, 0, 1000);
+    checkRange(bytes, data, 1000, 50_000);
+    checkRange(bytes, data, 99_000, 1000);
+  }
+
+  /**
+   * Ranges of stream-backed data are hashed and read correctly.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRangeStream(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bytes = createData();
+    final var file = directory.resolve("data.bin");
+    Files.write(file, bytes);
+
+    final var data =
+      OObjectData.builder()
+        .from(OObjectDatas.ofFile(file))
+        .setFile(Optional.empty())
+        .build();
+
+    checkRange(bytes, data, 0, 0);
+    checkRange(bytes, data, 0, 1000);
+    checkRange(bytes, data, 1000, 50_000);
+    checkRange(bytes, data, 99_000, 1000);
+  }
+
+  /**
+   * Ranges of unhashed data are not hashed, and are read correctly.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRangeStreaming(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var bytes = createData();
+    final var file = directory.resolve("data.bin");
+    Files.write(file, bytes);
+
+    final var data = OObjectDatas.ofFileStreaming(file);
+    assertEquals(bytes.length, data.size());
+    assertEquals(Optional.empty(), data.sha256());
+    assertEquals(Optional.empty(), data.md5());
+
+    final var range = OObjectDatas.ofRange(data, 1000, 50_000);
+    assertEquals(Optional.empty(), range.sha256());
+    assertEquals(Optional.empty(), range.md5());
+
+    try (final var stream = range.stream().get()) {
+      assertArrayEquals(
+        Arrays.copyOfRange(bytes, 1000, 51_000),
+        stream.readAllBytes()
+      );
+    }
+  }
+
+  /**
+   * Ranges outside of the data are rejected.
+   *
+   * @param directory A temporary directory
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRangeInvalid(
+    final @TempDir Path directory)
+    throws Exception
+  {
+    final var file = directory.resolve("data.bin");
+    Files.write(file, createData());
+
+    final var data = OObjectDatas.ofFile(file);
+    assertThrows(IllegalArgumentException.class, () -> {
+      OObjectDatas.ofRange(data, 99_000, 1001);
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OObjectDatas.ofRange(data, -1, 10);
+    });
+  }
+}
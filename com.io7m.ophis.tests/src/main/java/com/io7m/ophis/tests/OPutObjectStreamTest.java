@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.api.commands.OObjectDatas;
+import com.io7m.ophis.api.commands.OPutObjectParameters;
+import com.io7m.ophis.api.commands.OPutObjectType;
+import com.io7m.ophis.vanilla.OClients;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Objects that are only available as streams are uploaded without being
+ * held in memory. The objects are larger than the largest read the streams
+ * allow, the streams refuse to be read all at once, and each stream may be
+ * opened only once. The server is a local HTTP/1.1 server that does
+ * not check signatures, and that checks the uploaded bytes as they arrive
+ * instead of storing them.
+ */
+
+public final class OPutObjectStreamTest
+{
+  private static final long SIZE =
+    4L * 1024L * 1024L + 17L;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private volatile String contentLength;
+  private volatile String decodedContentLength;
+  private volatile String transferEncoding;
+  private volatile long received;
+  private volatile long mismatch;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    final var headers = exchange.getRequestHeaders();
+    this.contentLength =
+      headers.getFirst("Content-Length");
+    this.decodedContentLength =
+      headers.getFirst("x-amz-decoded-content-length");
+    this.transferEncoding =
+      headers.getFirst("Transfer-Encoding");
+
+    final var chunked = this.decodedContentLength != null;
+    final var buffer = new byte[65536];
+    var position = 0L;
+    var firstMismatch = -1L;
+    try (var input = exchange.getRequestBody()) {
+      while (true) {
+        final var count = input.read(buffer);
+        if (count == -1) {
+          break;
+        }
+        if (!chunked && firstMismatch == -1L) {
+          firstMismatch = findMismatch(buffer, count, position);
+        }
+        position = position + count;
+      }
+    }
+    this.received = position;
+    this.mismatch = firstMismatch;
+
+    exchange.getResponseHeaders().add("ETag", "\"abc\"");
+    exchange.sendResponseHeaders(200, -1L);
+    exchange.close();
+  }
+
+  private static long findMismatch(
+    final byte[] buffer,
+    final int count,
+    final long position)
+  {
+    for (int index = 0; index < count; ++index) {
+      if (buffer[index] != OGeneratedStream.byteAt(position + index)) {
+        return position + index;
+      }
+    }
+    return -1L;
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.serverExecutor = Executors.newCachedThreadPool();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.setExecutor(this.serverExecutor);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+    this.serverExecutor.shutdownNow();
+  }
+
+  private OClientType client()
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + this.server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .build()
+    );
+  }
+
+  private static Supplier<InputStream> openOnce(
+    final AtomicInteger opened)
+  {
+    return () -> {
+      if (opened.incrementAndGet() > 1) {
+        throw new IllegalStateException("The stream was opened twice.");
+      }
+      return new OGeneratedStream(SIZE);
+    };
+  }
+
+  private void put(
+    final OObjectData data)
+    throws OException
+  {
+    try (var client = this.client()) {
+      client.execute(
+        OPutObjectType.class,
+        OPutObjectParameters.builder()
+          .setBucketName("bucket")
+          .setKey("large.bin")
+          .setData(data)
+          .build()
+      );
+    }
+  }
+
+  /**
+   * Hashed stream data is sent with a fixed Content-Length, read once, and
+   * never read all at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutHashed()
+    throws Exception
+  {
+    final var opened = new AtomicInteger(0);
+
+    /*
+     * The server does not check signatures, so the declared hash need not
+     * be the hash of the data.
+     */
+
+    this.put(
+      OObjectData.builder()
+        .setStream(openOnce(opened))
+        .setSize(SIZE)
+        .setSha256("0".repeat(64))
+        .setFile(Optional.empty())
+        .build()
+    );
+
+    assertEquals(1, opened.get());
+    assertEquals(Long.toString(SIZE), this.contentLength);
+    assertEquals(null, this.transferEncoding);
+    assertEquals(SIZE, this.received);
+    assertEquals(-1L, this.mismatch, "Uploaded bytes must match");
+  }
+
+  /**
+   * Unhashed stream data is sent with a streaming signature and a fixed
+   * Content-Length, read once, and never read all at once.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testPutStreaming()
+    throws Exception
+  {
+    final var opened = new AtomicInteger(0);
+    this.put(OObjectDatas.ofStream(openOnce(opened), SIZE));
+
+    assertEquals(1, opened.get());
+    assertEquals(Long.toString(SIZE), this.decodedContentLength);
+    assertEquals(null, this.transferEncoding);
+    assertEquals(Long.parseLong(this.contentLength), this.received);
+    assertTrue(
+      this.received > SIZE,
+      "The encoded body must be larger than the data"
+    );
+  }
+}
@@ -0,0 +1,319 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientRateLimitPolicy;
+import com.io7m.ophis.api.OClientRetryPolicy;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.ORateLimiters;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Requests are limited by adaptive rate limiters.
+ */
+
+public final class ORateLimitersTest
+{
+  private static final long SECOND = 1_000_000_000L;
+
+  private long time;
+
+  private ORateLimiters limiters(
+    final OClientRateLimitPolicy policy)
+  {
+    return new ORateLimiters(Optional.of(policy), () -> this.time);
+  }
+
+  /**
+   * Requests are spaced evenly at the current rate.
+   */
+
+  @Test
+  public void testPacing()
+  {
+    final var limiters =
+      this.limiters(OClientRateLimitPolicy.builder()
+                      .setInitialRate(10.0)
+                      .build());
+
+    assertEquals(0L, limiters.acquire("b").delay());
+    assertEquals(SECOND / 10L, limiters.acquire("b").delay());
+    assertEquals(2L * SECOND / 10L, limiters.acquire("b").delay());
+    assertEquals(0L, limiters.acquire("c").delay());
+
+    this.time = SECOND;
+    assertEquals(0L, limiters.acquire("b").delay());
+  }
+
+  /**
+   * Throttling decreases the rate once for all requests in flight, and
+   * successes increase it again.
+   */
+
+  @Test
+  public void testAIMD()
+  {
+    final var limiters =
+      this.limiters(OClientRateLimitPolicy.builder()
+                      .setInitialRate(100.0)
+                      .setMinimumRate(10.0)
+                      .setRateIncrease(100.0)
+                      .build());
+
+    final var p0 = limiters.acquire("b");
+    final var p1 = limiters.acquire("b");
+    final var limiter = p0.limiter().orElseThrow();
+
+    this.time = SECOND;
+    p0.failed("SlowDown", 503);
+    assertEquals(50.0, limiter.rate());
+    p1.failed("SlowDown", 503);
+    assertEquals(50.0, limiter.rate());
+
+    this.time = 2L * SECOND;
+    limiters.acquire("b").failed("InternalError", 500);
+    assertEquals(50.0, limiter.rate());
+    limiters.acquire("b").failed("Unknown", 429);
+    assertEquals(25.0, limiter.rate());
+
+    this.time = 3L * SECOND;
+    limiters.acquire("b").failed("SlowDown", 503);
+    this.time = 4L * SECOND;
+    limiters.acquire("b").failed("SlowDown", 503);
+    assertEquals(10.0, limiter.rate());
+
+    for (int index = 0; index < 100; ++index) {
+      limiters.acquire("b").succeeded();
+    }
+    assertTrue(limiter.rate() > 40.0, "Rate must increase");
+  }
+
+  /**
+   * Idle limiters whose rate has recovered are discarded, and limiters that
+   * are still slowed by throttling are kept.
+   */
+
+  @Test
+  public void testExpiry()
+  {
+    final var limiters =
+      this.limiters(OClientRateLimitPolicy.builder()
+                      .setInitialRate(100.0)
+                      .setMinimumRate(10.0)
+                      .build());
+
+    for (int index = 0; index < 1000; ++index) {
+      limiters.acquire("prefix" + index).succeeded();
+    }
+    limiters.acquire("throttled").failed("SlowDown", 503);
+    final var throttled = limiters.limiter("throttled").orElseThrow();
+
+    this.time = 30L * SECOND;
+    limiters.acquire("busy");
+    assertTrue(limiters.limiter("prefix0").isPresent());
+
+    this.time = 61L * SECOND;
+    final var busy = limiters.acquire("busy").limiter().orElseThrow();
+    for (int index = 0; index < 1000; ++index) {
+      assertTrue(limiters.limiter("prefix" + index).isEmpty());
+    }
+    assertEquals(busy, limiters.limiter("busy").orElseThrow());
+    assertEquals(throttled, limiters.limiter("throttled").orElseThrow());
+
+    final var renewed = limiters.acquire("prefix0").limiter().orElseThrow();
+    assertEquals(100.0, renewed.rate());
+  }
+
+  /**
+   * Limiters are selected by bucket and key prefix.
+   */
+
+  @Test
+  public void testKeys()
+  {
+    final var limiters =
+      this.limiters(OClientRateLimitPolicy.builder()
+                      .setPrefixSegments(1)
+                      .build());
+
+    final var bucket = Optional.of("b");
+    assertEquals("b", limiters.keyFor(bucket, Optional.empty()));
+    assertEquals(
+      "b",
+      limiters.keyFor(bucket, Optional.of(OResourceRelative.parse("x")))
+    );
+    assertEquals(
+      "b/a",
+      limiters.keyFor(bucket, Optional.of(OResourceRelative.parse("a/b/c")))
+    );
+    assertEquals(
+      "b/a",
+      limiters.keyFor(bucket, Optional.of(OResourceRelative.parse("a/d")))
+    );
+    assertEquals("", limiters.keyFor(Optional.empty(), Optional.empty()));
+  }
+
+  /**
+   * Disabled limiters never delay requests.
+   */
+
+  @Test
+  public void testDisabled()
+  {
+    final var limiters =
+      new ORateLimiters(Optional.empty(), () -> this.time);
+
+    for (int index = 0; index < 100; ++index) {
+      final var permit = limiters.acquire("b");
+      assertEquals(0L, permit.delay());
+      permit.failed("SlowDown", 503);
+    }
+    assertTrue(limiters.limiter("b").isEmpty());
+  }
+
+  /**
+   * Invalid policies are rejected.
+   */
+
+  @Test
+  public void testPolicyInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      OClientRateLimitPolicy.builder()
+        .setRateDecrease(1.0)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OClientRateLimitPolicy.builder()
+        .setMinimumRate(0.0)
+        .build();
+    });
+    assertThrows(IllegalArgumentException.class, () -> {
+      OClientRateLimitPolicy.builder()
+        .setInitialRate(20000.0)
+        .build();
+    });
+  }
+
+  /**
+   * Throttling responses from a server reduce the rate of the client.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testServerThrottling()
+    throws Exception
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+
+    final var requests = new AtomicInteger(0);
+    final var server =
+      HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      respondSlowDown(exchange);
+    });
+    server.start();
+
+    try (var client = new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(URI.create(
+          "http://127.0.0.1:" + server.getAddress().getPort()))
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setRetryPolicy(OClientRetryPolicy.builder()
+                          .setMaximumAttempts(4)
+                          .setBaseDelay(Duration.ZERO)
+                          .setMaximumDelay(Duration.ZERO)
+                          .build())
+        .setRateLimit(OClientRateLimitPolicy.builder()
+                        .setInitialRate(1000.0)
+                        .build())
+        .build())) {
+
+      final var ex =
+        assertThrows(OException.class, () -> {
+          client.execute(
+            OListObjectsType.class,
+            OListObjectsParameters.builder()
+              .setBucketName("bucket")
+              .build()
+          );
+        });
+      assertEquals("SlowDown", ex.errorCode());
+
+      final var limiter =
+        ((OClient) client).rateLimiters()
+          .limiter("bucket")
+          .orElseThrow();
+
+      assertEquals(4, requests.get());
+      assertEquals(1000.0 / 16.0, limiter.rate());
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  private static void respondSlowDown(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var bytes = """
+      <?xml version="1.0" encoding="UTF-8"?>
+      <Error>
+        <Code>SlowDown</Code>
+        <Message>Please reduce your request rate.</Message>
+        <Resource>/bucket</Resource>
+        <RequestId>0</RequestId>
+      </Error>
+      """.getBytes(UTF_8);
+
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(503, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+}
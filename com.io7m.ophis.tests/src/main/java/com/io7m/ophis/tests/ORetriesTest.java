@@ -0,0 +1,453 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientRetryPolicy;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadType;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.ORetries;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Failed requests are retried according to the retry policy. The server is
+ * a local HTTP/1.1 server that does not check signatures, and that fails a
+ * configurable number of requests before succeeding.
+ */
+
+public final class ORetriesTest
+{
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private static final String INITIATE_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <InitiateMultipartUploadResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Bucket>bucket</Bucket>
+      <Key>key</Key>
+      <UploadId>upload</UploadId>
+    </InitiateMultipartUploadResult>
+    """;
+
+  private static final String ERROR_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <Error>
+      <Code>%s</Code>
+      <Message>Failed</Message>
+      <Resource>/bucket</Resource>
+      <RequestId>0</RequestId>
+    </Error>
+    """;
+
+  private HttpServer server;
+  private AtomicInteger requests;
+  private volatile int failures;
+  private volatile int failureStatus;
+  private volatile String failureCode;
+
+  private static void respond(
+    final HttpExchange exchange,
+    final int status,
+    final String text)
+    throws IOException
+  {
+    final var bytes = text.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var count = this.requests.incrementAndGet();
+    if (count <= this.failures) {
+      respond(
+        exchange,
+        this.failureStatus,
+        ERROR_RESPONSE.formatted(this.failureCode)
+      );
+      return;
+    }
+
+    if ("POST".equals(exchange.getRequestMethod())) {
+      respond(exchange, 200, INITIATE_RESPONSE);
+    } else {
+      respond(exchange, 200, LIST_RESPONSE);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.requests = new AtomicInteger(0);
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+  }
+
+  private void failWith(
+    final int count,
+    final int status,
+    final String code)
+  {
+    this.failures = count;
+    this.failureStatus = status;
+    this.failureCode = code;
+  }
+
+  private static OClientRetryPolicy.Builder policy()
+  {
+    return OClientRetryPolicy.builder()
+      .setBaseDelay(Duration.ofMillis(1L))
+      .setMaximumDelay(Duration.ofMillis(10L));
+  }
+
+  private OClientType client(
+    final OClientRetryPolicy policy)
+    throws OException
+  {
+    return this.client(
+      URI.create("http://127.0.0.1:" + this.server.getAddress().getPort()),
+      policy
+    );
+  }
+
+  private OClientType client(
+    final URI endpoint,
+    final OClientRetryPolicy policy)
+    throws OException
+  {
+    return new OClients().createClient(
+      OClientConfiguration.builder()
+        .setEndpoint(endpoint)
+        .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+        .setCredentials(new OClientAccessKeys("access", "secret"))
+        .setRetryPolicy(policy)
+        .build()
+    );
+  }
+
+  private static void list(
+    final OClientType client)
+    throws OException
+  {
+    client.execute(
+      OListObjectsType.class,
+      OListObjectsParameters.builder()
+        .setBucketName("bucket")
+        .build()
+    );
+  }
+
+  private static void create(
+    final OClientType client)
+    throws OException
+  {
+    client.execute(
+      OCreateMultipartUploadType.class,
+      OCreateMultipartUploadParameters.builder()
+        .setBucketName("bucket")
+        .setKey("key")
+        .build()
+    );
+  }
+
+  /**
+   * Throttled requests are retried until they succeed.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRetryThrottled()
+    throws Exception
+  {
+    this.failWith(2, 503, "SlowDown");
+
+    try (var client = this.client(policy().build())) {
+      list(client);
+    }
+    assertEquals(3, this.requests.get());
+  }
+
+  /**
+   * Asynchronous requests are retried.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRetryAsync()
+    throws Exception
+  {
+    this.failWith(2, 500, "InternalError");
+
+    try (var client = this.client(policy().build())) {
+      client.executeAsync(
+        OListObjectsType.class,
+        OListObjectsParameters.builder()
+          .setBucketName("bucket")
+          .build()
+      ).get();
+    }
+    assertEquals(3, this.requests.get());
+  }
+
+  /**
+   * Requests are not retried more than the maximum number of attempts.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRetryExhausted()
+    throws Exception
+  {
+    this.failWith(Integer.MAX_VALUE, 500, "InternalError");
+
+    try (var client = this.client(policy().setMaximumAttempts(4).build())) {
+      final var ex =
+        assertThrows(OException.class, () -> list(client));
+      assertEquals("InternalError", ex.errorCode());
+      assertEquals("4", ex.attributes().get("Attempt"));
+
+      final var exAsync =
+        assertThrows(ExecutionException.class, () -> {
+          client.executeAsync(
+            OListObjectsType.class,
+            OListObjectsParameters.builder()
+              .setBucketName("bucket")
+              .build()
+          ).get();
+        });
+      assertInstanceOf(OException.class, exAsync.getCause());
+    }
+    assertEquals(8, this.requests.get());
+  }
+
+  /**
+   * Errors that are not transient are not retried.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNotRetryable()
+    throws Exception
+  {
+    this.failWith(1, 403, "AccessDenied");
+
+    try (var client = this.client(policy().build())) {
+      final var ex =
+        assertThrows(OException.class, () -> list(client));
+      assertEquals("AccessDenied", ex.errorCode());
+    }
+    assertEquals(1, this.requests.get());
+  }
+
+  /**
+   * Commands that are not idempotent are not retried after server errors,
+   * but are retried after throttling.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testNotIdempotent()
+    throws Exception
+  {
+    try (var client = this.client(policy().build())) {
+      this.failWith(1, 500, "InternalError");
+      final var ex =
+        assertThrows(OException.class, () -> create(client));
+      assertEquals("InternalError", ex.errorCode());
+      assertEquals(1, this.requests.get());
+
+      this.requests.set(0);
+      this.failWith(2, 503, "SlowDown");
+      create(client);
+      assertEquals(3, this.requests.get());
+    }
+  }
+
+  /**
+   * Retries stop when the retry budget is exhausted, and successes refill
+   * the budget.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testBudget()
+    throws Exception
+  {
+    this.failWith(Integer.MAX_VALUE, 503, "SlowDown");
+
+    final var policy =
+      policy()
+        .setMaximumAttempts(10)
+        .setBudgetCapacity(10)
+        .setBudgetRetryCost(5)
+        .build();
+
+    try (var client = this.client(policy)) {
+      final var retries = ((OClient) client).retries();
+
+      assertThrows(OException.class, () -> list(client));
+      assertEquals(3, this.requests.get());
+      assertEquals(0, retries.budget());
+
+      assertThrows(OException.class, () -> list(client));
+      assertEquals(4, this.requests.get());
+
+      this.failWith(0, 503, "SlowDown");
+      list(client);
+      assertEquals(1, retries.budget());
+    }
+  }
+
+  /**
+   * Connection failures are retried.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testConnectionRefused()
+    throws Exception
+  {
+    final int port;
+    try (var socket = new ServerSocket(0)) {
+      port = socket.getLocalPort();
+    }
+
+    try (var client = this.client(
+      URI.create("http://127.0.0.1:" + port),
+      policy().build())) {
+      final var ex =
+        assertThrows(OException.class, () -> list(client));
+      assertEquals("error-io", ex.errorCode());
+      assertEquals("3", ex.attributes().get("Attempt"));
+    }
+  }
+
+  /**
+   * Retry delays are bounded by the exponentially increasing bound, and by
+   * the maximum delay.
+   */
+
+  @Test
+  public void testDelays()
+  {
+    final var retries =
+      new ORetries(
+        OClientRetryPolicy.builder()
+          .setMaximumAttempts(100)
+          .setBudgetCapacity(Integer.MAX_VALUE)
+          .setBaseDelay(Duration.ofMillis(100L))
+          .setMaximumDelay(Duration.ofSeconds(1L))
+          .build()
+      );
+
+    for (int attempt = 1; attempt < 100; ++attempt) {
+      final var bound =
+        Math.min(1000L, 100L << Math.min(attempt - 1, 10));
+      final var retry =
+        retries.retry(
+          attempt,
+          ORetries.Condition.IO_FAILURE,
+          "error-io",
+          0,
+          true
+        ).orElseThrow();
+      assertTrue(
+        retry.delay().toMillis() <= bound,
+        "Delay %s must be at most %dms".formatted(retry.delay(), bound)
+      );
+    }
+
+    assertTrue(
+      retries.retry(1, ORetries.Condition.IO_FAILURE, "error-io", 0, false)
+        .isEmpty()
+    );
+    assertTrue(
+      retries.retry(1, ORetries.Condition.CONNECT_FAILURE, "error-io", 0, false)
+        .isPresent()
+    );
+    assertTrue(
+      retries.retry(100, ORetries.Condition.CONNECT_FAILURE, "error-io", 0, true)
+        .isEmpty()
+    );
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientTransportType;
+import com.io7m.ophis.api.OClientType;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Clients can share a transport. The server is a local HTTP/1.1 server that
+ * does not check signatures, and that records the client address of each
+ * request; each distinct address is a distinct connection.
+ */
+
+public final class OSharedTransportTest
+{
+  private static final int CLIENTS = 50;
+
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private HttpServer server;
+  private Set<InetSocketAddress> connections;
+  private OClients clients;
+
+  private void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    this.connections.add(exchange.getRemoteAddress());
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var bytes = LIST_RESPONSE.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  @BeforeAll
+  public static void setupOnce()
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  @BeforeEach
+  public void setup()
+    throws Exception
+  {
+    this.connections = ConcurrentHashMap.newKeySet();
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    this.server.createContext("/", this::handle);
+    this.server.start();
+    this.clients = new OClients();
+  }
+
+  @AfterEach
+  public void tearDown()
+  {
+    this.server.stop(0);
+  }
+
+  private OClientConfiguration configuration(
+    final int tenant)
+  {
+    return OClientConfiguration.builder()
+      .setEndpoint(URI.create(
+        "http://127.0.0.1:" + this.server.getAddress().getPort()))
+      .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+      .setRegion("region-%d".formatted(Integer.valueOf(tenant)))
+      .setCredentials(new OClientAccessKeys(
+        "access-%d".formatted(Integer.valueOf(tenant)),
+        "secret-%d".formatted(Integer.valueOf(tenant))
+      ))
+      .build();
+  }
+
+  private static void list(
+    final OClientType client)
+    throws OException
+  {
+    final var result =
+      client.execute(
+        OListObjectsType.class,
+        OListObjectsParameters.builder()
+          .setBucketName("bucket")
+          .build()
+      );
+    assertEquals(0, result.contents().size());
+  }
+
+  /**
+   * Clients with different credentials and regions share the connections
+   * of a shared transport, and closing a client does not close the
+   * transport.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testSharedConnections()
+    throws Exception
+  {
+    try (var transport = this.clients.createTransport(this.configuration(0))) {
+      final var created = new ArrayList<OClientType>(CLIENTS);
+      for (int index = 0; index < CLIENTS; ++index) {
+        final var client =
+          this.clients.createClient(this.configuration(index), transport);
+        created.add(client);
+        list(client);
+      }
+
+      for (final var client : created) {
+        assertSame(
+          ((OClient) created.get(0)).httpClient(),
+          ((OClient) client).httpClient()
+        );
+        client.close();
+      }
+
+      try (var client =
+             this.clients.createClient(this.configuration(0), transport)) {
+        list(client);
+      }
+    }
+
+    assertEquals(1, this.connections.size());
+  }
+
+  /**
+   * Transports from other factories are rejected.
+   */
+
+  @Test
+  public void testForeignTransport()
+  {
+    final OClientTransportType transport = () -> {
+
+    };
+
+    final var ex =
+      assertThrows(OException.class, () -> {
+        this.clients.createClient(this.configuration(0), transport);
+      });
+    assertEquals("error-transport-unsupported", ex.errorCode());
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.vanilla.internal.OSigningKeyV4HMACSHA256;
+import com.io7m.ophis.vanilla.internal.OSigningKeys;
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public final class OSigningKeysTest
+{
+  private static final OClientAccessKeys CREDENTIALS =
+    new OClientAccessKeys(
+      "AKIDEXAMPLE",
+      "wJalrXUtnFEMI/K7MDENG+bPxRfiCYEXAMPLEKEY"
+    );
+
+  private static String hex(
+    final OSigningKeyV4HMACSHA256 key)
+  {
+    return HexFormat.of().formatHex(key.signingKey().getEncoded());
+  }
+
+  /**
+   * The derived key matches the example in the AWS documentation, and is
+   * derived from the given date rather than the current date.
+   *
+   * @throws Exception On errors
+   * @see "https://docs.aws.amazon.com/IAM/latest/UserGuide/create-signed-request.html"
+   */
+
+  @Test
+  public void testDerivationExample()
+    throws Exception
+  {
+    final var key =
+      OSigningKeyV4HMACSHA256.create(
+        CREDENTIALS,
+        OffsetDateTime.of(2012, 2, 15, 12, 0, 0, 0, ZoneOffset.UTC),
+        "us-east-1",
+        "iam"
+      );
+
+    assertEquals(
+      "f4780e2d9f65fa895f9c67b32ce1baf0b0d8a43505a000a1a9e090d414db404d",
+      hex(key)
+    );
+  }
+
+  /**
+   * Keys are cached per date, and roll over at UTC midnight.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testCachedPerDate()
+    throws Exception
+  {
+    final var keys =
+      new OSigningKeys(CREDENTIALS);
+
+    final var morning =
+      OffsetDateTime.of(2012, 2, 15, 0, 0, 1, 0, ZoneOffset.UTC);
+    final var evening =
+      OffsetDateTime.of(2012, 2, 15, 23, 59, 59, 0, ZoneOffset.UTC);
+    final var nextDay =
+      OffsetDateTime.of(2012, 2, 16, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    final var k0 = keys.signingKey(morning, "us-east-1", "iam");
+    final var k1 = keys.signingKey(evening, "us-east-1", "iam");
+    final var k2 = keys.signingKey(nextDay, "us-east-1", "iam");
+    final var k3 = keys.signingKey(nextDay, "eu-west-1", "iam");
+
+    assertSame(k0, k1);
+    assertEquals(
+      "f4780e2d9f65fa895f9c67b32ce1baf0b0d8a43505a000a1a9e090d414db404d",
+      hex(k0)
+    );
+    assertNotEquals(hex(k1), hex(k2));
+    assertNotEquals(hex(k2), hex(k3));
+  }
+
+  /**
+   * The date of a key is the UTC date, regardless of the offset of the
+   * given time.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testDateIsUTC()
+    throws Exception
+  {
+    final var keys =
+      new OSigningKeys(CREDENTIALS);
+
+    final var local =
+      OffsetDateTime.of(2012, 2, 14, 20, 0, 0, 0, ZoneOffset.ofHours(-5));
+
+    assertEquals(
+      "f4780e2d9f65fa895f9c67b32ce1baf0b0d8a43505a000a1a9e090d414db404d",
+      hex(keys.signingKey(local, "us-east-1", "iam"))
+    );
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientLaneSelection;
+import com.io7m.ophis.api.commands.OListObjectsParameters;
+import com.io7m.ophis.api.commands.OListObjectsType;
+import com.io7m.ophis.vanilla.OClients;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OTransport;
+import com.io7m.ophis.vanilla.internal.OTransportLane;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Requests are spread across the lanes of a transport.
+ */
+
+public final class OTransportTest
+{
+  private static final String LIST_RESPONSE = """
+    <?xml version="1.0" encoding="UTF-8"?>
+    <ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+      <Name>bucket</Name>
+      <Prefix></Prefix>
+      <KeyCount>0</KeyCount>
+      <MaxKeys>1000</MaxKeys>
+      <IsTruncated>false</IsTruncated>
+    </ListBucketResult>
+    """;
+
+  private static OClientConfiguration.Builder configuration(
+    final URI endpoint)
+  {
+    return OClientConfiguration.builder()
+      .setEndpoint(endpoint)
+      .setBucketAccessStyle(OClientBucketAccessStyle.PATH_STYLE)
+      .setCredentials(new OClientAccessKeys("access", "secret"));
+  }
+
+  private static void handle(
+    final HttpExchange exchange)
+    throws IOException
+  {
+    try (var input = exchange.getRequestBody()) {
+      input.readAllBytes();
+    }
+
+    final var bytes = LIST_RESPONSE.getBytes(UTF_8);
+    exchange.getResponseHeaders().add("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(200, bytes.length);
+    try (var output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+
+  /**
+   * Round-robin selection uses each lane in turn.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testRoundRobin()
+    throws Exception
+  {
+    try (var transport = OTransport.create(
+      configuration(URI.create("http://127.0.0.1:1"))
+        .setHttpClientLanes(4)
+        .build())) {
+
+      final var lanes = transport.lanes();
+      assertEquals(4, lanes.size());
+      assertEquals(
+        4,
+        new HashSet<>(lanes.stream().map(OTransportLane::httpClient).toList())
+          .size()
+      );
+
+      final var counts = new HashMap<OTransportLane, Integer>();
+      for (int index = 0; index < 8; ++index) {
+        final var lane = transport.acquireLane();
+        counts.merge(lane, Integer.valueOf(1), Integer::sum);
+        lane.release();
+      }
+
+      for (final var lane : lanes) {
+        assertEquals(Integer.valueOf(2), counts.get(lane));
+        assertEquals(0, lane.outstanding());
+      }
+    }
+  }
+
+  /**
+   * Least-outstanding selection prefers the least busy lane.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLeastOutstanding()
+    throws Exception
+  {
+    try (var transport = OTransport.create(
+      configuration(URI.create("http://127.0.0.1:1"))
+        .setHttpClientLanes(3)
+        .setHttpClientLaneSelection(OClientLaneSelection.LEAST_OUTSTANDING)
+        .build())) {
+
+      final var held = new ArrayList<OTransportLane>();
+      for (int index = 0; index < 9; ++index) {
+        held.add(transport.acquireLane());
+      }
+      for (final var lane : transport.lanes()) {
+        assertEquals(3, lane.outstanding());
+      }
+
+      final var released = held.get(4);
+      released.release();
+      released.release();
+      assertSame(released, transport.acquireLane());
+      assertSame(released, transport.acquireLane());
+    }
+  }
+
+  /**
+   * Every lane is released once requests complete.
+   *
+   * @throws Exception On errors
+   */
+
+  @Test
+  public void testLanesReleased()
+    throws Exception
+  {
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+
+    final var server =
+      HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/", OTransportTest::handle);
+    server.start();
+
+    try (var client = new OClients().createClient(
+      configuration(URI.create(
+        "http://127.0.0.1:" + server.getAddress().getPort()))
+        .setHttpClientLanes(4)
+        .setHttpClientLaneSelection(OClientLaneSelection.LEAST_OUTSTANDING)
+        .build())) {
+
+      final var futures = new ArrayList<CompletableFuture<?>>();
+      for (int index = 0; index < 200; ++index) {
+        futures.add(
+          client.executeAsync(
+            OListObjectsType.class,
+            OListObjectsParameters.builder()
+              .setBucketName("bucket")
+              .build()
+          )
+        );
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .get();
+
+      client.execute(
+        OListObjectsType.class,
+        OListObjectsParameters.builder()
+          .setBucketName("bucket")
+          .build()
+      );
+
+      for (final var lane : ((OClient) client).transport().lanes()) {
+        assertEquals(0, lane.outstanding());
+      }
+    } finally {
+      server.stop(0);
+    }
+  }
+
+  /**
+   * The number of lanes must be positive.
+   */
+
+  @Test
+  public void testLanesInvalid()
+  {
+    assertThrows(IllegalArgumentException.class, () -> {
+      configuration(URI.create("http://127.0.0.1:1"))
+        .setHttpClientLanes(0)
+        .build();
+    });
+  }
+}
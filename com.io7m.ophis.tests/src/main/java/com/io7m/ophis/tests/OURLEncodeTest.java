@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.tests;
+
+import com.io7m.ophis.vanilla.internal.OURLEncode;
+import org.junit.jupiter.api.Test;
+
+import java.net.URLEncoder;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public final class OURLEncodeTest
+{
+  /**
+   * The encoder agrees with the JDK encoder, once the differences between
+   * form encoding and the AWS Signature Version 4 rules are accounted for.
+   */
+
+  @Test
+  public void testAgreesWithJDK()
+  {
+    final var texts = List.of(
+      "",
+      "simple",
+      "with space",
+      "a/b/c",
+      "~tilde~",
+      "*star*",
+      "percent%",
+      "plus+",
+      "caf\u00e9",
+      "\u20ac100",
+      "\ud83d\ude00",
+      "\ud83d",
+      "\ude00x"
+    );
+
+    for (final var text : texts) {
+      assertEquals(
+        URLEncoder.encode(text, UTF_8)
+          .replace("+", "%20")
+          .replace("*", "%2A")
+          .replace("%7E", "~"),
+        OURLEncode.urlEncode(text),
+        text
+      );
+    }
+  }
+
+  /**
+   * Spaces, stars, and tildes are encoded as AWS requires.
+   */
+
+  @Test
+  public void testSigV4()
+  {
+    assertEquals("a%20b", OURLEncode.urlEncode("a b"));
+    assertEquals("a%2Bb", OURLEncode.urlEncode("a+b"));
+    assertEquals("%2A", OURLEncode.urlEncode("*"));
+    assertEquals("~user", OURLEncode.urlEncode("~user"));
+    assertEquals("x%2Fy", OURLEncode.urlEncode("x/y"));
+    assertEquals("AZaz09-._~", OURLEncode.urlEncode("AZaz09-._~"));
+  }
+}
@@ -37,6 +37,8 @@ open module com.io7m.ophis.tests
   requires com.io7m.ervilla.test_extension;
   requires com.io7m.zelador.test_extension;
   requires java.net.http;
+  requires jdk.httpserver;
+  requires jdk.jfr;
 
   exports com.io7m.ophis.tests;
 }
@@ -19,13 +19,19 @@ package com.io7m.ophis.vanilla;
 
 import com.io7m.ophis.api.OClientConfiguration;
 import com.io7m.ophis.api.OClientFactoryType;
+import com.io7m.ophis.api.OClientTransportType;
 import com.io7m.ophis.api.OClientType;
 import com.io7m.ophis.api.OException;
 import com.io7m.ophis.vanilla.internal.OClient;
-import com.io7m.ophis.vanilla.internal.OSigningKeyV4HMACSHA256;
+import com.io7m.ophis.vanilla.internal.OSigningKeys;
+import com.io7m.ophis.vanilla.internal.OTransport;
 import com.io7m.ophis.vanilla.internal.commands.OClientCommandCollection;
 
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * The default client factory.
@@ -50,18 +56,67 @@ public final class OClients implements OClientFactoryType
     final OClientConfiguration configuration)
     throws OException
   {
-    final var signingKey =
-      OSigningKeyV4HMACSHA256.create(
-        configuration.credentials(),
-        OffsetDateTime.now(),
-        configuration.region(),
-        "s3"
+    final var signingKeys = createSigningKeys(configuration);
+    return new OClient(
+      configuration,
+      signingKeys,
+      this.commands,
+      OTransport.create(configuration),
+      true
+    );
+  }
+
+  @Override
+  public OClientTransportType createTransport(
+    final OClientConfiguration configuration)
+  {
+    return OTransport.create(configuration);
+  }
+
+  @Override
+  public OClientType createClient(
+    final OClientConfiguration configuration,
+    final OClientTransportType transport)
+    throws OException
+  {
+    Objects.requireNonNull(transport, "transport");
+
+    if (!(transport instanceof final OTransport ourTransport)) {
+      throw new OException(
+        "The given transport was not created by this client factory.",
+        "error-transport-unsupported",
+        Map.of("Transport", transport.getClass().getName()),
+        Optional.of("Use a transport created by the same client factory.")
       );
+    }
 
+    final var signingKeys = createSigningKeys(configuration);
     return new OClient(
       configuration,
-      signingKey,
-      this.commands
+      signingKeys,
+      this.commands,
+      ourTransport,
+      false
+    );
+  }
+
+  private static OSigningKeys createSigningKeys(
+    final OClientConfiguration configuration)
+    throws OException
+  {
+    final var signingKeys =
+      new OSigningKeys(configuration.credentials());
+
+    /*
+     * Derive the key for the current date eagerly so that unusable
+     * credentials are reported when the client is created.
+     */
+
+    signingKeys.signingKey(
+      OffsetDateTime.now(ZoneOffset.UTC),
+      configuration.region(),
+      "s3"
     );
+    return signingKeys;
   }
 }
@@ -0,0 +1,497 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OChecksumAlgorithm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.Checksum;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A stream that encodes the data of an underlying stream using the
+ * {@code aws-chunked} content encoding, signing each chunk as it is read.
+ * Each chunk signature covers the chunk data and the signature of the
+ * previous chunk, with the first chunk chained to the seed signature of the
+ * request itself. The data is read exactly once, and at most one chunk of
+ * the data is held in memory at any given time.
+ *
+ * If a checksum algorithm is given, a checksum of the data is calculated as
+ * the data is read and is sent in a signed trailer after the final chunk.
+ *
+ * An unsigned stream uses the same encoding without chunk signatures, and
+ * with an unsigned trailer.
+ *
+ * @see "https://docs.aws.amazon.com/AmazonS3/latest/API/sigv4-streaming.html"
+ * @see "https://docs.aws.amazon.com/AmazonS3/latest/API/sigv4-streaming-trailers.html"
+ */
+
+public final class OAWSChunkedStream
+  extends InputStream
+{
+  /**
+   * The payload hash used for requests with chunk signatures.
+   */
+
+  public static final String STREAMING_PAYLOAD =
+    "STREAMING-AWS4-HMAC-SHA256-PAYLOAD";
+
+  /**
+   * The payload hash used for requests with chunk signatures and a signed
+   * trailer.
+   */
+
+  public static final String STREAMING_PAYLOAD_TRAILER =
+    "STREAMING-AWS4-HMAC-SHA256-PAYLOAD-TRAILER";
+
+  /**
+   * The payload hash used for requests without chunk signatures, with an
+   * unsigned trailer.
+   */
+
+  public static final String STREAMING_UNSIGNED_PAYLOAD_TRAILER =
+    "STREAMING-UNSIGNED-PAYLOAD-TRAILER";
+
+  /**
+   * The size of each chunk other than the last.
+   */
+
+  public static final int CHUNK_SIZE =
+    64 * 1024;
+
+  private static final String SIGNATURE_PREFIX =
+    ";chunk-signature=";
+
+  /**
+   * The size of each chunk's framing other than the hex-encoded size: the
+   * signature prefix, the 64 hex digits of the signature, and the two line
+   * terminators.
+   */
+
+  private static final int FRAME_OVERHEAD =
+    SIGNATURE_PREFIX.length() + 64 + 4;
+
+  /**
+   * The size of each unsigned chunk's framing other than the hex-encoded
+   * size: the two line terminators.
+   */
+
+  private static final int FRAME_OVERHEAD_UNSIGNED =
+    4;
+
+  private static final String TRAILER_SIGNATURE_PREFIX =
+    "x-amz-trailer-signature:";
+
+  private final InputStream source;
+  private final OSigningKeyV4HMACSHA256 key;
+  private final String timestamp;
+  private final String scope;
+  private final byte[] data;
+  private final byte[] frame;
+  private final Optional<OChecksumAlgorithm> trailer;
+  private final Checksum checksum;
+  private final boolean signed;
+  private OSigningBuffers heldBuffers;
+  private String previousSignature;
+  private int framePosition;
+  private int frameLength;
+  private boolean finished;
+
+  /**
+   * Create a chunked stream.
+   *
+   * @param inSource        The underlying stream
+   * @param inKey           The signing key
+   * @param inTimestamp     The request timestamp (such as "20130524T000000Z")
+   * @param inScope         The credential scope
+   * @param inSeedSignature The signature of the request
+   */
+
+  public OAWSChunkedStream(
+    final InputStream inSource,
+    final OSigningKeyV4HMACSHA256 inKey,
+    final String inTimestamp,
+    final String inScope,
+    final String inSeedSignature)
+  {
+    this(
+      inSource,
+      inKey,
+      inTimestamp,
+      inScope,
+      inSeedSignature,
+      Optional.empty()
+    );
+  }
+
+  /**
+   * Create a chunked stream.
+   *
+   * @param inSource        The underlying stream
+   * @param inKey           The signing key
+   * @param inTimestamp     The request timestamp (such as "20130524T000000Z")
+   * @param inScope         The credential scope
+   * @param inSeedSignature The signature of the request
+   * @param inTrailer       The algorithm of the checksum sent in the trailer
+   */
+
+  public OAWSChunkedStream(
+    final InputStream inSource,
+    final OSigningKeyV4HMACSHA256 inKey,
+    final String inTimestamp,
+    final String inScope,
+    final String inSeedSignature,
+    final Optional<OChecksumAlgorithm> inTrailer)
+  {
+    this(
+      inSource,
+      Objects.requireNonNull(inKey, "key"),
+      Objects.requireNonNull(inTimestamp, "timestamp"),
+      Objects.requireNonNull(inScope, "scope"),
+      Objects.requireNonNull(inSeedSignature, "seedSignature"),
+      inTrailer,
+      true
+    );
+  }
+
+  private OAWSChunkedStream(
+    final InputStream inSource,
+    final OSigningKeyV4HMACSHA256 inKey,
+    final String inTimestamp,
+    final String inScope,
+    final String inSeedSignature,
+    final Optional<OChecksumAlgorithm> inTrailer,
+    final boolean inSigned)
+  {
+    this.source =
+      Objects.requireNonNull(inSource, "source");
+    this.key = inKey;
+    this.timestamp = inTimestamp;
+    this.scope = inScope;
+    this.previousSignature = inSeedSignature;
+    this.signed = inSigned;
+    this.trailer =
+      Objects.requireNonNull(inTrailer, "trailer");
+    this.checksum =
+      inTrailer.map(OChecksums::create).orElse(null);
+
+    this.data = new byte[CHUNK_SIZE];
+    this.frame = new byte[CHUNK_SIZE + FRAME_OVERHEAD + 8];
+
+    /*
+     * Every chunk of a signed stream is hashed and signed, so the stream
+     * holds one set of signing buffers until it is closed.
+     */
+
+    this.heldBuffers = inSigned ? OSigningBuffers.acquire() : null;
+  }
+
+  /**
+   * Create an unsigned chunked stream.
+   *
+   * @param source  The underlying stream
+   * @param trailer The algorithm of the checksum sent in the trailer
+   *
+   * @return A chunked stream
+   */
+
+  public static OAWSChunkedStream unsigned(
+    final InputStream source,
+    final Optional<OChecksumAlgorithm> trailer)
+  {
+    return new OAWSChunkedStream(
+      source,
+      null,
+      null,
+      null,
+      null,
+      trailer,
+      false
+    );
+  }
+
+  /**
+   * Calculate the length of the encoded form of data of the given size.
+   * The length of the encoding depends only on the size of the data.
+   *
+   * @param size The size of the data
+   *
+   * @return The length of the encoded data
+   */
+
+  public static long encodedLength(
+    final long size)
+  {
+    return encodedLength(size, Optional.empty());
+  }
+
+  /**
+   * Calculate the length of the encoded form of data of the given size,
+   * including the trailer for the given checksum algorithm. The length of
+   * the encoding depends only on the size of the data and the algorithm.
+   *
+   * @param size    The size of the data
+   * @param trailer The algorithm of the checksum sent in the trailer
+   *
+   * @return The length of the encoded data
+   */
+
+  public static long encodedLength(
+    final long size,
+    final Optional<OChecksumAlgorithm> trailer)
+  {
+    return encodedLength(size, trailer, true);
+  }
+
+  /**
+   * Calculate the length of the unsigned encoded form of data of the given
+   * size, including the trailer for the given checksum algorithm.
+   *
+   * @param size    The size of the data
+   * @param trailer The algorithm of the checksum sent in the trailer
+   *
+   * @return The length of the encoded data
+   */
+
+  public static long encodedLengthUnsigned(
+    final long size,
+    final Optional<OChecksumAlgorithm> trailer)
+  {
+    return encodedLength(size, trailer, false);
+  }
+
+  private static long encodedLength(
+    final long size,
+    final Optional<OChecksumAlgorithm> trailer,
+    final boolean signed)
+  {
+    final var full = size / CHUNK_SIZE;
+    final var remainder = (int) (size % CHUNK_SIZE);
+
+    var length = full * chunkLength(CHUNK_SIZE, signed);
+    if (remainder > 0) {
+      length += chunkLength(remainder, signed);
+    }
+    length += chunkLength(0, signed);
+
+    if (trailer.isPresent()) {
+      final var algorithm = trailer.get();
+      length += algorithm.headerName().length()
+                + 1
+                + OChecksums.encodedLength(algorithm)
+                + 2;
+      if (signed) {
+        length += TRAILER_SIGNATURE_PREFIX.length() + 64 + 2;
+      }
+    }
+    return length;
+  }
+
+  private static long chunkLength(
+    final int size,
+    final boolean signed)
+  {
+    final var overhead =
+      signed ? FRAME_OVERHEAD : FRAME_OVERHEAD_UNSIGNED;
+    return Integer.toHexString(size).length() + overhead + size;
+  }
+
+  @Override
+  public int read()
+    throws IOException
+  {
+    if (!this.fill()) {
+      return -1;
+    }
+    final var value = this.frame[this.framePosition] & 0xff;
+    this.framePosition += 1;
+    return value;
+  }
+
+  @Override
+  public int read(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+    throws IOException
+  {
+    Objects.checkFromIndexSize(offset, length, buffer.length);
+
+    if (length == 0) {
+      return 0;
+    }
+    if (!this.fill()) {
+      return -1;
+    }
+
+    final var count =
+      Math.min(length, this.frameLength - this.framePosition);
+    System.arraycopy(this.frame, this.framePosition, buffer, offset, count);
+    this.framePosition += count;
+    return count;
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    final var held = this.heldBuffers;
+    this.heldBuffers = null;
+    if (held != null) {
+      held.close();
+    }
+    this.source.close();
+  }
+
+  private OSigningBuffers signingBuffers()
+    throws IOException
+  {
+    final var held = this.heldBuffers;
+    if (held == null) {
+      throw new IOException("Stream is closed.");
+    }
+    return held;
+  }
+
+  private boolean fill()
+    throws IOException
+  {
+    if (this.framePosition < this.frameLength) {
+      return true;
+    }
+    if (this.finished) {
+      return false;
+    }
+
+    final var count = this.source.readNBytes(this.data, 0, CHUNK_SIZE);
+    if (count == 0) {
+      this.finished = true;
+    }
+    if (this.checksum != null) {
+      this.checksum.update(this.data, 0, count);
+    }
+
+    final byte[] header;
+    if (this.signed) {
+      final var signature = this.sign(count);
+      this.previousSignature = signature;
+      header =
+        (Integer.toHexString(count) + SIGNATURE_PREFIX + signature + "\r\n")
+          .getBytes(US_ASCII);
+    } else {
+      header = (Integer.toHexString(count) + "\r\n").getBytes(US_ASCII);
+    }
+
+    var position = 0;
+    System.arraycopy(header, 0, this.frame, position, header.length);
+    position += header.length;
+    System.arraycopy(this.data, 0, this.frame, position, count);
+    position += count;
+
+    if (this.finished && this.trailer.isPresent()) {
+      final var trailerBytes =
+        this.trailerText(this.trailer.get()).getBytes(US_ASCII);
+      System.arraycopy(
+        trailerBytes, 0, this.frame, position, trailerBytes.length);
+      position += trailerBytes.length;
+    }
+
+    this.frame[position] = '\r';
+    this.frame[position + 1] = '\n';
+    position += 2;
+
+    this.framePosition = 0;
+    this.frameLength = position;
+    return true;
+  }
+
+  /**
+   * Produce the trailer that follows the final chunk. The trailer signature,
+   * if any, is chained to the signature of the final chunk, and covers the hash of
+   * the trailing headers.
+   */
+
+  private String trailerText(
+    final OChecksumAlgorithm algorithm)
+    throws IOException
+  {
+    final var header =
+      algorithm.headerName()
+      + ":"
+      + OChecksums.encode(algorithm, this.checksum);
+
+    if (!this.signed) {
+      return header + "\r\n";
+    }
+
+    final var buffers = this.signingBuffers();
+    final var headerHash =
+      buffers.sha256Hex(header + "\n");
+
+    final var text = buffers.text();
+    text.append("AWS4-HMAC-SHA256-TRAILER");
+    text.append('\n');
+    text.append(this.timestamp);
+    text.append('\n');
+    text.append(this.scope);
+    text.append('\n');
+    text.append(this.previousSignature);
+    text.append('\n');
+    text.append(headerHash);
+
+    final String signature;
+    try {
+      signature = this.key.sign(buffers, text.toString());
+    } catch (final OException e) {
+      throw new IOException(e);
+    }
+    return header + "\r\n" + TRAILER_SIGNATURE_PREFIX + signature + "\r\n";
+  }
+
+  private String sign(
+    final int count)
+    throws IOException
+  {
+    final var buffers = this.signingBuffers();
+    final var chunkHash = buffers.sha256Hex(this.data, 0, count);
+
+    final var text = buffers.text();
+    text.append("AWS4-HMAC-SHA256-PAYLOAD");
+    text.append('\n');
+    text.append(this.timestamp);
+    text.append('\n');
+    text.append(this.scope);
+    text.append('\n');
+    text.append(this.previousSignature);
+    text.append('\n');
+    text.append(OCanonicalRequest.emptyPayloadHash());
+    text.append('\n');
+    text.append(chunkHash);
+
+    try {
+      return this.key.sign(buffers, text.toString());
+    } catch (final OException e) {
+      throw new IOException(e);
+    }
+  }
+}
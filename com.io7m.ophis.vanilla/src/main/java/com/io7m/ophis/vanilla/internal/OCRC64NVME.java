@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.zip.Checksum;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+
+/**
+ * <p>The CRC-64/NVME checksum algorithm.</p>
+ * <p>The JDK has no implementation of any 64-bit CRC, so this is a
+ * table-driven "slice-by-8" implementation that processes eight octets per
+ * step.</p>
+ *
+ * @see "https://reveng.sourceforge.io/crc-catalogue/17plus.htm#crc.cat.crc-64-nvme"
+ */
+
+public final class OCRC64NVME implements Checksum
+{
+  private static final long POLYNOMIAL_REFLECTED =
+    Long.reverse(0xad93d23594c93659L);
+
+  private static final long[][] TABLES =
+    createTables();
+
+  private static final VarHandle LONG_LE =
+    MethodHandles.byteArrayViewVarHandle(long[].class, LITTLE_ENDIAN);
+
+  private long crc;
+
+  /**
+   * Create a checksum.
+   */
+
+  public OCRC64NVME()
+  {
+    this.reset();
+  }
+
+  private static long[][] createTables()
+  {
+    final var tables = new long[8][256];
+    for (int index = 0; index < 256; ++index) {
+      var value = (long) index;
+      for (int bit = 0; bit < 8; ++bit) {
+        if ((value & 1L) != 0L) {
+          value = (value >>> 1) ^ POLYNOMIAL_REFLECTED;
+        } else {
+          value = value >>> 1;
+        }
+      }
+      tables[0][index] = value;
+    }
+
+    for (int index = 0; index < 256; ++index) {
+      var value = tables[0][index];
+      for (int table = 1; table < 8; ++table) {
+        value = tables[0][(int) (value & 0xffL)] ^ (value >>> 8);
+        tables[table][index] = value;
+      }
+    }
+    return tables;
+  }
+
+  @Override
+  public void update(
+    final int b)
+  {
+    final var index = (int) ((this.crc ^ b) & 0xffL);
+    this.crc = TABLES[0][index] ^ (this.crc >>> 8);
+  }
+
+  @Override
+  public void update(
+    final byte[] buffer,
+    final int offset,
+    final int length)
+  {
+    final var t = TABLES;
+    var value = this.crc;
+    var position = offset;
+    final var end = offset + length;
+
+    while (end - position >= 8) {
+      value ^= (long) LONG_LE.get(buffer, position);
+
+      var next = t[7][(int) (value & 0xffL)];
+      next ^= t[6][(int) ((value >>> 8) & 0xffL)];
+      next ^= t[5][(int) ((value >>> 16) & 0xffL)];
+      next ^= t[4][(int) ((value >>> 24) & 0xffL)];
+      next ^= t[3][(int) ((value >>> 32) & 0xffL)];
+      next ^= t[2][(int) ((value >>> 40) & 0xffL)];
+      next ^= t[1][(int) ((value >>> 48) & 0xffL)];
+      next ^= t[0][(int) (value >>> 56)];
+      value = next;
+      position += 8;
+    }
+
+    while (position < end) {
+      value = t[0][(int) ((value ^ buffer[position]) & 0xffL)] ^ (value >>> 8);
+      position += 1;
+    }
+
+    this.crc = value;
+  }
+
+  @Override
+  public long getValue()
+  {
+    return ~this.crc;
+  }
+
+  @Override
+  public void reset()
+  {
+    this.crc = 0xffffffffffffffffL;
+  }
+}
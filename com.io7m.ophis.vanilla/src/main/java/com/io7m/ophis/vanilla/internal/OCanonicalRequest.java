@@ -18,18 +18,14 @@
 package com.io7m.ophis.vanilla.internal;
 
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.HexFormat;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 /**
  * The immutable canonical form of a request, used for signatures.
@@ -50,6 +46,28 @@ public record OCanonicalRequest(
   Map<String, String> headers,
   String hashedPayload)
 {
+  /**
+   * The SHA-256 of the empty string.
+   */
+
+  private static final String EMPTY_PAYLOAD_HASH =
+    "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+
+  /**
+   * The payload hash of requests whose payloads are not signed.
+   */
+
+  private static final String UNSIGNED_PAYLOAD =
+    "UNSIGNED-PAYLOAD";
+
+  /**
+   * Header names are compared as if they were lowercase, because that is
+   * the form in which they appear in the canonical request.
+   */
+
+  private static final Comparator<String> HEADER_ORDER =
+    OCanonicalRequest::compareHeaderNames;
+
   /**
    * The immutable canonical form of a request, used for signatures.
    *
@@ -66,23 +84,63 @@ public record OCanonicalRequest(
   {
     Objects.requireNonNull(httpVerb, "httpVerb");
     Objects.requireNonNull(resource, "resource");
-    queryParameters = List.copyOf(queryParameters);
-    headers = Map.copyOf(headers);
     Objects.requireNonNull(hashedPayload, "hashedPayload");
+
+    /*
+     * The query parameters and headers are sorted once here, rather than
+     * each time the request is rendered.
+     */
+
+    final var sortedQuery = new ArrayList<>(queryParameters);
+    sortedQuery.sort(Map.Entry.comparingByKey());
+    queryParameters = List.copyOf(sortedQuery);
+
+    final var sortedHeaders = new TreeMap<String, String>(HEADER_ORDER);
+    sortedHeaders.putAll(headers);
+    headers = Collections.unmodifiableSortedMap(sortedHeaders);
+  }
+
+  private static int compareHeaderNames(
+    final String x,
+    final String y)
+  {
+    final var length = Math.min(x.length(), y.length());
+    for (int index = 0; index < length; ++index) {
+      final var cx = Character.toLowerCase(x.charAt(index));
+      final var cy = Character.toLowerCase(y.charAt(index));
+      if (cx != cy) {
+        return Character.compare(cx, cy);
+      }
+    }
+    return Integer.compare(x.length(), y.length());
+  }
+
+  private static void appendLowerCase(
+    final StringBuilder text,
+    final String name)
+  {
+    final var length = name.length();
+    for (int index = 0; index < length; ++index) {
+      text.append(Character.toLowerCase(name.charAt(index)));
+    }
   }
 
-  private static String encodeHeaderEntry(
-    final Map.Entry<String, String> e)
+  /**
+   * @return The payload hash used for requests whose payloads are not signed
+   */
+
+  public static String unsignedPayload()
   {
-    return e.getKey().toLowerCase(Locale.ROOT) + ":" + e.getValue().trim() + "\n";
+    return UNSIGNED_PAYLOAD;
   }
 
-  private static String encodeQueryEntry(
-    final Map.Entry<String, String> e)
+  /**
+   * @return The hex-formatted SHA-256 hash of the empty string
+   */
+
+  public static String emptyPayloadHash()
   {
-    return OURLEncode.urlEncode(e.getKey())
-           + "="
-           + OURLEncode.urlEncode(e.getValue());
+    return EMPTY_PAYLOAD_HASH;
   }
 
   /**
@@ -98,44 +156,82 @@ public record OCanonicalRequest(
   public String toString()
   {
     final var text = new StringBuilder(256);
+    this.appendTo(text);
+    return text.toString();
+  }
+
+  /**
+   * Append the canonical form of this request to the given text.
+   *
+   * @param text The output text
+   */
+
+  public void appendTo(
+    final StringBuilder text)
+  {
     text.append(this.httpVerb);
     text.append('\n');
 
     text.append('/');
-    text.append(this.resource);
+    this.resource.appendTo(text);
     text.append('\n');
 
-    text.append(
-      this.queryParameters
-        .stream()
-        .sorted(Map.Entry.comparingByKey())
-        .map(OCanonicalRequest::encodeQueryEntry)
-        .collect(Collectors.joining("&"))
-    );
+    this.appendQuery(text);
     text.append('\n');
 
-    text.append(
-      this.headers.entrySet()
-        .stream()
-        .sorted(Map.Entry.comparingByKey())
-        .map(OCanonicalRequest::encodeHeaderEntry)
-        .collect(Collectors.joining(""))
-    );
+    for (final var entry : this.headers.entrySet()) {
+      appendLowerCase(text, entry.getKey());
+      text.append(':');
+      text.append(entry.getValue().trim());
+      text.append('\n');
+    }
     text.append('\n');
 
-    text.append(
-      this.headers.keySet()
-        .stream()
-        .sorted()
-        .map(s -> s.toLowerCase(Locale.ROOT))
-        .collect(Collectors.joining(";"))
-    );
+    this.appendSignedHeaders(text);
     text.append('\n');
 
     text.append(this.hashedPayload);
+  }
+
+  /**
+   * @return The semicolon-separated list of lowercase signed header names
+   */
+
+  public String signedHeaders()
+  {
+    final var text = new StringBuilder(128);
+    this.appendSignedHeaders(text);
     return text.toString();
   }
 
+  private void appendSignedHeaders(
+    final StringBuilder text)
+  {
+    var first = true;
+    for (final var name : this.headers.keySet()) {
+      if (!first) {
+        text.append(';');
+      }
+      appendLowerCase(text, name);
+      first = false;
+    }
+  }
+
+  private void appendQuery(
+    final StringBuilder text)
+  {
+    final var count = this.queryParameters.size();
+    for (int index = 0; index < count; ++index) {
+      if (index > 0) {
+        text.append('&');
+      }
+      final var entry = this.queryParameters.get(index);
+      OURLEncode.urlEncodeTo(text, entry.getKey());
+      text.append('=');
+      OURLEncode.urlEncodeTo(text, entry.getValue());
+    }
+  }
+
   /**
    * Construct a query URI based on this canonical request and the given
    * endpoint.
@@ -148,45 +244,34 @@ public record OCanonicalRequest(
   public URI queryURI(
     final URI endpoint)
   {
+    final var endpointText = endpoint.toString();
     final var text = new StringBuilder(256);
-    text.append(endpoint);
+    text.append(endpointText);
 
-    if (!endpoint.toString().endsWith("/")) {
+    if (!endpointText.endsWith("/")) {
       text.append('/');
     }
 
-    text.append(this.resource);
+    this.resource.appendTo(text);
     text.append('?');
-    text.append(
-      this.queryParameters
-        .stream()
-        .sorted(Map.Entry.comparingByKey())
-        .map(OCanonicalRequest::encodeQueryEntry)
-        .collect(Collectors.joining("&"))
-    );
+    this.appendQuery(text);
     return URI.create(text.toString());
   }
 
   /**
-   * Calculate the hex-formatted SHA-256 hash of the canonical request.
+   * Calculate the hex-formatted SHA-256 hash of the canonical request. The
+   * request is rendered into, and hashed with, a set of pooled signing
+   * buffers.
    *
    * @return The hash
    */
 
   public String hash()
   {
-    try {
-      final var digest =
-        MessageDigest.getInstance("SHA-256");
-
-      final var textBytes =
-        this.toString()
-          .getBytes(StandardCharsets.UTF_8);
-
-      return HexFormat.of()
-        .formatHex(digest.digest(textBytes));
-    } catch (final NoSuchAlgorithmException e) {
-      throw new IllegalStateException(e);
+    try (var buffers = OSigningBuffers.acquire()) {
+      final var text = buffers.text();
+      this.appendTo(text);
+      return buffers.sha256Hex(text);
     }
   }
 
@@ -199,12 +284,7 @@ public record OCanonicalRequest(
     private String method = "GET";
     private OResourceRelative resource = OResourceRelative.empty();
 
-    /**
-     * The SHA-256 of the empty string.
-     */
-
-    private String hashedPayload =
-      "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private String hashedPayload = EMPTY_PAYLOAD_HASH;
 
     private ArrayList<Map.Entry<String, String>> queryParameters;
     private SortedMap<String, String> headers;
@@ -250,7 +330,8 @@ public record OCanonicalRequest(
     }
 
     /**
-     * Set the hash of the payload.
+     * Set the hash of the payload. This may also be one of the special
+     * values such as {@code UNSIGNED-PAYLOAD}.
      *
      * @param inPayload The hash
      *
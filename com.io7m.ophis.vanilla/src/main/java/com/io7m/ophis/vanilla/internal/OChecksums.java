@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.commands.OChecksum;
+import com.io7m.ophis.api.commands.OChecksumAlgorithm;
+
+import java.net.http.HttpHeaders;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.Checksum;
+
+/**
+ * Functions to calculate and encode checksums of object data.
+ */
+
+public final class OChecksums
+{
+  private OChecksums()
+  {
+
+  }
+
+  /**
+   * Create a checksum for the given algorithm. The {@code CRC32} and
+   * {@code CRC32C} implementations are those of the JDK, and are intrinsified
+   * on most platforms.
+   *
+   * @param algorithm The algorithm
+   *
+   * @return A new checksum
+   */
+
+  public static Checksum create(
+    final OChecksumAlgorithm algorithm)
+  {
+    return switch (algorithm) {
+      case CRC32 -> new CRC32();
+      case CRC32C -> new CRC32C();
+      case CRC64NVME -> new OCRC64NVME();
+    };
+  }
+
+  /**
+   * Encode the current value of the given checksum as S3 expects: the
+   * big-endian octets of the value, encoded with base64.
+   *
+   * @param algorithm The algorithm
+   * @param checksum  The checksum
+   *
+   * @return The encoded value
+   */
+
+  public static String encode(
+    final OChecksumAlgorithm algorithm,
+    final Checksum checksum)
+  {
+    final var size = algorithm.size();
+    final var value = checksum.getValue();
+    final var octets = new byte[size];
+    for (int index = 0; index < size; ++index) {
+      final var shift = (size - 1 - index) * 8;
+      octets[index] = (byte) (value >>> shift);
+    }
+    return Base64.getEncoder().encodeToString(octets);
+  }
+
+  /**
+   * @param algorithm The algorithm
+   *
+   * @return The length of the encoded values of the given algorithm
+   */
+
+  public static int encodedLength(
+    final OChecksumAlgorithm algorithm)
+  {
+    return ((algorithm.size() + 2) / 3) * 4;
+  }
+
+  /**
+   * Find a checksum of the entire object in the given response headers.
+   * Composite checksums of multipart objects (such as
+   * {@code "AAAAAA==-3"}) are ignored.
+   *
+   * @param headers The headers
+   *
+   * @return The checksum, if any
+   */
+
+  public static Optional<OChecksum> fromHeaders(
+    final HttpHeaders headers)
+  {
+    final var composite =
+      headers.firstValue("x-amz-checksum-type")
+        .map(type -> "COMPOSITE".equalsIgnoreCase(type))
+        .orElse(Boolean.FALSE)
+        .booleanValue();
+
+    if (composite) {
+      return Optional.empty();
+    }
+
+    for (final var algorithm : OChecksumAlgorithm.values()) {
+      final var value =
+        headers.firstValue(algorithm.headerName());
+      if (value.isPresent() && value.get().indexOf('-') == -1) {
+        return Optional.of(new OChecksum(algorithm, value.get()));
+      }
+    }
+    return Optional.empty();
+  }
+}
@@ -29,6 +29,7 @@ import com.io7m.ophis.vanilla.internal.commands.OClientCommandCollection;
 import java.net.http.HttpClient;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The default client.
@@ -37,36 +38,49 @@ import java.util.Objects;
 public final class OClient implements OClientType
 {
   private final OClientConfiguration configuration;
-  private final OSigningKeyV4HMACSHA256 signingKey;
+  private final OSigningKeys signingKeys;
   private final OClientCommandCollection commands;
-  private final HttpClient httpClient;
-  private final JXEHardenedSAXParsers saxParsers;
+  private final OTransport transport;
+  private final ORetries retries;
+  private final ORateLimiters rateLimiters;
+  private final OHedging hedging;
+  private final OMetadataCache metadataCache;
   private final CloseableCollectionType<OException> resources;
 
   /**
    * The default client.
    *
    * @param inConfiguration  The configuration
-   * @param inSigningKey     The signing key
+   * @param inSigningKeys    The signing key provider
    * @param inCommands       The available commands
+   * @param inTransport      The transport
+   * @param ownsTransport    {@code true} if the transport should be closed
+   *                         when the client is closed
    */
 
   public OClient(
     final OClientConfiguration inConfiguration,
-    final OSigningKeyV4HMACSHA256 inSigningKey,
-    final OClientCommandCollection inCommands)
+    final OSigningKeys inSigningKeys,
+    final OClientCommandCollection inCommands,
+    final OTransport inTransport,
+    final boolean ownsTransport)
   {
     this.configuration =
       Objects.requireNonNull(inConfiguration, "configuration");
-    this.signingKey =
-      Objects.requireNonNull(inSigningKey, "signingKey");
+    this.signingKeys =
+      Objects.requireNonNull(inSigningKeys, "signingKeys");
     this.commands =
       Objects.requireNonNull(inCommands, "commands");
-    this.httpClient =
-      this.configuration.httpClientProvider()
-        .get();
-    this.saxParsers =
-      new JXEHardenedSAXParsers();
+    this.transport =
+      Objects.requireNonNull(inTransport, "transport");
+    this.retries =
+      new ORetries(this.configuration.retryPolicy());
+    this.rateLimiters =
+      new ORateLimiters(this.configuration.rateLimit(), System::nanoTime);
+    this.hedging =
+      new OHedging(this.configuration.hedging());
+    this.metadataCache =
+      new OMetadataCache(this.configuration.metadataCache(), System::nanoTime);
 
     this.resources =
       CloseableCollection.create(() -> {
@@ -77,16 +91,63 @@ public final class OClient implements OClientType
         );
       });
 
-    this.resources.add(this.httpClient);
+    if (ownsTransport) {
+      this.resources.add(this.transport);
+    }
   }
 
   /**
-   * @return The key used to sign requests
+   * @return The provider of the keys used to sign requests
    */
 
-  public OSigningKeyV4HMACSHA256 signingKey()
+  public OSigningKeys signingKeys()
   {
-    return this.signingKey;
+    return this.signingKeys;
+  }
+
+  /**
+   * @return The retry state of the client
+   */
+
+  public ORetries retries()
+  {
+    return this.retries;
+  }
+
+  /**
+   * @return The rate limiters of the client
+   */
+
+  public ORateLimiters rateLimiters()
+  {
+    return this.rateLimiters;
+  }
+
+  /**
+   * @return The hedging state of the client
+   */
+
+  public OHedging hedging()
+  {
+    return this.hedging;
+  }
+
+  /**
+   * @return The metadata cache of the client
+   */
+
+  public OMetadataCache metadataCache()
+  {
+    return this.metadataCache;
+  }
+
+  /**
+   * @return The transport
+   */
+
+  public OTransport transport()
+  {
+    return this.transport;
   }
 
   /**
@@ -95,7 +156,7 @@ public final class OClient implements OClientType
 
   public JXEHardenedSAXParsers saxParsers()
   {
-    return this.saxParsers;
+    return this.transport.saxParsers();
   }
 
   @Override
@@ -117,12 +178,22 @@ public final class OClient implements OClientType
   }
 
   /**
-   * @return The underlying HTTP client
+   * @return The executor on which the responses of asynchronous requests
+   *         are processed
+   */
+
+  public ExecutorService responseExecutor()
+  {
+    return this.transport.responseExecutor();
+  }
+
+  /**
+   * @return The HTTP client of the first lane of the transport
    */
 
   public HttpClient httpClient()
   {
-    return this.httpClient;
+    return this.transport.httpClient();
   }
 
   @Override
@@ -0,0 +1,86 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Functions to calculate digests of in-memory request bodies.
+ */
+
+public final class ODigests
+{
+  private ODigests()
+  {
+
+  }
+
+  /**
+   * Calculate the hex-formatted SHA-256 hash of the given data.
+   *
+   * @param data The data
+   *
+   * @return The hash
+   */
+
+  public static String sha256Hex(
+    final byte[] data)
+  {
+    try (var buffers = OSigningBuffers.acquire()) {
+      return buffers.sha256Hex(data);
+    }
+  }
+
+  /**
+   * Re-encode a hex-formatted digest with base64, as required by headers
+   * such as {@code x-amz-checksum-sha256}.
+   *
+   * @param hex The hex-formatted digest
+   *
+   * @return The base64-encoded digest
+   */
+
+  public static String hexToBase64(
+    final String hex)
+  {
+    return Base64.getEncoder()
+      .encodeToString(OSigningBuffers.hex().parseHex(hex));
+  }
+
+  /**
+   * Calculate the base64-encoded MD5 hash of the given data, as required by
+   * the {@code Content-MD5} header.
+   *
+   * @param data The data
+   *
+   * @return The hash
+   */
+
+  public static String md5Base64(
+    final byte[] data)
+  {
+    try {
+      return Base64.getEncoder()
+        .encodeToString(MessageDigest.getInstance("MD5").digest(data));
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OClientHedgingPolicy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The hedging state of a client: the hedging policy, and the recent response
+ * times of each kind of command.
+ */
+
+public final class OHedging
+{
+  private final Optional<OClientHedgingPolicy> policy;
+  private final ConcurrentHashMap<Class<?>, Samples> samples;
+
+  /**
+   * The hedging state of a client.
+   *
+   * @param inPolicy The hedging policy, if requests are hedged
+   */
+
+  public OHedging(
+    final Optional<OClientHedgingPolicy> inPolicy)
+  {
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.samples =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return The hedging policy, if requests are hedged
+   */
+
+  public Optional<OClientHedgingPolicy> policy()
+  {
+    return this.policy;
+  }
+
+  /**
+   * Record the response time of a command.
+   *
+   * @param command The kind of command
+   * @param nanos   The response time in nanoseconds
+   */
+
+  public void record(
+    final Class<?> command,
+    final long nanos)
+  {
+    this.policy.ifPresent(p -> {
+      this.samples.computeIfAbsent(command, c -> new Samples(p))
+        .record(nanos);
+    });
+  }
+
+  /**
+   * Determine the delay after which a command should be hedged.
+   *
+   * @param command The kind of command
+   *
+   * @return The delay
+   */
+
+  public Duration delayFor(
+    final Class<?> command)
+  {
+    final var p = this.policy.orElseThrow();
+    final var commandSamples = this.samples.get(command);
+    if (commandSamples == null) {
+      return p.initialDelay();
+    }
+    return commandSamples.delay();
+  }
+
+  private static final class Samples
+  {
+    private final OClientHedgingPolicy policy;
+    private final long[] ring;
+    private final int recomputeInterval;
+    private int count;
+    private int index;
+    private int recorded;
+    private Duration delay;
+
+    Samples(
+      final OClientHedgingPolicy inPolicy)
+    {
+      this.policy = inPolicy;
+      this.ring = new long[inPolicy.sampleWindow()];
+      this.recomputeInterval = Math.max(1, this.ring.length / 16);
+      this.delay = inPolicy.initialDelay();
+    }
+
+    synchronized void record(
+      final long nanos)
+    {
+      this.ring[this.index] = nanos;
+      this.index = (this.index + 1) % this.ring.length;
+      this.count = Math.min(this.count + 1, this.ring.length);
+
+      /*
+       * Sorting the window on every response would be wasteful; the
+       * percentile is recomputed after every few responses instead.
+       */
+
+      this.recorded = this.recorded + 1;
+      if (this.count >= this.policy.minimumSamples()
+          && this.recorded >= this.recomputeInterval) {
+        this.recorded = 0;
+        this.delay = this.percentile();
+      }
+    }
+
+    private Duration percentile()
+    {
+      final var sorted = Arrays.copyOf(this.ring, this.count);
+      Arrays.sort(sorted);
+
+      final var rank =
+        (int) Math.ceil((this.policy.percentile() / 100.0) * this.count);
+      final var value =
+        Duration.ofNanos(sorted[Math.clamp(rank - 1L, 0, this.count - 1)]);
+
+      if (value.compareTo(this.policy.minimumDelay()) < 0) {
+        return this.policy.minimumDelay();
+      }
+      if (value.compareTo(this.policy.maximumDelay()) > 0) {
+        return this.policy.maximumDelay();
+      }
+      return value;
+    }
+
+    synchronized Duration delay()
+    {
+      return this.delay;
+    }
+  }
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OClientMetadataCachePolicy;
+import com.io7m.ophis.api.commands.OHeadObjectResponse;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>The metadata cache of a client; a bounded, least-recently-used map of
+ * HeadObject responses.</p>
+ * <p>Every entry records the time at which its object was last
+ * invalidated, and a response is only stored if its request was sent no
+ * earlier than that time, so that a HeadObject request that was sent before
+ * a write completed cannot store the metadata of the object as it was
+ * before the write. When an entry is evicted, its invalidation time is
+ * applied to every object that has no entry.</p>
+ */
+
+public final class OMetadataCache
+{
+  private final Optional<OClientMetadataCachePolicy> policy;
+  private final LongSupplier clock;
+  private final long timeToLive;
+  private final LinkedHashMap<Key, Slot> entries;
+  private long evictedInvalidation;
+
+  /**
+   * The metadata cache of a client.
+   *
+   * @param inPolicy The cache policy, if metadata is cached
+   * @param inClock  A clock returning the current time in nanoseconds
+   */
+
+  public OMetadataCache(
+    final Optional<OClientMetadataCachePolicy> inPolicy,
+    final LongSupplier inClock)
+  {
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.timeToLive =
+      inPolicy.map(p -> Long.valueOf(p.timeToLive().toNanos()))
+        .orElse(Long.valueOf(0L))
+        .longValue();
+
+    final var maximum =
+      inPolicy.map(p -> Integer.valueOf(p.maximumEntries()))
+        .orElse(Integer.valueOf(1))
+        .intValue();
+
+    this.evictedInvalidation =
+      inClock.getAsLong();
+
+    this.entries = new LinkedHashMap<>(16, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(
+        final Map.Entry<Key, Slot> eldest)
+      {
+        if (this.size() > maximum) {
+          OMetadataCache.this.evicted(eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  private record Key(
+    String bucket,
+    String key)
+  {
+    private Key
+    {
+      Objects.requireNonNull(bucket, "bucket");
+      Objects.requireNonNull(key, "key");
+    }
+  }
+
+  /**
+   * A cached response, or the marker left by an invalidation.
+   *
+   * @param response      The response, if the slot is not a marker
+   * @param storedAt      The time the response was stored
+   * @param invalidatedAt The time the object was last invalidated
+   */
+
+  private record Slot(
+    Optional<OHeadObjectResponse> response,
+    long storedAt,
+    long invalidatedAt)
+  {
+    private Slot
+    {
+      Objects.requireNonNull(response, "response");
+    }
+  }
+
+  /**
+   * The result of looking up a cached response.
+   *
+   * @param response The response
+   * @param fresh    {@code true} if the response is younger than the
+   *                 time-to-live, and can be used without revalidation
+   */
+
+  public record Lookup(
+    OHeadObjectResponse response,
+    boolean fresh)
+  {
+    /**
+     * The result of looking up a cached response.
+     */
+
+    public Lookup
+    {
+      Objects.requireNonNull(response, "response");
+    }
+  }
+
+  /**
+   * @return {@code true} if metadata is cached
+   */
+
+  public boolean isEnabled()
+  {
+    return this.policy.isPresent();
+  }
+
+  /**
+   * @return The current time in nanoseconds
+   */
+
+  public long now()
+  {
+    return this.clock.getAsLong();
+  }
+
+  /**
+   * @return The number of entries, including invalidation markers
+   */
+
+  public int size()
+  {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  /**
+   * Look up the cached response for an object.
+   *
+   * @param bucket The bucket
+   * @param key    The object key
+   *
+   * @return The cached response, if any
+   */
+
+  public Optional<Lookup> get(
+    final String bucket,
+    final String key)
+  {
+    if (this.policy.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final Slot slot;
+    synchronized (this.entries) {
+      slot = this.entries.get(new Key(bucket, key));
+    }
+
+    if (slot == null || slot.response.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var age = this.now() - slot.storedAt;
+    return Optional.of(new Lookup(slot.response.get(), age < this.timeToLive));
+  }
+
+  /**
+   * Store the response for an object. The response is not stored if the
+   * object was invalidated after the request was sent, even if a response
+   * to a later request has since been stored.
+   *
+   * @param bucket      The bucket
+   * @param key         The object key
+   * @param response    The response
+   * @param requestedAt The time the request was sent
+   */
+
+  public void put(
+    final String bucket,
+    final String key,
+    final OHeadObjectResponse response,
+    final long requestedAt)
+  {
+    Objects.requireNonNull(response, "response");
+
+    if (this.policy.isEmpty()) {
+      return;
+    }
+
+    final var k = new Key(bucket, key);
+    final var now = this.now();
+    synchronized (this.entries) {
+      final var existing = this.entries.get(k);
+      final var invalidatedAt =
+        existing != null ? existing.invalidatedAt : this.evictedInvalidation;
+
+      if (requestedAt - invalidatedAt < 0L) {
+        return;
+      }
+      this.entries.put(k, new Slot(Optional.of(response), now, invalidatedAt));
+    }
+  }
+
+  /**
+   * Invalidate the cached response for an object.
+   *
+   * @param bucket The bucket
+   * @param key    The object key
+   */
+
+  public void invalidate(
+    final String bucket,
+    final String key)
+  {
+    if (this.policy.isEmpty()) {
+      return;
+    }
+
+    final var k = new Key(bucket, key);
+    final var now = this.now();
+    final var slot = new Slot(Optional.empty(), now, now);
+    synchronized (this.entries) {
+      this.entries.put(k, slot);
+    }
+  }
+
+  /**
+   * An entry was evicted; objects without entries are treated as having
+   * been invalidated at the latest time of any evicted entry. Called with
+   * the lock on the entries held.
+   */
+
+  private void evicted(
+    final Slot slot)
+  {
+    if (slot.invalidatedAt - this.evictedInvalidation > 0L) {
+      this.evictedInvalidation = slot.invalidatedAt;
+    }
+  }
+}
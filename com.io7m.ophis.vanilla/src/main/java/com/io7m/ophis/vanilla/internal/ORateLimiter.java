@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OClientRateLimitPolicy;
+
+import java.util.Objects;
+
+/**
+ * An adaptive (AIMD) limit on the rate of requests for a single bucket or
+ * key prefix. Requests are paced by reserving evenly spaced times at which
+ * they may be sent.
+ */
+
+public final class ORateLimiter
+{
+  private final OClientRateLimitPolicy policy;
+  private double rate;
+  private long next;
+  private long lastDecrease;
+  private boolean decreased;
+
+  ORateLimiter(
+    final OClientRateLimitPolicy inPolicy,
+    final long now)
+  {
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.rate =
+      inPolicy.initialRate();
+    this.next =
+      now;
+  }
+
+  /**
+   * @return The current rate in requests per second
+   */
+
+  public synchronized double rate()
+  {
+    return this.rate;
+  }
+
+  /**
+   * Reserve a time at which a request may be sent.
+   *
+   * @param now The current time in nanoseconds
+   *
+   * @return The number of nanoseconds to wait before sending the request
+   */
+
+  synchronized long reserve(
+    final long now)
+  {
+    final var start =
+      this.next - now > 0L ? this.next : now;
+    this.next =
+      start + (long) (1_000_000_000.0 / this.rate);
+    return start - now;
+  }
+
+  /**
+   * Determine whether the limiter can be discarded: no request has been
+   * reserved for the given interval, and the rate has recovered to at least
+   * the initial rate. A new limiter would behave no more aggressively.
+   *
+   * @param now      The current time in nanoseconds
+   * @param interval The idle interval in nanoseconds
+   *
+   * @return {@code true} if the limiter can be discarded
+   */
+
+  synchronized boolean isExpired(
+    final long now,
+    final long interval)
+  {
+    return now - this.next >= interval
+           && this.rate >= this.policy.initialRate();
+  }
+
+  /**
+   * Increase the rate after a request succeeded.
+   */
+
+  synchronized void succeeded()
+  {
+    this.rate = Math.min(
+      this.policy.maximumRate(),
+      this.rate + (this.policy.rateIncrease() / this.rate)
+    );
+  }
+
+  /**
+   * Decrease the rate after a request was throttled, unless the request was
+   * sent before the rate was last decreased.
+   *
+   * @param sentAt The time at which the request was sent
+   * @param now    The current time in nanoseconds
+   */
+
+  synchronized void throttled(
+    final long sentAt,
+    final long now)
+  {
+    if (this.decreased && sentAt - this.lastDecrease < 0L) {
+      return;
+    }
+
+    this.rate = Math.max(
+      this.policy.minimumRate(),
+      this.rate * this.policy.rateDecrease()
+    );
+    this.lastDecrease = now;
+    this.decreased = true;
+  }
+}
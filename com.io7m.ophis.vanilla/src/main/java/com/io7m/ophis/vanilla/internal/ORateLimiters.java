@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OClientRateLimitPolicy;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * The rate limiters of a client, one for each bucket or key prefix. A
+ * limiter that has been idle for a minute and whose rate has recovered is
+ * discarded, so that a client that touches many prefixes over its lifetime
+ * does not accumulate limiters. Limiters that are still slowed by
+ * throttling are kept.
+ */
+
+public final class ORateLimiters
+{
+  private static final long IDLE_EXPIRY =
+    Duration.ofMinutes(1L).toNanos();
+
+  private final Optional<OClientRateLimitPolicy> policy;
+  private final LongSupplier clock;
+  private final ConcurrentHashMap<String, ORateLimiter> limiters;
+  private final AtomicLong nextSweep;
+
+  /**
+   * The rate limiters of a client.
+   *
+   * @param inPolicy The rate limit policy, if requests are limited
+   * @param inClock  A clock returning the current time in nanoseconds
+   */
+
+  public ORateLimiters(
+    final Optional<OClientRateLimitPolicy> inPolicy,
+    final LongSupplier inClock)
+  {
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.clock =
+      Objects.requireNonNull(inClock, "clock");
+    this.limiters =
+      new ConcurrentHashMap<>();
+    this.nextSweep =
+      new AtomicLong(inClock.getAsLong() + IDLE_EXPIRY);
+  }
+
+  /**
+   * Permission to send a request.
+   *
+   * @param limiters The rate limiters
+   * @param limiter  The limiter that issued the permit, if requests are
+   *                 limited
+   * @param sentAt   The time at which the request may be sent
+   * @param delay    The number of nanoseconds to wait before sending
+   */
+
+  public record Permit(
+    ORateLimiters limiters,
+    Optional<ORateLimiter> limiter,
+    long sentAt,
+    long delay)
+  {
+    /**
+     * Permission to send a request.
+     */
+
+    public Permit
+    {
+      Objects.requireNonNull(limiters, "limiters");
+      Objects.requireNonNull(limiter, "limiter");
+    }
+
+    /**
+     * Indicate that the request succeeded.
+     */
+
+    public void succeeded()
+    {
+      this.limiter.ifPresent(ORateLimiter::succeeded);
+    }
+
+    /**
+     * Indicate that the server responded to the request with an error.
+     *
+     * @param errorCode The error code
+     * @param status    The HTTP status code
+     */
+
+    public void failed(
+      final String errorCode,
+      final int status)
+    {
+      if (this.limiter.isEmpty()) {
+        return;
+      }
+
+      final var p = this.limiters.policy.orElseThrow();
+      final var throttled =
+        p.throttlingErrorCodes().contains(errorCode)
+        || p.throttlingStatusCodes().contains(Integer.valueOf(status));
+
+      if (throttled) {
+        this.limiter.get()
+          .throttled(this.sentAt, this.limiters.clock.getAsLong());
+      }
+    }
+  }
+
+  /**
+   * Determine the key of the limiter for the given bucket and object key.
+   *
+   * @param bucket The bucket, if any
+   * @param key    The object key, if any
+   *
+   * @return The limiter key
+   */
+
+  public String keyFor(
+    final Optional<String> bucket,
+    final Optional<OResourceRelative> key)
+  {
+    final var text = new StringBuilder(64);
+    text.append(bucket.orElse(""));
+
+    final var segments =
+      this.policy.map(OClientRateLimitPolicy::prefixSegments).orElse(0);
+
+    if (segments > 0 && key.isPresent()) {
+      final var keySegments = key.get().segments();
+      final var count = Math.min(segments, keySegments.size() - 1);
+      for (int index = 0; index < count; ++index) {
+        text.append('/');
+        text.append(keySegments.get(index));
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Reserve permission to send a request.
+   *
+   * @param key The limiter key
+   *
+   * @return The permit
+   *
+   * @see #keyFor(Optional, Optional)
+   */
+
+  public Permit acquire(
+    final String key)
+  {
+    if (this.policy.isEmpty()) {
+      return new Permit(this, Optional.empty(), 0L, 0L);
+    }
+
+    final var now = this.clock.getAsLong();
+    this.sweep(now);
+
+    final var limiter =
+      this.limiters.computeIfAbsent(
+        key,
+        k -> new ORateLimiter(this.policy.get(), now)
+      );
+
+    final var delay = limiter.reserve(now);
+    return new Permit(this, Optional.of(limiter), now + delay, delay);
+  }
+
+  /**
+   * Discard expired limiters, at most once per idle interval. A limiter is
+   * removed only if it is still mapped, so a limiter that a concurrent
+   * caller has just created is never lost.
+   */
+
+  private void sweep(
+    final long now)
+  {
+    final var sweepAt = this.nextSweep.get();
+    if (now - sweepAt < 0L) {
+      return;
+    }
+    if (!this.nextSweep.compareAndSet(sweepAt, now + IDLE_EXPIRY)) {
+      return;
+    }
+
+    for (final var entry : this.limiters.entrySet()) {
+      final var limiter = entry.getValue();
+      if (limiter.isExpired(now, IDLE_EXPIRY)) {
+        this.limiters.remove(entry.getKey(), limiter);
+      }
+    }
+  }
+
+  /**
+   * @param key The limiter key
+   *
+   * @return The limiter for the given key, if one exists
+   */
+
+  public Optional<ORateLimiter> limiter(
+    final String key)
+  {
+    return Optional.ofNullable(this.limiters.get(key));
+  }
+}
@@ -18,7 +18,6 @@
 package com.io7m.ophis.vanilla.internal;
 
 import java.util.List;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public record OResourceRelative(
@@ -43,9 +42,27 @@ public record OResourceRelative(
   @Override
   public String toString()
   {
-    return this.segments.stream()
-      .map(OURLEncode::urlEncode)
-      .collect(Collectors.joining("/"));
+    final var text = new StringBuilder(64);
+    this.appendTo(text);
+    return text.toString();
+  }
+
+  /**
+   * Append the encoded form of this resource to the given text.
+   *
+   * @param text The output text
+   */
+
+  public void appendTo(
+    final StringBuilder text)
+  {
+    final var count = this.segments.size();
+    for (int index = 0; index < count; ++index) {
+      if (index > 0) {
+        text.append('/');
+      }
+      OURLEncode.urlEncodeTo(text, this.segments.get(index));
+    }
   }
 
   public static OResourceRelative empty()
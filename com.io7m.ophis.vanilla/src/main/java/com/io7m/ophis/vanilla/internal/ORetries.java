@@ -0,0 +1,277 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OClientRetryPolicy;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The retry state of a client: the retry policy, and the retry budget
+ * shared by all requests made by the client.
+ */
+
+public final class ORetries
+{
+  private final OClientRetryPolicy policy;
+  private final AtomicInteger budget;
+
+  /**
+   * The retry state of a client.
+   *
+   * @param inPolicy The retry policy
+   */
+
+  public ORetries(
+    final OClientRetryPolicy inPolicy)
+  {
+    this.policy =
+      Objects.requireNonNull(inPolicy, "policy");
+    this.budget =
+      new AtomicInteger(inPolicy.budgetCapacity());
+  }
+
+  /**
+   * The ways in which an attempt can fail such that it might be retried.
+   */
+
+  public enum Condition
+  {
+    /**
+     * The connection could not be established, and so the request cannot
+     * have been received by the server.
+     */
+
+    CONNECT_FAILURE,
+
+    /**
+     * The exchange failed with an I/O error after the connection was
+     * established.
+     */
+
+    IO_FAILURE,
+
+    /**
+     * The exchange timed out after the connection was established.
+     */
+
+    TIMEOUT,
+
+    /**
+     * The exchange failed after part of the body of a successful response
+     * had been delivered to a sink; the request is never retried.
+     */
+
+    SINK_FAILURE,
+
+    /**
+     * The server responded with an error.
+     */
+
+    ERROR_RESPONSE
+  }
+
+  /**
+   * A decision to retry a request.
+   *
+   * @param delay The delay before the retry
+   * @param cost  The number of tokens taken from the retry budget
+   */
+
+  public record Retry(
+    Duration delay,
+    int cost)
+  {
+    /**
+     * A decision to retry a request.
+     */
+
+    public Retry
+    {
+      Objects.requireNonNull(delay, "delay");
+    }
+  }
+
+  /**
+   * Classify the given I/O error.
+   *
+   * @param e The error
+   *
+   * @return The failure condition
+   */
+
+  public static Condition classify(
+    final IOException e)
+  {
+    if (e instanceof ConnectException
+        || e instanceof HttpConnectTimeoutException) {
+      return Condition.CONNECT_FAILURE;
+    }
+    if (e instanceof HttpTimeoutException) {
+      return Condition.TIMEOUT;
+    }
+    return Condition.IO_FAILURE;
+  }
+
+  /**
+   * @return The retry policy
+   */
+
+  public OClientRetryPolicy policy()
+  {
+    return this.policy;
+  }
+
+  /**
+   * @return The number of tokens remaining in the retry budget
+   */
+
+  public int budget()
+  {
+    return this.budget.get();
+  }
+
+  /**
+   * Decide whether a failed attempt should be retried. If the attempt is
+   * retried, the cost of the retry is taken from the retry budget.
+   *
+   * @param attempt    The number of the failed attempt, starting at 1
+   * @param condition  The way in which the attempt failed
+   * @param errorCode  The error code of the failure
+   * @param status     The HTTP status code of the response, or 0 if there
+   *                   was no response
+   * @param idempotent {@code true} if the command is idempotent
+   *
+   * @return The retry, if the attempt should be retried
+   */
+
+  public Optional<Retry> retry(
+    final int attempt,
+    final Condition condition,
+    final String errorCode,
+    final int status,
+    final boolean idempotent)
+  {
+    Objects.requireNonNull(condition, "condition");
+    Objects.requireNonNull(errorCode, "errorCode");
+
+    if (attempt >= this.policy.maximumAttempts()) {
+      return Optional.empty();
+    }
+    if (!this.isRetryable(condition, errorCode, status, idempotent)) {
+      return Optional.empty();
+    }
+
+    final var cost =
+      condition == Condition.TIMEOUT
+        ? this.policy.budgetTimeoutCost()
+        : this.policy.budgetRetryCost();
+
+    if (!this.take(cost)) {
+      return Optional.empty();
+    }
+    return Optional.of(new Retry(this.delay(attempt), cost));
+  }
+
+  /**
+   * Indicate that a request succeeded. The cost of the final retry of the
+   * request, or a single token if the request was not retried, is returned
+   * to the retry budget.
+   *
+   * @param lastCost The cost of the final retry, or 0 if the request was not
+   *                 retried
+   */
+
+  public void succeeded(
+    final int lastCost)
+  {
+    final var refund = Math.max(1, lastCost);
+    final var capacity = this.policy.budgetCapacity();
+    this.budget.updateAndGet(x -> Math.min(capacity, x + refund));
+  }
+
+  private boolean isRetryable(
+    final Condition condition,
+    final String errorCode,
+    final int status,
+    final boolean idempotent)
+  {
+    final var statusCode = Integer.valueOf(status);
+    return switch (condition) {
+      case CONNECT_FAILURE -> true;
+      case IO_FAILURE, TIMEOUT -> idempotent;
+      case SINK_FAILURE -> false;
+      case ERROR_RESPONSE -> {
+
+        /*
+         * A throttling response indicates that the server refused to do
+         * the work, and so even a non-idempotent request can be retried.
+         */
+
+        final var statuses = this.policy.retryableStatusCodes();
+        final var throttled =
+          (status == 429 || status == 503) && statuses.contains(statusCode);
+        if (throttled) {
+          yield true;
+        }
+        yield idempotent && (
+          this.policy.retryableErrorCodes().contains(errorCode)
+          || statuses.contains(statusCode)
+        );
+      }
+    };
+  }
+
+  private boolean take(
+    final int cost)
+  {
+    while (true) {
+      final var current = this.budget.get();
+      if (current < cost) {
+        return false;
+      }
+      if (this.budget.compareAndSet(current, current - cost)) {
+        return true;
+      }
+    }
+  }
+
+  private Duration delay(
+    final int attempt)
+  {
+    final var maximum = this.policy.maximumDelay().toNanos();
+    var bound = this.policy.baseDelay().toNanos();
+    for (int index = 1; index < attempt && bound < maximum; ++index) {
+      bound = bound > maximum / 2L ? maximum : bound * 2L;
+    }
+    bound = Math.min(bound, maximum);
+
+    if (bound <= 0L) {
+      return Duration.ZERO;
+    }
+    return Duration.ofNanos(ThreadLocalRandom.current().nextLong(bound + 1L));
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HexFormat;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * <p>State used to hash and sign requests. Obtaining {@link MessageDigest}
+ * and {@link Mac} instances from the security providers is relatively
+ * expensive, and signing a request otherwise produces a number of
+ * short-lived strings and arrays. A set of buffers holds a digest, a MAC, a
+ * text buffer, and an encoding buffer, and is reused for many requests.</p>
+ * <p>Buffers are borrowed from a small, bounded pool and returned by
+ * closing them. Requests are mostly signed on virtual threads that each
+ * live for a single task, and so buffers are not tied to threads. A caller
+ * that signs repeatedly, such as a chunked stream, may hold one set of
+ * buffers for its lifetime. Buffers that are never returned are simply
+ * garbage collected.</p>
+ */
+
+public final class OSigningBuffers implements AutoCloseable
+{
+  private static final HexFormat HEX =
+    HexFormat.of();
+
+  private static final int POOL_CAPACITY =
+    Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+  private static final ArrayDeque<OSigningBuffers> POOL =
+    new ArrayDeque<>(POOL_CAPACITY);
+
+  private final MessageDigest sha256;
+  private final Mac hmac;
+  private final StringBuilder text;
+  private final CharsetEncoder encoder;
+  private SecretKeySpec hmacKey;
+  private ByteBuffer bytes;
+
+  private OSigningBuffers()
+  {
+    try {
+      this.sha256 = MessageDigest.getInstance("SHA-256");
+      this.hmac = Mac.getInstance("HmacSHA256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+
+    this.text =
+      new StringBuilder(512);
+    this.bytes =
+      ByteBuffer.allocate(512);
+    this.encoder =
+      UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  }
+
+  /**
+   * Borrow a set of buffers from the pool, creating a new set if the pool
+   * is empty. The buffers must be used by one thread at a time, and
+   * returned with {@link #close()}.
+   *
+   * @return A set of buffers
+   */
+
+  public static OSigningBuffers acquire()
+  {
+    final OSigningBuffers buffers;
+    synchronized (POOL) {
+      buffers = POOL.pollFirst();
+    }
+    return buffers != null ? buffers : new OSigningBuffers();
+  }
+
+  /**
+   * @return The maximum number of idle buffers retained by the pool
+   */
+
+  public static int poolCapacity()
+  {
+    return POOL_CAPACITY;
+  }
+
+  /**
+   * Return the buffers to the pool. The buffers must not be used after
+   * they have been returned. The most recently returned buffers are the
+   * first to be borrowed again.
+   */
+
+  @Override
+  public void close()
+  {
+    synchronized (POOL) {
+      if (POOL.size() < POOL_CAPACITY) {
+        POOL.addFirst(this);
+      }
+    }
+  }
+
+  /**
+   * @return The shared lowercase hex formatter
+   */
+
+  public static HexFormat hex()
+  {
+    return HEX;
+  }
+
+  /**
+   * Obtain the text buffer, emptied. The buffer must not be retained, and
+   * must not be in use by any caller further up the stack.
+   *
+   * @return The text buffer
+   */
+
+  public StringBuilder text()
+  {
+    this.text.setLength(0);
+    return this.text;
+  }
+
+  /**
+   * Calculate the hex-formatted SHA-256 hash of the UTF-8 encoding of the
+   * given text.
+   *
+   * @param data The text
+   *
+   * @return The hash
+   */
+
+  public String sha256Hex(
+    final CharSequence data)
+  {
+    this.sha256.update(this.encode(data));
+    return HEX.formatHex(this.sha256.digest());
+  }
+
+  /**
+   * Calculate the hex-formatted SHA-256 hash of the given data.
+   *
+   * @param data The data
+   *
+   * @return The hash
+   */
+
+  public String sha256Hex(
+    final byte[] data)
+  {
+    return HEX.formatHex(this.sha256.digest(data));
+  }
+
+  /**
+   * Calculate the hex-formatted SHA-256 hash of a region of the given data.
+   *
+   * @param data   The data
+   * @param offset The offset of the region
+   * @param length The length of the region
+   *
+   * @return The hash
+   */
+
+  public String sha256Hex(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    this.sha256.update(data, offset, length);
+    return HEX.formatHex(this.sha256.digest());
+  }
+
+  /**
+   * Calculate the hex-formatted HMAC-SHA256 of the UTF-8 encoding of the
+   * given text. The MAC is only reinitialized if the key differs from the
+   * key most recently used with these buffers.
+   *
+   * @param key  The key
+   * @param data The text
+   *
+   * @return The MAC
+   *
+   * @throws InvalidKeyException If the key is unsuitable
+   */
+
+  public String hmacSHA256Hex(
+    final SecretKeySpec key,
+    final CharSequence data)
+    throws InvalidKeyException
+  {
+    if (this.hmacKey != key) {
+      this.hmacKey = null;
+      this.hmac.init(key);
+      this.hmacKey = key;
+    }
+    this.hmac.update(this.encode(data));
+    return HEX.formatHex(this.hmac.doFinal());
+  }
+
+  private ByteBuffer encode(
+    final CharSequence data)
+  {
+    final var input = CharBuffer.wrap(data);
+    this.bytes.clear();
+    this.encoder.reset();
+
+    var result = this.encoder.encode(input, this.bytes, true);
+    while (result.isOverflow()) {
+      this.grow();
+      result = this.encoder.encode(input, this.bytes, true);
+    }
+
+    result = this.encoder.flush(this.bytes);
+    while (result.isOverflow()) {
+      this.grow();
+      result = this.encoder.flush(this.bytes);
+    }
+
+    this.bytes.flip();
+    return this.bytes;
+  }
+
+  private void grow()
+  {
+    final var larger = ByteBuffer.allocate(this.bytes.capacity() * 2);
+    this.bytes.flip();
+    larger.put(this.bytes);
+    this.bytes = larger;
+  }
+}
@@ -26,7 +26,6 @@ import javax.crypto.spec.SecretKeySpec;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.time.OffsetDateTime;
-import java.util.HexFormat;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -106,7 +105,7 @@ public record OSigningKeyV4HMACSHA256(
       final var dateKey =
         composeHMAC(
           aws4SecretKey.getBytes(UTF_8),
-          OTimeFormatters.signerFormatString().getBytes(UTF_8)
+          OTimeFormatters.signerFormatString(date).getBytes(UTF_8)
         );
 
       final var dateRegionKey =
@@ -159,33 +158,39 @@ public record OSigningKeyV4HMACSHA256(
     final String text)
     throws OException
   {
-    Objects.requireNonNull(text, "text");
-
-    final var attributes = Map.ofEntries(
-      Map.entry("Algorithm", "HmacSHA256")
-    );
+    try (var buffers = OSigningBuffers.acquire()) {
+      return this.sign(buffers, text);
+    }
+  }
 
-    try {
-      final var inputBytes =
-        text.getBytes(UTF_8);
-      final var algorithm =
-        Mac.getInstance("HmacSHA256");
+  /**
+   * Sign the given text using the given buffers.
+   *
+   * @param buffers The signing buffers
+   * @param text    The text
+   *
+   * @return A signature
+   *
+   * @throws OException On errors
+   */
 
-      algorithm.init(this.signingKey);
-      algorithm.update(inputBytes);
+  public String sign(
+    final OSigningBuffers buffers,
+    final String text)
+    throws OException
+  {
+    Objects.requireNonNull(buffers, "buffers");
+    Objects.requireNonNull(text, "text");
 
-      return HexFormat.of().formatHex(algorithm.doFinal());
-    } catch (final NoSuchAlgorithmException e) {
-      throw new OException(
-        e,
-        "error-no-such-algorithm",
-        attributes,
-        Optional.empty());
+    try {
+      return buffers.hmacSHA256Hex(this.signingKey, text);
     } catch (final InvalidKeyException e) {
       throw new OException(
         e,
         "error-invalid-key",
-        attributes,
+        Map.ofEntries(
+          Map.entry("Algorithm", "HmacSHA256")
+        ),
         Optional.empty());
     }
   }
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.ophis.api.OClientCredentialsType;
+import com.io7m.ophis.api.OException;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A provider of signing keys. Signing keys are scoped to a UTC date, a
+ * region, and a service; deriving a key takes four HMAC operations, so
+ * derived keys are cached per scope. A key for a new date is derived the
+ * first time a request is signed on that date, and so long-lived clients
+ * never sign with a stale key. Keys for dates more than a day in the past
+ * are discarded.
+ */
+
+public final class OSigningKeys
+{
+  private final OClientCredentialsType credentials;
+  private final ConcurrentHashMap<Scope, OSigningKeyV4HMACSHA256> keys;
+
+  /**
+   * A provider of signing keys.
+   *
+   * @param inCredentials The credentials from which keys are derived
+   */
+
+  public OSigningKeys(
+    final OClientCredentialsType inCredentials)
+  {
+    this.credentials =
+      Objects.requireNonNull(inCredentials, "credentials");
+    this.keys =
+      new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Retrieve the signing key for the given time, region, and service.
+   *
+   * @param time    The time at which the request is being signed
+   * @param region  The region
+   * @param service The service name
+   *
+   * @return A signing key
+   *
+   * @throws OException On errors
+   */
+
+  public OSigningKeyV4HMACSHA256 signingKey(
+    final OffsetDateTime time,
+    final String region,
+    final String service)
+    throws OException
+  {
+    Objects.requireNonNull(time, "time");
+    Objects.requireNonNull(region, "region");
+    Objects.requireNonNull(service, "service");
+
+    final var date =
+      time.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+    final var scope =
+      new Scope(date, region, service);
+
+    final var existing = this.keys.get(scope);
+    if (existing != null) {
+      return existing;
+    }
+
+    final var created =
+      OSigningKeyV4HMACSHA256.create(this.credentials, time, region, service);
+
+    final var expired = date.minusDays(1L);
+    this.keys.keySet().removeIf(k -> k.date().isBefore(expired));
+
+    final var raced = this.keys.putIfAbsent(scope, created);
+    if (raced != null) {
+      return raced;
+    }
+    return created;
+  }
+
+  private record Scope(
+    LocalDate date,
+    String region,
+    String service)
+  {
+
+  }
+}
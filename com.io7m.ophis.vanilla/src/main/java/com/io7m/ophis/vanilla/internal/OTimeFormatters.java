@@ -58,7 +58,19 @@ public final class OTimeFormatters
 
   public static String amzDateFormatString()
   {
-    return AMZ_DATE_FORMAT.format(OffsetDateTime.now(UTC));
+    return amzDateFormatString(OffsetDateTime.now(UTC));
+  }
+
+  /**
+   * @param time The time
+   *
+   * @return The given time as an AMZ date format string
+   */
+
+  public static String amzDateFormatString(
+    final OffsetDateTime time)
+  {
+    return AMZ_DATE_FORMAT.format(time);
   }
 
   /**
@@ -67,7 +79,19 @@ public final class OTimeFormatters
 
   public static String signerFormatString()
   {
-    return SIGNER_DATE_FORMAT.format(OffsetDateTime.now(UTC));
+    return signerFormatString(OffsetDateTime.now(UTC));
+  }
+
+  /**
+   * @param time The time
+   *
+   * @return The given time as a signer date format string
+   */
+
+  public static String signerFormatString(
+    final OffsetDateTime time)
+  {
+    return SIGNER_DATE_FORMAT.format(time);
   }
 
   /**
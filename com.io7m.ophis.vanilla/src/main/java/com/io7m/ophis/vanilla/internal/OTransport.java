@@ -0,0 +1,223 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import com.io7m.jmulticlose.core.CloseableCollection;
+import com.io7m.jmulticlose.core.CloseableCollectionType;
+import com.io7m.jxe.core.JXEHardenedSAXParsers;
+import com.io7m.ophis.api.OClientConfiguration;
+import com.io7m.ophis.api.OClientLaneSelection;
+import com.io7m.ophis.api.OClientTransportType;
+import com.io7m.ophis.api.OException;
+
+import java.net.http.HttpClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The resources used to execute requests, possibly shared between clients.
+ */
+
+public final class OTransport implements OClientTransportType
+{
+  private final List<OTransportLane> lanes;
+  private final OClientLaneSelection laneSelection;
+  private final AtomicInteger laneNext;
+  private final JXEHardenedSAXParsers saxParsers;
+  private final ExecutorService responseExecutor;
+  private final CloseableCollectionType<OException> resources;
+
+  private OTransport(
+    final List<OTransportLane> inLanes,
+    final OClientLaneSelection inLaneSelection,
+    final ExecutorService inResponseExecutor,
+    final CloseableCollectionType<OException> inResources)
+  {
+    this.lanes =
+      List.copyOf(inLanes);
+    this.laneSelection =
+      Objects.requireNonNull(inLaneSelection, "laneSelection");
+    this.laneNext =
+      new AtomicInteger(0);
+    this.responseExecutor =
+      Objects.requireNonNull(inResponseExecutor, "responseExecutor");
+    this.resources =
+      Objects.requireNonNull(inResources, "resources");
+    this.saxParsers =
+      new JXEHardenedSAXParsers();
+  }
+
+  /**
+   * Create a transport from the given configuration.
+   *
+   * @param configuration The configuration
+   *
+   * @return A new transport
+   */
+
+  public static OTransport create(
+    final OClientConfiguration configuration)
+  {
+    Objects.requireNonNull(configuration, "configuration");
+
+    final var resources =
+      CloseableCollection.create(() -> {
+        return new OException(
+          "One or more resources could not be closed.",
+          "error-resource",
+          Map.of()
+        );
+      });
+
+    final var laneCount =
+      configuration.httpClientLanes();
+    final var lanes =
+      new ArrayList<OTransportLane>(laneCount);
+
+    for (int index = 0; index < laneCount; ++index) {
+      lanes.add(new OTransportLane(
+        resources.add(configuration.httpClientProvider().get())
+      ));
+    }
+
+    final var responseExecutor =
+      resources.add(createResponseExecutor(configuration));
+
+    return new OTransport(
+      lanes,
+      configuration.httpClientLaneSelection(),
+      responseExecutor,
+      resources
+    );
+  }
+
+  private static ExecutorService createResponseExecutor(
+    final OClientConfiguration configuration)
+  {
+    final var threads = configuration.responseThreads();
+    if (threads.isPresent()) {
+      return Executors.newFixedThreadPool(
+        threads.getAsInt(),
+        Thread.ofPlatform()
+          .name("com.io7m.ophis.response-", 0L)
+          .daemon(true)
+          .factory()
+      );
+    }
+
+    return Executors.newThreadPerTaskExecutor(
+      Thread.ofVirtual()
+        .name("com.io7m.ophis.response-", 0L)
+        .factory()
+    );
+  }
+
+  /**
+   * @return The HTTP client of the first lane
+   */
+
+  public HttpClient httpClient()
+  {
+    return this.lanes.get(0).httpClient();
+  }
+
+  /**
+   * @return The lanes of the transport
+   */
+
+  public List<OTransportLane> lanes()
+  {
+    return this.lanes;
+  }
+
+  /**
+   * Select a lane on which to execute a request. The lane must be released
+   * with {@link OTransportLane#release()} once the request has completed.
+   *
+   * @return The lane
+   */
+
+  public OTransportLane acquireLane()
+  {
+    final var lane = this.selectLane();
+    lane.acquire();
+    return lane;
+  }
+
+  private OTransportLane selectLane()
+  {
+    final var count = this.lanes.size();
+    if (count == 1) {
+      return this.lanes.get(0);
+    }
+
+    final var start =
+      Math.floorMod(this.laneNext.getAndIncrement(), count);
+
+    return switch (this.laneSelection) {
+      case ROUND_ROBIN -> this.lanes.get(start);
+      case LEAST_OUTSTANDING -> {
+
+        /*
+         * Scan from the round-robin position so that ties are broken
+         * evenly across lanes.
+         */
+
+        var best = this.lanes.get(start);
+        for (int offset = 1; offset < count; ++offset) {
+          final var lane = this.lanes.get((start + offset) % count);
+          if (lane.outstanding() < best.outstanding()) {
+            best = lane;
+          }
+        }
+        yield best;
+      }
+    };
+  }
+
+  /**
+   * @return The SAX parsers
+   */
+
+  public JXEHardenedSAXParsers saxParsers()
+  {
+    return this.saxParsers;
+  }
+
+  /**
+   * @return The executor on which the responses of asynchronous requests
+   *         are processed
+   */
+
+  public ExecutorService responseExecutor()
+  {
+    return this.responseExecutor;
+  }
+
+  @Override
+  public void close()
+    throws OException
+  {
+    this.resources.close();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal;
+
+import java.net.http.HttpClient;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One of the HTTP clients of a transport, along with the number of requests
+ * currently in progress on it.
+ */
+
+public final class OTransportLane
+{
+  private final HttpClient httpClient;
+  private final AtomicInteger outstanding;
+
+  OTransportLane(
+    final HttpClient inHttpClient)
+  {
+    this.httpClient =
+      Objects.requireNonNull(inHttpClient, "httpClient");
+    this.outstanding =
+      new AtomicInteger(0);
+  }
+
+  /**
+   * @return The HTTP client
+   */
+
+  public HttpClient httpClient()
+  {
+    return this.httpClient;
+  }
+
+  /**
+   * @return The number of requests currently in progress
+   */
+
+  public int outstanding()
+  {
+    return this.outstanding.get();
+  }
+
+  void acquire()
+  {
+    this.outstanding.incrementAndGet();
+  }
+
+  /**
+   * Indicate that a request acquired with {@link OTransport#acquireLane()}
+   * has completed.
+   */
+
+  public void release()
+  {
+    this.outstanding.decrementAndGet();
+  }
+}
@@ -17,22 +17,31 @@
 
 package com.io7m.ophis.vanilla.internal;
 
-import java.io.UnsupportedEncodingException;
-import java.net.URLEncoder;
-
 /**
- * URL encoder.
+ * URL encoder. Text is encoded according to the rules for AWS Signature
+ * Version 4 (and RFC 3986): the unreserved characters
+ * {@code A-Z a-z 0-9 - . _ ~} are left as they are, and every other
+ * character is percent-encoded as UTF-8 with uppercase hexadecimal digits.
+ * In particular, spaces are encoded as {@code %20} rather than {@code +},
+ * because S3 treats {@code +} in a path as a literal plus sign.
  */
 
 public final class OURLEncode
 {
+  private static final char[] HEX_DIGITS =
+    "0123456789ABCDEF".toCharArray();
+
+  private static final boolean[] UNRESERVED =
+    unreservedTable();
+
   private OURLEncode()
   {
 
   }
 
   /**
-   * Encode text in a URL-safe manner.
+   * Encode text in a URL-safe manner. The text is returned unchanged if it
+   * consists entirely of unreserved characters.
    *
    * @param text The text
    *
@@ -42,10 +51,112 @@ public final class OURLEncode
   public static String urlEncode(
     final String text)
   {
-    try {
-      return URLEncoder.encode(text, "UTF-8");
-    } catch (final UnsupportedEncodingException e) {
-      throw new IllegalStateException(e);
+    if (isUnreservedText(text)) {
+      return text;
+    }
+
+    final var output = new StringBuilder(text.length() + 16);
+    urlEncodeTo(output, text);
+    return output.toString();
+  }
+
+  /**
+   * Encode text in a URL-safe manner, appending the encoded text to the
+   * given output. This produces the same text as {@link #urlEncode(String)}
+   * without creating any intermediate strings.
+   *
+   * @param output The output
+   * @param text   The text
+   */
+
+  public static void urlEncodeTo(
+    final StringBuilder output,
+    final String text)
+  {
+    final var length = text.length();
+    var index = 0;
+    while (index < length) {
+      final var c = text.charAt(index);
+      ++index;
+
+      if (isUnreserved(c)) {
+        output.append(c);
+      } else if (c < 0x80) {
+        appendByte(output, c);
+      } else if (c < 0x800) {
+        appendByte(output, 0xc0 | (c >> 6));
+        appendByte(output, 0x80 | (c & 0x3f));
+      } else if (isSurrogatePair(text, c, index)) {
+        final var codePoint =
+          Character.toCodePoint(c, text.charAt(index));
+        appendByte(output, 0xf0 | (codePoint >> 18));
+        appendByte(output, 0x80 | ((codePoint >> 12) & 0x3f));
+        appendByte(output, 0x80 | ((codePoint >> 6) & 0x3f));
+        appendByte(output, 0x80 | (codePoint & 0x3f));
+        ++index;
+      } else if (Character.isSurrogate(c)) {
+        appendByte(output, '?');
+      } else {
+        appendByte(output, 0xe0 | (c >> 12));
+        appendByte(output, 0x80 | ((c >> 6) & 0x3f));
+        appendByte(output, 0x80 | (c & 0x3f));
+      }
+    }
+  }
+
+  private static boolean isSurrogatePair(
+    final String text,
+    final char c,
+    final int next)
+  {
+    return Character.isHighSurrogate(c)
+           && next < text.length()
+           && Character.isLowSurrogate(text.charAt(next));
+  }
+
+  private static boolean isUnreservedText(
+    final String text)
+  {
+    final var length = text.length();
+    for (int index = 0; index < length; ++index) {
+      if (!isUnreserved(text.charAt(index))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean[] unreservedTable()
+  {
+    final var table = new boolean[128];
+    for (char c = 'a'; c <= 'z'; ++c) {
+      table[c] = true;
     }
+    for (char c = 'A'; c <= 'Z'; ++c) {
+      table[c] = true;
+    }
+    for (char c = '0'; c <= '9'; ++c) {
+      table[c] = true;
+    }
+    table['.'] = true;
+    table['-'] = true;
+    table['_'] = true;
+    table['~'] = true;
+    return table;
+  }
+
+  private static boolean isUnreserved(
+    final char c)
+  {
+    return c < 128 && UNRESERVED[c];
+  }
+
+  private static void appendByte(
+    final StringBuilder output,
+    final int b)
+  {
+    output.append('%');
+    output.append(HEX_DIGITS[(b >> 4) & 0xf]);
+    output.append(HEX_DIGITS[b & 0xf]);
   }
 }
@@ -0,0 +1,387 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.metrics.OMetricsListenerType;
+import com.io7m.ophis.api.metrics.ORequestMetrics;
+import jdk.jfr.EventType;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandler;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The metrics for a single attempt to execute a command. The times at which
+ * each phase of the attempt ends are recorded as the attempt progresses, and
+ * the completed metrics are delivered to the metrics listeners once the
+ * response has been handled. If the JFR exchange or parsing events are being
+ * recorded, the events are committed at the same time.
+ */
+
+final class OAttemptMetrics
+{
+  private static final EventType EXCHANGE_EVENTS =
+    EventType.getEventType(OEventExchange.class);
+  private static final EventType PARSING_EVENTS =
+    EventType.getEventType(OEventParsing.class);
+
+  private static final OAttemptMetrics DISABLED =
+    new OAttemptMetrics(
+      List.of(),
+      Object.class,
+      Optional.empty(),
+      Optional.empty(),
+      "",
+      0,
+      0L,
+      0L,
+      false
+    );
+
+  private final List<OMetricsListenerType> listeners;
+  private final Class<?> command;
+  private final Optional<String> bucket;
+  private final Optional<String> key;
+  private final String method;
+  private final int attempt;
+  private final long signing;
+  private final long bytesSent;
+  private final boolean enabled;
+  private final long sendStarted;
+  private final OEventExchange exchangeEvent;
+  private volatile OEventParsing parsingEvent;
+  private volatile OResponseMeter meter;
+  private volatile long handleStarted;
+
+  private OAttemptMetrics(
+    final List<OMetricsListenerType> inListeners,
+    final Class<?> inCommand,
+    final Optional<String> inBucket,
+    final Optional<String> inKey,
+    final String inMethod,
+    final int inAttempt,
+    final long inSigning,
+    final long inBytesSent,
+    final boolean inEnabled)
+  {
+    this.listeners =
+      Objects.requireNonNull(inListeners, "listeners");
+    this.command =
+      Objects.requireNonNull(inCommand, "command");
+    this.bucket =
+      Objects.requireNonNull(inBucket, "bucket");
+    this.key =
+      Objects.requireNonNull(inKey, "key");
+    this.method =
+      Objects.requireNonNull(inMethod, "method");
+    this.attempt =
+      inAttempt;
+    this.signing =
+      inSigning;
+    this.bytesSent =
+      inBytesSent;
+    this.enabled =
+      inEnabled;
+    this.sendStarted =
+      System.nanoTime();
+    this.meter =
+      new OResponseMeter();
+
+    if (inEnabled && EXCHANGE_EVENTS.isEnabled()) {
+      this.exchangeEvent = new OEventExchange();
+      this.exchangeEvent.begin();
+    } else {
+      this.exchangeEvent = null;
+    }
+  }
+
+  /**
+   * Determine whether attempts need to be measured at all. Attempts are not
+   * measured unless metrics listeners are configured, or the JFR events
+   * produced by attempts are being recorded.
+   *
+   * @param listeners The metrics listeners
+   *
+   * @return {@code true} if attempts must be measured
+   */
+
+  static boolean isRequired(
+    final List<OMetricsListenerType> listeners)
+  {
+    return !listeners.isEmpty()
+           || EXCHANGE_EVENTS.isEnabled()
+           || PARSING_EVENTS.isEnabled();
+  }
+
+  /**
+   * @return Attempt metrics that measure nothing and have no listeners
+   */
+
+  static OAttemptMetrics disabled()
+  {
+    return DISABLED;
+  }
+
+  /**
+   * Start measuring an attempt. The request is assumed to be sent
+   * immediately.
+   *
+   * @param listeners The metrics listeners
+   * @param command   The command interface
+   * @param bucket    The bucket, if any
+   * @param key       The object key, if any
+   * @param request   The request
+   * @param attempt   The attempt number
+   * @param signing   The time spent signing the request, in nanoseconds
+   *
+   * @return The attempt metrics
+   */
+
+  static OAttemptMetrics start(
+    final List<OMetricsListenerType> listeners,
+    final Class<?> command,
+    final Optional<String> bucket,
+    final Optional<String> key,
+    final HttpRequest request,
+    final int attempt,
+    final long signing)
+  {
+    final var bytesSent =
+      request.bodyPublisher()
+        .map(HttpRequest.BodyPublisher::contentLength)
+        .orElse(0L);
+
+    return new OAttemptMetrics(
+      listeners,
+      command,
+      bucket,
+      key,
+      request.method(),
+      attempt,
+      signing,
+      Math.max(0L, bytesSent),
+      true
+    );
+  }
+
+  /**
+   * Wrap the given body handler such that the arrival of the response
+   * headers and the response body is measured. The handler must be used for
+   * exactly one request.
+   *
+   * @param handler The handler
+   * @param <T>     The type of response bodies
+   *
+   * @return The wrapped handler
+   */
+
+  <T> BodyHandler<T> wrap(
+    final BodyHandler<T> handler)
+  {
+    final var responseMeter = new OResponseMeter();
+    this.adopt(responseMeter);
+    return this.wrap(handler, responseMeter);
+  }
+
+  /**
+   * Wrap the given body handler such that the arrival of the response
+   * headers and the response body is measured by the given meter. The
+   * measurements are not reported unless the meter is adopted.
+   *
+   * @param handler       The handler
+   * @param responseMeter The meter
+   * @param <T>           The type of response bodies
+   *
+   * @return The wrapped handler
+   */
+
+  <T> BodyHandler<T> wrap(
+    final BodyHandler<T> handler,
+    final OResponseMeter responseMeter)
+  {
+    if (!this.enabled) {
+      return handler;
+    }
+
+    return info -> {
+      final var subscriber = handler.apply(info);
+      responseMeter.headersArrived();
+      return new OMeteredBodySubscriber<>(responseMeter, subscriber);
+    };
+  }
+
+  /**
+   * Report the measurements of the given meter. A hedged request adopts the
+   * meter of the response that won, whichever response arrived first.
+   *
+   * @param responseMeter The meter
+   */
+
+  void adopt(
+    final OResponseMeter responseMeter)
+  {
+    if (this.enabled) {
+      this.meter = Objects.requireNonNull(responseMeter, "meter");
+    }
+  }
+
+  /**
+   * Indicate that the response has arrived and is about to be handled.
+   */
+
+  void handlingStarted()
+  {
+    if (!this.enabled) {
+      return;
+    }
+
+    this.handleStarted = System.nanoTime();
+    if (this.exchangeEvent != null) {
+      this.exchangeEvent.end();
+    }
+    if (PARSING_EVENTS.isEnabled()) {
+      final var event = new OEventParsing();
+      event.begin();
+      this.parsingEvent = event;
+    }
+  }
+
+  /**
+   * Indicate that the attempt has finished, and deliver the metrics to the
+   * listeners.
+   *
+   * @param statusCode The HTTP status code, or 0 if no response arrived
+   * @param errorCode  The error code, if the attempt failed
+   */
+
+  void finished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    if (!this.enabled) {
+      return;
+    }
+
+    this.commitExchange(statusCode, errorCode);
+    this.commitParsing(statusCode, errorCode);
+
+    if (this.listeners.isEmpty()) {
+      return;
+    }
+
+    final var now = System.nanoTime();
+    final var metrics =
+      new ORequestMetrics(
+        this.command,
+        this.bucket,
+        this.attempt,
+        statusCode,
+        errorCode,
+        this.bytesSent,
+        this.meter.bytesReceived(),
+        Duration.ofNanos(this.signing),
+        this.timeToFirstByte(now),
+        this.transfer(now),
+        this.parsing(now)
+      );
+
+    for (final var listener : this.listeners) {
+      try {
+        listener.onRequest(metrics);
+      } catch (final RuntimeException e) {
+        // A broken listener must not cause requests to fail.
+      }
+    }
+  }
+
+  private void commitExchange(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var event = this.exchangeEvent;
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+
+    event.setCommand(this.command);
+    event.setBucket(this.bucket.orElse(null));
+    event.setKey(this.key.orElse(null));
+    event.setMethod(this.method);
+    event.setAttempt(this.attempt);
+    event.setStatus(statusCode);
+    event.setErrorCode(errorCode.orElse(null));
+    event.setBytesSent(this.bytesSent);
+    event.setBytesReceived(this.meter.bytesReceived());
+    event.commit();
+  }
+
+  private void commitParsing(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var event = this.parsingEvent;
+    if (event == null || !event.shouldCommit()) {
+      return;
+    }
+
+    event.setCommand(this.command);
+    event.setBucket(this.bucket.orElse(null));
+    event.setKey(this.key.orElse(null));
+    event.setStatus(statusCode);
+    event.setErrorCode(errorCode.orElse(null));
+    event.setBytesReceived(this.meter.bytesReceived());
+    event.commit();
+  }
+
+  private Duration timeToFirstByte(
+    final long now)
+  {
+    final var headers = this.meter.headersAt();
+    if (headers == 0L) {
+      return Duration.ofNanos(Math.max(0L, now - this.sendStarted));
+    }
+    return Duration.ofNanos(Math.max(0L, headers - this.sendStarted));
+  }
+
+  private Duration transfer(
+    final long now)
+  {
+    final var headers = this.meter.headersAt();
+    if (headers == 0L) {
+      return Duration.ZERO;
+    }
+    final var completed = this.meter.bodyCompletedAt();
+    final var end = completed == 0L ? now : completed;
+    return Duration.ofNanos(Math.max(0L, end - headers));
+  }
+
+  private Duration parsing(
+    final long now)
+  {
+    final var started = this.handleStarted;
+    if (started == 0L) {
+      return Duration.ZERO;
+    }
+    final var completed = this.meter.bodyCompletedAt();
+    final var start = completed == 0L ? started : Math.max(started, completed);
+    return Duration.ofNanos(Math.max(0L, now - start));
+  }
+}
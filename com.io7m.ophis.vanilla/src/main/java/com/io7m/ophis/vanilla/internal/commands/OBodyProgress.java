@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.vanilla.internal.ORetries;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.util.Objects;
+
+/**
+ * The progress of a single attempt at an exchange: whether the body of a
+ * successful response has started to be delivered to the exchange's body
+ * handler.
+ */
+
+final class OBodyProgress
+{
+  private volatile boolean delivering;
+
+  OBodyProgress()
+  {
+
+  }
+
+  /**
+   * Produce the body handler for an attempt at the given exchange. Error
+   * responses are delivered as streams, and this progress records when the
+   * exchange's own handler is first given a successful response.
+   *
+   * @param exchange The exchange
+   * @param metrics  The metrics for the attempt
+   * @param <B>      The type of response bodies
+   * @param <R>      The type of results
+   *
+   * @return A body handler
+   */
+
+  <B, R> BodyHandler<OResponseBodyType<B>> handler(
+    final OExchange<B, R> exchange,
+    final OAttemptMetrics metrics)
+  {
+    Objects.requireNonNull(metrics, "metrics");
+    return metrics.wrap(this.handler(exchange));
+  }
+
+  /**
+   * Produce the body handler for an attempt at the given exchange, without
+   * measuring responses.
+   *
+   * @param exchange The exchange
+   * @param <B>      The type of response bodies
+   * @param <R>      The type of results
+   *
+   * @return A body handler
+   *
+   * @see #handler(OExchange, OAttemptMetrics)
+   */
+
+  <B, R> BodyHandler<OResponseBodyType<B>> handler(
+    final OExchange<B, R> exchange)
+  {
+    Objects.requireNonNull(exchange, "exchange");
+
+    final var handler = exchange.bodyHandler();
+    return OResponseBodyType.errorAware(
+      (final HttpResponse.ResponseInfo info) -> {
+        this.delivering = true;
+        return handler.apply(info);
+      });
+  }
+
+  /**
+   * Classify an I/O failure of the attempt. A failure that occurs after a
+   * successful response started to arrive at a sink is never retried: the
+   * sink may already hold part of the body, and a retry would deliver that
+   * part again.
+   *
+   * @param e    The failure
+   * @param sink {@code true} if response bodies are delivered to a sink
+   *
+   * @return The condition
+   */
+
+  ORetries.Condition classify(
+    final IOException e,
+    final boolean sink)
+  {
+    if (sink && this.delivering) {
+      return ORetries.Condition.SINK_FAILURE;
+    }
+    return ORetries.classify(e);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * A body subscriber that writes the buffers it receives directly to a
+ * channel, yielding the number of octets written.
+ */
+
+final class OChannelBodySubscriber
+  implements BodySubscriber<Long>
+{
+  private final WritableByteChannel channel;
+  private final CompletableFuture<Long> result;
+  private Flow.Subscription subscription;
+  private long written;
+
+  OChannelBodySubscriber(
+    final WritableByteChannel inChannel)
+  {
+    this.channel =
+      Objects.requireNonNull(inChannel, "channel");
+    this.result =
+      new CompletableFuture<>();
+  }
+
+  @Override
+  public CompletionStage<Long> getBody()
+  {
+    return this.result;
+  }
+
+  @Override
+  public void onSubscribe(
+    final Flow.Subscription inSubscription)
+  {
+    if (this.subscription != null) {
+      inSubscription.cancel();
+      return;
+    }
+    this.subscription = inSubscription;
+    this.subscription.request(1L);
+  }
+
+  @Override
+  public void onNext(
+    final List<ByteBuffer> buffers)
+  {
+    try {
+      for (final var buffer : buffers) {
+        while (buffer.hasRemaining()) {
+          this.written += this.channel.write(buffer);
+        }
+      }
+    } catch (final IOException e) {
+      this.subscription.cancel();
+      this.result.completeExceptionally(e);
+      return;
+    }
+    this.subscription.request(1L);
+  }
+
+  @Override
+  public void onError(
+    final Throwable throwable)
+  {
+    this.result.completeExceptionally(throwable);
+  }
+
+  @Override
+  public void onComplete()
+  {
+    this.result.complete(Long.valueOf(this.written));
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.commands.OChecksum;
+import com.io7m.ophis.vanilla.internal.OChecksums;
+
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.zip.Checksum;
+
+/**
+ * A body subscriber that calculates a checksum of the buffers it receives
+ * before passing them on to another subscriber. The buffers are not copied;
+ * the checksum is calculated over duplicates of the buffers. The size of
+ * the body is counted as it passes through, so that the size is known even
+ * if the response did not declare a {@code Content-Length}.
+ *
+ * @param <T> The type of response bodies
+ */
+
+final class OChecksumBodySubscriber<T>
+  implements BodySubscriber<OChecksumBodySubscriber.Result<T>>
+{
+  private final BodySubscriber<T> delegate;
+  private final Optional<OChecksum> expected;
+  private final Checksum checksum;
+  private volatile boolean complete;
+  private volatile long size;
+
+  private OChecksumBodySubscriber(
+    final BodySubscriber<T> inDelegate,
+    final Optional<OChecksum> inExpected)
+  {
+    this.delegate =
+      Objects.requireNonNull(inDelegate, "delegate");
+    this.expected =
+      Objects.requireNonNull(inExpected, "expected");
+    this.checksum =
+      inExpected.map(c -> OChecksums.create(c.algorithm()))
+        .orElse(null);
+  }
+
+  /**
+   * Wrap the given body handler. If enabled, the checksum given in the
+   * response headers (if any) is calculated over the response body.
+   *
+   * @param handler The handler
+   * @param enabled {@code true} if checksums should be calculated
+   * @param <T>     The type of response bodies
+   *
+   * @return A body handler
+   */
+
+  static <T> BodyHandler<Result<T>> handler(
+    final BodyHandler<T> handler,
+    final boolean enabled)
+  {
+    Objects.requireNonNull(handler, "handler");
+
+    return (final HttpResponse.ResponseInfo info) -> {
+      final Optional<OChecksum> expected;
+      if (enabled) {
+        expected = OChecksums.fromHeaders(info.headers());
+      } else {
+        expected = Optional.empty();
+      }
+      return new OChecksumBodySubscriber<>(handler.apply(info), expected);
+    };
+  }
+
+  @Override
+  public CompletionStage<Result<T>> getBody()
+  {
+    return this.delegate.getBody()
+      .thenApply(body -> new Result<>(body, this));
+  }
+
+  @Override
+  public void onSubscribe(
+    final Flow.Subscription subscription)
+  {
+    this.delegate.onSubscribe(subscription);
+  }
+
+  @Override
+  public void onNext(
+    final List<ByteBuffer> buffers)
+  {
+    var received = 0L;
+    for (final var buffer : buffers) {
+      received += buffer.remaining();
+      if (this.checksum != null) {
+        this.checksum.update(buffer.duplicate());
+      }
+    }
+    this.size = this.size + received;
+    this.delegate.onNext(buffers);
+  }
+
+  @Override
+  public void onError(
+    final Throwable throwable)
+  {
+    this.delegate.onError(throwable);
+  }
+
+  @Override
+  public void onComplete()
+  {
+    this.complete = true;
+    this.delegate.onComplete();
+  }
+
+  /**
+   * The body of a response, and the subscriber that checksummed it.
+   *
+   * @param body       The body
+   * @param subscriber The subscriber
+   * @param <T>        The type of response bodies
+   */
+
+  record Result<T>(
+    T body,
+    OChecksumBodySubscriber<T> subscriber)
+  {
+    /**
+     * @return The checksum given in the response headers, if checksums were
+     *         enabled and the server provided one
+     */
+
+    Optional<OChecksum> expected()
+    {
+      return this.subscriber.expected;
+    }
+
+    /**
+     * @return The number of bytes of the response body received so far
+     */
+
+    long size()
+    {
+      return this.subscriber.size;
+    }
+
+    /**
+     * @return The checksum calculated over the response body, if checksums
+     *         were enabled, the server provided one, and the entire body has
+     *         been received
+     */
+
+    Optional<OChecksum> received()
+    {
+      final var sub = this.subscriber;
+      if (sub.checksum == null || !sub.complete) {
+        return Optional.empty();
+      }
+
+      final var algorithm = sub.expected.orElseThrow().algorithm();
+      return Optional.of(
+        new OChecksum(algorithm, OChecksums.encode(algorithm, sub.checksum))
+      );
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.OUnit;
+import com.io7m.ophis.api.commands.OAbortMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OAbortMultipartUploadType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+
+import java.net.http.HttpHeaders;
+
+/**
+ * AbortMultipartUpload.
+ */
+
+public final class OCmdAbortMultipartUpload
+  extends OCmdAbstract<OAbortMultipartUploadParameters, OUnit>
+  implements OAbortMultipartUploadType
+{
+  OCmdAbortMultipartUpload(
+    final OClient client,
+    final OAbortMultipartUploadParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  @Override
+  protected OExchange<?, OUnit> prepare()
+    throws OException
+  {
+    final var parameters = this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.setKey(OResourceRelative.parse(parameters.key()));
+    this.queryParameterAdd("uploadId", parameters.uploadId());
+
+    return this.exchangeDELETE((final HttpHeaders headers) -> OUnit.UNIT);
+  }
+}
@@ -25,15 +25,27 @@ import com.io7m.blackthorne.core.Blackthorne;
 import com.io7m.jxe.core.JXEHardenedSAXParsers;
 import com.io7m.jxe.core.JXEXInclude;
 import com.io7m.ophis.api.OClientAccessKeys;
+import com.io7m.ophis.api.OClientBucketAccessStyle;
+import com.io7m.ophis.api.OClientCommandType;
 import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.OUnit;
+import com.io7m.ophis.api.commands.OChecksumAlgorithm;
+import com.io7m.ophis.api.commands.OError;
 import com.io7m.ophis.api.commands.OObjectData;
+import com.io7m.ophis.vanilla.internal.OAWSChunkedStream;
 import com.io7m.ophis.vanilla.internal.OCanonicalRequest;
 import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.ODigests;
+import com.io7m.ophis.vanilla.internal.ORateLimiters;
 import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import com.io7m.ophis.vanilla.internal.ORetries;
+import com.io7m.ophis.vanilla.internal.OSigningKeyV4HMACSHA256;
 import com.io7m.ophis.vanilla.internal.OTimeFormatters;
+import com.io7m.ophis.vanilla.internal.OTransportLane;
 import com.io7m.ophis.vanilla.internal.OUserAgent;
 import com.io7m.ophis.vanilla.internal.xml.OXErrorParsing;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -41,21 +53,51 @@ import java.net.URISyntaxException;
 import java.net.http.HttpClient;
 import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpRequest.BodyPublishers;
 import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 abstract class OCmdAbstract<P, R>
 {
+  /**
+   * The result of a single attempt to execute an exchange.
+   *
+   * @param <R> The type of results
+   */
+
+  private sealed interface AttemptType<R>
+  {
+    record Succeeded<R>(R value)
+      implements AttemptType<R>
+    {
+
+    }
+
+    record Failed<R>(
+      OException error,
+      ORetries.Condition condition,
+      int status)
+      implements AttemptType<R>
+    {
+
+    }
+  }
+
   private static final Set<String> RESTRICTED_HEADERS =
     Set.of(
       "HOST",
@@ -66,9 +108,13 @@ abstract class OCmdAbstract<P, R>
   private final OClient client;
   private final HashMap<String, String> attributes;
   private final OCanonicalRequest.Builder canonicalRequest;
+  private final OffsetDateTime timestamp;
   private final String timestampFull;
   private final String timestampSigner;
   private Optional<String> bucket;
+  private Optional<OResourceRelative> key;
+  private long signingTime;
+  private int lastStatus;
 
   OCmdAbstract(
     final OClient inClient,
@@ -82,12 +128,20 @@ abstract class OCmdAbstract<P, R>
       new HashMap<>();
     this.canonicalRequest =
       OCanonicalRequest.builder();
+    this.timestamp =
+      OffsetDateTime.now(ZoneOffset.UTC);
     this.timestampFull =
-      OTimeFormatters.amzDateFormatString();
+      OTimeFormatters.amzDateFormatString(this.timestamp);
     this.timestampSigner =
-      OTimeFormatters.signerFormatString();
+      OTimeFormatters.signerFormatString(this.timestamp);
     this.bucket =
       Optional.empty();
+    this.key =
+      Optional.empty();
+    this.signingTime =
+      0L;
+    this.lastStatus =
+      0;
 
     this.canonicalRequest.setHeader("x-amz-date", this.timestampFull);
   }
@@ -134,11 +188,6 @@ abstract class OCmdAbstract<P, R>
     return this.parameters;
   }
 
-  protected final HttpClient httpClient()
-  {
-    return this.client.httpClient();
-  }
-
   protected final JXEHardenedSAXParsers saxParsers()
   {
     return this.client.saxParsers();
@@ -154,6 +203,57 @@ abstract class OCmdAbstract<P, R>
     );
   }
 
+  protected final OException errorFor(
+    final OError error)
+  {
+    return new OException(
+      error.message(),
+      error.code(),
+      Map.copyOf(this.attributes),
+      Optional.empty()
+    );
+  }
+
+  protected final OException errorIO(
+    final IOException e)
+  {
+    return new OException(
+      e,
+      "error-io",
+      Map.copyOf(this.attributes),
+      Optional.empty()
+    );
+  }
+
+  protected final OException errorOf(
+    final String message,
+    final String errorCode)
+  {
+    return new OException(
+      message,
+      errorCode,
+      Map.copyOf(this.attributes),
+      Optional.empty()
+    );
+  }
+
+  protected final String requireHeader(
+    final String name,
+    final Optional<String> value)
+    throws OException
+  {
+    if (value.isPresent()) {
+      return value.get();
+    }
+
+    this.setAttribute("Header", name);
+    throw new OException(
+      "The server response did not include a required header.",
+      "error-header-missing",
+      Map.copyOf(this.attributes)
+    );
+  }
+
   protected final void setHeader(
     final String name,
     final String value)
@@ -161,13 +261,465 @@ abstract class OCmdAbstract<P, R>
     this.canonicalRequest.setHeader(name, value);
   }
 
-  protected <T> T sendPUT(
+  protected final void setKey(
+    final OResourceRelative inKey)
+  {
+    this.key = Optional.of(inKey);
+  }
+
+  /**
+   * Determine whether the command is idempotent. Commands that are not
+   * idempotent are only retried if the server cannot have acted on the
+   * request.
+   *
+   * @return {@code true} if executing the command twice has the same effect
+   *         as executing it once
+   */
+
+  protected boolean isIdempotent()
+  {
+    return true;
+  }
+
+  /**
+   * Determine whether the command may be hedged. A command may be hedged if
+   * it is idempotent, and if its response has no side effects until the
+   * response is consumed; a request that writes its response to a sink as
+   * the response arrives must not be sent twice at once.
+   *
+   * @return {@code true} if the command may be hedged
+   *
+   * @see com.io7m.ophis.api.OClientHedgingPolicy
+   */
+
+  protected boolean isHedgeable()
+  {
+    return false;
+  }
+
+  /**
+   * Determine whether the command delivers the body of a successful
+   * response to a sink as the body arrives. Such a command is never retried
+   * once the body has started to arrive.
+   *
+   * @return {@code true} if response bodies are delivered to a sink
+   */
+
+  protected boolean isDeliveredToSink()
+  {
+    return false;
+  }
+
+  private boolean isHedged()
+  {
+    return this.isHedgeable()
+           && this.client.hedging().policy().isPresent();
+  }
+
+  private <B> CompletableFuture<HttpResponse<OResponseBodyType<B>>> sendExchange(
+    final OExchange<B, R> exchange,
+    final OTransportLane lane,
+    final OAttemptMetrics metrics,
+    final OBodyProgress progress)
+  {
+    if (this.isHedged()) {
+      return OHedgedSend.send(
+        this.client,
+        this.getClass(),
+        exchange.request(),
+        progress.handler(exchange),
+        metrics,
+        lane,
+        response -> OResponseBodies.discard(response.body())
+      );
+    }
+    final var handler = progress.handler(exchange, metrics);
+    return lane.httpClient().sendAsync(exchange.request(), handler);
+  }
+
+  /**
+   * Prepare the exchange that will execute the command. The exchange is
+   * prepared exactly once, and may then be executed either synchronously or
+   * asynchronously.
+   *
+   * @return The exchange
+   *
+   * @throws OException On errors
+   */
+
+  protected abstract OExchange<?, R> prepare()
+    throws OException;
+
+  /**
+   * Execute the command synchronously.
+   *
+   * @return The result
+   *
+   * @throws OException On errors
+   */
+
+  public final R execute()
+    throws OException
+  {
+    var errorCode = Optional.<String>empty();
+    try {
+      return this.executeExchange(this.prepareTimed());
+    } catch (final OException | RuntimeException e) {
+      errorCode = Optional.of(OFailures.errorCodeOf(e));
+      throw e;
+    } finally {
+      this.onFinished(this.lastStatus, errorCode);
+    }
+  }
+
+  /**
+   * Execute the command asynchronously. The request is sent with
+   * {@link HttpClient#sendAsync(HttpRequest, BodyHandler)}, and responses
+   * are parsed on the client's response executor rather than on the
+   * threads of the HTTP client. Cancelling the future cancels the request
+   * in flight, and no further attempts are made.
+   *
+   * @return The future result
+   */
+
+  public final CompletableFuture<R> executeAsync()
+  {
+    final CompletableFuture<R> future;
+    try {
+      future = this.executeExchangeAsync(this.prepareTimed());
+    } catch (final OException e) {
+      this.onFinished(this.lastStatus, Optional.of(e.errorCode()));
+      return CompletableFuture.failedFuture(e);
+    }
+
+    future.whenComplete((result, failure) -> {
+      if (failure == null) {
+        this.onFinished(this.lastStatus, Optional.empty());
+      } else {
+        final var cause = OFailures.unwrap(failure);
+        this.onFinished(this.lastStatus, Optional.of(OFailures.errorCodeOf(cause)));
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Called once the command has finished executing, successfully or
+   * otherwise, after any retries. The default implementation does nothing.
+   *
+   * @param statusCode The HTTP status of the last response, or 0 if no
+   *                   response arrived
+   * @param errorCode  The error code, if the command failed
+   */
+
+  protected void onFinished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+
+  }
+
+  private OExchange<?, R> prepareTimed()
+    throws OException
+  {
+    final var event = new OEventSigning();
+    event.begin();
+
+    final var started = System.nanoTime();
+    final var exchange = this.prepare();
+    this.signingTime = System.nanoTime() - started;
+
+    if (event.shouldCommit()) {
+      event.setCommand(this.commandType());
+      event.setBucket(this.bucket.orElse(null));
+      event.setKey(this.keyString().orElse(null));
+      event.setMethod(exchange.request().method());
+      event.commit();
+    }
+    return exchange;
+  }
+
+  private Optional<String> keyString()
+  {
+    return this.key.map(k -> String.join("/", k.segments()));
+  }
+
+  /**
+   * Start measuring an attempt to execute the given exchange. The request is
+   * only signed once, and so the signing time is only reported for the first
+   * attempt.
+   */
+
+  private <B> OAttemptMetrics startMetrics(
+    final OExchange<B, R> exchange,
+    final int attempt)
+  {
+    final var listeners =
+      this.client.configuration().metricsListeners();
+
+    if (!OAttemptMetrics.isRequired(listeners)) {
+      return OAttemptMetrics.disabled();
+    }
+
+    return OAttemptMetrics.start(
+      listeners,
+      this.commandType(),
+      this.bucket,
+      this.keyString(),
+      exchange.request(),
+      attempt,
+      attempt == 1 ? this.signingTime : 0L
+    );
+  }
+
+  /**
+   * @return The public command interface that this command implements
+   */
+
+  private Class<?> commandType()
+  {
+    for (final var type : this.getClass().getInterfaces()) {
+      if (OClientCommandType.class.isAssignableFrom(type)) {
+        return type;
+      }
+    }
+    return this.getClass();
+  }
+
+  /**
+   * Prepare a PUT request that uploads the given data. If the data has been
+   * hashed, the hash is signed as the payload of the request. Otherwise,
+   * the data is sent with the {@code aws-chunked} encoding and each chunk is
+   * signed as it is sent. If a checksum algorithm is given, the data is
+   * always sent with the {@code aws-chunked} encoding, and the checksum is
+   * calculated as the data is sent and delivered in a trailer.
+   *
+   * If the client is configured not to sign payloads sent over TLS, and
+   * the endpoint uses TLS, then data that has not been hashed is sent
+   * without any signatures: as-is with an {@code UNSIGNED-PAYLOAD} hash, or
+   * with the {@code aws-chunked} encoding and an unsigned trailer if a
+   * checksum algorithm is given.
+   *
+   * @param data      The data
+   * @param checksum  The checksum algorithm, if any
+   * @param inKey     The object key
+   * @param transform The function that produces a result from the response
+   *                  headers
+   * @param <T>       The type of results
+   *
+   * @return The exchange
+   *
+   * @throws OException On errors
+   */
+
+  protected <T> OExchange<OUnit, T> exchangePUT(
     final OObjectData data,
-    final OResourceRelative key,
+    final Optional<OChecksumAlgorithm> checksum,
+    final OResourceRelative inKey,
+    final Function<HttpHeaders, T> transform)
+    throws OException
+  {
+    this.setKey(inKey);
+
+    final var size = data.size();
+    final var sha256 = data.sha256();
+    if (sha256.isPresent() && checksum.isEmpty()) {
+      this.setHeader("Content-Length", Long.toUnsignedString(size));
+      return this.exchangeSigned(
+        "PUT",
+        signature -> this.bodyPublisherFor(data),
+        sha256.get(),
+        BodyHandlers.replacing(OUnit.UNIT),
+        response -> transform.apply(response.headers())
+      );
+    }
+
+    if (this.isPayloadUnsigned()) {
+      if (checksum.isEmpty()) {
+        this.setHeader("Content-Length", Long.toUnsignedString(size));
+        return this.exchangeSigned(
+          "PUT",
+          signature -> this.bodyPublisherFor(data),
+          OCanonicalRequest.unsignedPayload(),
+          BodyHandlers.replacing(OUnit.UNIT),
+          response -> transform.apply(response.headers())
+        );
+      }
+
+      final var encodedLength =
+        OAWSChunkedStream.encodedLengthUnsigned(size, checksum);
+
+      this.setChunkedHeaders(size, encodedLength, checksum);
+      return this.exchangeSigned(
+        "PUT",
+        signature -> {
+          return BodyPublishers.fromPublisher(
+            BodyPublishers.ofInputStream(() -> {
+              return OAWSChunkedStream.unsigned(data.stream().get(), checksum);
+            }),
+            encodedLength
+          );
+        },
+        OAWSChunkedStream.STREAMING_UNSIGNED_PAYLOAD_TRAILER,
+        BodyHandlers.replacing(OUnit.UNIT),
+        response -> transform.apply(response.headers())
+      );
+    }
+
+    final var encodedLength =
+      OAWSChunkedStream.encodedLength(size, checksum);
+    final var payload =
+      checksum.isPresent()
+        ? OAWSChunkedStream.STREAMING_PAYLOAD_TRAILER
+        : OAWSChunkedStream.STREAMING_PAYLOAD;
+
+    this.setChunkedHeaders(size, encodedLength, checksum);
+    return this.exchangeSigned(
+      "PUT",
+      signature -> {
+        return this.bodyPublisherChunked(
+          data,
+          checksum,
+          encodedLength,
+          signature
+        );
+      },
+      payload,
+      BodyHandlers.replacing(OUnit.UNIT),
+      response -> transform.apply(response.headers())
+    );
+  }
+
+  private void setChunkedHeaders(
+    final long size,
+    final long encodedLength,
+    final Optional<OChecksumAlgorithm> checksum)
+  {
+    this.setHeader("Content-Encoding", "aws-chunked");
+    this.setHeader("Content-Length", Long.toUnsignedString(encodedLength));
+    this.setHeader("x-amz-decoded-content-length", Long.toUnsignedString(size));
+    checksum.ifPresent(algorithm -> {
+      this.setHeader("x-amz-sdk-checksum-algorithm", algorithm.name());
+      this.setHeader("x-amz-trailer", algorithm.headerName());
+    });
+  }
+
+  /**
+   * @return {@code true} if payloads should not be signed; payloads are only
+   *         left unsigned if the configuration permits it and the endpoint
+   *         uses TLS
+   */
+
+  private boolean isPayloadUnsigned()
+  {
+    final var configuration = this.client.configuration();
+    return switch (configuration.payloadSigning()) {
+      case SIGNED -> false;
+      case UNSIGNED_OVER_TLS -> {
+        yield "https".equalsIgnoreCase(configuration.endpoint().getScheme());
+      }
+    };
+  }
+
+  protected <T> OExchange<InputStream, T> exchangePOST(
+    final byte[] data,
+    final Map<BTQualifiedName, BTElementHandlerConstructorType<?, T>> roots)
+    throws OException
+  {
+    return this.exchangeSigned(
+      "POST",
+      signature -> BodyPublishers.ofByteArray(data),
+      ODigests.sha256Hex(data),
+      BodyHandlers.ofInputStream(),
+      response -> this.parseNonError(roots, response)
+    );
+  }
+
+  protected <T> OExchange<OUnit, T> exchangeDELETE(
     final Function<HttpHeaders, T> transform)
     throws OException
   {
-    this.setMethod("PUT");
+    return this.exchangeSigned(
+      "DELETE",
+      signature -> BodyPublishers.noBody(),
+      OCanonicalRequest.emptyPayloadHash(),
+      BodyHandlers.replacing(OUnit.UNIT),
+      response -> transform.apply(response.headers())
+    );
+  }
+
+  /**
+   * Prepare a HEAD request. Responses to HEAD requests have no body.
+   *
+   * @param transform The function that produces a result from a response
+   * @param <T>       The type of results
+   *
+   * @return The exchange
+   *
+   * @throws OException On errors
+   */
+
+  protected <T> OExchange<OUnit, T> exchangeHEAD(
+    final OResponseFunctionType<OResponse<OUnit>, T> transform)
+    throws OException
+  {
+    return this.exchangeSigned(
+      "HEAD",
+      signature -> BodyPublishers.noBody(),
+      OCanonicalRequest.emptyPayloadHash(),
+      BodyHandlers.replacing(OUnit.UNIT),
+      transform
+    );
+  }
+
+  protected <T> OExchange<InputStream, T> exchangeGET(
+    final BTQualifiedName name,
+    final BTElementHandlerConstructorType<Object, T> handler)
+    throws OException
+  {
+    return this.exchangeGETWith(
+      BodyHandlers.ofInputStream(),
+      response -> this.parseNonError(Map.of(name, handler), response)
+    );
+  }
+
+  /**
+   * Prepare a GET request, passing the body of a successful response to the
+   * given handler. The handler is never used for error responses.
+   *
+   * @param handler   The body handler
+   * @param transform The function that produces a result from a response
+   * @param <B>       The type of response bodies
+   * @param <T>       The type of results
+   *
+   * @return The exchange
+   *
+   * @throws OException On errors
+   */
+
+  protected <B, T> OExchange<B, T> exchangeGETWith(
+    final BodyHandler<B> handler,
+    final OResponseFunctionType<OResponse<B>, T> transform)
+    throws OException
+  {
+    return this.exchangeSigned(
+      "GET",
+      signature -> BodyPublishers.noBody(),
+      OCanonicalRequest.emptyPayloadHash(),
+      handler,
+      transform
+    );
+  }
+
+  private <B, T> OExchange<B, T> exchangeSigned(
+    final String method,
+    final BodyFactoryType body,
+    final String payloadHash,
+    final BodyHandler<B> handler,
+    final OResponseFunctionType<OResponse<B>, T> transform)
+    throws OException
+  {
+    this.setMethod(method);
     this.canonicalRequest.setHeader("Host", this.hostString());
 
     /*
@@ -177,20 +729,26 @@ abstract class OCmdAbstract<P, R>
      */
 
     if (this.bucket.isPresent()) {
+      final var elements = new ArrayList<String>();
       switch (this.client.configuration().bucketAccessStyle()) {
         case VIRTUALHOST_STYLE -> {
-          this.setResource(key);
+          // Nothing required
         }
         case PATH_STYLE -> {
-          final var elements = new ArrayList<String>();
           elements.add(this.bucket.get());
-          elements.addAll(key.segments());
-          this.setResource(new OResourceRelative(elements));
         }
       }
+      this.key.ifPresent(k -> elements.addAll(k.segments()));
+      this.setResource(new OResourceRelative(elements));
     }
 
-    this.canonicalRequest.setHashedPayload(data.sha256());
+    /*
+     * S3 requires the payload hash to be sent as a header on every request,
+     * in addition to being included in the canonical request.
+     */
+
+    this.canonicalRequest.setHeader("x-amz-content-sha256", payloadHash);
+    this.canonicalRequest.setHashedPayload(payloadHash);
 
     final var canonical =
       this.canonicalRequest.build();
@@ -201,36 +759,123 @@ abstract class OCmdAbstract<P, R>
     this.setAttribute("Method", canonical.httpVerb());
     this.setAttribute("Canonical Request Hash", canonicalHash);
 
+    final var signature =
+      this.signatureFor(canonicalHash);
     final var requestBuilder =
-      this.createInitialSignedRequestBuilder(canonical, canonicalHash);
-
-    final byte[] dataBytes;
-    try {
-      dataBytes = data.stream()
-        .get()
-        .readAllBytes();
-    } catch (final IOException e) {
-      throw new OException(
-        e,
-        "error-io",
-        Map.copyOf(this.attributes),
-        Optional.empty()
-      );
-    }
+      this.createInitialSignedRequestBuilder(canonical, signature);
 
     final var request =
-      requestBuilder.PUT(BodyPublishers.ofByteArray(dataBytes))
+      requestBuilder.method(method, body.create(signature))
         .build();
 
-    final var response =
-      this.executeHTTPRequest(request);
+    return new OExchange<>(request, handler, transform);
+  }
+
+  /**
+   * Create a body publisher that streams the given data. The data is never
+   * held in memory in its entirety; file-backed data is read directly from
+   * the file, and other data is read from the supplied stream using the
+   * bounded buffers of the HTTP client. The size is declared up front so
+   * that the request is sent with a fixed {@code Content-Length} rather than
+   * with a chunked transfer encoding.
+   */
+
+  private BodyPublisher bodyPublisherFor(
+    final OObjectData data)
+    throws OException
+  {
+    final var fileOpt = data.file();
+    if (fileOpt.isPresent()) {
+      final var file = fileOpt.get();
+      try {
+        return BodyPublishers.ofFile(file);
+      } catch (final FileNotFoundException e) {
+        this.setAttribute("File", file.toAbsolutePath().toString());
+        throw new OException(
+          e,
+          "error-io",
+          Map.copyOf(this.attributes),
+          Optional.empty()
+        );
+      }
+    }
+
+    return BodyPublishers.fromPublisher(
+      BodyPublishers.ofInputStream(data.stream()),
+      data.size()
+    );
+  }
+
+  private OSigningKeyV4HMACSHA256 signingKey()
+    throws OException
+  {
+    return this.client.signingKeys()
+      .signingKey(
+        this.timestamp,
+        this.client.configuration().region(),
+        "s3"
+      );
+  }
+
+  /**
+   * Create a body publisher that streams the given data with the
+   * {@code aws-chunked} encoding, signing each chunk with a signature
+   * chained to the given request signature, and optionally followed by a
+   * signed checksum trailer.
+   */
+
+  private BodyPublisher bodyPublisherChunked(
+    final OObjectData data,
+    final Optional<OChecksumAlgorithm> checksum,
+    final long encodedLength,
+    final String seedSignature)
+    throws OException
+  {
+    final var signingKey =
+      this.signingKey();
+    final var scope =
+      this.scopeString();
+
+    return BodyPublishers.fromPublisher(
+      BodyPublishers.ofInputStream(() -> {
+        return new OAWSChunkedStream(
+          data.stream().get(),
+          signingKey,
+          this.timestampFull,
+          scope,
+          seedSignature,
+          checksum
+        );
+      }),
+      encodedLength
+    );
+  }
+
+  private String signatureFor(
+    final String canonicalHash)
+    throws OException
+  {
+    /*
+     * See: "https://docs.aws.amazon.com/IAM/latest/UserGuide/create-signed-request.html"
+     */
+
+    final var stringToSign = new StringBuilder(256);
+    stringToSign.append("AWS4-HMAC-SHA256");
+    stringToSign.append('\n');
+    stringToSign.append(this.timestampFull);
+    stringToSign.append('\n');
+    stringToSign.append(this.scopeString());
+    stringToSign.append('\n');
+    stringToSign.append(canonicalHash);
+
+    return this.signingKey()
+      .sign(stringToSign.toString());
 
-    return transform.apply(response.headers());
   }
 
   private HttpRequest.Builder createInitialSignedRequestBuilder(
     final OCanonicalRequest canonical,
-    final String canonicalHash)
+    final String signature)
     throws OException
   {
     final URI bucketEndpoint;
@@ -248,26 +893,8 @@ abstract class OCmdAbstract<P, R>
     final var uriSource =
       canonical.queryURI(bucketEndpoint);
 
-    /*
-     * See: "https://docs.aws.amazon.com/IAM/latest/UserGuide/create-signed-request.html"
-     */
-
-    final var stringToSign = new StringBuilder();
-    stringToSign.append("AWS4-HMAC-SHA256");
-    stringToSign.append('\n');
-    stringToSign.append(this.timestampFull);
-    stringToSign.append('\n');
-    stringToSign.append(this.scopeString());
-    stringToSign.append('\n');
-    stringToSign.append(canonicalHash);
-
-    final var signingKey =
-      this.client.signingKey();
-    final var signature =
-      signingKey.sign(stringToSign.toString());
-
     final var requestBuilder = HttpRequest.newBuilder(uriSource);
-    requestBuilder.version(HttpClient.Version.HTTP_1_1);
+    requestBuilder.version(this.client.configuration().httpVersion());
 
     final var authText =
       this.authorizationHeaderString(canonical, signature);
@@ -285,76 +912,326 @@ abstract class OCmdAbstract<P, R>
     return requestBuilder;
   }
 
-  protected <T> T sendGET(
-    final BTQualifiedName name,
-    final BTElementHandlerConstructorType<Object, T> handler)
+  private <B> R executeExchange(
+    final OExchange<B, R> exchange)
     throws OException
   {
-    this.setMethod("GET");
-    this.canonicalRequest.setHeader("Host", this.hostString());
-
-    /*
-     * If we're using path-style buckets, then the resource name must be
-     * set to the bucket name (such as "/bucket-0").
-     */
+    var lastCost = 0;
+    for (int attempt = 1; true; ++attempt) {
+      this.setAttribute("Attempt", Integer.toString(attempt));
+
+      final var permit = this.acquirePermit();
+      this.sleep(Duration.ofNanos(permit.delay()));
+
+      final var lane = this.client.transport().acquireLane();
+      final var metrics = this.startMetrics(exchange, attempt);
+      final AttemptType<R> result;
+      try {
+        result = this.attempt(exchange, lane, metrics);
+      } finally {
+        lane.release();
+      }
 
-    if (this.bucket.isPresent()) {
-      switch (this.client.configuration().bucketAccessStyle()) {
-        case VIRTUALHOST_STYLE -> {
-          // Nothing
+      switch (result) {
+        case final AttemptType.Succeeded<R> succeeded -> {
+          permit.succeeded();
+          this.client.retries().succeeded(lastCost);
+          return succeeded.value();
         }
-        case PATH_STYLE -> {
-          this.setResource(new OResourceRelative(List.of(this.bucket.get())));
+        case final AttemptType.Failed<R> failed -> {
+          permitFailed(permit, failed);
+          final var retry = this.retryFor(attempt, failed);
+          if (retry.isEmpty()) {
+            throw failed.error();
+          }
+          lastCost = retry.get().cost();
+          this.sleep(retry.get().delay());
         }
       }
     }
+  }
 
-    final var canonical =
-      this.canonicalRequest.build();
-    final var canonicalHash =
-      canonical.hash();
-
-    this.setAttribute("Resource", canonical.resource().toString());
-    this.setAttribute("Method", canonical.httpVerb());
-    this.setAttribute("Canonical Request Hash", canonicalHash);
-
-    final var requestBuilder =
-      this.createInitialSignedRequestBuilder(canonical, canonicalHash);
-
-    final var request =
-      requestBuilder.GET()
-        .build();
-
-    final var response =
-      this.executeHTTPRequest(request);
+  private <B> AttemptType<R> attempt(
+    final OExchange<B, R> exchange,
+    final OTransportLane lane,
+    final OAttemptMetrics metrics)
+    throws OException
+  {
+    final var progress = new OBodyProgress();
+    if (this.isHedged()) {
+      return this.attemptHedged(exchange, lane, metrics, progress);
+    }
 
-    return this.parseNonError(request, name, handler, response);
+    final HttpResponse<OResponseBodyType<B>> response;
+    try {
+      response = lane.httpClient().send(
+        exchange.request(),
+        progress.handler(exchange, metrics)
+      );
+    } catch (final IOException e) {
+      return this.failedIO(e, metrics, progress);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw this.errorInterrupted(e);
+    }
+    return this.attemptResponse(exchange, response, metrics);
   }
 
-  private HttpResponse<InputStream> executeHTTPRequest(
-    final HttpRequest request)
+  private <B> AttemptType<R> attemptHedged(
+    final OExchange<B, R> exchange,
+    final OTransportLane lane,
+    final OAttemptMetrics metrics,
+    final OBodyProgress progress)
     throws OException
   {
-    final var http = this.httpClient();
-    final HttpResponse<InputStream> response;
+    final var sent = this.sendExchange(exchange, lane, metrics, progress);
+    final HttpResponse<OResponseBodyType<B>> response;
     try {
-      response = http.send(request, HttpResponse.BodyHandlers.ofInputStream());
-    } catch (final IOException e) {
+      response = sent.get();
+    } catch (final ExecutionException e) {
+      final var cause = OFailures.unwrap(e);
+      if (cause instanceof final IOException x) {
+        return this.failedIO(x, metrics, progress);
+      }
+      if (cause instanceof final RuntimeException x) {
+        throw x;
+      }
       throw new OException(
-        e,
+        cause,
         "error-io",
         Map.copyOf(this.attributes),
         Optional.empty()
       );
     } catch (final InterruptedException e) {
-      throw new OException(
-        e,
-        "error-interruption",
-        Map.copyOf(this.attributes),
-        Optional.empty()
+      sent.cancel(true);
+      Thread.currentThread().interrupt();
+      throw this.errorInterrupted(e);
+    }
+    return this.attemptResponse(exchange, response, metrics);
+  }
+
+  /**
+   * Handle a response. Error responses are returned as failed attempts so
+   * that they can be retried, but failures that occur while a successful
+   * response is being consumed are raised directly; the response body might
+   * already have been partially delivered to a sink, and so the request
+   * cannot safely be retried. The metrics for the attempt are delivered
+   * once the response has been handled.
+   */
+
+  private <B> AttemptType<R> attemptResponse(
+    final OExchange<B, R> exchange,
+    final HttpResponse<OResponseBodyType<B>> response,
+    final OAttemptMetrics metrics)
+    throws OException
+  {
+    metrics.handlingStarted();
+    this.lastStatus = response.statusCode();
+
+    var errorCode = Optional.<String>empty();
+    try {
+      if (response.body() instanceof final OResponseBodyType.Failure<B> f) {
+        this.setResponseAttributes(response);
+        final var error =
+          this.errorResponse(exchange.request(), response.statusCode(), f);
+        errorCode = Optional.of(error.errorCode());
+        return new AttemptType.Failed<>(
+          error,
+          ORetries.Condition.ERROR_RESPONSE,
+          response.statusCode()
+        );
+      }
+      return new AttemptType.Succeeded<>(this.handleResponse(exchange, response));
+    } catch (final OException | RuntimeException e) {
+      errorCode = Optional.of(OFailures.errorCodeOf(e));
+      throw e;
+    } finally {
+      metrics.finished(response.statusCode(), errorCode);
+    }
+  }
+
+  private AttemptType<R> failedIO(
+    final IOException e,
+    final OAttemptMetrics metrics,
+    final OBodyProgress progress)
+  {
+    this.attributes.remove("HTTP Status");
+    this.attributes.remove("Content-Type");
+    this.lastStatus = 0;
+
+    final var error = this.errorIO(e);
+    metrics.finished(0, Optional.of(error.errorCode()));
+    final var condition = progress.classify(e, this.isDeliveredToSink());
+    return new AttemptType.Failed<>(error, condition, 0);
+  }
+
+  private ORateLimiters.Permit acquirePermit()
+  {
+    final var limiters = this.client.rateLimiters();
+    return limiters.acquire(limiters.keyFor(this.bucket, this.key));
+  }
+
+  private static <R> void permitFailed(
+    final ORateLimiters.Permit permit,
+    final AttemptType.Failed<R> failed)
+  {
+    if (failed.condition() == ORetries.Condition.ERROR_RESPONSE) {
+      permit.failed(failed.error().errorCode(), failed.status());
+    }
+  }
+
+  private Optional<ORetries.Retry> retryFor(
+    final int attempt,
+    final AttemptType.Failed<R> failed)
+  {
+    return this.client.retries()
+      .retry(
+        attempt,
+        failed.condition(),
+        failed.error().errorCode(),
+        failed.status(),
+        this.isIdempotent()
       );
+  }
+
+  private void sleep(
+    final Duration delay)
+    throws OException
+  {
+    try {
+      Thread.sleep(delay);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw this.errorInterrupted(e);
+    }
+  }
+
+  private OException errorInterrupted(
+    final InterruptedException e)
+  {
+    return new OException(
+      e,
+      "error-interruption",
+      Map.copyOf(this.attributes),
+      Optional.empty()
+    );
+  }
+
+  private <B> CompletableFuture<R> executeExchangeAsync(
+    final OExchange<B, R> exchange)
+  {
+    final var future = new CompletableFuture<R>();
+    this.attemptAsync(exchange, future, 1, 0);
+    return future;
+  }
+
+  private <B> void attemptAsync(
+    final OExchange<B, R> exchange,
+    final CompletableFuture<R> future,
+    final int attempt,
+    final int lastCost)
+  {
+    if (future.isDone()) {
+      return;
+    }
+
+    this.setAttribute("Attempt", Integer.toString(attempt));
+    final var permit = this.acquirePermit();
+    if (permit.delay() > 0L) {
+      final var delayed =
+        CompletableFuture.delayedExecutor(
+          permit.delay(),
+          TimeUnit.NANOSECONDS,
+          this.client.responseExecutor()
+        );
+      delayed.execute(() -> {
+        this.sendAsync(exchange, future, attempt, lastCost, permit);
+      });
+    } else {
+      this.sendAsync(exchange, future, attempt, lastCost, permit);
+    }
+  }
+
+  private <B> void sendAsync(
+    final OExchange<B, R> exchange,
+    final CompletableFuture<R> future,
+    final int attempt,
+    final int lastCost,
+    final ORateLimiters.Permit permit)
+  {
+    if (future.isDone()) {
+      return;
+    }
+
+    final var lane = this.client.transport().acquireLane();
+    final var metrics = this.startMetrics(exchange, attempt);
+    final var progress = new OBodyProgress();
+    final CompletableFuture<HttpResponse<OResponseBodyType<B>>> sent;
+    try {
+      sent = this.sendExchange(exchange, lane, metrics, progress);
+    } catch (final RuntimeException e) {
+      lane.release();
+      metrics.finished(0, Optional.of(OFailures.errorCodeOf(e)));
+      future.completeExceptionally(e);
+      return;
     }
 
+    future.whenComplete((result, failure) -> sent.cancel(true));
+
+    sent.whenCompleteAsync((response, failure) -> {
+      final AttemptType<R> result;
+      try {
+        if (failure != null) {
+          final var cause = OFailures.unwrap(failure);
+          if (!(cause instanceof final IOException e)) {
+            metrics.finished(0, Optional.of(OFailures.errorCodeOf(cause)));
+            future.completeExceptionally(cause);
+            return;
+          }
+          result = this.failedIO(e, metrics, progress);
+        } else {
+          result = this.attemptResponse(exchange, response, metrics);
+        }
+      } catch (final Throwable e) {
+        future.completeExceptionally(e);
+        return;
+      } finally {
+        lane.release();
+      }
+
+      switch (result) {
+        case final AttemptType.Succeeded<R> succeeded -> {
+          permit.succeeded();
+          this.client.retries().succeeded(lastCost);
+          future.complete(succeeded.value());
+        }
+        case final AttemptType.Failed<R> failed -> {
+          permitFailed(permit, failed);
+          final var retry = this.retryFor(attempt, failed);
+          if (retry.isEmpty()) {
+            future.completeExceptionally(failed.error());
+            return;
+          }
+
+          final var delayed =
+            CompletableFuture.delayedExecutor(
+              retry.get().delay().toNanos(),
+              TimeUnit.NANOSECONDS,
+              this.client.responseExecutor()
+            );
+
+          final var cost = retry.get().cost();
+          delayed.execute(() -> {
+            this.attemptAsync(exchange, future, attempt + 1, cost);
+          });
+        }
+      }
+    }, this.client.responseExecutor());
+  }
+
+  private <B> void setResponseAttributes(
+    final HttpResponse<OResponseBodyType<B>> response)
+  {
     this.setAttribute(
       "HTTP Status",
       Integer.toString(response.statusCode()));
@@ -362,17 +1239,102 @@ abstract class OCmdAbstract<P, R>
       "Content-Type",
       response.headers().firstValue("Content-Type").orElse("")
     );
+  }
 
-    if (response.statusCode() >= 400) {
-      throw OXErrorParsing.parseError(
+  private <B> OException errorResponse(
+    final HttpRequest request,
+    final int statusCode,
+    final OResponseBodyType.Failure<B> failure)
+  {
+    try {
+      if ("HEAD".equals(request.method())) {
+        return this.errorResponseWithoutBody(statusCode);
+      }
+      return OXErrorParsing.parseError(
         this.attributes,
         this.saxParsers(),
         request.uri(),
-        response.body()
+        failure.stream()
       );
+    } finally {
+      OResponseBodies.drainAndClose(failure.stream());
     }
+  }
+
+  /**
+   * The responses to HEAD requests have no body, and so errors can only be
+   * identified by their status codes.
+   */
+
+  private OException errorResponseWithoutBody(
+    final int statusCode)
+  {
+    return switch (statusCode) {
+      case 403 -> {
+        yield new OException(
+          "Access denied.",
+          "AccessDenied",
+          Map.copyOf(this.attributes)
+        );
+      }
+      case 404 -> {
+        yield new OException(
+          "The specified key does not exist.",
+          "NoSuchKey",
+          Map.copyOf(this.attributes)
+        );
+      }
+      case 412 -> {
+        yield new OException(
+          "A precondition did not hold.",
+          "PreconditionFailed",
+          Map.copyOf(this.attributes)
+        );
+      }
+      default -> {
+        yield new OException(
+          "The server returned an error response.",
+          "error-http-status",
+          Map.copyOf(this.attributes)
+        );
+      }
+    };
+  }
+
+  private <B> R handleResponse(
+    final OExchange<B, R> exchange,
+    final HttpResponse<OResponseBodyType<B>> response)
+    throws OException
+  {
+    this.setResponseAttributes(response);
 
-    return response;
+    /*
+     * Any response body that arrives as a stream is drained and closed once
+     * the response has been handled, so that the connection can be reused.
+     */
+
+    final var uri = exchange.request().uri();
+    return switch (response.body()) {
+      case final OResponseBodyType.Failure<B> failure -> {
+        throw this.errorResponse(
+          exchange.request(), response.statusCode(), failure);
+      }
+      case final OResponseBodyType.Success<B> success -> {
+        try {
+          yield exchange.result()
+            .apply(new OResponse<>(
+              uri,
+              response.statusCode(),
+              response.headers(),
+              success.value()
+            ));
+        } finally {
+          if (success.value() instanceof final InputStream stream) {
+            OResponseBodies.drainAndClose(stream);
+          }
+        }
+      }
+    };
   }
 
   private URI bucketEndpoint()
@@ -382,7 +1344,9 @@ abstract class OCmdAbstract<P, R>
       this.client.configuration()
         .endpoint();
 
-    if (this.bucket.isPresent()) {
+    if (this.bucket.isPresent()
+        && this.client.configuration().bucketAccessStyle()
+           == OClientBucketAccessStyle.VIRTUALHOST_STYLE) {
       final var bucketName =
         this.bucket.get();
 
@@ -415,14 +1379,7 @@ abstract class OCmdAbstract<P, R>
     text.append(this.credentialHeaderString());
     text.append(',');
     text.append("SignedHeaders=");
-    text.append(
-      canonical.headers()
-        .keySet()
-        .stream()
-        .sorted()
-        .map(x -> x.toLowerCase(Locale.ROOT))
-        .collect(Collectors.joining(";"))
-    );
+    text.append(canonical.signedHeaders());
     text.append(',');
     text.append("Signature=");
     text.append(signature);
@@ -456,20 +1413,16 @@ abstract class OCmdAbstract<P, R>
   }
 
   private <T> T parseNonError(
-    final HttpRequest request,
-    final BTQualifiedName name,
-    final BTElementHandlerConstructorType<Object, T> handler,
-    final HttpResponse<InputStream> response)
+    final Map<BTQualifiedName, BTElementHandlerConstructorType<?, T>> rootElements,
+    final OResponse<InputStream> response)
     throws OException
   {
     final var body =
       response.body();
-    final Map<BTQualifiedName, BTElementHandlerConstructorType<?, T>> rootElements =
-      Map.of(name, handler);
 
     try {
       return Blackthorne.parse(
-        request.uri(),
+        response.uri(),
         body,
         BTPreserveLexical.PRESERVE_LEXICAL_INFORMATION,
         () -> {
@@ -522,4 +1475,15 @@ abstract class OCmdAbstract<P, R>
   {
     this.bucket = Optional.of(inBucket);
   }
+
+  /**
+   * A function that produces the body of a request, given the signature of
+   * the request.
+   */
+
+  private interface BodyFactoryType
+  {
+    BodyPublisher create(String signature)
+      throws OException;
+  }
 }
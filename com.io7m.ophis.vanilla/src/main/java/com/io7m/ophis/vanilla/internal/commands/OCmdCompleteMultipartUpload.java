@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTQualifiedName;
+import com.io7m.blackthorne.core.Blackthorne;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadResponse;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadType;
+import com.io7m.ophis.api.commands.OError;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import com.io7m.ophis.vanilla.internal.xml.OXCompleteMultipartUpload;
+import com.io7m.ophis.vanilla.internal.xml.OXError;
+import com.io7m.ophis.vanilla.internal.xml.OXSerializers;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * CompleteMultipartUpload.
+ */
+
+public final class OCmdCompleteMultipartUpload
+  extends OCmdAbstract<
+  OCompleteMultipartUploadParameters,
+  OCompleteMultipartUploadResponse>
+  implements OCompleteMultipartUploadType
+{
+  OCmdCompleteMultipartUpload(
+    final OClient client,
+    final OCompleteMultipartUploadParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  @Override
+  protected boolean isIdempotent()
+  {
+    /*
+     * Once an upload has been completed, completing it again fails.
+     */
+
+    return false;
+  }
+
+  @Override
+  protected OExchange<?, OCompleteMultipartUploadResponse> prepare()
+    throws OException
+  {
+    final var parameters = this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.setKey(OResourceRelative.parse(parameters.key()));
+    this.queryParameterAdd("uploadId", parameters.uploadId());
+
+    /*
+     * The server may respond with a 200 status code and then report an
+     * error in the body of the response, so both the result and the error
+     * element are accepted as roots.
+     */
+
+    final Map<BTQualifiedName, BTElementHandlerConstructorType<?, Object>> roots =
+      Map.ofEntries(
+        Map.entry(
+          OXCompleteMultipartUpload.elementName(),
+          Blackthorne.widenConstructor(OXCompleteMultipartUpload::new)
+        ),
+        Map.entry(
+          OXError.elementName(),
+          Blackthorne.widenConstructor(OXError.constructor())
+        )
+      );
+
+    return this.exchangePOST(
+      OXSerializers.completeMultipartUpload(parameters.parts()),
+      roots
+    ).map(result -> {
+      return switch (result) {
+        case final OCompleteMultipartUploadResponse r -> r;
+        case final OError e -> throw this.errorFor(e);
+        default -> throw new IllegalStateException(
+          "Unexpected value: %s".formatted(result)
+        );
+      };
+    });
+  }
+
+  /**
+   * Any cached metadata for the object is invalidated once the write has
+   * finished, whether or not it succeeded.
+   */
+
+  @Override
+  protected void onFinished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var parameters = this.parameters();
+    this.client()
+      .metadataCache()
+      .invalidate(parameters.bucketName(), parameters.key());
+  }
+}
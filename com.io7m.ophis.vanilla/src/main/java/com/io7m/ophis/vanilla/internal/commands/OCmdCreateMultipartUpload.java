@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadParameters;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadResponse;
+import com.io7m.ophis.api.commands.OCreateMultipartUploadType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import com.io7m.ophis.vanilla.internal.OTimeFormatters;
+import com.io7m.ophis.vanilla.internal.xml.OXInitiateMultipartUpload;
+
+import java.util.Map;
+
+/**
+ * CreateMultipartUpload.
+ */
+
+public final class OCmdCreateMultipartUpload
+  extends OCmdAbstract<
+  OCreateMultipartUploadParameters,
+  OCreateMultipartUploadResponse>
+  implements OCreateMultipartUploadType
+{
+  OCmdCreateMultipartUpload(
+    final OClient client,
+    final OCreateMultipartUploadParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  @Override
+  protected boolean isIdempotent()
+  {
+    /*
+     * Each execution creates a new upload.
+     */
+
+    return false;
+  }
+
+  @Override
+  protected OExchange<?, OCreateMultipartUploadResponse> prepare()
+    throws OException
+  {
+    final var parameters = this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.setKey(OResourceRelative.parse(parameters.key()));
+    this.setHeader("Content-Type", parameters.contentType());
+    this.queryParameterAdd("uploads", "");
+
+    parameters.expires().ifPresent(time -> {
+      this.setHeader(
+        "Expires",
+        OTimeFormatters.httpHeaderFormat()
+          .format(time)
+      );
+    });
+
+    return this.exchangePOST(
+      new byte[0],
+      Map.of(
+        OXInitiateMultipartUpload.elementName(),
+        OXInitiateMultipartUpload::new
+      )
+    );
+  }
+}
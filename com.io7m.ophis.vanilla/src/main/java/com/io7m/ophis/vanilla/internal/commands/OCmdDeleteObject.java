@@ -0,0 +1,72 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.OUnit;
+import com.io7m.ophis.api.commands.ODeleteObjectParameters;
+import com.io7m.ophis.api.commands.ODeleteObjectType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+
+import java.net.http.HttpHeaders;
+import java.util.Optional;
+
+/**
+ * DeleteObject.
+ */
+
+public final class OCmdDeleteObject
+  extends OCmdAbstract<ODeleteObjectParameters, OUnit>
+  implements ODeleteObjectType
+{
+  OCmdDeleteObject(
+    final OClient client,
+    final ODeleteObjectParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  @Override
+  protected OExchange<?, OUnit> prepare()
+    throws OException
+  {
+    final var parameters = this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.setKey(OResourceRelative.parse(parameters.key()));
+
+    return this.exchangeDELETE((final HttpHeaders headers) -> OUnit.UNIT);
+  }
+
+  /**
+   * Any cached metadata for the object is invalidated once the write has
+   * finished, whether or not it succeeded.
+   */
+
+  @Override
+  protected void onFinished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var parameters = this.parameters();
+    this.client()
+      .metadataCache()
+      .invalidate(parameters.bucketName(), parameters.key());
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTQualifiedName;
+import com.io7m.blackthorne.core.Blackthorne;
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.ODeleteObjectsParameters;
+import com.io7m.ophis.api.commands.ODeleteObjectsResponse;
+import com.io7m.ophis.api.commands.ODeleteObjectsType;
+import com.io7m.ophis.api.commands.OError;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.ODigests;
+import com.io7m.ophis.vanilla.internal.xml.OXDeleteResult;
+import com.io7m.ophis.vanilla.internal.xml.OXError;
+import com.io7m.ophis.vanilla.internal.xml.OXSerializers;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * DeleteObjects.
+ */
+
+public final class OCmdDeleteObjects
+  extends OCmdAbstract<ODeleteObjectsParameters, ODeleteObjectsResponse>
+  implements ODeleteObjectsType
+{
+  OCmdDeleteObjects(
+    final OClient client,
+    final ODeleteObjectsParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  @Override
+  protected OExchange<?, ODeleteObjectsResponse> prepare()
+    throws OException
+  {
+    final var parameters = this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.queryParameterAdd("delete", "");
+
+    /*
+     * S3 refuses to process a multi-object delete unless the request body
+     * is accompanied by an integrity check.
+     */
+
+    final var body =
+      OXSerializers.deleteObjects(parameters.keys(), parameters.quiet());
+
+    this.setHeader("Content-MD5", ODigests.md5Base64(body));
+
+    final Map<BTQualifiedName, BTElementHandlerConstructorType<?, Object>> roots =
+      Map.ofEntries(
+        Map.entry(
+          OXDeleteResult.elementName(),
+          Blackthorne.widenConstructor(OXDeleteResult::new)
+        ),
+        Map.entry(
+          OXError.elementName(),
+          Blackthorne.widenConstructor(OXError.constructor())
+        )
+      );
+
+    return this.exchangePOST(body, roots).map(result -> {
+      return switch (result) {
+        case final ODeleteObjectsResponse r -> r;
+        case final OError e -> throw this.errorFor(e);
+        default -> throw new IllegalStateException(
+          "Unexpected value: %s".formatted(result)
+        );
+      };
+    });
+  }
+
+  /**
+   * Any cached metadata for the objects is invalidated once the deletion
+   * has finished, whether or not it succeeded.
+   */
+
+  @Override
+  protected void onFinished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var parameters = this.parameters();
+    final var cache = this.client().metadataCache();
+    for (final var key : parameters.keys()) {
+      cache.invalidate(parameters.bucketName(), key);
+    }
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OChecksum;
+import com.io7m.ophis.api.commands.OGetObjectParameters;
+import com.io7m.ophis.api.commands.OGetObjectResponse;
+import com.io7m.ophis.api.commands.OGetObjectSinkChannel;
+import com.io7m.ophis.api.commands.OGetObjectSinkFile;
+import com.io7m.ophis.api.commands.OGetObjectSinkStream;
+import com.io7m.ophis.api.commands.OGetObjectType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+
+import java.io.IOException;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * GetObject.
+ */
+
+public final class OCmdGetObject
+  extends OCmdAbstract<OGetObjectParameters, OGetObjectResponse>
+  implements OGetObjectType
+{
+  OCmdGetObject(
+    final OClient client,
+    final OGetObjectParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  private static Optional<OffsetDateTime> parseLastModified(
+    final HttpHeaders headers)
+  {
+    try {
+      return headers.firstValue("Last-Modified")
+        .map(text -> {
+          return OffsetDateTime.parse(
+            text,
+            DateTimeFormatter.RFC_1123_DATE_TIME
+          );
+        });
+    } catch (final DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Parse the total object size from a {@code Content-Range} header of the
+   * form {@code bytes 0-99/1234}. The size may legitimately be given as
+   * {@code *} if the server does not know it.
+   */
+
+  private static Optional<Long> parseObjectSize(
+    final HttpHeaders headers)
+  {
+    return headers.firstValue("Content-Range")
+      .flatMap(text -> {
+        final var slash = text.lastIndexOf('/');
+        if (slash == -1) {
+          return Optional.empty();
+        }
+        try {
+          return Optional.of(
+            Long.valueOf(Long.parseUnsignedLong(text.substring(slash + 1)))
+          );
+        } catch (final NumberFormatException e) {
+          return Optional.empty();
+        }
+      });
+  }
+
+  @Override
+  protected boolean isDeliveredToSink()
+  {
+    /*
+     * Files and channels are written to as the response arrives. Streams
+     * are only handed to the receiver once the request has succeeded.
+     */
+
+    return !(this.parameters().sink() instanceof OGetObjectSinkStream);
+  }
+
+  @Override
+  protected boolean isHedgeable()
+  {
+    /*
+     * Two responses must never be delivered to the same sink at once.
+     */
+
+    return !this.isDeliveredToSink();
+  }
+
+  @Override
+  protected OExchange<?, OGetObjectResponse> prepare()
+    throws OException
+  {
+    final var parameters =
+      this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.setKey(OResourceRelative.parse(parameters.key()));
+
+    parameters.range().ifPresent(range -> {
+      this.setHeader(
+        "Range",
+        "bytes=%s-%s".formatted(
+          Long.toUnsignedString(range.offset()),
+          Long.toUnsignedString(range.last())
+        )
+      );
+    });
+    parameters.ifMatch().ifPresent(tag -> {
+      this.setHeader("If-Match", tag);
+    });
+
+    /*
+     * The server only has checksums of entire objects, so there is nothing
+     * to check if only a range of the object is fetched.
+     */
+
+    final var validate =
+      parameters.checksumValidation() && parameters.range().isEmpty();
+
+    if (validate) {
+      this.setHeader("x-amz-checksum-mode", "ENABLED");
+    }
+
+    /*
+     * The object data is handed to the sink directly from the buffers of
+     * the HTTP client; files and channels are written to as the buffers
+     * arrive, and streams read from those same buffers. Checksums, if
+     * requested, are calculated over the buffers as they pass through.
+     */
+
+    return switch (parameters.sink()) {
+      case final OGetObjectSinkFile file -> {
+        this.setAttribute("File", file.file().toAbsolutePath().toString());
+        yield this.exchangeGETWith(
+          OChecksumBodySubscriber.handler(
+            BodyHandlers.ofFile(file.file(), CREATE, WRITE, TRUNCATE_EXISTING),
+            validate
+          ),
+          response -> this.responseFor(response.headers(), response.body())
+        );
+      }
+
+      case final OGetObjectSinkChannel channel -> {
+        yield this.exchangeGETWith(
+          OChecksumBodySubscriber.handler(
+            info -> new OChannelBodySubscriber(channel.channel()),
+            validate
+          ),
+          response -> this.responseFor(response.headers(), response.body())
+        );
+      }
+
+      case final OGetObjectSinkStream stream -> {
+        yield this.exchangeGETWith(
+          OChecksumBodySubscriber.handler(
+            BodyHandlers.ofInputStream(),
+            validate
+          ),
+          response -> {
+            final var input = response.body().body();
+            try {
+              stream.receiver().receive(input);
+            } catch (final IOException e) {
+              throw this.errorIO(e);
+            } finally {
+              OResponseBodies.drainAndClose(input);
+            }
+            return this.responseFor(response.headers(), response.body());
+          }
+        );
+      }
+    };
+  }
+
+  /**
+   * Check the checksum calculated over the object data against the checksum
+   * provided by the server. The checksum cannot be checked if a stream
+   * receiver did not consume the entire object.
+   */
+
+  private Optional<OChecksum> checkChecksum(
+    final OChecksumBodySubscriber.Result<?> result)
+    throws OException
+  {
+    final var expectedOpt = result.expected();
+    final var receivedOpt = result.received();
+    if (expectedOpt.isEmpty() || receivedOpt.isEmpty()) {
+      return Optional.empty();
+    }
+
+    final var expected = expectedOpt.get();
+    final var received = receivedOpt.get();
+    if (!expected.equals(received)) {
+      this.setAttribute("Checksum Algorithm", expected.algorithm().name());
+      this.setAttribute("Checksum Expected", expected.value());
+      this.setAttribute("Checksum Received", received.value());
+      throw this.errorOf(
+        "The object data did not match the checksum provided by the server.",
+        "error-checksum-mismatch"
+      );
+    }
+    return Optional.of(expected);
+  }
+
+  private OGetObjectResponse responseFor(
+    final HttpHeaders headers,
+    final OChecksumBodySubscriber.Result<?> result)
+    throws OException
+  {
+    final var checksum = this.checkChecksum(result);
+
+    /*
+     * A response may not declare its length at all (a chunked HTTP/1.1
+     * response, or an HTTP/2 response), and the body has already been
+     * delivered to the sink by now, so the length is taken from the body
+     * that actually arrived in that case.
+     */
+
+    final var contentLength =
+      headers.firstValueAsLong("Content-Length")
+        .orElse(result.size());
+
+    final var builder = OGetObjectResponse.builder();
+    builder.setContentLength(contentLength);
+    builder.setObjectSize(
+      parseObjectSize(headers)
+        .orElse(Long.valueOf(contentLength))
+        .longValue()
+    );
+    headers.firstValue("Content-Type")
+      .ifPresent(builder::setContentType);
+    builder.setETag(headers.firstValue("ETag"));
+    builder.setLastModified(parseLastModified(headers));
+    builder.setChecksum(checksum);
+    return builder.build();
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.OUnit;
+import com.io7m.ophis.api.commands.OHeadObjectParameters;
+import com.io7m.ophis.api.commands.OHeadObjectResponse;
+import com.io7m.ophis.api.commands.OHeadObjectType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+
+import java.net.http.HttpHeaders;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * HeadObject. If a previous response is given, the request is made
+ * conditional on its entity tag, and the previous response is returned if
+ * the object has not changed.
+ */
+
+public final class OCmdHeadObject
+  extends OCmdAbstract<OHeadObjectParameters, OHeadObjectResponse>
+  implements OHeadObjectType
+{
+  private static final String METADATA_PREFIX = "x-amz-meta-";
+
+  private final Optional<OHeadObjectResponse> previous;
+
+  OCmdHeadObject(
+    final OClient client,
+    final OHeadObjectParameters parameters,
+    final Optional<OHeadObjectResponse> inPrevious)
+  {
+    super(client, parameters);
+    this.previous = Objects.requireNonNull(inPrevious, "previous");
+  }
+
+  private static Optional<OffsetDateTime> parseLastModified(
+    final HttpHeaders headers)
+  {
+    try {
+      return headers.firstValue("Last-Modified")
+        .map(text -> {
+          return OffsetDateTime.parse(
+            text,
+            DateTimeFormatter.RFC_1123_DATE_TIME
+          );
+        });
+    } catch (final DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  protected boolean isHedgeable()
+  {
+    return true;
+  }
+
+  @Override
+  protected OExchange<?, OHeadObjectResponse> prepare()
+    throws OException
+  {
+    final var parameters = this.parameters();
+
+    this.setBucket(parameters.bucketName());
+    this.setKey(OResourceRelative.parse(parameters.key()));
+    this.previous.ifPresent(p -> this.setHeader("If-None-Match", p.eTag()));
+
+    return this.exchangeHEAD(this::responseFor);
+  }
+
+  private OHeadObjectResponse responseFor(
+    final OResponse<OUnit> response)
+    throws OException
+  {
+    if (response.statusCode() == 304 && this.previous.isPresent()) {
+      return this.previous.get();
+    }
+
+    final var headers = response.headers();
+    final var builder = OHeadObjectResponse.builder();
+    builder.setSize(
+      Long.parseUnsignedLong(
+        this.requireHeader(
+          "Content-Length",
+          headers.firstValue("Content-Length")
+        )
+      )
+    );
+    builder.setETag(this.requireHeader("ETag", headers.firstValue("ETag")));
+    builder.setLastModified(parseLastModified(headers));
+    headers.firstValue("Content-Type")
+      .ifPresent(builder::setContentType);
+
+    final var metadata = new HashMap<String, String>();
+    for (final var entry : headers.map().entrySet()) {
+      final var name = entry.getKey().toLowerCase(Locale.ROOT);
+      if (name.startsWith(METADATA_PREFIX) && !entry.getValue().isEmpty()) {
+        metadata.put(
+          name.substring(METADATA_PREFIX.length()),
+          entry.getValue().get(0)
+        );
+      }
+    }
+    builder.setMetadata(metadata);
+    return builder.build();
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OHeadObjectParameters;
+import com.io7m.ophis.api.commands.OHeadObjectResponse;
+import com.io7m.ophis.api.commands.OHeadObjectType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OMetadataCache;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HeadObject through the client's metadata cache. A fresh cached response
+ * is returned without sending a request; a stale cached response is
+ * revalidated with a conditional request.
+ */
+
+final class OCmdHeadObjectCached
+  implements OHeadObjectType
+{
+  private final OClient client;
+  private final OHeadObjectParameters parameters;
+  private final OMetadataCache cache;
+
+  OCmdHeadObjectCached(
+    final OClient inClient,
+    final OHeadObjectParameters inParameters)
+  {
+    this.client =
+      Objects.requireNonNull(inClient, "client");
+    this.parameters =
+      Objects.requireNonNull(inParameters, "parameters");
+    this.cache =
+      inClient.metadataCache();
+  }
+
+  @Override
+  public OHeadObjectResponse execute()
+    throws OException
+  {
+    final var bucket = this.parameters.bucketName();
+    final var key = this.parameters.key();
+    final var cached = this.cache.get(bucket, key);
+    if (cached.isPresent() && cached.get().fresh()) {
+      return cached.get().response();
+    }
+
+    final var requestedAt = this.cache.now();
+    try {
+      final var response =
+        this.command(cached).execute();
+      this.cache.put(bucket, key, response, requestedAt);
+      return response;
+    } catch (final OException e) {
+      this.cache.invalidate(bucket, key);
+      throw e;
+    }
+  }
+
+  @Override
+  public CompletableFuture<OHeadObjectResponse> executeAsync()
+  {
+    final var bucket = this.parameters.bucketName();
+    final var key = this.parameters.key();
+    final var cached = this.cache.get(bucket, key);
+    if (cached.isPresent() && cached.get().fresh()) {
+      return CompletableFuture.completedFuture(cached.get().response());
+    }
+
+    final var requestedAt = this.cache.now();
+    final var sent = this.command(cached).executeAsync();
+    final var result =
+      sent.whenComplete((response, failure) -> {
+        if (failure == null) {
+          this.cache.put(bucket, key, response, requestedAt);
+        } else {
+          this.cache.invalidate(bucket, key);
+        }
+      });
+
+    result.whenComplete((response, failure) -> {
+      if (result.isCancelled()) {
+        sent.cancel(true);
+      }
+    });
+    return result;
+  }
+
+  private OCmdHeadObject command(
+    final Optional<OMetadataCache.Lookup> cached)
+  {
+    return new OCmdHeadObject(
+      this.client,
+      this.parameters,
+      cached.map(OMetadataCache.Lookup::response)
+    );
+  }
+}
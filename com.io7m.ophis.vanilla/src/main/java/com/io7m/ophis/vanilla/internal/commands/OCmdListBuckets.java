@@ -41,14 +41,20 @@ public final class OCmdListBuckets
   }
 
   @Override
-  public OListBucketsResponse execute()
+  protected boolean isHedgeable()
+  {
+    return true;
+  }
+
+  @Override
+  protected OExchange<?, OListBucketsResponse> prepare()
     throws OException
   {
     this.parameters().ifPresent(s -> {
       this.queryParameterAdd("continuation-token", s);
     });
 
-    return this.sendGET(
+    return this.exchangeGET(
       OXListBuckets.elementName(),
       OXListBuckets::new
     );
@@ -25,7 +25,7 @@ import com.io7m.ophis.vanilla.internal.OClient;
 import com.io7m.ophis.vanilla.internal.xml.OXListObjects;
 
 /**
- * ListObjects.
+ * ListObjects (ListObjectsV2).
  */
 
 public final class OCmdListObjects
@@ -40,12 +40,49 @@ public final class OCmdListObjects
   }
 
   @Override
-  public OListObjectsResponse execute()
+  protected boolean isHedgeable()
+  {
+    return true;
+  }
+
+  @Override
+  protected OExchange<?, OListObjectsResponse> prepare()
     throws OException
   {
-    this.setBucket(this.parameters().bucketName());
+    final var parameters = this.parameters();
+    this.setBucket(parameters.bucketName());
+
+    this.queryParameterAdd("list-type", "2");
+    this.queryParameterAdd(
+      "max-keys",
+      Integer.toUnsignedString(parameters.maximumKeys())
+    );
+    if (!parameters.prefix().isEmpty()) {
+      this.queryParameterAdd("prefix", parameters.prefix());
+    }
+    if (!parameters.delimiter().isEmpty()) {
+      this.queryParameterAdd("delimiter", parameters.delimiter());
+    }
+
+    /*
+     * S3 ignores start-after when a continuation token is present, and
+     * some implementations reject requests that contain both.
+     */
+
+    final var token = parameters.continuationToken();
+    if (token.isPresent()) {
+      this.queryParameterAdd("continuation-token", token.get());
+    } else if (!parameters.startAfter().isEmpty()) {
+      this.queryParameterAdd("start-after", parameters.startAfter());
+    }
+    if ("url".equalsIgnoreCase(parameters.encoding())) {
+      this.queryParameterAdd("encoding-type", "url");
+    }
+    if (parameters.fetchOwner()) {
+      this.queryParameterAdd("fetch-owner", "true");
+    }
 
-    return this.sendGET(
+    return this.exchangeGET(
       OXListObjects.elementName(),
       OXListObjects::new
     );
@@ -23,10 +23,12 @@ import com.io7m.ophis.api.commands.OPutObjectParameters;
 import com.io7m.ophis.api.commands.OPutObjectResponse;
 import com.io7m.ophis.api.commands.OPutObjectType;
 import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.ODigests;
 import com.io7m.ophis.vanilla.internal.OResourceRelative;
 import com.io7m.ophis.vanilla.internal.OTimeFormatters;
 
 import java.net.http.HttpHeaders;
+import java.util.Optional;
 
 /**
  * PutObject.
@@ -44,7 +46,7 @@ public final class OCmdPutObject
   }
 
   @Override
-  public OPutObjectResponse execute()
+  protected OExchange<?, OPutObjectResponse> prepare()
     throws OException
   {
     final var parameters =
@@ -54,9 +56,20 @@ public final class OCmdPutObject
 
     this.setBucket(parameters.bucketName());
     this.setHeader("Content-Type", parameters.contentType());
-    this.setHeader("Content-MD5", data.md5());
-    this.setHeader("Content-Length", Long.toUnsignedString(data.size()));
-    this.setHeader("x-amz-checksum-sha256", data.sha256());
+
+    /*
+     * If a checksum algorithm has been requested, the checksum is sent in
+     * the trailer, and the server will reject requests that carry more than
+     * one checksum.
+     */
+
+    final var checksum = parameters.checksumAlgorithm();
+    if (checksum.isEmpty()) {
+      data.md5().ifPresent(md5 -> this.setHeader("Content-MD5", md5));
+      data.sha256().ifPresent(sha256 -> {
+        this.setHeader("x-amz-checksum-sha256", ODigests.hexToBase64(sha256));
+      });
+    }
 
     parameters.expires().ifPresent(time -> {
       this.setHeader(
@@ -66,8 +79,9 @@ public final class OCmdPutObject
       );
     });
 
-    return this.sendPUT(
+    return this.exchangePUT(
       data,
+      checksum,
       OResourceRelative.parse(parameters.key()),
       (final HttpHeaders headers) -> {
         return OPutObjectResponse.builder()
@@ -75,4 +89,20 @@ public final class OCmdPutObject
       }
     );
   }
+
+  /**
+   * Any cached metadata for the object is invalidated once the write has
+   * finished, whether or not it succeeded.
+   */
+
+  @Override
+  protected void onFinished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var parameters = this.parameters();
+    this.client()
+      .metadataCache()
+      .invalidate(parameters.bucketName(), parameters.key());
+  }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+import com.io7m.ophis.api.commands.OUploadPartParameters;
+import com.io7m.ophis.api.commands.OUploadPartResponse;
+import com.io7m.ophis.api.commands.OUploadPartType;
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OResourceRelative;
+import jdk.jfr.EventType;
+
+import java.net.http.HttpHeaders;
+import java.util.Optional;
+
+/**
+ * UploadPart.
+ */
+
+public final class OCmdUploadPart
+  extends OCmdAbstract<OUploadPartParameters, OUploadPartResponse>
+  implements OUploadPartType
+{
+  private static final EventType PART_EVENTS =
+    EventType.getEventType(OEventUploadPart.class);
+
+  private OEventUploadPart event;
+
+  OCmdUploadPart(
+    final OClient client,
+    final OUploadPartParameters parameters)
+  {
+    super(client, parameters);
+  }
+
+  @Override
+  protected OExchange<?, OUploadPartResponse> prepare()
+    throws OException
+  {
+    final var parameters =
+      this.parameters();
+    final var data =
+      parameters.data();
+
+    if (PART_EVENTS.isEnabled()) {
+      this.event = new OEventUploadPart();
+      this.event.begin();
+    }
+
+    this.setBucket(parameters.bucketName());
+    data.md5().ifPresent(md5 -> this.setHeader("Content-MD5", md5));
+    this.queryParameterAdd(
+      "partNumber",
+      Integer.toUnsignedString(parameters.partNumber())
+    );
+    this.queryParameterAdd("uploadId", parameters.uploadId());
+
+    return this.exchangePUT(
+      data,
+      Optional.empty(),
+      OResourceRelative.parse(parameters.key()),
+      (final HttpHeaders headers) -> headers.firstValue("ETag")
+    ).map(eTag -> {
+      return OUploadPartResponse.builder()
+        .setETag(this.requireHeader("ETag", eTag))
+        .build();
+    });
+  }
+
+  @Override
+  protected void onFinished(
+    final int statusCode,
+    final Optional<String> errorCode)
+  {
+    final var e = this.event;
+    if (e == null || !e.shouldCommit()) {
+      return;
+    }
+
+    final var parameters = this.parameters();
+    e.setCommand(OUploadPartType.class);
+    e.setBucket(parameters.bucketName());
+    e.setKey(parameters.key());
+    e.setUploadId(parameters.uploadId());
+    e.setPartNumber(parameters.partNumber());
+    e.setStatus(statusCode);
+    e.setErrorCode(errorCode.orElse(null));
+    e.setBytesSent(parameters.data().size());
+    e.commit();
+  }
+}
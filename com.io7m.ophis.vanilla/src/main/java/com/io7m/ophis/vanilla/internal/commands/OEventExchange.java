@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A single HTTP exchange, from sending the request until the response is
+ * available to be handled.
+ */
+
+@Name("com.io7m.ophis.Exchange")
+@Label("HTTP Exchange")
+@Category({"Ophis", "S3"})
+@Description("An HTTP request was sent and its response arrived.")
+@StackTrace(false)
+final class OEventExchange extends Event
+{
+  @Label("Command")
+  private String command;
+
+  @Label("Bucket")
+  private String bucket;
+
+  @Label("Key")
+  private String key;
+
+  @Label("Method")
+  private String method;
+
+  @Label("Attempt")
+  private int attempt;
+
+  @Label("Status")
+  private int status;
+
+  @Label("Error Code")
+  private String errorCode;
+
+  @Label("Bytes Sent")
+  @DataAmount
+  private long bytesSent;
+
+  @Label("Bytes Received")
+  @DataAmount
+  private long bytesReceived;
+
+  OEventExchange()
+  {
+
+  }
+
+  void setCommand(
+    final Class<?> inCommand)
+  {
+    this.command = inCommand.getSimpleName();
+  }
+
+  void setBucket(
+    final String inBucket)
+  {
+    this.bucket = inBucket;
+  }
+
+  void setKey(
+    final String inKey)
+  {
+    this.key = inKey;
+  }
+
+  void setMethod(
+    final String inMethod)
+  {
+    this.method = inMethod;
+  }
+
+  void setAttempt(
+    final int inAttempt)
+  {
+    this.attempt = inAttempt;
+  }
+
+  void setStatus(
+    final int inStatus)
+  {
+    this.status = inStatus;
+  }
+
+  void setErrorCode(
+    final String inErrorCode)
+  {
+    this.errorCode = inErrorCode;
+  }
+
+  void setBytesSent(
+    final long inBytesSent)
+  {
+    this.bytesSent = inBytesSent;
+  }
+
+  void setBytesReceived(
+    final long inBytesReceived)
+  {
+    this.bytesReceived = inBytesReceived;
+  }
+}
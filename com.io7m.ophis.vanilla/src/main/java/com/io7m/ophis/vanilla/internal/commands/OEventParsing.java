@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A response was handled. For responses that are consumed as they arrive,
+ * this includes the time spent receiving the remainder of the body.
+ */
+
+@Name("com.io7m.ophis.Parsing")
+@Label("Response Parsing")
+@Category({"Ophis", "S3"})
+@Description("An HTTP response was parsed or consumed.")
+@StackTrace(false)
+final class OEventParsing extends Event
+{
+  @Label("Command")
+  private String command;
+
+  @Label("Bucket")
+  private String bucket;
+
+  @Label("Key")
+  private String key;
+
+  @Label("Status")
+  private int status;
+
+  @Label("Error Code")
+  private String errorCode;
+
+  @Label("Bytes Received")
+  @DataAmount
+  private long bytesReceived;
+
+  OEventParsing()
+  {
+
+  }
+
+  void setCommand(
+    final Class<?> inCommand)
+  {
+    this.command = inCommand.getSimpleName();
+  }
+
+  void setBucket(
+    final String inBucket)
+  {
+    this.bucket = inBucket;
+  }
+
+  void setKey(
+    final String inKey)
+  {
+    this.key = inKey;
+  }
+
+  void setStatus(
+    final int inStatus)
+  {
+    this.status = inStatus;
+  }
+
+  void setErrorCode(
+    final String inErrorCode)
+  {
+    this.errorCode = inErrorCode;
+  }
+
+  void setBytesReceived(
+    final long inBytesReceived)
+  {
+    this.bytesReceived = inBytesReceived;
+  }
+}
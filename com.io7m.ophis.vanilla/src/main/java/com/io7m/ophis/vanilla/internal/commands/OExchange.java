@@ -0,0 +1,67 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandler;
+import java.util.Objects;
+
+/**
+ * A signed request that is ready to be sent, along with the means to
+ * consume the body of a successful response and turn it into a result.
+ * Exchanges can be executed either synchronously or asynchronously.
+ *
+ * @param request     The request
+ * @param bodyHandler The handler for successful response bodies
+ * @param result      The function that produces a result from a response
+ * @param <B>         The type of response bodies
+ * @param <R>         The type of results
+ */
+
+record OExchange<B, R>(
+  HttpRequest request,
+  BodyHandler<B> bodyHandler,
+  OResponseFunctionType<OResponse<B>, R> result)
+{
+  OExchange
+  {
+    Objects.requireNonNull(request, "request");
+    Objects.requireNonNull(bodyHandler, "bodyHandler");
+    Objects.requireNonNull(result, "result");
+  }
+
+  /**
+   * Transform the result of the exchange.
+   *
+   * @param f   The transform
+   * @param <S> The type of transformed results
+   *
+   * @return An exchange with a transformed result
+   */
+
+  <S> OExchange<B, S> map(
+    final OResponseFunctionType<R, S> f)
+  {
+    Objects.requireNonNull(f, "f");
+    return new OExchange<>(
+      this.request,
+      this.bodyHandler,
+      response -> f.apply(this.result.apply(response))
+    );
+  }
+}
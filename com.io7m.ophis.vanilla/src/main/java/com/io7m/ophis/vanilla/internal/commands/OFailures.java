@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.api.OException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Functions to examine the failures of commands.
+ */
+
+final class OFailures
+{
+  private OFailures()
+  {
+
+  }
+
+  /**
+   * @param failure The failure of a future
+   *
+   * @return The failure that caused a future to complete exceptionally
+   */
+
+  static Throwable unwrap(
+    final Throwable failure)
+  {
+    final var wrapped =
+      failure instanceof CompletionException
+      || failure instanceof ExecutionException;
+
+    if (wrapped && failure.getCause() != null) {
+      return failure.getCause();
+    }
+    return failure;
+  }
+
+  /**
+   * @param e The failure
+   *
+   * @return The error code of the failure, or the name of its class
+   */
+
+  static String errorCodeOf(
+    final Throwable e)
+  {
+    if (e instanceof final OException x) {
+      return x.errorCode();
+    }
+    return e.getClass().getName();
+  }
+}
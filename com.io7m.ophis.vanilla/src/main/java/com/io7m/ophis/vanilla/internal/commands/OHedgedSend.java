@@ -0,0 +1,228 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import com.io7m.ophis.vanilla.internal.OClient;
+import com.io7m.ophis.vanilla.internal.OTransportLane;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * A hedged request: the request is sent, and if no response has arrived
+ * after the hedging delay, the request is sent again on another lane. The
+ * first response wins; the other request is cancelled, and the body of any
+ * response that arrives too late is discarded.
+ *
+ * The hedging delay is derived from the time the first request takes to
+ * produce response headers, whichever request wins. Sampling only the
+ * winners would censor the slow tail (a slow first request usually loses to
+ * its hedge), and the delay would drift downwards and hedge ever more
+ * requests. If the hedge wins before the first request's headers arrive,
+ * the time elapsed so far is recorded instead; that time is at least the
+ * hedging delay, and so the sample still counts as a slow response.
+ *
+ * @param <T> The type of response bodies
+ */
+
+final class OHedgedSend<T>
+{
+  private final OClient client;
+  private final Class<?> command;
+  private final HttpRequest request;
+  private final BodyHandler<T> handler;
+  private final OAttemptMetrics metrics;
+  private final Consumer<HttpResponse<T>> discard;
+  private final CompletableFuture<HttpResponse<T>> winner;
+  private final List<CompletableFuture<HttpResponse<T>>> sends;
+  private final AtomicInteger pending;
+  private final AtomicReference<Throwable> failure;
+  private final AtomicBoolean sampled;
+  private final long started;
+
+  private OHedgedSend(
+    final OClient inClient,
+    final Class<?> inCommand,
+    final HttpRequest inRequest,
+    final BodyHandler<T> inHandler,
+    final OAttemptMetrics inMetrics,
+    final Consumer<HttpResponse<T>> inDiscard)
+  {
+    this.client =
+      Objects.requireNonNull(inClient, "client");
+    this.command =
+      Objects.requireNonNull(inCommand, "command");
+    this.request =
+      Objects.requireNonNull(inRequest, "request");
+    this.handler =
+      Objects.requireNonNull(inHandler, "handler");
+    this.metrics =
+      Objects.requireNonNull(inMetrics, "metrics");
+    this.discard =
+      Objects.requireNonNull(inDiscard, "discard");
+    this.winner =
+      new CompletableFuture<>();
+    this.sends =
+      new CopyOnWriteArrayList<>();
+    this.pending =
+      new AtomicInteger(0);
+    this.failure =
+      new AtomicReference<>();
+    this.sampled =
+      new AtomicBoolean(false);
+    this.started =
+      System.nanoTime();
+  }
+
+  /**
+   * Send a hedged request.
+   *
+   * @param client  The client
+   * @param command The kind of command
+   * @param request The request
+   * @param handler The response body handler
+   * @param metrics The metrics for the attempt
+   * @param lane    The lane on which to send the first request
+   * @param discard A function that discards responses that lose
+   * @param <T>     The type of response bodies
+   *
+   * @return The first response
+   */
+
+  static <T> CompletableFuture<HttpResponse<T>> send(
+    final OClient client,
+    final Class<?> command,
+    final HttpRequest request,
+    final BodyHandler<T> handler,
+    final OAttemptMetrics metrics,
+    final OTransportLane lane,
+    final Consumer<HttpResponse<T>> discard)
+  {
+    final var hedged =
+      new OHedgedSend<>(client, command, request, handler, metrics, discard);
+
+    hedged.winner.whenComplete((response, error) -> {
+      if (hedged.winner.isCancelled()) {
+        hedged.cancelAllExcept(null);
+      }
+    });
+
+    hedged.start(lane.httpClient(), () -> { }, true);
+
+    final var delay =
+      client.hedging().delayFor(command);
+    final var delayed =
+      CompletableFuture.delayedExecutor(
+        delay.toNanos(),
+        TimeUnit.NANOSECONDS,
+        client.responseExecutor()
+      );
+
+    delayed.execute(() -> {
+      if (!hedged.winner.isDone()) {
+        final var hedgeLane = client.transport().acquireLane();
+        hedged.start(hedgeLane.httpClient(), hedgeLane::release, false);
+      }
+    });
+    return hedged.winner;
+  }
+
+  private void start(
+    final HttpClient httpClient,
+    final Runnable release,
+    final boolean primary)
+  {
+    this.pending.incrementAndGet();
+
+    final var meter = new OResponseMeter();
+    final var metered = this.metrics.wrap(this.handler, meter);
+    final BodyHandler<T> sendHandler;
+    if (primary) {
+      sendHandler = info -> {
+        this.sample();
+        return metered.apply(info);
+      };
+    } else {
+      sendHandler = metered;
+    }
+
+    final CompletableFuture<HttpResponse<T>> future;
+    try {
+      future = httpClient.sendAsync(this.request, sendHandler);
+    } catch (final RuntimeException e) {
+      release.run();
+      this.failed(e);
+      return;
+    }
+
+    this.sends.add(future);
+    future.whenComplete((response, error) -> {
+      release.run();
+      if (error != null) {
+        this.failed(error);
+        return;
+      }
+
+      if (this.winner.complete(response)) {
+        this.metrics.adopt(meter);
+        this.sample();
+        this.cancelAllExcept(future);
+      } else {
+        this.discard.accept(response);
+      }
+    });
+  }
+
+  private void sample()
+  {
+    if (this.sampled.compareAndSet(false, true)) {
+      this.client.hedging()
+        .record(this.command, System.nanoTime() - this.started);
+    }
+  }
+
+  private void failed(
+    final Throwable error)
+  {
+    this.failure.compareAndSet(null, error);
+    if (this.pending.decrementAndGet() == 0) {
+      this.winner.completeExceptionally(this.failure.get());
+    }
+  }
+
+  private void cancelAllExcept(
+    final CompletableFuture<HttpResponse<T>> future)
+  {
+    for (final var send : this.sends) {
+      if (send != future) {
+        send.cancel(true);
+      }
+    }
+  }
+}
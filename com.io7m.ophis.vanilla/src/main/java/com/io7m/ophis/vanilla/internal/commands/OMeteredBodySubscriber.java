@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * A body subscriber that counts the bytes of a response body, and records
+ * the time at which the body ended.
+ *
+ * @param <T> The type of response bodies
+ */
+
+final class OMeteredBodySubscriber<T> implements BodySubscriber<T>
+{
+  private final OResponseMeter meter;
+  private final BodySubscriber<T> delegate;
+
+  OMeteredBodySubscriber(
+    final OResponseMeter inMeter,
+    final BodySubscriber<T> inDelegate)
+  {
+    this.meter =
+      Objects.requireNonNull(inMeter, "meter");
+    this.delegate =
+      Objects.requireNonNull(inDelegate, "delegate");
+  }
+
+  @Override
+  public CompletionStage<T> getBody()
+  {
+    return this.delegate.getBody();
+  }
+
+  @Override
+  public void onSubscribe(
+    final Flow.Subscription subscription)
+  {
+    this.delegate.onSubscribe(subscription);
+  }
+
+  @Override
+  public void onNext(
+    final List<ByteBuffer> items)
+  {
+    var size = 0L;
+    for (final var item : items) {
+      size += item.remaining();
+    }
+    this.meter.received(size);
+    this.delegate.onNext(items);
+  }
+
+  @Override
+  public void onError(
+    final Throwable throwable)
+  {
+    this.meter.bodyCompleted();
+    this.delegate.onError(throwable);
+  }
+
+  @Override
+  public void onComplete()
+  {
+    this.meter.bodyCompleted();
+    this.delegate.onComplete();
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Functions to release response bodies.
+ */
+
+final class OResponseBodies
+{
+  /**
+   * The maximum number of octets that will be read and discarded in order to
+   * reach the end of a response body. Reading an arbitrary amount of unwanted
+   * data costs more than opening a new connection.
+   */
+
+  private static final int DRAIN_LIMIT =
+    64 * 1024;
+
+  private OResponseBodies()
+  {
+
+  }
+
+  /**
+   * Read and discard whatever remains of a response body, and then close it.
+   * The HTTP client only returns a connection to its pool once the body of
+   * the response has been read to the end; a body that is closed early
+   * causes the connection to be closed, and a body that is never closed
+   * holds the connection (and the client) open indefinitely. If more than
+   * a small amount of the body remains, the body is closed without being
+   * read to the end.
+   *
+   * @param stream The response body
+   */
+
+  static void drainAndClose(
+    final InputStream stream)
+  {
+    try (stream) {
+      final var buffer = new byte[4096];
+      var remaining = DRAIN_LIMIT;
+      while (remaining > 0) {
+        final var r = stream.read(buffer, 0, Math.min(buffer.length, remaining));
+        if (r == -1) {
+          break;
+        }
+        remaining -= r;
+      }
+    } catch (final IOException e) {
+      // The connection will not be reused; there is nothing else to do.
+    }
+  }
+
+  /**
+   * Release a response body that will not be used, such as the body of the
+   * losing response of a hedged request.
+   *
+   * @param body The response body
+   */
+
+  static void discard(
+    final OResponseBodyType<?> body)
+  {
+    switch (body) {
+      case final OResponseBodyType.Failure<?> failure -> {
+        drainAndClose(failure.stream());
+      }
+      case final OResponseBodyType.Success<?> success -> {
+        discardValue(success.value());
+      }
+    }
+  }
+
+  private static void discardValue(
+    final Object value)
+  {
+    if (value instanceof final InputStream stream) {
+      drainAndClose(stream);
+    }
+    if (value instanceof final OChecksumBodySubscriber.Result<?> result) {
+      discardValue(result.body());
+    }
+  }
+}
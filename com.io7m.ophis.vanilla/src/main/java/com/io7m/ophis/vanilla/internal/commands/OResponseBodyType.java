@@ -0,0 +1,87 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import java.io.InputStream;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.util.Objects;
+
+/**
+ * The body of an HTTP response. Error responses are always delivered as a
+ * stream so that they can be parsed, regardless of the handler that would
+ * have consumed a successful response.
+ *
+ * @param <T> The type of successful response bodies
+ */
+
+sealed interface OResponseBodyType<T>
+{
+  /**
+   * Wrap the given body handler such that it is only used for responses
+   * that do not indicate errors.
+   *
+   * @param handler The handler for successful responses
+   * @param <T>     The type of successful response bodies
+   *
+   * @return A body handler
+   */
+
+  static <T> BodyHandler<OResponseBodyType<T>> errorAware(
+    final BodyHandler<T> handler)
+  {
+    Objects.requireNonNull(handler, "handler");
+
+    return (final HttpResponse.ResponseInfo info) -> {
+      if (info.statusCode() >= 400) {
+        return BodySubscribers.mapping(
+          BodySubscribers.ofInputStream(),
+          Failure::new
+        );
+      }
+      return BodySubscribers.mapping(handler.apply(info), Success::new);
+    };
+  }
+
+  /**
+   * The body of a successful response.
+   *
+   * @param value The value produced by the body handler
+   * @param <T>   The type of successful response bodies
+   */
+
+  record Success<T>(T value)
+    implements OResponseBodyType<T>
+  {
+
+  }
+
+  /**
+   * The body of an error response.
+   *
+   * @param stream The response body
+   * @param <T>    The type of successful response bodies
+   */
+
+  record Failure<T>(InputStream stream)
+    implements OResponseBodyType<T>
+  {
+
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.commands;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The measurements of a single response: the time at which its headers
+ * arrived, the number of body bytes received, and the time at which its
+ * body ended. A hedged request produces one meter per request sent, and
+ * the attempt adopts the meter of the response that wins.
+ */
+
+final class OResponseMeter
+{
+  private final AtomicLong bytesReceived;
+  private volatile long headersAt;
+  private volatile long bodyCompletedAt;
+
+  OResponseMeter()
+  {
+    this.bytesReceived = new AtomicLong(0L);
+  }
+
+  void headersArrived()
+  {
+    this.headersAt = System.nanoTime();
+  }
+
+  void received(
+    final long size)
+  {
+    this.bytesReceived.addAndGet(size);
+  }
+
+  void bodyCompleted()
+  {
+    this.bodyCompletedAt = System.nanoTime();
+  }
+
+  /**
+   * @return The time the headers arrived, or 0 if they have not arrived
+   */
+
+  long headersAt()
+  {
+    return this.headersAt;
+  }
+
+  /**
+   * @return The time the body ended, or 0 if it has not ended
+   */
+
+  long bodyCompletedAt()
+  {
+    return this.bodyCompletedAt;
+  }
+
+  long bytesReceived()
+  {
+    return this.bytesReceived.get();
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTElementHandlerType;
+import com.io7m.blackthorne.core.BTElementParsingContextType;
+import com.io7m.blackthorne.core.BTIgnoreUnrecognizedElements;
+import com.io7m.blackthorne.core.BTQualifiedName;
+import com.io7m.blackthorne.core.Blackthorne;
+
+import java.util.Map;
+
+import static com.io7m.ophis.vanilla.internal.xml.OQName.s3Name;
+
+/**
+ * An element handler for the CommonPrefixes element of a ListBucketResult.
+ */
+
+public final class OXCommonPrefixes
+  implements BTElementHandlerType<String, String>
+{
+  private static final BTQualifiedName ELEMENT_NAME =
+    s3Name("CommonPrefixes");
+  private static final BTQualifiedName PREFIX =
+    s3Name("Prefix");
+
+  private String prefix = "";
+
+  /**
+   * @return The root element name
+   */
+
+  public static BTQualifiedName elementName()
+  {
+    return ELEMENT_NAME;
+  }
+
+  /**
+   * An element handler.
+   *
+   * @param context The parse context
+   */
+
+  public OXCommonPrefixes(
+    final BTElementParsingContextType context)
+  {
+
+  }
+
+  @Override
+  public Map<BTQualifiedName, BTElementHandlerConstructorType<?, ? extends String>>
+  onChildHandlersRequested(
+    final BTElementParsingContextType context)
+  {
+    return Map.ofEntries(
+      Map.entry(PREFIX, Blackthorne.forScalarString(PREFIX))
+    );
+  }
+
+  @Override
+  public BTIgnoreUnrecognizedElements onShouldIgnoreUnrecognizedElements(
+    final BTElementParsingContextType context)
+  {
+    return BTIgnoreUnrecognizedElements.IGNORE_UNRECOGNIZED_ELEMENTS;
+  }
+
+  @Override
+  public void onChildValueProduced(
+    final BTElementParsingContextType context,
+    final String result)
+  {
+    this.prefix = result;
+  }
+
+  @Override
+  public String onElementFinished(
+    final BTElementParsingContextType context)
+  {
+    return this.prefix;
+  }
+}
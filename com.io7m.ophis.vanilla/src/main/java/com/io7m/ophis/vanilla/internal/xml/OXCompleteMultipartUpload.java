@@ -0,0 +1,178 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTElementHandlerType;
+import com.io7m.blackthorne.core.BTElementParsingContextType;
+import com.io7m.blackthorne.core.BTIgnoreUnrecognizedElements;
+import com.io7m.blackthorne.core.BTQualifiedName;
+import com.io7m.blackthorne.core.Blackthorne;
+import com.io7m.ophis.api.commands.OCompleteMultipartUploadResponse;
+import org.xml.sax.Attributes;
+
+import java.util.Map;
+
+import static com.io7m.ophis.vanilla.internal.xml.OQName.s3Name;
+
+/**
+ * An element handler.
+ */
+
+public final class OXCompleteMultipartUpload
+  implements BTElementHandlerType<Object, OCompleteMultipartUploadResponse>
+{
+  private static final BTQualifiedName ELEMENT_NAME =
+    s3Name("CompleteMultipartUploadResult");
+  private static final BTQualifiedName LOCATION =
+    s3Name("Location");
+  private static final BTQualifiedName BUCKET =
+    s3Name("Bucket");
+  private static final BTQualifiedName KEY =
+    s3Name("Key");
+  private static final BTQualifiedName ETAG =
+    s3Name("ETag");
+
+  private OCompleteMultipartUploadResponse.Builder builder;
+
+  /**
+   * @return The root element name
+   */
+
+  public static BTQualifiedName elementName()
+  {
+    return ELEMENT_NAME;
+  }
+
+  /**
+   * An element handler.
+   *
+   * @param context The parse context
+   */
+
+  public OXCompleteMultipartUpload(
+    final BTElementParsingContextType context)
+  {
+
+  }
+
+  sealed interface FieldType
+  {
+    record FieldLocation(String value) implements FieldType
+    {
+    }
+
+    record FieldBucket(String value) implements FieldType
+    {
+    }
+
+    record FieldKey(String value) implements FieldType
+    {
+    }
+
+    record FieldETag(String value) implements FieldType
+    {
+    }
+  }
+
+  @Override
+  public Map<BTQualifiedName, BTElementHandlerConstructorType<?, ?>>
+  onChildHandlersRequested(
+    final BTElementParsingContextType context)
+  {
+    final var locationHandler =
+      Blackthorne.mapConstructor(
+        Blackthorne.forScalarString(LOCATION),
+        FieldType.FieldLocation::new
+      );
+    final var bucketHandler =
+      Blackthorne.mapConstructor(
+        Blackthorne.forScalarString(BUCKET),
+        FieldType.FieldBucket::new
+      );
+    final var keyHandler =
+      Blackthorne.mapConstructor(
+        Blackthorne.forScalarString(KEY),
+        FieldType.FieldKey::new
+      );
+    final var etagHandler =
+      Blackthorne.mapConstructor(
+        Blackthorne.forScalarString(ETAG),
+        FieldType.FieldETag::new
+      );
+
+    return Map.ofEntries(
+      Map.entry(LOCATION, locationHandler),
+      Map.entry(BUCKET, bucketHandler),
+      Map.entry(KEY, keyHandler),
+      Map.entry(ETAG, etagHandler)
+    );
+  }
+
+  @Override
+  public BTIgnoreUnrecognizedElements onShouldIgnoreUnrecognizedElements(
+    final BTElementParsingContextType context)
+  {
+    return BTIgnoreUnrecognizedElements.IGNORE_UNRECOGNIZED_ELEMENTS;
+  }
+
+  @Override
+  public void onElementStart(
+    final BTElementParsingContextType context,
+    final Attributes attributes)
+  {
+    this.builder = OCompleteMultipartUploadResponse.builder();
+  }
+
+  @Override
+  public void onChildValueProduced(
+    final BTElementParsingContextType context,
+    final Object result)
+  {
+    switch (result) {
+      case final FieldType f -> {
+        switch (f) {
+          case final FieldType.FieldLocation ff -> {
+            this.builder.setLocation(ff.value);
+          }
+          case final FieldType.FieldBucket ff -> {
+            this.builder.setBucketName(ff.value);
+          }
+          case final FieldType.FieldKey ff -> {
+            this.builder.setKey(ff.value);
+          }
+          case final FieldType.FieldETag ff -> {
+            this.builder.setETag(ff.value);
+          }
+        }
+      }
+      default -> {
+        throw new IllegalStateException(
+          "Unexpected value: %s".formatted(result)
+        );
+      }
+    }
+  }
+
+  @Override
+  public OCompleteMultipartUploadResponse onElementFinished(
+    final BTElementParsingContextType context)
+  {
+    return this.builder.build();
+  }
+}
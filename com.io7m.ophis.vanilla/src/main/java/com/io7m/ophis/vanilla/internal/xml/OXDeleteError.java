@@ -0,0 +1,151 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTElementHandlerType;
+import com.io7m.blackthorne.core.BTElementParsingContextType;
+import com.io7m.blackthorne.core.BTIgnoreUnrecognizedElements;
+import com.io7m.blackthorne.core.BTQualifiedName;
+import com.io7m.blackthorne.core.Blackthorne;
+import com.io7m.ophis.api.commands.ODeleteObjectsError;
+
+import java.util.Map;
+
+import static com.io7m.ophis.vanilla.internal.xml.OQName.s3Name;
+
+/**
+ * An element handler for the errors reported within a DeleteObjects
+ * response. Unlike the top-level error element, these errors are in the S3
+ * namespace.
+ */
+
+public final class OXDeleteError
+  implements BTElementHandlerType<OXDeleteError.FieldType, ODeleteObjectsError>
+{
+  private static final BTQualifiedName ELEMENT_NAME =
+    s3Name("Error");
+  private static final BTQualifiedName KEY =
+    s3Name("Key");
+  private static final BTQualifiedName CODE =
+    s3Name("Code");
+  private static final BTQualifiedName MESSAGE =
+    s3Name("Message");
+
+  private String key = "";
+  private String code = "";
+  private String message = "";
+
+  /**
+   * @return The element name
+   */
+
+  public static BTQualifiedName elementName()
+  {
+    return ELEMENT_NAME;
+  }
+
+  /**
+   * An element handler.
+   *
+   * @param context The parse context
+   */
+
+  public OXDeleteError(
+    final BTElementParsingContextType context)
+  {
+
+  }
+
+  sealed interface FieldType
+  {
+    record FieldKey(String value) implements FieldType
+    {
+    }
+
+    record FieldCode(String value) implements FieldType
+    {
+    }
+
+    record FieldMessage(String value) implements FieldType
+    {
+    }
+  }
+
+  @Override
+  public Map<BTQualifiedName, BTElementHandlerConstructorType<?, ? extends FieldType>>
+  onChildHandlersRequested(
+    final BTElementParsingContextType context)
+  {
+    return Map.ofEntries(
+      Map.entry(
+        KEY,
+        Blackthorne.mapConstructor(
+          OXText.constructor(),
+          FieldType.FieldKey::new
+        )
+      ),
+      Map.entry(
+        CODE,
+        Blackthorne.mapConstructor(
+          OXText.constructor(),
+          FieldType.FieldCode::new
+        )
+      ),
+      Map.entry(
+        MESSAGE,
+        Blackthorne.mapConstructor(
+          OXText.constructor(),
+          FieldType.FieldMessage::new
+        )
+      )
+    );
+  }
+
+  @Override
+  public BTIgnoreUnrecognizedElements onShouldIgnoreUnrecognizedElements(
+    final BTElementParsingContextType context)
+  {
+    return BTIgnoreUnrecognizedElements.IGNORE_UNRECOGNIZED_ELEMENTS;
+  }
+
+  @Override
+  public void onChildValueProduced(
+    final BTElementParsingContextType context,
+    final FieldType result)
+  {
+    switch (result) {
+      case final FieldType.FieldKey f -> {
+        this.key = f.value();
+      }
+      case final FieldType.FieldCode f -> {
+        this.code = f.value();
+      }
+      case final FieldType.FieldMessage f -> {
+        this.message = f.value();
+      }
+    }
+  }
+
+  @Override
+  public ODeleteObjectsError onElementFinished(
+    final BTElementParsingContextType context)
+  {
+    return new ODeleteObjectsError(this.key, this.code, this.message);
+  }
+}
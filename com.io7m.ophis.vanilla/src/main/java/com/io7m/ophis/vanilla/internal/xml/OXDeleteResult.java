@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTElementHandlerType;
+import com.io7m.blackthorne.core.BTElementParsingContextType;
+import com.io7m.blackthorne.core.BTIgnoreUnrecognizedElements;
+import com.io7m.blackthorne.core.BTQualifiedName;
+import com.io7m.ophis.api.commands.ODeleteObjectsError;
+import com.io7m.ophis.api.commands.ODeleteObjectsResponse;
+import org.xml.sax.Attributes;
+
+import java.util.Map;
+
+import static com.io7m.ophis.vanilla.internal.xml.OQName.s3Name;
+
+/**
+ * An element handler.
+ */
+
+public final class OXDeleteResult
+  implements BTElementHandlerType<Object, ODeleteObjectsResponse>
+{
+  private static final BTQualifiedName ELEMENT_NAME =
+    s3Name("DeleteResult");
+
+  private ODeleteObjectsResponse.Builder builder;
+
+  /**
+   * @return The root element name
+   */
+
+  public static BTQualifiedName elementName()
+  {
+    return ELEMENT_NAME;
+  }
+
+  /**
+   * An element handler.
+   *
+   * @param context The parse context
+   */
+
+  public OXDeleteResult(
+    final BTElementParsingContextType context)
+  {
+
+  }
+
+  @Override
+  public Map<BTQualifiedName, BTElementHandlerConstructorType<?, ?>>
+  onChildHandlersRequested(
+    final BTElementParsingContextType context)
+  {
+    return Map.ofEntries(
+      Map.entry(OXDeleted.elementName(), OXDeleted::new),
+      Map.entry(OXDeleteError.elementName(), OXDeleteError::new)
+    );
+  }
+
+  @Override
+  public BTIgnoreUnrecognizedElements onShouldIgnoreUnrecognizedElements(
+    final BTElementParsingContextType context)
+  {
+    return BTIgnoreUnrecognizedElements.IGNORE_UNRECOGNIZED_ELEMENTS;
+  }
+
+  @Override
+  public void onElementStart(
+    final BTElementParsingContextType context,
+    final Attributes attributes)
+  {
+    this.builder = ODeleteObjectsResponse.builder();
+  }
+
+  @Override
+  public void onChildValueProduced(
+    final BTElementParsingContextType context,
+    final Object result)
+  {
+    switch (result) {
+      case final OXDeleted.Deleted d -> {
+        this.builder.addDeleted(d.key());
+      }
+      case final ODeleteObjectsError e -> {
+        this.builder.addErrors(e);
+      }
+      default -> {
+        throw new IllegalStateException(
+          "Unexpected value: %s".formatted(result)
+        );
+      }
+    }
+  }
+
+  @Override
+  public ODeleteObjectsResponse onElementFinished(
+    final BTElementParsingContextType context)
+  {
+    return this.builder.build();
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTElementHandlerType;
+import com.io7m.blackthorne.core.BTElementParsingContextType;
+import com.io7m.blackthorne.core.BTIgnoreUnrecognizedElements;
+import com.io7m.blackthorne.core.BTQualifiedName;
+
+import java.util.Map;
+
+import static com.io7m.ophis.vanilla.internal.xml.OQName.s3Name;
+
+/**
+ * An element handler.
+ */
+
+public final class OXDeleted
+  implements BTElementHandlerType<String, OXDeleted.Deleted>
+{
+  private static final BTQualifiedName ELEMENT_NAME =
+    s3Name("Deleted");
+  private static final BTQualifiedName KEY =
+    s3Name("Key");
+
+  private String key = "";
+
+  /**
+   * @return The element name
+   */
+
+  public static BTQualifiedName elementName()
+  {
+    return ELEMENT_NAME;
+  }
+
+  /**
+   * An element handler.
+   *
+   * @param context The parse context
+   */
+
+  public OXDeleted(
+    final BTElementParsingContextType context)
+  {
+
+  }
+
+  /**
+   * A deleted object.
+   *
+   * @param key The object key
+   */
+
+  public record Deleted(String key)
+  {
+
+  }
+
+  @Override
+  public Map<BTQualifiedName, BTElementHandlerConstructorType<?, ? extends String>>
+  onChildHandlersRequested(
+    final BTElementParsingContextType context)
+  {
+    return Map.of(KEY, OXText.constructor());
+  }
+
+  @Override
+  public BTIgnoreUnrecognizedElements onShouldIgnoreUnrecognizedElements(
+    final BTElementParsingContextType context)
+  {
+    return BTIgnoreUnrecognizedElements.IGNORE_UNRECOGNIZED_ELEMENTS;
+  }
+
+  @Override
+  public void onChildValueProduced(
+    final BTElementParsingContextType context,
+    final String result)
+  {
+    this.key = result;
+  }
+
+  @Override
+  public Deleted onElementFinished(
+    final BTElementParsingContextType context)
+  {
+    return new Deleted(this.key);
+  }
+}
@@ -80,6 +80,15 @@ public final class OXError
     return ELEMENT_NAME;
   }
 
+  /**
+   * @return A constructor for handlers of the error element
+   */
+
+  public static BTElementHandlerConstructorType<?, OError> constructor()
+  {
+    return OXError::new;
+  }
+
   @Override
   public Map<BTQualifiedName, BTElementHandlerConstructorType<?, ? extends ErrorFieldType>>
   onChildHandlersRequested(
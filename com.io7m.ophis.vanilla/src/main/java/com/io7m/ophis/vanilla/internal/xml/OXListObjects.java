@@ -125,6 +125,10 @@ public final class OXListObjects
     record FieldStartAfter(String value) implements FieldType
     {
     }
+
+    record FieldCommonPrefix(String value) implements FieldType
+    {
+    }
   }
 
   @Override
@@ -177,6 +181,11 @@ public final class OXListObjects
         Blackthorne.forScalarString(START_AFTER),
         FieldType.FieldStartAfter::new
       );
+    final var commonPrefixHandler =
+      Blackthorne.mapConstructor(
+        OXCommonPrefixes::new,
+        FieldType.FieldCommonPrefix::new
+      );
     final var encodingHandler =
       Blackthorne.mapConstructor(
         Blackthorne.forScalarString(ENCODING_TYPE),
@@ -194,6 +203,7 @@ public final class OXListObjects
       Map.entry(NEXT_CONTINUATION_TOKEN, nextContinuationHandler),
       Map.entry(START_AFTER, startAfterHandler),
       Map.entry(ENCODING_TYPE, encodingHandler),
+      Map.entry(OXCommonPrefixes.elementName(), commonPrefixHandler),
       Map.entry(OXObjectContents.elementName(), OXObjectContents::new)
     );
   }
@@ -226,6 +236,9 @@ public final class OXListObjects
 
       case final FieldType f -> {
         switch (f) {
+          case final FieldType.FieldCommonPrefix ff -> {
+            this.builder.addCommonPrefixes(ff.value);
+          }
           case final FieldType.FieldContinuationToken ff -> {
             this.builder.setContinuationToken(ff.value);
           }
@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.ophis.api.commands.OCompletedPart;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Functions to serialize request bodies.
+ */
+
+public final class OXSerializers
+{
+  private static final String S3_NAMESPACE =
+    "http://s3.amazonaws.com/doc/2006-03-01/";
+
+  private static final XMLOutputFactory OUTPUTS =
+    XMLOutputFactory.newFactory();
+
+  private OXSerializers()
+  {
+
+  }
+
+  /**
+   * Serialize the body of a CompleteMultipartUpload request.
+   *
+   * @param parts The completed parts
+   *
+   * @return The serialized body
+   */
+
+  public static byte[] completeMultipartUpload(
+    final List<OCompletedPart> parts)
+  {
+    Objects.requireNonNull(parts, "parts");
+
+    try {
+      final var output = new ByteArrayOutputStream(64 + parts.size() * 96);
+      final var writer = OUTPUTS.createXMLStreamWriter(output, "UTF-8");
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeStartElement("CompleteMultipartUpload");
+      writer.writeDefaultNamespace(S3_NAMESPACE);
+
+      for (final var part : parts) {
+        writer.writeStartElement("Part");
+        writeTextElement(
+          writer,
+          "PartNumber",
+          Integer.toUnsignedString(part.partNumber())
+        );
+        writeTextElement(writer, "ETag", part.eTag());
+        writer.writeEndElement();
+      }
+
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.close();
+      return output.toByteArray();
+    } catch (final XMLStreamException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Serialize the body of a DeleteObjects request.
+   *
+   * @param keys  The object keys
+   * @param quiet {@code true} if the request should use quiet mode
+   *
+   * @return The serialized body
+   */
+
+  public static byte[] deleteObjects(
+    final List<String> keys,
+    final boolean quiet)
+  {
+    Objects.requireNonNull(keys, "keys");
+
+    try {
+      final var output = new ByteArrayOutputStream(64 + keys.size() * 64);
+      final var writer = OUTPUTS.createXMLStreamWriter(output, "UTF-8");
+      writer.writeStartDocument("UTF-8", "1.0");
+      writer.writeStartElement("Delete");
+      writer.writeDefaultNamespace(S3_NAMESPACE);
+      writeTextElement(writer, "Quiet", Boolean.toString(quiet));
+
+      for (final var key : keys) {
+        writer.writeStartElement("Object");
+        writeTextElement(writer, "Key", key);
+        writer.writeEndElement();
+      }
+
+      writer.writeEndElement();
+      writer.writeEndDocument();
+      writer.close();
+      return output.toByteArray();
+    } catch (final XMLStreamException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void writeTextElement(
+    final XMLStreamWriter writer,
+    final String name,
+    final String text)
+    throws XMLStreamException
+  {
+    writer.writeStartElement(name);
+    writer.writeCharacters(text);
+    writer.writeEndElement();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2024 Mark Raynsford <code@io7m.com> https://www.io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+
+package com.io7m.ophis.vanilla.internal.xml;
+
+import com.io7m.blackthorne.core.BTElementHandlerConstructorType;
+import com.io7m.blackthorne.core.BTElementHandlerType;
+import com.io7m.blackthorne.core.BTElementParsingContextType;
+
+/**
+ * An element handler that produces the complete text content of an element.
+ * SAX parsers may deliver the text of an element in several pieces, such as
+ * when the text contains entity references, and so the pieces are
+ * accumulated rather than only the last piece being kept.
+ */
+
+public final class OXText
+  implements BTElementHandlerType<Object, String>
+{
+  private final StringBuilder text;
+
+  /**
+   * An element handler.
+   *
+   * @param context The parse context
+   */
+
+  public OXText(
+    final BTElementParsingContextType context)
+  {
+    this.text = new StringBuilder(64);
+  }
+
+  /**
+   * @return A constructor for text handlers
+   */
+
+  public static BTElementHandlerConstructorType<Object, String> constructor()
+  {
+    return OXText::new;
+  }
+
+  @Override
+  public void onCharacters(
+    final BTElementParsingContextType context,
+    final char[] data,
+    final int offset,
+    final int length)
+  {
+    this.text.append(data, offset, length);
+  }
+
+  @Override
+  public String onElementFinished(
+    final BTElementParsingContextType context)
+  {
+    return this.text.toString();
+  }
+}
@@ -15,9 +15,17 @@
  */
 
 import com.io7m.ophis.vanilla.internal.commands.OClientCommandFactoryType;
+import com.io7m.ophis.vanilla.internal.commands.OCmdAbortMultipartUploadF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdCompleteMultipartUploadF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdCreateMultipartUploadF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdDeleteObjectF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdDeleteObjectsF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdGetObjectF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdHeadObjectF;
 import com.io7m.ophis.vanilla.internal.commands.OCmdListBucketsF;
 import com.io7m.ophis.vanilla.internal.commands.OCmdListObjectsF;
 import com.io7m.ophis.vanilla.internal.commands.OCmdPutObjectF;
+import com.io7m.ophis.vanilla.internal.commands.OCmdUploadPartF;
 
 /**
  * S3 client (Vanilla client implementation).
@@ -35,20 +43,30 @@ module com.io7m.ophis.vanilla
   requires com.io7m.jmulticlose.core;
   requires com.io7m.jxe.core;
   requires java.net.http;
+  requires java.xml;
+  requires jdk.jfr;
 
   uses OClientCommandFactoryType;
 
   provides OClientCommandFactoryType
-    with OCmdListBucketsF,
+    with OCmdAbortMultipartUploadF,
+      OCmdCompleteMultipartUploadF,
+      OCmdCreateMultipartUploadF,
+      OCmdDeleteObjectF,
+      OCmdDeleteObjectsF,
+      OCmdGetObjectF,
+      OCmdHeadObjectF,
+      OCmdListBucketsF,
       OCmdListObjectsF,
-      OCmdPutObjectF;
+      OCmdPutObjectF,
+      OCmdUploadPartF;
 
   exports com.io7m.ophis.vanilla;
 
   exports com.io7m.ophis.vanilla.internal
-    to com.io7m.ophis.tests;
+    to com.io7m.ophis.tests, com.io7m.ophis.benchmarks;
   exports com.io7m.ophis.vanilla.internal.commands
-    to com.io7m.ophis.tests;
+    to com.io7m.ophis.tests, com.io7m.ophis.benchmarks;
   exports com.io7m.ophis.vanilla.internal.xml
-    to com.io7m.ophis.tests;
+    to com.io7m.ophis.tests, com.io7m.ophis.benchmarks;
 }